@@ -0,0 +1,150 @@
+package cloud.metaapi.sdk.benchmarks;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.sun.net.httpserver.HttpServer;
+
+import cloud.metaapi.sdk.clients.HttpClient;
+import cloud.metaapi.sdk.clients.HttpRequestOptions;
+import cloud.metaapi.sdk.clients.MetaStatsClient;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsHttpClient;
+import cloud.metaapi.sdk.clients.RetryOptions;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Measures the full {@link MetaStatsClient#getMetrics(String)} path against a local stub HTTP server,
+ * including connection handling, response buffering or streaming and deserialization
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientBenchmark {
+
+  private static final String domain = "stub.local";
+  private static final String host = "https://metastats-api-v1." + domain;
+
+  /**
+   * Size of the benchmarked payload
+   */
+  @Param({"SMALL", "ONE_YEAR", "TEN_YEARS", "LARGE_TRADE_DURATION"})
+  public Payloads.Size size;
+
+  private HttpServer server;
+  private ExecutorService serverExecutor;
+  private MetaStatsClient bufferingClient;
+  private MetaStatsClient streamingClient;
+
+  /**
+   * Buffering HTTP client sending requests to the stub server
+   */
+  static class StubHttpClient extends HttpClient {
+    private final String url;
+
+    StubHttpClient(String url) throws ValidationException {
+      super(60000, 60000, new RetryOptions());
+      this.url = url;
+    }
+
+    @Override
+    public CompletableFuture<String> request(HttpRequestOptions options, int endTime) {
+      options.setUrl(options.getUrl().replace(host, url));
+      return super.request(options, endTime);
+    }
+  }
+
+  /**
+   * Streaming HTTP client sending requests to the stub server
+   */
+  static class StubStreamingHttpClient extends MetaStatsHttpClient {
+    private final String url;
+
+    StubStreamingHttpClient(String url) throws ValidationException {
+      super(60000, 60000, new RetryOptions());
+      this.url = url;
+    }
+
+    @Override
+    public <T> CompletableFuture<T> requestStream(HttpRequestOptions options, ResponseHandler<T> handler,
+      RetryListener retryListener) {
+      options.setUrl(options.getUrl().replace(host, url));
+      return super.requestStream(options, handler, retryListener);
+    }
+  }
+
+  /**
+   * Starts the stub server and creates clients
+   * @throws IOException if failed to start the server
+   * @throws ValidationException if failed to create HTTP clients
+   */
+  @Setup
+  public void setUp() throws IOException, ValidationException {
+    byte[] payload = Payloads.generate(size).getBytes(StandardCharsets.UTF_8);
+    // without TCP_NODELAY delayed acknowledgements dominate the measured latency
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    serverExecutor = Executors.newFixedThreadPool(4);
+    server.setExecutor(serverExecutor);
+    server.createContext("/", exchange -> {
+      exchange.getResponseHeaders().add("content-type", "application/json");
+      exchange.sendResponseHeaders(200, payload.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(payload);
+      }
+    });
+    server.start();
+    String url = "http://localhost:" + server.getAddress().getPort();
+    bufferingClient = new MetaStatsClient(new StubHttpClient(url), "token", domain);
+    streamingClient = new MetaStatsClient(new StubStreamingHttpClient(url), "token", domain);
+  }
+
+  /**
+   * Stops the stub server
+   */
+  @TearDown
+  public void tearDown() {
+    server.stop(0);
+    serverExecutor.shutdown();
+  }
+
+  /**
+   * Retrieves metrics buffering the response into a string before deserialization
+   * @return metrics
+   */
+  @Benchmark
+  public Metrics getMetricsBuffered() {
+    return bufferingClient.getMetrics("accountId").join();
+  }
+
+  /**
+   * Retrieves metrics deserializing the response straight off the connection
+   * @return metrics
+   */
+  @Benchmark
+  public Metrics getMetricsStreamed() {
+    return streamingClient.getMetrics("accountId").join();
+  }
+}
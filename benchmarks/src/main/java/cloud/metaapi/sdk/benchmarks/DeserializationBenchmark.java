@@ -0,0 +1,117 @@
+package cloud.metaapi.sdk.benchmarks;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import cloud.metaapi.sdk.clients.HttpClient;
+import cloud.metaapi.sdk.clients.HttpRequestOptions;
+import cloud.metaapi.sdk.clients.MetaStatsClient;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetricsSection;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+import cloud.metaapi.sdk.metrics.CompactMetrics;
+import cloud.metaapi.sdk.util.JsonMapper;
+
+/**
+ * Measures deserialization of metrics responses without network access. The client benchmarks serve
+ * the payload from memory, so they measure the client overhead on top of deserialization
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeserializationBenchmark {
+
+  /**
+   * Size of the benchmarked payload
+   */
+  @Param({"SMALL", "ONE_YEAR", "TEN_YEARS", "LARGE_TRADE_DURATION"})
+  public Payloads.Size size;
+
+  private String payload;
+  private ObjectReader reader;
+  private MetaStatsClient client;
+
+  /**
+   * HTTP client returning a prepared response without network access
+   */
+  static class InMemoryHttpClient extends HttpClient {
+    private final String response;
+
+    InMemoryHttpClient(String response) throws ValidationException {
+      this.response = response;
+    }
+
+    @Override
+    public CompletableFuture<String> request(HttpRequestOptions options, int endTime) {
+      return CompletableFuture.completedFuture(response);
+    }
+  }
+
+  /**
+   * Generates the payload and creates the client
+   * @throws ValidationException if failed to create the HTTP client
+   */
+  @Setup
+  public void setUp() throws ValidationException {
+    payload = Payloads.generate(size);
+    reader = JsonMapper.getInstance().readerFor(Metrics.class).at("/metrics");
+    client = new MetaStatsClient(new InMemoryHttpClient(payload), "token");
+  }
+
+  /**
+   * Binds the whole response to the metrics model with the shared object mapper
+   * @return metrics
+   * @throws IOException if failed to parse the payload
+   */
+  @Benchmark
+  public Metrics databind() throws IOException {
+    return reader.readValue(payload);
+  }
+
+  /**
+   * Retrieves metrics with all sections through the client
+   * @return metrics
+   */
+  @Benchmark
+  public Metrics getMetrics() {
+    return client.getMetrics("accountId").join();
+  }
+
+  /**
+   * Retrieves scalar metrics only, skipping all list sections
+   * @return metrics
+   */
+  @Benchmark
+  public Metrics getMetricsScalarsOnly() {
+    return client.getMetrics("accountId", false, EnumSet.noneOf(MetricsSection.class)).join();
+  }
+
+  /**
+   * Streams metrics into the compact representation
+   * @return compact metrics
+   */
+  @Benchmark
+  public CompactMetrics streamCompactMetrics() {
+    CompactMetrics.Builder builder = new CompactMetrics.Builder();
+    return builder.build(client.streamMetrics("accountId", false, null, builder).join());
+  }
+}
@@ -0,0 +1,168 @@
+package cloud.metaapi.sdk.benchmarks;
+
+import java.time.LocalDate;
+import java.util.Random;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Generates realistic metrics responses of different sizes. Generation is seeded, so every run
+ * benchmarks exactly the same payloads
+ */
+public class Payloads {
+
+  /**
+   * Payload size
+   */
+  public enum Size {
+    /**
+     * One month of trading history with few trades
+     */
+    SMALL(30, 5, 20),
+    /**
+     * One year of trading history
+     */
+    ONE_YEAR(365, 20, 200),
+    /**
+     * Ten years of trading history
+     */
+    TEN_YEARS(3650, 40, 500),
+    /**
+     * Short history with many trades per trade duration bucket
+     */
+    LARGE_TRADE_DURATION(90, 200, 2000);
+
+    private final int days;
+    private final int durations;
+    private final int tradesPerDuration;
+
+    Size(int days, int durations, int tradesPerDuration) {
+      this.days = days;
+      this.durations = durations;
+      this.tradesPerDuration = tradesPerDuration;
+    }
+  }
+
+  private static final ObjectMapper mapper = new ObjectMapper();
+  private static final String[] currencies = {"EURUSD", "GBPUSD", "USDJPY", "AUDUSD", "XAUUSD"};
+  private static final String[] columns = {"seconds", "minutes", "hours", "days", "weeks", "months"};
+
+  /**
+   * Generates metrics response
+   * @param size payload size
+   * @return metrics response JSON
+   */
+  public static String generate(Size size) {
+    Random random = new Random(42);
+    ObjectNode metrics = mapper.createObjectNode();
+    metrics.put("balance", 10105.5).put("equity", 10102.5).put("trades", size.days * 3).put("gain", 0.0125)
+      .put("highestBalance", 10400.2).put("highestBalanceDate", "2020-09-20 15:00:00.000")
+      .put("bestTrade", 304.2).put("worstTrade", -112.7).put("dailyGain", 0.0004).put("monthlyGain", 0.012)
+      .put("profitFactor", 1.35).put("sharpeRatio", 0.42).put("sortinoRatio", 0.61).put("zScore", -1.2)
+      .put("wonTradesPercent", 58.3).put("lostTradesPercent", 41.7).put("daysSinceTradingStarted", size.days);
+    LocalDate start = LocalDate.of(2020, 1, 1);
+    ArrayNode currencySummary = metrics.putArray("currencySummary");
+    for (String currency : currencies) {
+      ObjectNode summary = currencySummary.addObject().put("currency", currency);
+      ArrayNode history = summary.putArray("history");
+      for (int day = 0; day < size.days; day += 7) {
+        history.addObject().put("date", start.plusDays(day).toString())
+          .put("totalProfit", random.nextGaussian() * 100).put("totalPips", random.nextGaussian() * 50)
+          .put("shortProfit", random.nextGaussian() * 50).put("longProfit", random.nextGaussian() * 50);
+      }
+      summary.putObject("total").put("profit", random.nextGaussian() * 500).put("trades", size.days / 2)
+        .put("pips", random.nextGaussian() * 100).put("wonTrades", size.days / 3).put("lostTrades", size.days / 6);
+      summary.putObject("short").put("profit", random.nextGaussian() * 200).put("trades", size.days / 4);
+      summary.putObject("long").put("profit", random.nextGaussian() * 200).put("trades", size.days / 4);
+    }
+    ArrayNode dailyGrowth = metrics.putArray("dailyGrowth");
+    double balance = 10000;
+    for (int day = 0; day < size.days; day++) {
+      double profit = random.nextGaussian() * 20;
+      balance += profit;
+      ObjectNode row = dailyGrowth.addObject().put("date", start.plusDays(day).toString())
+        .put("profit", profit).put("lots", random.nextDouble()).put("gains", profit / balance)
+        .put("totalProfit", balance - 10000).put("totalGains", (balance - 10000) / 10000).put("balance", balance);
+      if (random.nextInt(5) == 0) {
+        row.put("drawdownPercentage", random.nextDouble() * 3).put("drawdownProfit", random.nextDouble() * 300);
+      }
+    }
+    ArrayNode monthlyAnalytics = metrics.putArray("monthlyAnalytics");
+    for (int month = 0; month < size.days / 30; month++) {
+      ObjectNode row = monthlyAnalytics.addObject().put("date", start.plusMonths(month).toString().substring(0, 7))
+        .put("profit", random.nextGaussian() * 300).put("lots", random.nextDouble() * 10)
+        .put("gains", random.nextGaussian() * 0.01).put("trades", random.nextInt(100));
+      ArrayNode monthCurrencies = row.putArray("currencies");
+      for (String currency : currencies) {
+        monthCurrencies.addObject().put("currency", currency).put("rewardToRiskRatio", random.nextDouble() * 3)
+          .put("popularityPercent", random.nextDouble() * 100)
+          .put("averageHoldingTimeLongsInMilliseconds", random.nextInt(10000000));
+      }
+    }
+    ArrayNode closeTradesByWeekDay = metrics.putArray("closeTradesByWeekDay");
+    for (int day = 0; day < 7; day++) {
+      tradeByTime(closeTradesByWeekDay.addObject().put("day", day), random);
+    }
+    ArrayNode openTradesByHour = metrics.putArray("openTradesByHour");
+    for (int hour = 0; hour < 24; hour++) {
+      tradeByTime(openTradesByHour.addObject().put("hour", hour), random);
+    }
+    ObjectNode periods = metrics.putObject("periods");
+    for (String period : new String[] {"today", "thisWeek", "thisMonth", "thisYear"}) {
+      periods.putObject(period).put("profit", random.nextGaussian() * 100).put("gain", random.nextGaussian() * 0.01)
+        .put("trades", random.nextInt(50)).put("profitDifference", random.nextGaussian() * 10);
+    }
+    ArrayNode riskOfRuin = metrics.putArray("riskOfRuin");
+    for (int loss = 10; loss <= 100; loss += 10) {
+      riskOfRuin.addObject().put("lossSize", loss).put("probabilityOfLoss", random.nextDouble())
+        .put("consecutiveLosingTrades", loss / 5);
+    }
+    ObjectNode tradeDuration = metrics.putObject("tradeDuration");
+    tradeDurations(tradeDuration.putArray("won"), size, random);
+    tradeDurations(tradeDuration.putArray("lost"), size, random);
+    ArrayNode diagram = metrics.putArray("tradeDurationDiagram");
+    for (int i = 0; i < columns.length; i++) {
+      ObjectNode column = diagram.addObject().put("name", columns[i]).put("durations", size.durations / 6 + 1)
+        .put("trades", size.tradesPerDuration).put("minDurationInSeconds", i * 60);
+      tradeValues(column.putObject("won"), size.tradesPerDuration / 2, random);
+      tradeValues(column.putObject("lost"), size.tradesPerDuration / 2, random);
+    }
+    ObjectNode response = mapper.createObjectNode();
+    response.set("metrics", metrics);
+    try {
+      return mapper.writeValueAsString(response);
+    } catch (JsonProcessingException err) {
+      throw new IllegalStateException(err);
+    }
+  }
+
+  private static void tradeByTime(ObjectNode row, Random random) {
+    row.put("profit", random.nextGaussian() * 100).put("lots", random.nextDouble() * 5)
+      .put("gains", random.nextGaussian() * 0.01).put("trades", random.nextInt(100))
+      .put("wonProfit", random.nextDouble() * 200).put("lostProfit", -random.nextDouble() * 100)
+      .put("shortTrades", random.nextInt(50)).put("longTrades", random.nextInt(50));
+  }
+
+  private static void tradeDurations(ArrayNode durations, Size size, Random random) {
+    for (int i = 0; i < size.durations; i++) {
+      ObjectNode duration = durations.addObject().put("durationInMinutes", i * 15);
+      tradeValues(duration, 1 + random.nextInt(size.tradesPerDuration), random);
+    }
+  }
+
+  private static void tradeValues(ObjectNode node, int trades, Random random) {
+    ArrayNode gains = node.putArray("gains");
+    ArrayNode profits = node.putArray("profits");
+    ArrayNode lots = node.putArray("lots");
+    ArrayNode pips = node.putArray("pips");
+    for (int i = 0; i < trades; i++) {
+      gains.add(random.nextGaussian() * 0.01);
+      profits.add(random.nextGaussian() * 50);
+      lots.add(Math.round(random.nextDouble() * 100) / 100.0);
+      pips.add(random.nextGaussian() * 20);
+    }
+  }
+}
@@ -1,15 +1,36 @@
 package cloud.metaapi.sdk;
 
+import java.io.IOException;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.reactivestreams.Publisher;
 
-import cloud.metaapi.sdk.clients.HttpClient;
+import cloud.metaapi.sdk.clients.CircuitBreaker;
+import cloud.metaapi.sdk.clients.ConcurrencyLimiter;
+import cloud.metaapi.sdk.clients.ConditionalRequestCache;
+import cloud.metaapi.sdk.clients.MetaStatsBlockingClient;
+import cloud.metaapi.sdk.clients.MetaStatsHttpClient;
 import cloud.metaapi.sdk.clients.MetaStatsClient;
+import cloud.metaapi.sdk.clients.MetaStatsRequestListener;
+import cloud.metaapi.sdk.clients.MetricsCache;
+import cloud.metaapi.sdk.clients.MetricsSnapshotStore;
+import cloud.metaapi.sdk.clients.MetricsStreamListener;
+import cloud.metaapi.sdk.clients.MetricsSection;
+import cloud.metaapi.sdk.clients.RateLimiter;
+import cloud.metaapi.sdk.clients.RequestHedger;
 import cloud.metaapi.sdk.clients.RetryOptions;
 import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+import cloud.metaapi.sdk.clients.MetaStatsClient.AccountMetricsResult;
+import cloud.metaapi.sdk.clients.MetaStatsClient.BulkOptions;
 import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.metrics.MetricsRefreshScheduler;
 
 /**
  * MetaStats API SDK
@@ -18,6 +39,9 @@ public class MetaStats {
   
   private static Logger logger = LogManager.getLogger(MetaStats.class);
   private MetaStatsClient metaStatsClient;
+  private MetaStatsBlockingClient blockingClient;
+  private MetaStatsHttpClient httpClient;
+  private MetaStatsHttpClient blockingHttpClient;
   
   /**
    * Connection options
@@ -39,6 +63,65 @@ public class MetaStats {
      * Retry options
      */
     public RetryOptions retryOpts = new RetryOptions();
+    /**
+     * Options of a dedicated pool of connections kept alive between metrics requests, which has to
+     * be released with {@link MetaStats#close}, or {@code null} to share the connections of the
+     * default Unirest client, default null. The blocking client always uses a dedicated pool, with
+     * default options if this field is {@code null}
+     */
+    public MetaStatsHttpClient.PoolOptions connectionPoolOpts;
+    /**
+     * Metrics cache options, or {@code null} to request metrics on each call, default null
+     */
+    public MetricsCache.Options cacheOpts;
+    /**
+     * Listener receiving telemetry of metrics requests, e.g.
+     * {@link cloud.metaapi.sdk.clients.MicrometerRequestListener}, or {@code null}, default null
+     */
+    public MetaStatsRequestListener requestListener;
+    /**
+     * Client-side rate limiter options, or {@code null} to send requests without limiting,
+     * default null
+     */
+    public RateLimiter.Options rateLimitOpts;
+    /**
+     * Options of on-disk metrics snapshots restored into the metrics cache on startup, or
+     * {@code null} to keep cached metrics in memory only, default null. Enables the metrics cache
+     * with default options if cache options are not specified
+     */
+    public MetricsSnapshotStore.Options snapshotOpts;
+    /**
+     * Options of conditional requests which reuse previous metrics of an account if the server
+     * reports that they were not modified, or {@code null} to always download metrics, default null
+     */
+    public ConditionalRequestCache.Options conditionalRequestOpts;
+    /**
+     * Options of the circuit breaker failing requests immediately while the API is unavailable,
+     * or {@code null} to always send requests, default null
+     */
+    public CircuitBreaker.Options circuitBreakerOpts;
+    /**
+     * Options of the adaptive limit of concurrent requests, or {@code null} to not limit
+     * concurrency, default null
+     */
+    public ConcurrencyLimiter.Options concurrencyLimitOpts;
+    /**
+     * Options of hedged metrics requests sent when a request is slower than most recent requests,
+     * or {@code null} to not hedge requests, default null
+     */
+    public RequestHedger.Options hedgingOpts;
+    /**
+     * Executor performing metrics requests and parsing their responses, or {@code null} to use the
+     * thread pool shared by MetaApi SDKs, default null. Each request blocks a thread of the executor
+     * while it is in progress, so the executor should not be bounded by the number of CPU cores
+     */
+    public Executor requestExecutor;
+    /**
+     * Executor completing metrics futures, so that stages attached to them do not run in the
+     * threads performing requests, or {@code null} to complete them in the thread which has parsed
+     * the response without a thread handoff, default null
+     */
+    public Executor completionExecutor;
   }
    
   /**
@@ -84,8 +167,166 @@ public class MetaStats {
     return metaStatsClient.getMetrics(accountId, includeOpenPositions);
   }
   
+  /**
+   * Returns selected sections of metrics of MetaApi account. Scalar metrics are always included,
+   * list-heavy sections which were not requested are skipped during deserialization and remain
+   * {@code null}
+   * Https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/swagger/#!/default/get_users_current_accounts_accountId_metrics
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions will be included
+   * @param sections metrics sections to include
+   * @return account metrics
+   */
+  public CompletableFuture<Metrics> getMetrics(String accountId, boolean includeOpenPositions,
+    Set<MetricsSection> sections) {
+    return metaStatsClient.getMetrics(accountId, includeOpenPositions, sections);
+  }
+  
+  /**
+   * Returns metrics of MetaApi account, abandoning the request if it does not complete by a
+   * deadline. Cancelling the returned future or reaching the deadline aborts the HTTP connection
+   * and stops retries unless other calls share the request
+   * Https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/swagger/#!/default/get_users_current_accounts_accountId_metrics
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions will be included
+   * @param sections metrics sections to include, or {@code null} to include all sections
+   * @param deadline time by which the metrics are needed, or {@code null} to wait without a deadline
+   * @return account metrics, or a future failing with
+   * {@link cloud.metaapi.sdk.clients.TimeoutException} when the deadline is reached
+   */
+  public CompletableFuture<Metrics> getMetrics(String accountId, boolean includeOpenPositions,
+    Set<MetricsSection> sections, Instant deadline) {
+    return metaStatsClient.getMetrics(accountId, includeOpenPositions, sections, deadline);
+  }
+  
+  /**
+   * Retrieves metrics of MetaApi account, passing rows of list sections to a listener as soon as
+   * they are deserialized from the response instead of collecting them into the resulting metrics
+   * Https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/swagger/#!/default/get_users_current_accounts_accountId_metrics
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions will be included
+   * @param sections metrics sections to stream, or {@code null} to stream all sections
+   * @param listener listener receiving rows of list sections
+   * @return completable future resolving with scalar account metrics when the response is processed
+   */
+  public CompletableFuture<Metrics> streamMetrics(String accountId, boolean includeOpenPositions,
+    Set<MetricsSection> sections, MetricsStreamListener listener) {
+    return metaStatsClient.streamMetrics(accountId, includeOpenPositions, sections, listener);
+  }
+  
+  /**
+   * Returns metrics of multiple MetaApi accounts, keeping the number of requests in flight
+   * bounded by {@link BulkOptions#maxConcurrency}
+   * @param accountIds MetaApi account ids
+   * @param opts bulk retrieval options
+   * @return completable future resolving with results of all accounts in order of completion
+   */
+  public CompletableFuture<List<AccountMetricsResult>> getMetrics(Collection<String> accountIds,
+    BulkOptions opts) {
+    return metaStatsClient.getMetrics(accountIds, opts);
+  }
+  
+  /**
+   * Creates a scheduler keeping metrics of multiple MetaApi accounts fresh in background. Refreshed
+   * metrics are stored in the metrics cache, if enabled
+   * @param opts refresh scheduler options
+   * @return refresh scheduler, not started yet
+   * @throws ValidationException if specified options are invalid
+   */
+  public MetricsRefreshScheduler createRefreshScheduler(MetricsRefreshScheduler.Options opts)
+    throws ValidationException {
+    return new MetricsRefreshScheduler(metaStatsClient, opts);
+  }
+  
+  /**
+   * Returns a Reactive Streams publisher of metrics of multiple MetaApi accounts. Metrics are
+   * requested only as fast as the subscriber demands results, keeping the number of requests
+   * in flight bounded by {@link BulkOptions#maxConcurrency}
+   * @param accountIds MetaApi account ids
+   * @param opts bulk retrieval options
+   * @return publisher of results of all accounts in order of completion
+   */
+  public Publisher<AccountMetricsResult> publishMetrics(Collection<String> accountIds, BulkOptions opts) {
+    return metaStatsClient.publishMetrics(accountIds, opts);
+  }
+  
+  /**
+   * Returns synchronous client performing requests in the calling thread, suitable for running
+   * many concurrent requests on virtual threads. The client shares the rate limiter, circuit
+   * breaker, concurrency limiter and request listener with this instance, but does not use the
+   * metrics cache. Its requests are sent over a dedicated pool of connections configured by
+   * {@link ConnectionOptions#connectionPoolOpts}, or over a pool of
+   * {@link MetaStatsHttpClient.PoolOptions#maxConnections} default connections created on the first
+   * request if no pool is configured. Callers beyond the number of pooled connections wait for a
+   * free connection up to the request timeout, so the pool has to be sized for the expected number
+   * of concurrent callers. The pool is released with {@link #close}
+   * @return blocking MetaStats API client
+   */
+  public MetaStatsBlockingClient getBlockingClient() {
+    return blockingClient;
+  }
+  
+  /**
+   * Closes the dedicated pool of connections kept alive between metrics requests, if configured
+   * by {@link ConnectionOptions#connectionPoolOpts}, and the pool of the blocking client
+   */
+  public void close() {
+    if (httpClient == null) {
+      return;
+    }
+    try {
+      httpClient.close();
+      if (blockingHttpClient != httpClient) {
+        blockingHttpClient.close();
+      }
+    } catch (IOException err) {
+      logger.error("Failed to close HTTP connections", err);
+    }
+  }
+  
   private void initialize(String token, ConnectionOptions opts) throws ValidationException {
-    HttpClient httpClient = new HttpClient(opts.requestTimeout * 1000, opts.connectTimeout * 1000, opts.retryOpts);
+    httpClient = new MetaStatsHttpClient(opts.requestTimeout * 1000, opts.connectTimeout * 1000,
+      opts.retryOpts, opts.connectionPoolOpts);
+    httpClient.setExecutor(opts.requestExecutor);
     metaStatsClient = new MetaStatsClient(httpClient, token, opts.domain);
+    metaStatsClient.setCompletionExecutor(opts.completionExecutor);
+    if (opts.cacheOpts != null || opts.snapshotOpts != null) {
+      MetricsCache cache = new MetricsCache(opts.cacheOpts != null ? opts.cacheOpts
+        : new MetricsCache.Options());
+      if (opts.snapshotOpts != null) {
+        try {
+          cache.setSnapshotStore(new MetricsSnapshotStore(opts.snapshotOpts));
+        } catch (IOException err) {
+          logger.error("Failed to restore metrics snapshots, continuing without them", err);
+        }
+      }
+      metaStatsClient.setCache(cache);
+    }
+    metaStatsClient.setRequestListener(opts.requestListener);
+    if (opts.conditionalRequestOpts != null) {
+      metaStatsClient.setConditionalRequestCache(new ConditionalRequestCache(opts.conditionalRequestOpts));
+    }
+    blockingHttpClient = opts.connectionPoolOpts != null ? httpClient : new MetaStatsHttpClient(
+      opts.requestTimeout * 1000, opts.connectTimeout * 1000, opts.retryOpts, new MetaStatsHttpClient.PoolOptions());
+    blockingClient = new MetaStatsBlockingClient(blockingHttpClient, token, opts.domain);
+    blockingClient.setRequestListener(opts.requestListener);
+    if (opts.rateLimitOpts != null) {
+      RateLimiter rateLimiter = new RateLimiter(opts.rateLimitOpts);
+      metaStatsClient.setRateLimiter(rateLimiter);
+      blockingClient.setRateLimiter(rateLimiter);
+    }
+    if (opts.circuitBreakerOpts != null) {
+      CircuitBreaker circuitBreaker = new CircuitBreaker(opts.circuitBreakerOpts);
+      metaStatsClient.setCircuitBreaker(circuitBreaker);
+      blockingClient.setCircuitBreaker(circuitBreaker);
+    }
+    if (opts.concurrencyLimitOpts != null) {
+      ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(opts.concurrencyLimitOpts);
+      metaStatsClient.setConcurrencyLimiter(concurrencyLimiter);
+      blockingClient.setConcurrencyLimiter(concurrencyLimiter);
+    }
+    if (opts.hedgingOpts != null) {
+      metaStatsClient.setRequestHedger(new RequestHedger(opts.hedgingOpts));
+    }
   }
 }
\ No newline at end of file
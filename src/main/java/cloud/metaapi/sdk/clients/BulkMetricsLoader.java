@@ -0,0 +1,114 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.AccountMetricsResult;
+import cloud.metaapi.sdk.clients.MetaStatsClient.BulkOptions;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+
+/**
+ * Retrieves metrics of multiple accounts keeping the number of requests in flight bounded
+ */
+class BulkMetricsLoader {
+
+  private static Logger logger = LogManager.getLogger(BulkMetricsLoader.class);
+  private Function<String, CompletableFuture<Metrics>> fetcher;
+  private BulkOptions opts;
+  private Iterator<String> accountIds;
+  private int total;
+  private List<AccountMetricsResult> results;
+  private CompletableFuture<List<AccountMetricsResult>> result = new CompletableFuture<>();
+  private AtomicInteger inFlight = new AtomicInteger();
+  private AtomicInteger wip = new AtomicInteger();
+
+  /**
+   * Constructs bulk metrics loader instance
+   * @param accountIds MetaApi account ids
+   * @param opts bulk retrieval options
+   * @param fetcher function retrieving metrics of one account
+   */
+  BulkMetricsLoader(Collection<String> accountIds, BulkOptions opts,
+    Function<String, CompletableFuture<Metrics>> fetcher) {
+    this.accountIds = new ArrayList<>(accountIds).iterator();
+    this.total = accountIds.size();
+    this.results = Collections.synchronizedList(new ArrayList<>(total));
+    this.opts = opts;
+    this.fetcher = fetcher;
+  }
+
+  /**
+   * Starts retrieving metrics
+   * @return completable future resolving with results of all accounts in order of completion
+   */
+  CompletableFuture<List<AccountMetricsResult>> start() {
+    if (total == 0) {
+      result.complete(new ArrayList<>());
+    } else {
+      drain();
+    }
+    return result;
+  }
+
+  private void drain() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    do {
+      while (inFlight.get() < opts.maxConcurrency) {
+        String accountId;
+        synchronized (accountIds) {
+          if (!accountIds.hasNext()) {
+            break;
+          }
+          accountId = accountIds.next();
+        }
+        inFlight.incrementAndGet();
+        fetch(accountId).whenComplete((metrics, err) -> onComplete(accountId, metrics, err));
+      }
+    } while (wip.decrementAndGet() != 0);
+  }
+
+  private CompletableFuture<Metrics> fetch(String accountId) {
+    try {
+      return fetcher.apply(accountId);
+    } catch (Throwable err) {
+      CompletableFuture<Metrics> future = new CompletableFuture<>();
+      future.completeExceptionally(err);
+      return future;
+    }
+  }
+
+  private void onComplete(String accountId, Metrics metrics, Throwable err) {
+    AccountMetricsResult accountResult = new AccountMetricsResult();
+    accountResult.accountId = accountId;
+    accountResult.metrics = metrics;
+    accountResult.error = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+    if (opts.onResult != null) {
+      try {
+        opts.onResult.accept(accountResult);
+      } catch (Throwable callbackErr) {
+        logger.error("Failed to handle metrics result of account " + accountId, callbackErr);
+      }
+    }
+    results.add(accountResult);
+    inFlight.decrementAndGet();
+    if (results.size() == total) {
+      synchronized (results) {
+        result.complete(new ArrayList<>(results));
+      }
+    } else {
+      drain();
+    }
+  }
+}
@@ -0,0 +1,239 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.IOException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import cloud.metaapi.sdk.clients.error_handler.ApiException;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Circuit breaker of requests. The breaker tracks outcomes of the most recent requests and opens
+ * once their failure rate exceeds the threshold, so that further requests fail immediately instead
+ * of waiting for a degraded server. After the open state duration a few trial requests are let
+ * through, their success closes the breaker and a failure opens it again.
+ * <p>
+ * Timeouts, I/O errors and server errors are counted as failures. Other client errors, including
+ * 429 errors, indicate a responsive server and are counted as successes, and local errors such as
+ * failures to deserialize a response are not counted as failures
+ */
+public class CircuitBreaker {
+
+  private static Logger logger = LogManager.getLogger(CircuitBreaker.class);
+  private LongSupplier clock;
+  private double failureRateThreshold;
+  private int minimumRequests;
+  private long openStateDuration;
+  private int halfOpenRequests;
+  private boolean[] outcomes;
+  private int outcomeCount;
+  private int outcomeIndex;
+  private int failureCount;
+  private State state = State.CLOSED;
+  private long openedAt;
+  private int trialRequests;
+  private int trialSuccesses;
+
+  /**
+   * Circuit breaker state
+   */
+  public enum State {
+    /**
+     * Requests are sent and their outcomes are tracked
+     */
+    CLOSED,
+    /**
+     * Requests are rejected
+     */
+    OPEN,
+    /**
+     * A limited number of trial requests is sent to check whether the server has recovered
+     */
+    HALF_OPEN
+  }
+
+  /**
+   * Circuit breaker options
+   */
+  public static class Options {
+    /**
+     * Percentage of failed requests in the sliding window which opens the breaker, default 50
+     */
+    public double failureRateThreshold = 50;
+    /**
+     * Minimum number of requests in the sliding window before the failure rate is evaluated,
+     * default 20
+     */
+    public int minimumRequests = 20;
+    /**
+     * Number of most recent requests in the sliding window, default 50
+     */
+    public int windowSize = 50;
+    /**
+     * Time the breaker stays open before trial requests are sent in seconds, default 30
+     */
+    public int openStateDurationInSeconds = 30;
+    /**
+     * Number of successful trial requests required to close the breaker, default 3
+     */
+    public int halfOpenRequests = 3;
+  }
+
+  /**
+   * Constructs circuit breaker instance
+   * @param opts circuit breaker options
+   * @throws ValidationException if specified options are invalid
+   */
+  public CircuitBreaker(Options opts) throws ValidationException {
+    this(opts, System::nanoTime);
+  }
+
+  /**
+   * Constructs circuit breaker instance
+   * @param opts circuit breaker options
+   * @param clock source of current time in nanoseconds
+   * @throws ValidationException if specified options are invalid
+   */
+  CircuitBreaker(Options opts, LongSupplier clock) throws ValidationException {
+    OptionsValidator validator = new OptionsValidator();
+    validator.validateNonZeroInt(opts.windowSize, "circuitBreakerOpts.windowSize");
+    validator.validateNonZeroInt(opts.minimumRequests, "circuitBreakerOpts.minimumRequests");
+    validator.validateNonZeroInt(opts.openStateDurationInSeconds, "circuitBreakerOpts.openStateDurationInSeconds");
+    validator.validateNonZeroInt(opts.halfOpenRequests, "circuitBreakerOpts.halfOpenRequests");
+    if (!(opts.failureRateThreshold > 0 && opts.failureRateThreshold <= 100)) {
+      throw new ValidationException("Parameter circuitBreakerOpts.failureRateThreshold must be "
+        + "greater than 0 and not greater than 100", null);
+    }
+    if (opts.minimumRequests > opts.windowSize) {
+      throw new ValidationException("Parameter circuitBreakerOpts.minimumRequests must not be greater "
+        + "than circuitBreakerOpts.windowSize", null);
+    }
+    this.clock = clock;
+    this.failureRateThreshold = opts.failureRateThreshold;
+    this.minimumRequests = opts.minimumRequests;
+    this.openStateDuration = TimeUnit.SECONDS.toNanos(opts.openStateDurationInSeconds);
+    this.halfOpenRequests = opts.halfOpenRequests;
+    this.outcomes = new boolean[opts.windowSize];
+  }
+
+  /**
+   * Checks whether a request may be sent. Every permitted request must be reported with
+   * {@link #onComplete}
+   * @return {@code true} if the request may be sent, {@code false} if it must be rejected
+   */
+  public synchronized boolean tryAcquire() {
+    if (state == State.OPEN) {
+      if (clock.getAsLong() - openedAt < openStateDuration) {
+        return false;
+      }
+      state = State.HALF_OPEN;
+      trialRequests = 0;
+      trialSuccesses = 0;
+    }
+    if (state == State.HALF_OPEN) {
+      if (trialRequests >= halfOpenRequests) {
+        return false;
+      }
+      trialRequests++;
+    }
+    return true;
+  }
+
+  /**
+   * Records the outcome of a permitted request
+   * @param error error the request has failed with, or {@code null} if it has succeeded
+   */
+  public synchronized void onComplete(Throwable error) {
+    error = unwrap(error);
+    if (error instanceof RequestRejectedException || error instanceof CancellationException) {
+      if (state == State.HALF_OPEN && trialRequests > 0) {
+        trialRequests--;
+      }
+      return;
+    }
+    boolean failure = isFailure(error);
+    if (state == State.HALF_OPEN) {
+      if (failure) {
+        open();
+      } else if (++trialSuccesses >= halfOpenRequests) {
+        logger.info("Circuit breaker closed after successful trial requests");
+        state = State.CLOSED;
+        resetWindow();
+      }
+    } else if (state == State.CLOSED) {
+      if (outcomeCount == outcomes.length) {
+        failureCount -= outcomes[outcomeIndex] ? 1 : 0;
+      } else {
+        outcomeCount++;
+      }
+      outcomes[outcomeIndex] = failure;
+      failureCount += failure ? 1 : 0;
+      outcomeIndex = (outcomeIndex + 1) % outcomes.length;
+      if (outcomeCount >= minimumRequests && failureCount * 100.0 >= failureRateThreshold * outcomeCount) {
+        logger.warn("Circuit breaker opened, " + failureCount + " of " + outcomeCount
+          + " recent requests have failed");
+        open();
+      }
+    }
+  }
+
+  /**
+   * Returns current circuit breaker state
+   * @return circuit breaker state
+   */
+  public synchronized State getState() {
+    if (state == State.OPEN && clock.getAsLong() - openedAt >= openStateDuration) {
+      return State.HALF_OPEN;
+    }
+    return state;
+  }
+
+  /**
+   * Checks whether an error indicates that the server is unavailable or degraded, i.e. it is
+   * a timeout, an I/O error or a server error
+   * @param error request error, or {@code null}
+   * @return whether the error is a failure of the server
+   */
+  public static boolean isFailure(Throwable error) {
+    error = unwrap(error);
+    if (error instanceof ApiException) {
+      int status = ((ApiException) error).status;
+      return status == 0 || status >= 500;
+    }
+    return error instanceof TimeoutException || error instanceof java.util.concurrent.TimeoutException
+      || (error instanceof IOException && !(error instanceof JsonProcessingException));
+  }
+
+  /**
+   * Unwraps the cause of errors of completable futures
+   * @param error error to unwrap, or {@code null}
+   * @return unwrapped error, or {@code null}
+   */
+  static Throwable unwrap(Throwable error) {
+    while ((error instanceof CompletionException || error instanceof ExecutionException)
+      && error.getCause() != null) {
+      error = error.getCause();
+    }
+    return error;
+  }
+
+  private void open() {
+    state = State.OPEN;
+    openedAt = clock.getAsLong();
+    resetWindow();
+  }
+
+  private void resetWindow() {
+    outcomeCount = 0;
+    outcomeIndex = 0;
+    failureCount = 0;
+  }
+}
@@ -0,0 +1,228 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+import cloud.metaapi.sdk.clients.error_handler.ApiException;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Adaptive limit of concurrent requests. The limit is adjusted with additive increase and
+ * multiplicative decrease: every request completed within the tolerated latency raises the limit
+ * by one request per limit's worth of requests, while a request exceeding the tolerated multiple
+ * of the long-term average latency, failing with a server error or with a 429 error reduces the
+ * limit by the backoff ratio. Requests exceeding the limit are queued in order of arrival without
+ * blocking any thread, requests exceeding the queue size are rejected
+ */
+public class ConcurrencyLimiter {
+
+  /**
+   * Weight of the latest latency sample in the long-term average latency
+   */
+  private static final double LATENCY_SMOOTHING = 0.05;
+  private LongSupplier clock;
+  private double limit;
+  private int minLimit;
+  private int maxLimit;
+  private double backoffRatio;
+  private double latencyTolerance;
+  private int maxQueueSize;
+  private double averageLatency;
+  private int inFlight;
+  private ArrayDeque<CompletableFuture<Permit>> queue = new ArrayDeque<>();
+
+  /**
+   * Concurrency limiter options
+   */
+  public static class Options {
+    /**
+     * Initial limit of concurrent requests, default 20
+     */
+    public int initialLimit = 20;
+    /**
+     * Minimum limit of concurrent requests, default 1
+     */
+    public int minLimit = 1;
+    /**
+     * Maximum limit of concurrent requests, default 200
+     */
+    public int maxLimit = 200;
+    /**
+     * Ratio the limit is multiplied by when the server is overloaded, default 0.9
+     */
+    public double backoffRatio = 0.9;
+    /**
+     * Multiple of the long-term average latency above which a request indicates that the server
+     * is overloaded, default 2
+     */
+    public double latencyTolerance = 2;
+    /**
+     * Maximum number of requests waiting for the limit, default 1000
+     */
+    public int maxQueueSize = 1000;
+  }
+
+  /**
+   * Permit to send a request, which must be released once the request completes
+   */
+  public class Permit {
+    private long startTime = clock.getAsLong();
+    private boolean released;
+
+    /**
+     * Releases the permit and adjusts the limit according to the request latency and outcome
+     * @param error error the request has failed with, or {@code null} if it has succeeded
+     */
+    public void release(Throwable error) {
+      List<CompletableFuture<Permit>> permits;
+      synchronized (ConcurrencyLimiter.this) {
+        if (released) {
+          return;
+        }
+        released = true;
+        inFlight--;
+        adjustLimit(clock.getAsLong() - startTime, CircuitBreaker.unwrap(error));
+        permits = pollQueue();
+      }
+      grant(permits);
+    }
+  }
+
+  /**
+   * Constructs concurrency limiter instance
+   * @param opts concurrency limiter options
+   * @throws ValidationException if specified options are invalid
+   */
+  public ConcurrencyLimiter(Options opts) throws ValidationException {
+    this(opts, System::nanoTime);
+  }
+
+  /**
+   * Constructs concurrency limiter instance
+   * @param opts concurrency limiter options
+   * @param clock source of current time in nanoseconds
+   * @throws ValidationException if specified options are invalid
+   */
+  ConcurrencyLimiter(Options opts, LongSupplier clock) throws ValidationException {
+    OptionsValidator validator = new OptionsValidator();
+    validator.validateNonZeroInt(opts.minLimit, "concurrencyLimitOpts.minLimit");
+    validator.validateNonZeroInt(opts.maxLimit, "concurrencyLimitOpts.maxLimit");
+    validator.validateNonZeroInt(opts.initialLimit, "concurrencyLimitOpts.initialLimit");
+    if (opts.minLimit > opts.initialLimit || opts.initialLimit > opts.maxLimit) {
+      throw new ValidationException("Parameter concurrencyLimitOpts.initialLimit must be between "
+        + "concurrencyLimitOpts.minLimit and concurrencyLimitOpts.maxLimit", null);
+    }
+    if (!(opts.backoffRatio > 0 && opts.backoffRatio < 1)) {
+      throw new ValidationException("Parameter concurrencyLimitOpts.backoffRatio must be between 0 and 1",
+        null);
+    }
+    if (!(opts.latencyTolerance > 1)) {
+      throw new ValidationException("Parameter concurrencyLimitOpts.latencyTolerance must be greater than 1",
+        null);
+    }
+    if (opts.maxQueueSize < 0) {
+      throw new ValidationException("Parameter concurrencyLimitOpts.maxQueueSize must not be negative", null);
+    }
+    this.clock = clock;
+    this.limit = opts.initialLimit;
+    this.minLimit = opts.minLimit;
+    this.maxLimit = opts.maxLimit;
+    this.backoffRatio = opts.backoffRatio;
+    this.latencyTolerance = opts.latencyTolerance;
+    this.maxQueueSize = opts.maxQueueSize;
+  }
+
+  /**
+   * Acquires a permit to send a request
+   * @return completable future resolving with the permit when the request may be sent, or failing
+   * with {@link RequestRejectedException} if the queue is full. Cancelling the future releases its
+   * place in the queue
+   */
+  public CompletableFuture<Permit> acquire() {
+    synchronized (this) {
+      if (queue.isEmpty() && inFlight < getLimit()) {
+        inFlight++;
+        return CompletableFuture.completedFuture(new Permit());
+      }
+      CompletableFuture<Permit> permit = new CompletableFuture<>();
+      queue.removeIf(CompletableFuture::isDone);
+      if (queue.size() >= maxQueueSize) {
+        permit.completeExceptionally(new RequestRejectedException("Concurrency limit of " + getLimit()
+          + " requests is reached and " + queue.size() + " requests are queued"));
+      } else {
+        queue.add(permit);
+      }
+      return permit;
+    }
+  }
+
+  /**
+   * Returns current limit of concurrent requests
+   * @return concurrency limit
+   */
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  /**
+   * Returns the number of requests in flight
+   * @return the number of requests holding a permit
+   */
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Returns the number of requests waiting for a permit
+   * @return the number of queued requests
+   */
+  public synchronized int getQueueSize() {
+    queue.removeIf(CompletableFuture::isDone);
+    return queue.size();
+  }
+
+  private void adjustLimit(long latency, Throwable error) {
+    boolean overloaded;
+    if (error instanceof ApiException && ((ApiException) error).status == 429) {
+      overloaded = true;
+    } else if (CircuitBreaker.isFailure(error)) {
+      overloaded = true;
+    } else if (error instanceof RequestRejectedException || error instanceof CancellationException) {
+      return;
+    } else {
+      overloaded = averageLatency != 0 && latency > averageLatency * latencyTolerance;
+      averageLatency = averageLatency == 0 ? latency
+        : averageLatency + (latency - averageLatency) * LATENCY_SMOOTHING;
+    }
+    if (overloaded) {
+      limit = Math.max(minLimit, limit * backoffRatio);
+    } else if (inFlight + 1 >= limit / 2) {
+      limit = Math.min(maxLimit, limit + 1 / limit);
+    }
+  }
+
+  private List<CompletableFuture<Permit>> pollQueue() {
+    List<CompletableFuture<Permit>> permits = new ArrayList<>();
+    while (!queue.isEmpty() && inFlight < getLimit()) {
+      CompletableFuture<Permit> permit = queue.poll();
+      if (!permit.isDone()) {
+        inFlight++;
+        permits.add(permit);
+      }
+    }
+    return permits;
+  }
+
+  private void grant(List<CompletableFuture<Permit>> permits) {
+    for (CompletableFuture<Permit> permit : permits) {
+      Permit granted = new Permit();
+      if (!permit.complete(granted)) {
+        granted.release(new CancellationException());
+      }
+    }
+  }
+}
@@ -0,0 +1,105 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * LRU store of validators of previous metrics responses, i.e. their ETag and Last-Modified headers,
+ * together with the metrics they describe. Validators are sent with subsequent requests of the same
+ * account, and a not-modified reply reuses the stored metrics without downloading and parsing them
+ * again. Stored metrics are shared between callers and must not be modified
+ */
+public class ConditionalRequestCache {
+
+  private Options opts;
+  private LinkedHashMap<MetricsKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+  /**
+   * Conditional request cache options
+   */
+  public static class Options {
+    /**
+     * Maximum number of accounts to remember validators of, default 10000
+     */
+    public int maxEntries = 10000;
+  }
+
+  /**
+   * Validators of a metrics response
+   */
+  static class Entry {
+    /**
+     * Value of the ETag header, or {@code null}
+     */
+    public String etag;
+    /**
+     * Value of the Last-Modified header, or {@code null}
+     */
+    public String lastModified;
+    /**
+     * Metrics of the response
+     */
+    public Metrics metrics;
+  }
+
+  /**
+   * Constructs conditional request cache instance
+   * @param opts conditional request cache options
+   * @throws ValidationException if specified options are invalid
+   */
+  public ConditionalRequestCache(Options opts) throws ValidationException {
+    new OptionsValidator().validateNonZeroInt(opts.maxEntries, "conditionalRequestOpts.maxEntries");
+    this.opts = opts;
+  }
+
+  /**
+   * Removes validators of an account, so that its next request downloads metrics unconditionally
+   * @param accountId MetaApi account id
+   */
+  public synchronized void invalidate(String accountId) {
+    entries.remove(new MetricsKey(accountId, false));
+    entries.remove(new MetricsKey(accountId, true));
+  }
+
+  /**
+   * Returns the number of accounts validators are stored for
+   * @return the number of stored validators
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns validators of the previous response of a request
+   * @param key metrics request key
+   * @return validators, or {@code null} if none are stored
+   */
+  synchronized Entry get(MetricsKey key) {
+    return entries.get(key);
+  }
+
+  /**
+   * Stores validators of a response. Responses without validators remove previously stored ones
+   * @param key metrics request key
+   * @param etag value of the ETag header, or {@code null}
+   * @param lastModified value of the Last-Modified header, or {@code null}
+   * @param metrics metrics of the response
+   */
+  synchronized void put(MetricsKey key, String etag, String lastModified, Metrics metrics) {
+    if (etag == null && lastModified == null) {
+      entries.remove(key);
+      return;
+    }
+    Entry entry = new Entry();
+    entry.etag = etag;
+    entry.lastModified = lastModified;
+    entry.metrics = metrics;
+    entries.put(key, entry);
+    if (entries.size() > opts.maxEntries) {
+      entries.remove(entries.keySet().iterator().next());
+    }
+  }
+}
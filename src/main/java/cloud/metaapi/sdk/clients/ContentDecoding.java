@@ -0,0 +1,111 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Negotiation and streaming decoding of compressed response bodies. Gzip and deflate are always
+ * supported, brotli is additionally advertised if {@code org.brotli:dec} is on the class path.
+ * Bodies are decoded while they are read, so the decompressed response is never held in memory
+ * as a whole
+ */
+class ContentDecoding {
+
+  private static final int BUFFER_SIZE = 8192;
+  private static final Constructor<? extends InputStream> brotliStream = findBrotliStream();
+
+  /**
+   * Value of the Accept-Encoding header listing supported encodings
+   */
+  static final String ACCEPT_ENCODING = brotliStream != null ? "gzip, deflate, br" : "gzip, deflate";
+
+  private ContentDecoding() {}
+
+  /**
+   * Wraps a response body into a stream decoding it
+   * @param body response body as received
+   * @param encoding value of the Content-Encoding header, or {@code null}
+   * @return decoded response body stream
+   * @throws IOException if the encoding is not supported or the body header is malformed
+   */
+  static InputStream decode(InputStream body, String encoding) throws IOException {
+    if (encoding == null) {
+      return body;
+    }
+    switch (encoding.trim().toLowerCase()) {
+      case "":
+      case "identity":
+        return body;
+      case "gzip":
+      case "x-gzip":
+        return new GZIPInputStream(body, BUFFER_SIZE);
+      case "deflate":
+        return inflate(body);
+      case "br":
+        return decodeBrotli(body, encoding);
+      default:
+        throw new IOException("Unsupported content encoding " + encoding);
+    }
+  }
+
+  /**
+   * Decodes a Brotli body if the optional Brotli decoder is on the classpath
+   */
+  private static InputStream decodeBrotli(InputStream body, String encoding) throws IOException {
+    if (brotliStream == null) {
+      throw new IOException("Unsupported content encoding " + encoding);
+    }
+    try {
+      return brotliStream.newInstance(body);
+    } catch (InvocationTargetException err) {
+      throw err.getCause() instanceof IOException ? (IOException) err.getCause()
+        : new IOException(err.getCause());
+    } catch (ReflectiveOperationException err) {
+      throw new IOException(err);
+    }
+  }
+
+  /**
+   * Inflates a deflate body. Servers send either zlib-wrapped or raw deflate data under this name,
+   * so the zlib header is detected from the first two bytes
+   */
+  private static InputStream inflate(InputStream body) throws IOException {
+    PushbackInputStream input = new PushbackInputStream(body, 2);
+    int first = input.read();
+    int second = first != -1 ? input.read() : -1;
+    if (second != -1) {
+      input.unread(second);
+    }
+    if (first != -1) {
+      input.unread(first);
+    }
+    boolean zlib = first != -1 && second != -1 && (first & 0x0f) == 8 && ((first << 8) | second) % 31 == 0;
+    Inflater inflater = new Inflater(!zlib);
+    return new InflaterInputStream(input, inflater, BUFFER_SIZE) {
+      @Override
+      public void close() throws IOException {
+        try {
+          super.close();
+        } finally {
+          inflater.end();
+        }
+      }
+    };
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Constructor<? extends InputStream> findBrotliStream() {
+    try {
+      return (Constructor<? extends InputStream>) Class.forName("org.brotli.dec.BrotliInputStream")
+        .getConstructor(InputStream.class);
+    } catch (ReflectiveOperationException | LinkageError err) {
+      return null;
+    }
+  }
+}
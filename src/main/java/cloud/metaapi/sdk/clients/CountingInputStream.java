@@ -0,0 +1,54 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream counting bytes read from the underlying stream
+ */
+class CountingInputStream extends FilterInputStream {
+
+  private long count;
+
+  /**
+   * Constructs counting input stream instance
+   * @param in underlying stream
+   */
+  CountingInputStream(InputStream in) {
+    super(in);
+  }
+
+  /**
+   * Returns the number of bytes read so far
+   * @return the number of bytes read so far
+   */
+  long getCount() {
+    return count;
+  }
+
+  @Override
+  public int read() throws IOException {
+    int result = super.read();
+    if (result != -1) {
+      count++;
+    }
+    return result;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    int result = super.read(b, off, len);
+    if (result > 0) {
+      count += result;
+    }
+    return result;
+  }
+
+  @Override
+  public long skip(long n) throws IOException {
+    long result = super.skip(n);
+    count += result;
+    return result;
+  }
+}
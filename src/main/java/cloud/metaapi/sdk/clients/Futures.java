@@ -0,0 +1,166 @@
+package cloud.metaapi.sdk.clients;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Helpers of completable futures which propagate cancellation from a dependent future to the
+ * futures it depends on. A dependent future completing before its source can only be cancelled
+ * or timed out by the caller, in which case the source is cancelled too, so that abandoning a
+ * request cancels all of its stages down to the HTTP connection
+ */
+class Futures {
+
+  private static ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "metastats-deadlines");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * Returns a failed future
+   * @param <T> future value type
+   * @param error error to fail with
+   * @return failed future
+   */
+  static <T> CompletableFuture<T> failed(Throwable error) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    result.completeExceptionally(error);
+    return result;
+  }
+
+  /**
+   * Performs an action when a future completes, like {@link CompletableFuture#whenComplete}
+   * @param <T> future value type
+   * @param source source future
+   * @param action action to perform
+   * @return dependent future, completing it early cancels the source future
+   */
+  static <T> CompletableFuture<T> whenComplete(CompletableFuture<T> source,
+    BiConsumer<? super T, ? super Throwable> action) {
+    CompletableFuture<T> result = source.whenComplete(action);
+    result.whenComplete((value, err) -> {
+      if (!source.isDone()) {
+        source.cancel(false);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Starts the next stage when a future completes successfully, like
+   * {@link CompletableFuture#thenCompose}
+   * @param <T> source future value type
+   * @param <U> result value type
+   * @param source source future
+   * @param next function starting the next stage
+   * @return dependent future, completing it early cancels the source future or the next stage
+   */
+  static <T, U> CompletableFuture<U> thenCompose(CompletableFuture<T> source,
+    Function<? super T, CompletableFuture<U>> next) {
+    CompletableFuture<U> result = new CompletableFuture<>();
+    AtomicReference<CompletableFuture<U>> stage = new AtomicReference<>();
+    source.whenComplete((value, err) -> {
+      if (err != null) {
+        result.completeExceptionally(err);
+        return;
+      }
+      CompletableFuture<U> nextStage;
+      try {
+        nextStage = next.apply(value);
+      } catch (Throwable nextErr) {
+        result.completeExceptionally(nextErr);
+        return;
+      }
+      stage.set(nextStage);
+      if (result.isDone()) {
+        nextStage.cancel(false);
+      }
+      nextStage.whenComplete((nextValue, nextErr) -> {
+        if (nextErr != null) {
+          result.completeExceptionally(nextErr);
+        } else {
+          result.complete(nextValue);
+        }
+      });
+    });
+    result.whenComplete((value, err) -> {
+      CompletableFuture<U> nextStage = stage.get();
+      if (!source.isDone()) {
+        source.cancel(false);
+      } else if (nextStage != null && !nextStage.isDone()) {
+        nextStage.cancel(false);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Completes a dependent future in an executor when a future completes, so that stages of the
+   * caller do not run in the thread which completed the source future
+   * @param <T> future value type
+   * @param source source future
+   * @param executor executor completing the dependent future, or {@code null} to return the source
+   * future itself
+   * @return dependent future, completing it early cancels the source future. The source future is
+   * returned if it is already completed, since stages of the caller then run in the calling thread
+   */
+  static <T> CompletableFuture<T> completeOn(CompletableFuture<T> source, Executor executor) {
+    if (executor == null || source.isDone()) {
+      return source;
+    }
+    CompletableFuture<T> result = new CompletableFuture<>();
+    source.whenComplete((value, err) -> {
+      Runnable completion = () -> {
+        if (err != null) {
+          result.completeExceptionally(err);
+        } else {
+          result.complete(value);
+        }
+      };
+      try {
+        executor.execute(completion);
+      } catch (RejectedExecutionException rejectedErr) {
+        completion.run();
+      }
+    });
+    result.whenComplete((value, err) -> {
+      if (!source.isDone()) {
+        source.cancel(false);
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Fails a future with {@link TimeoutException} if it is not completed by a deadline
+   * @param <T> future value type
+   * @param future future to limit
+   * @param deadline deadline, or {@code null} to not limit the future
+   * @param message timeout error message
+   * @return the same future
+   */
+  static <T> CompletableFuture<T> withDeadline(CompletableFuture<T> future, Instant deadline, String message) {
+    if (deadline == null || future.isDone()) {
+      return future;
+    }
+    long delay = deadline.toEpochMilli() - System.currentTimeMillis();
+    if (delay <= 0) {
+      future.completeExceptionally(new TimeoutException(message));
+      return future;
+    }
+    ScheduledFuture<?> timeout = scheduler.schedule(() -> future.completeExceptionally(new TimeoutException(message)),
+      delay, TimeUnit.MILLISECONDS);
+    future.whenComplete((value, err) -> timeout.cancel(false));
+    return future;
+  }
+}
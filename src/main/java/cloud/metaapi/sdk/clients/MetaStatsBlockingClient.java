@@ -0,0 +1,163 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.Set;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+
+/**
+ * Synchronous MetaStats API client. Requests, retries and deserialization are performed entirely
+ * in the calling thread without handing work over to an executor, which makes the client suitable
+ * for running a large number of concurrent requests on virtual threads with plain blocking code.
+ * The client does not hold any monitor while waiting for I/O, so virtual threads are not pinned to
+ * their carrier threads. Metrics cache and coalescing of identical requests are not applied.
+ * <p>
+ * Each request holds a connection of the HTTP client while it is sent and its response is read,
+ * and callers beyond the number of connections wait for a free one up to the request timeout. The
+ * default Unirest client allows only 20 connections per host, so the HTTP client should have a
+ * dedicated pool sized for the expected number of concurrent callers, see
+ * {@link MetaStatsHttpClient.PoolOptions#maxConnections}
+ */
+public class MetaStatsBlockingClient {
+
+  private MetaStatsHttpClient httpClient;
+  private RequestPipeline pipeline;
+
+  /**
+   * Constructs blocking MetaStats API client instance with default domain
+   * agiliumtrade.agiliumtrade.ai
+   * @param httpClient HTTP client
+   * @param token authorization token
+   */
+  public MetaStatsBlockingClient(MetaStatsHttpClient httpClient, String token) {
+    this(httpClient, token, "agiliumtrade.agiliumtrade.ai");
+  }
+
+  /**
+   * Constructs blocking MetaStats API client instance
+   * @param httpClient HTTP client
+   * @param token authorization token
+   * @param domain domain to connect to
+   */
+  public MetaStatsBlockingClient(MetaStatsHttpClient httpClient, String token, String domain) {
+    this.httpClient = httpClient;
+    this.pipeline = new RequestPipeline(domain, token);
+  }
+
+  /**
+   * Returns metrics of MetaApi account without including open positions
+   * Https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/swagger/#!/default/get_users_current_accounts_accountId_metrics
+   * @param accountId MetaApi account id
+   * @return account metrics
+   * @throws Exception if the request has failed
+   */
+  public Metrics getMetrics(String accountId) throws Exception {
+    return getMetrics(accountId, false);
+  }
+
+  /**
+   * Returns metrics of MetaApi account
+   * Https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/swagger/#!/default/get_users_current_accounts_accountId_metrics
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions will be included
+   * In the metrics
+   * @return account metrics
+   * @throws Exception if the request has failed
+   */
+  public Metrics getMetrics(String accountId, boolean includeOpenPositions) throws Exception {
+    return getMetrics(accountId, includeOpenPositions, null);
+  }
+
+  /**
+   * Returns selected sections of metrics of MetaApi account. Scalar metrics are always included,
+   * list-heavy sections which were not requested are skipped during deserialization and remain
+   * {@code null}
+   * Https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/swagger/#!/default/get_users_current_accounts_accountId_metrics
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions will be included
+   * In the metrics
+   * @param sections metrics sections to include, or {@code null} to include all sections
+   * @return account metrics
+   * @throws Exception if the request has failed
+   */
+  public Metrics getMetrics(String accountId, boolean includeOpenPositions, Set<MetricsSection> sections)
+    throws Exception {
+    MetricsKey key = new MetricsKey(accountId, includeOpenPositions, sections);
+    MetricsParser parser = new MetricsParser(sections);
+    return pipeline.withTelemetrySync(accountId, stats -> pipeline.withCircuitBreakerSync(accountId,
+      () -> pipeline.withRateLimitSync(stats, () -> pipeline.withConcurrencyLimitSync(stats,
+        () -> {
+          pipeline.notifyStarted(stats);
+          return httpClient.requestStreamSync(pipeline.createRequest(key),
+            response -> pipeline.parseResponse(parser, response.getBody(), stats),
+            pipeline.createRetryListener(stats));
+        }))));
+  }
+
+  /**
+   * Returns listener receiving telemetry of metrics requests
+   * @return request listener, or {@code null} if not set
+   */
+  public MetaStatsRequestListener getRequestListener() {
+    return pipeline.getRequestListener();
+  }
+
+  /**
+   * Sets listener receiving telemetry of metrics requests
+   * @param requestListener request listener, or {@code null} to disable telemetry
+   */
+  public void setRequestListener(MetaStatsRequestListener requestListener) {
+    pipeline.setRequestListener(requestListener);
+  }
+
+  /**
+   * Returns rate limiter applied to metrics requests
+   * @return rate limiter, or {@code null} if requests are not limited
+   */
+  public RateLimiter getRateLimiter() {
+    return pipeline.getRateLimiter();
+  }
+
+  /**
+   * Sets rate limiter applied to metrics requests. Calling threads wait until their requests
+   * may be sent. The rate limiter can be shared with {@link MetaStatsClient}
+   * @param rateLimiter rate limiter, or {@code null} to send requests immediately
+   */
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    pipeline.setRateLimiter(rateLimiter);
+  }
+
+  /**
+   * Returns circuit breaker applied to metrics requests
+   * @return circuit breaker, or {@code null} if requests are always sent
+   */
+  public CircuitBreaker getCircuitBreaker() {
+    return pipeline.getCircuitBreaker();
+  }
+
+  /**
+   * Sets circuit breaker applied to metrics requests. While the breaker is open, requests fail
+   * immediately with {@link RequestRejectedException}. The circuit breaker can be shared with
+   * {@link MetaStatsClient}
+   * @param circuitBreaker circuit breaker, or {@code null} to always send requests
+   */
+  public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    pipeline.setCircuitBreaker(circuitBreaker);
+  }
+
+  /**
+   * Returns adaptive limit of concurrent metrics requests
+   * @return concurrency limiter, or {@code null} if concurrency is not limited
+   */
+  public ConcurrencyLimiter getConcurrencyLimiter() {
+    return pipeline.getConcurrencyLimiter();
+  }
+
+  /**
+   * Sets adaptive limit of concurrent metrics requests. Calling threads wait until other requests
+   * complete. The concurrency limiter can be shared with {@link MetaStatsClient}
+   * @param concurrencyLimiter concurrency limiter, or {@code null} to not limit concurrency
+   */
+  public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+    pipeline.setConcurrencyLimiter(concurrencyLimiter);
+  }
+}
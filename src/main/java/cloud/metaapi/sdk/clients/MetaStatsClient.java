@@ -1,11 +1,22 @@
 package cloud.metaapi.sdk.clients;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+import org.reactivestreams.Publisher;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 
-import cloud.metaapi.sdk.clients.HttpRequestOptions.Method;
+import cloud.metaapi.sdk.clients.MetaStatsHttpClient.ResponseHandler;
+import cloud.metaapi.sdk.clients.MetaStatsRequestListener.RequestStats;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
 
 /**
  * Metaapi.cloud MetaStats MetaTrader API client
@@ -13,8 +24,52 @@ import cloud.metaapi.sdk.clients.HttpRequestOptions.Method;
 public class MetaStatsClient {
 
   private HttpClient httpClient;
-  private String host;
-  private String token;
+  private RequestPipeline pipeline;
+  private volatile MetricsCache cache;
+  private volatile ConditionalRequestCache conditionalRequestCache;
+  private volatile RequestHedger requestHedger;
+  private volatile Executor completionExecutor;
+  private ConcurrentHashMap<MetricsKey, InFlightRequest> inFlightRequests = new ConcurrentHashMap<>();
+  
+  /**
+   * Request in flight shared by concurrent calls. The request is cancelled once all calls sharing
+   * it are cancelled or time out
+   */
+  private static class InFlightRequest {
+    private CompletableFuture<Metrics> future = new CompletableFuture<>();
+    private int callers;
+    private boolean abandoned;
+    
+    /**
+     * Joins the request
+     * @return completable future of the caller, or {@code null} if the request is already abandoned
+     */
+    private CompletableFuture<Metrics> join() {
+      synchronized (this) {
+        if (abandoned) {
+          return null;
+        }
+        callers++;
+      }
+      CompletableFuture<Metrics> result = future.thenApply(metrics -> metrics);
+      result.whenComplete((metrics, err) -> {
+        if (!future.isDone()) {
+          leave();
+        }
+      });
+      return result;
+    }
+    
+    private void leave() {
+      synchronized (this) {
+        if (--callers != 0) {
+          return;
+        }
+        abandoned = true;
+      }
+      future.cancel(false);
+    }
+  }
   
   /**
    * Constructs MetaStats API client instance with default domain agiliumtrade.agiliumtrade.ai
@@ -33,8 +88,7 @@ public class MetaStatsClient {
    */
   public MetaStatsClient(HttpClient httpClient, String token, String domain) {
     this.httpClient = httpClient;
-    this.host = "https://metastats-api-v1." + domain;
-    this.token = token;
+    this.pipeline = new RequestPipeline(domain, token);
   }
 
   /**
@@ -834,6 +888,42 @@ public class MetaStatsClient {
     public List<TradeDurationDiagramColumnMetrics> tradeDurationDiagram;
   }
 
+  /**
+   * Options for retrieving metrics of multiple accounts
+   */
+  public static class BulkOptions {
+    /**
+     * Indicates whether open positions will be included in the metrics, default false
+     */
+    public boolean includeOpenPositions = false;
+    /**
+     * Maximum number of metrics requests in flight at the same time, default 10
+     */
+    public int maxConcurrency = 10;
+    /**
+     * Callback invoked with the result of each account as soon as it completes, or {@code null}
+     */
+    public Consumer<AccountMetricsResult> onResult;
+  }
+
+  /**
+   * Metrics retrieval result of one account
+   */
+  public static class AccountMetricsResult {
+    /**
+     * MetaApi account id
+     */
+    public String accountId;
+    /**
+     * Account metrics, or {@code null} if the retrieval has failed
+     */
+    public Metrics metrics;
+    /**
+     * Retrieval error, or {@code null} if the metrics were retrieved successfully
+     */
+    public Throwable error;
+  }
+
   /**
    * Metrics response model
    */
@@ -860,12 +950,378 @@ public class MetaStatsClient {
    * @param accountId MetaApi account id
    * @param includeOpenPositions indicates whether open positions will be included
    * In the metrics, default false
-   * @return account metrics
+   * @return account metrics. Concurrent calls for the same account share one request in flight
    */
   public CompletableFuture<Metrics> getMetrics(String accountId, boolean includeOpenPositions) {
-    HttpRequestOptions opts = new HttpRequestOptions(host + "/users/current/accounts/" + accountId + "/metrics", Method.GET);
-    opts.getQueryParameters().put("includeOpenPositions", includeOpenPositions);
-    opts.getHeaders().put("auth-token", token);
-    return httpClient.requestJson(opts, MetricsResponse.class).thenApply(metrics -> metrics.metrics);
+    MetricsCache cache = this.cache;
+    if (cache != null) {
+      return Futures.completeOn(cache.get(accountId, includeOpenPositions,
+        () -> requestMetrics(new MetricsKey(accountId, includeOpenPositions))), completionExecutor);
+    }
+    return Futures.completeOn(requestMetrics(new MetricsKey(accountId, includeOpenPositions)),
+      completionExecutor);
+  }
+
+  /**
+   * Retrieves fresh metrics of MetaApi account even if the metrics cache holds unexpired ones,
+   * and stores them in the cache
+   * Https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/swagger/#!/default/get_users_current_accounts_accountId_metrics
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions will be included
+   * In the metrics
+   * @return account metrics. Concurrent calls for the same account share one request in flight
+   */
+  public CompletableFuture<Metrics> refreshMetrics(String accountId, boolean includeOpenPositions) {
+    MetricsCache cache = this.cache;
+    if (cache != null) {
+      return Futures.completeOn(cache.refresh(accountId, includeOpenPositions,
+        () -> requestMetrics(new MetricsKey(accountId, includeOpenPositions))), completionExecutor);
+    }
+    return Futures.completeOn(requestMetrics(new MetricsKey(accountId, includeOpenPositions)),
+      completionExecutor);
+  }
+
+  /**
+   * Returns selected sections of metrics of MetaApi account. Scalar metrics are always included,
+   * list-heavy sections which were not requested are skipped during deserialization and remain
+   * {@code null}. Such requests bypass the metrics cache
+   * Https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/swagger/#!/default/get_users_current_accounts_accountId_metrics
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions will be included
+   * In the metrics
+   * @param sections metrics sections to include
+   * @return account metrics
+   */
+  public CompletableFuture<Metrics> getMetrics(String accountId, boolean includeOpenPositions,
+    Set<MetricsSection> sections) {
+    return Futures.completeOn(requestMetrics(new MetricsKey(accountId, includeOpenPositions, sections)),
+      completionExecutor);
+  }
+  
+  /**
+   * Returns metrics of MetaApi account, abandoning the request if it does not complete by a
+   * deadline. Cancelling the returned future or reaching the deadline cancels the request unless
+   * other calls share it: waiting for the rate limiter and the concurrency limit stops, the HTTP
+   * connection is aborted and no further retries are made when the client is constructed with
+   * {@link MetaStatsHttpClient}
+   * Https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/swagger/#!/default/get_users_current_accounts_accountId_metrics
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions will be included
+   * In the metrics
+   * @param sections metrics sections to include, or {@code null} to include all sections
+   * @param deadline time by which the metrics are needed, or {@code null} to wait without a deadline
+   * @return account metrics, or a future failing with {@link TimeoutException} when the deadline
+   * is reached
+   */
+  public CompletableFuture<Metrics> getMetrics(String accountId, boolean includeOpenPositions,
+    Set<MetricsSection> sections, Instant deadline) {
+    CompletableFuture<Metrics> result = sections != null ? getMetrics(accountId, includeOpenPositions, sections)
+      : getMetrics(accountId, includeOpenPositions);
+    return Futures.withDeadline(result, deadline, "Metrics request of account " + accountId
+      + " has not completed by the deadline");
+  }
+  
+  /**
+   * Retrieves metrics of MetaApi account, passing rows of list sections to a listener as soon as
+   * they are deserialized from the response instead of collecting them. When the client is
+   * constructed with {@link MetaStatsHttpClient} the response is parsed straight off the connection
+   * without buffering the response body. Such requests bypass the metrics cache
+   * Https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/swagger/#!/default/get_users_current_accounts_accountId_metrics
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions will be included
+   * In the metrics
+   * @param sections metrics sections to stream, or {@code null} to stream all sections
+   * @param listener listener receiving rows of list sections
+   * @return completable future resolving with scalar account metrics when the response is processed
+   */
+  public CompletableFuture<Metrics> streamMetrics(String accountId, boolean includeOpenPositions,
+    Set<MetricsSection> sections, MetricsStreamListener listener) {
+    return Futures.completeOn(sendMetricsRequest(new MetricsKey(accountId, includeOpenPositions, sections),
+      new MetricsParser(sections, listener)), completionExecutor);
+  }
+  
+  /**
+   * Returns metrics cache used by this client
+   * @return metrics cache, or {@code null} if caching is disabled
+   */
+  public MetricsCache getCache() {
+    return cache;
+  }
+  
+  /**
+   * Sets metrics cache placed in front of metrics requests
+   * @param cache metrics cache, or {@code null} to disable caching
+   */
+  public void setCache(MetricsCache cache) {
+    this.cache = cache;
+  }
+  
+  /**
+   * Returns listener receiving telemetry of metrics requests
+   * @return request listener, or {@code null} if not set
+   */
+  public MetaStatsRequestListener getRequestListener() {
+    return pipeline.getRequestListener();
+  }
+  
+  /**
+   * Sets listener receiving telemetry of metrics requests
+   * @param requestListener request listener, or {@code null} to disable telemetry
+   */
+  public void setRequestListener(MetaStatsRequestListener requestListener) {
+    pipeline.setRequestListener(requestListener);
+  }
+  
+  /**
+   * Returns rate limiter applied to metrics requests
+   * @return rate limiter, or {@code null} if requests are not limited
+   */
+  public RateLimiter getRateLimiter() {
+    return pipeline.getRateLimiter();
+  }
+  
+  /**
+   * Sets rate limiter applied to metrics requests. Requests exceeding the rate are queued
+   * until they may be sent
+   * @param rateLimiter rate limiter, or {@code null} to send requests immediately
+   */
+  public void setRateLimiter(RateLimiter rateLimiter) {
+    pipeline.setRateLimiter(rateLimiter);
+  }
+  
+  /**
+   * Returns store of validators of previous responses used to send conditional requests
+   * @return conditional request cache, or {@code null} if conditional requests are disabled
+   */
+  public ConditionalRequestCache getConditionalRequestCache() {
+    return conditionalRequestCache;
+  }
+  
+  /**
+   * Sets store of validators of previous responses. Requests of metrics with all sections then carry
+   * the validators of the previous response of the account, and a not-modified reply reuses the
+   * previous metrics. Requires the client to be constructed with {@link MetaStatsHttpClient}
+   * @param conditionalRequestCache conditional request cache, or {@code null} to disable
+   * conditional requests
+   */
+  public void setConditionalRequestCache(ConditionalRequestCache conditionalRequestCache) {
+    this.conditionalRequestCache = conditionalRequestCache;
+  }
+  
+  /**
+   * Returns circuit breaker applied to metrics requests
+   * @return circuit breaker, or {@code null} if requests are always sent
+   */
+  public CircuitBreaker getCircuitBreaker() {
+    return pipeline.getCircuitBreaker();
+  }
+  
+  /**
+   * Sets circuit breaker applied to metrics requests. While the breaker is open, requests fail
+   * immediately with {@link RequestRejectedException}
+   * @param circuitBreaker circuit breaker, or {@code null} to always send requests
+   */
+  public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    pipeline.setCircuitBreaker(circuitBreaker);
+  }
+  
+  /**
+   * Returns adaptive limit of concurrent metrics requests
+   * @return concurrency limiter, or {@code null} if concurrency is not limited
+   */
+  public ConcurrencyLimiter getConcurrencyLimiter() {
+    return pipeline.getConcurrencyLimiter();
+  }
+  
+  /**
+   * Sets adaptive limit of concurrent metrics requests. Requests exceeding the limit are queued
+   * until other requests complete
+   * @param concurrencyLimiter concurrency limiter, or {@code null} to not limit concurrency
+   */
+  public void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+    pipeline.setConcurrencyLimiter(concurrencyLimiter);
+  }
+  
+  /**
+   * Returns hedger of metrics requests
+   * @return request hedger, or {@code null} if requests are not hedged
+   */
+  public RequestHedger getRequestHedger() {
+    return requestHedger;
+  }
+  
+  /**
+   * Sets hedger of metrics requests. An HTTP request of metrics which has not completed within a
+   * percentile of recent latencies is then sent again and the first successful response is used.
+   * Hedged requests share the circuit breaker, rate limiter and concurrency permits of the original
+   * request. Streamed metrics requests are not hedged
+   * @param requestHedger request hedger, or {@code null} to not hedge requests
+   */
+  public void setRequestHedger(RequestHedger requestHedger) {
+    this.requestHedger = requestHedger;
+  }
+  
+  /**
+   * Returns executor completing metrics futures
+   * @return completion executor, or {@code null} if metrics futures are completed in the thread
+   * which has received the response
+   */
+  public Executor getCompletionExecutor() {
+    return completionExecutor;
+  }
+  
+  /**
+   * Sets executor completing metrics futures returned by this client, so that stages attached to
+   * them run in the executor instead of the thread which has received and parsed the response.
+   * Futures of metrics which are already available, e.g. cached ones, are returned completed
+   * @param completionExecutor completion executor, or {@code null} to complete metrics futures
+   * in the thread which has received the response without a thread handoff
+   */
+  public void setCompletionExecutor(Executor completionExecutor) {
+    this.completionExecutor = completionExecutor;
+  }
+  
+  private CompletableFuture<Metrics> requestMetrics(MetricsKey key) {
+    while (true) {
+      InFlightRequest inFlightRequest = inFlightRequests.get(key);
+      if (inFlightRequest != null) {
+        CompletableFuture<Metrics> result = inFlightRequest.join();
+        if (result != null) {
+          return result;
+        }
+        inFlightRequests.remove(key, inFlightRequest);
+        continue;
+      }
+      InFlightRequest request = new InFlightRequest();
+      if (inFlightRequests.putIfAbsent(key, request) != null) {
+        continue;
+      }
+      CompletableFuture<Metrics> result = request.join();
+      try {
+        CompletableFuture<Metrics> response = sendMetricsRequest(key, new MetricsParser(key.getSections()));
+        request.future.whenComplete((metrics, err) -> {
+          if (!response.isDone()) {
+            response.cancel(false);
+          }
+        });
+        response.whenComplete((metrics, err) -> {
+          inFlightRequests.remove(key, request);
+          if (err != null) {
+            request.future.completeExceptionally(err);
+          } else {
+            request.future.complete(metrics);
+          }
+        });
+      } catch (Throwable err) {
+        inFlightRequests.remove(key, request);
+        request.future.completeExceptionally(err);
+      }
+      return result;
+    }
+  }
+  
+  private CompletableFuture<Metrics> sendMetricsRequest(MetricsKey key, MetricsParser parser) {
+    return pipeline.withTelemetry(key.getAccountId(), stats -> pipeline.withCircuitBreaker(key.getAccountId(),
+      () -> pipeline.withRateLimit(stats, () -> pipeline.withConcurrencyLimit(stats,
+        () -> {
+          pipeline.notifyStarted(stats);
+          return sendHedgedRequest(key, parser, stats);
+        }))));
+  }
+  
+  private CompletableFuture<Metrics> sendHedgedRequest(MetricsKey key, MetricsParser parser,
+    RequestStats stats) {
+    RequestHedger requestHedger = this.requestHedger;
+    if (requestHedger == null || parser.isStreaming()) {
+      return sendHttpRequest(key, parser, stats);
+    }
+    return requestHedger.execute(() -> sendHttpRequest(key, new MetricsParser(key.getSections()), stats));
+  }
+  
+  private CompletableFuture<Metrics> sendHttpRequest(MetricsKey key, MetricsParser parser,
+    RequestStats stats) {
+    HttpRequestOptions opts = pipeline.createRequest(key);
+    if (httpClient instanceof MetaStatsHttpClient) {
+      ConditionalRequestCache validators = key.getSections() == null && !parser.isStreaming()
+        ? conditionalRequestCache : null;
+      ConditionalRequestCache.Entry previous = validators != null ? validators.get(key) : null;
+      if (previous != null) {
+        if (previous.etag != null) {
+          opts.getHeaders().put("if-none-match", previous.etag);
+        }
+        if (previous.lastModified != null) {
+          opts.getHeaders().put("if-modified-since", previous.lastModified);
+        }
+      }
+      ResponseHandler<Metrics> handler = response -> {
+        if (previous != null && response.getStatus() == 304) {
+          if (stats != null) {
+            stats.notModified = true;
+            stats.responseSize = 0;
+          }
+          return previous.metrics;
+        }
+        Metrics metrics = pipeline.parseResponse(parser, response.getBody(), stats);
+        if (validators != null) {
+          validators.put(key, response.getHeader("etag"), response.getHeader("last-modified"), metrics);
+        }
+        return metrics;
+      };
+      return ((MetaStatsHttpClient) httpClient).requestStream(opts, handler,
+        pipeline.createRetryListener(stats));
+    }
+    if (key.getSections() == null && !parser.isStreaming() && stats == null) {
+      return httpClient.requestJson(opts, MetricsResponse.class).thenApply(metrics -> metrics.metrics);
+    }
+    return httpClient.request(opts).thenApply(json -> {
+      long startTime = System.nanoTime();
+      try {
+        return parser.parseResponse(json);
+      } catch (Throwable err) {
+        throw new CompletionException(err);
+      } finally {
+        if (stats != null) {
+          stats.deserializationTimeInNanoseconds = System.nanoTime() - startTime;
+          stats.responseSize = json.length();
+        }
+      }
+    });
+  }
+  
+  /**
+   * Returns metrics of multiple MetaApi accounts. Requests are sent in parallel, but no more
+   * than the configured number of them are in flight at the same time. A failure of one account
+   * does not affect the others and is reported in its result
+   * @param accountIds MetaApi account ids
+   * @param opts bulk retrieval options
+   * @return completable future resolving with results of all accounts in order of completion
+   */
+  public CompletableFuture<List<AccountMetricsResult>> getMetrics(Collection<String> accountIds,
+    BulkOptions opts) {
+    try {
+      new OptionsValidator().validateNonZeroInt(opts.maxConcurrency, "maxConcurrency");
+    } catch (ValidationException err) {
+      CompletableFuture<List<AccountMetricsResult>> result = new CompletableFuture<>();
+      result.completeExceptionally(err);
+      return result;
+    }
+    return new BulkMetricsLoader(accountIds, opts,
+      accountId -> getMetrics(accountId, opts.includeOpenPositions)).start();
+  }
+
+  /**
+   * Returns a publisher of metrics of multiple MetaApi accounts. Requests are sent only as results
+   * are requested by the subscriber, and no more than the configured number of them are in flight
+   * at the same time, so a slow subscriber does not cause completed metrics to pile up in memory.
+   * Cancelling the subscription cancels the requests in flight. {@link BulkOptions#onResult} is not
+   * used by the publisher
+   * @param accountIds MetaApi account ids
+   * @param opts bulk retrieval options
+   * @return publisher of results of all accounts in order of completion, each subscriber triggers
+   * its own retrieval
+   */
+  public Publisher<AccountMetricsResult> publishMetrics(Collection<String> accountIds, BulkOptions opts) {
+    return new MetricsPublisher(accountIds, opts,
+      accountId -> getMetrics(accountId, opts.includeOpenPositions));
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,661 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpEntityEnclosingRequestBase;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.utils.URIBuilder;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.util.EntityUtils;
+
+import cloud.metaapi.sdk.clients.HttpRequestOptions.Method;
+import cloud.metaapi.sdk.clients.error_handler.ApiException;
+import cloud.metaapi.sdk.clients.error_handler.ConflictException;
+import cloud.metaapi.sdk.clients.error_handler.ForbiddenException;
+import cloud.metaapi.sdk.clients.error_handler.InternalException;
+import cloud.metaapi.sdk.clients.error_handler.NotFoundException;
+import cloud.metaapi.sdk.clients.error_handler.TooManyRequestsException;
+import cloud.metaapi.sdk.clients.error_handler.TooManyRequestsException.TooManyRequestsExceptionMetadata;
+import cloud.metaapi.sdk.clients.error_handler.UnauthorizedException;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+import cloud.metaapi.sdk.clients.models.Error;
+import cloud.metaapi.sdk.util.Async;
+import cloud.metaapi.sdk.util.JsonMapper;
+import kong.unirest.Unirest;
+
+/**
+ * HTTP client which additionally provides streaming access to response bodies, so that large
+ * responses can be deserialized straight off the connection instead of being buffered as strings.
+ * Streamed requests advertise gzip and deflate compression and decompress response bodies while they
+ * are read. Streamed requests follow the same error handling and retry policy as regular ones and
+ * can be cancelled, which aborts their connections and stops their retries. Streamed requests can use
+ * a dedicated pool of connections kept alive between requests, so that fanning out requests of many
+ * accounts does not pay for a TCP and TLS handshake per request. Regular requests are performed the
+ * same way, so that all requests share one retry policy and error mapping which can be cancelled
+ */
+public class MetaStatsHttpClient extends HttpClient implements Closeable {
+
+  private static List<Class<?>> retriableErrors = Arrays.asList(ConflictException.class,
+    InternalException.class, ApiException.class);
+  protected int requestTimeout;
+  protected int connectTimeout;
+  protected int retries;
+  protected int minRetryDelay;
+  protected int maxRetryDelay;
+  private PoolOptions poolOpts;
+  private volatile CloseableHttpClient pooledClient;
+  private boolean closed;
+  private volatile Executor executor;
+
+  /**
+   * Streamed HTTP response
+   */
+  public static class StreamResponse {
+    private int status;
+    private Function<String, String> headers;
+    private InputStream body;
+
+    /**
+     * Constructs streamed response instance
+     * @param status HTTP status code
+     * @param headers function returning the first value of a response header by its name
+     * @param body response body stream
+     */
+    StreamResponse(int status, Function<String, String> headers, InputStream body) {
+      this.status = status;
+      this.headers = headers;
+      this.body = body;
+    }
+
+    /**
+     * Returns HTTP status code
+     * @return HTTP status code
+     */
+    public int getStatus() {
+      return status;
+    }
+
+    /**
+     * Returns the first value of a response header
+     * @param name header name, case insensitive
+     * @return header value, or {@code null} if the header is missing
+     */
+    public String getHeader(String name) {
+      return headers.apply(name);
+    }
+
+    /**
+     * Returns response body stream. The stream is valid only until the handler returns
+     * @return response body stream
+     */
+    public InputStream getBody() {
+      return body;
+    }
+  }
+
+  /**
+   * Handler of a streamed response
+   * @param <T> type of the handling result
+   */
+  @FunctionalInterface
+  public interface ResponseHandler<T> {
+    /**
+     * Handles successful streamed response
+     * @param response streamed response
+     * @return handling result
+     * @throws IOException if failed to read the response
+     */
+    T handle(StreamResponse response) throws IOException;
+  }
+
+  /**
+   * Listener of retries of a request
+   */
+  @FunctionalInterface
+  public interface RetryListener {
+    /**
+     * Invoked before the client waits to retry a request
+     * @param status HTTP status of the failed attempt, or 0 if no response was received
+     * @param delayInMilliseconds delay before the next attempt in milliseconds
+     */
+    void onRetry(int status, long delayInMilliseconds);
+  }
+
+  /**
+   * Handle cancelling a streamed request. Cancelling aborts the connection of the attempt in progress,
+   * including reading of the response body, and stops waiting for retries, so that the thread
+   * performing the request is freed
+   */
+  public static class Cancellation {
+    private CountDownLatch cancelled = new CountDownLatch(1);
+    private volatile HttpRequestBase request;
+
+    /**
+     * Cancels the request. The request then fails with {@link CancellationException}
+     */
+    public void cancel() {
+      if (isCancelled()) {
+        return;
+      }
+      cancelled.countDown();
+      HttpRequestBase request = this.request;
+      if (request != null) {
+        request.abort();
+      }
+    }
+
+    /**
+     * Returns whether the request was cancelled
+     * @return whether the request was cancelled
+     */
+    public boolean isCancelled() {
+      return cancelled.getCount() == 0;
+    }
+
+    private void setRequest(HttpRequestBase request) {
+      this.request = request;
+      checkCancelled();
+    }
+
+    /**
+     * Waits for a delay or until the request is cancelled, without holding a monitor so that
+     * a waiting virtual thread does not pin its carrier thread
+     */
+    private void sleep(long delay) throws InterruptedException {
+      cancelled.await(delay, TimeUnit.MILLISECONDS);
+      checkCancelled();
+    }
+
+    private void checkCancelled() {
+      if (isCancelled()) {
+        throw new CancellationException("Request was cancelled");
+      }
+    }
+  }
+
+  /**
+   * Options of the pool of connections used by streamed requests
+   */
+  public static class PoolOptions {
+    /**
+     * Maximum number of connections to the API, which also bounds the number of requests
+     * transmitted at the same time, default 100
+     */
+    public int maxConnections = 100;
+    /**
+     * Maximum time an idle connection is kept for reuse in seconds, shortened if the server
+     * advertises a shorter keep-alive timeout, default 60
+     */
+    public int keepAliveInSeconds = 60;
+    /**
+     * Time after which idle connections are closed in background in seconds, default 30
+     */
+    public int idleTimeoutInSeconds = 30;
+    /**
+     * Time of inactivity after which a pooled connection is checked before it is reused in
+     * milliseconds, default 2000
+     */
+    public int validateAfterInactivityInMilliseconds = 2000;
+  }
+
+  private static class Attempt<T> {
+    public int status;
+    public String statusText;
+    public String errorBody;
+    public String retryAfter;
+    public T result;
+    public Throwable handlerError;
+  }
+
+  /**
+   * Constructs HTTP client instance with default timeouts and retry options
+   * @throws ValidationException if specified options are invalid
+   */
+  public MetaStatsHttpClient() throws ValidationException {
+    this(60000, 60000, new RetryOptions());
+  }
+
+  /**
+   * Constructs HTTP client instance
+   * @param requestTimeout request timeout in milliseconds
+   * @param connectTimeout connect timeout in milliseconds
+   * @param retryOpts retry options
+   * @throws ValidationException if specified options are invalid
+   */
+  public MetaStatsHttpClient(int requestTimeout, int connectTimeout, RetryOptions retryOpts)
+    throws ValidationException {
+    this(requestTimeout, connectTimeout, retryOpts, null);
+  }
+
+  /**
+   * Constructs HTTP client instance
+   * @param requestTimeout request timeout in milliseconds
+   * @param connectTimeout connect timeout in milliseconds
+   * @param retryOpts retry options
+   * @param poolOpts options of a dedicated pool of connections kept alive between streamed requests,
+   * created on the first request, or {@code null} to share the connections of the default Unirest
+   * client
+   * @throws ValidationException if specified options are invalid
+   */
+  public MetaStatsHttpClient(int requestTimeout, int connectTimeout, RetryOptions retryOpts,
+    PoolOptions poolOpts) throws ValidationException {
+    super(requestTimeout, connectTimeout, retryOpts);
+    this.requestTimeout = requestTimeout;
+    this.connectTimeout = connectTimeout;
+    this.retries = retryOpts.retries;
+    this.minRetryDelay = retryOpts.minDelayInSeconds * 1000;
+    this.maxRetryDelay = retryOpts.maxDelayInSeconds * 1000;
+    if (poolOpts != null) {
+      validatePoolOptions(poolOpts);
+    }
+    this.poolOpts = poolOpts;
+  }
+
+  /**
+   * Performs a request and handles its response body as a stream
+   * @param <T> type of the handling result
+   * @param options request options
+   * @param handler handler of the successful response
+   * @return completable future resolving with the handling result
+   */
+  public <T> CompletableFuture<T> requestStream(HttpRequestOptions options, ResponseHandler<T> handler) {
+    return requestStream(options, handler, null);
+  }
+
+  /**
+   * Performs a request and handles its response body as a stream
+   * @param <T> type of the handling result
+   * @param options request options
+   * @param handler handler of the successful response
+   * @param retryListener listener of retries of the request, or {@code null}
+   * @return completable future resolving with the handling result. Cancelling the future aborts
+   * the request
+   */
+  public <T> CompletableFuture<T> requestStream(HttpRequestOptions options, ResponseHandler<T> handler,
+    RetryListener retryListener) {
+    return requestStream(options, handler, retryListener, 0);
+  }
+
+  /**
+   * Performs a request and reads its response body as a string. Requests with multipart bodies are
+   * performed by the base client
+   * @param options request options
+   * @param retryCounter number of retries already made
+   * @return completable future resolving with the response body. Cancelling the future aborts the
+   * request
+   */
+  @Override
+  public CompletableFuture<String> request(HttpRequestOptions options, int retryCounter) {
+    if (options.getBodyFields().isPresent()) {
+      return super.request(options, retryCounter);
+    }
+    return requestStream(options, response -> readString(response.getBody()), null, retryCounter);
+  }
+
+  private <T> CompletableFuture<T> requestStream(HttpRequestOptions options, ResponseHandler<T> handler,
+    RetryListener retryListener, int retryCounter) {
+    Cancellation cancellation = new Cancellation();
+    Executor executor = this.executor;
+    CompletableFuture<T> result = CompletableFuture.supplyAsync(() -> {
+      try {
+        return requestStreamSync(options, handler, retryListener, cancellation, retryCounter);
+      } catch (Throwable err) {
+        throw err instanceof CompletionException ? (CompletionException) err : new CompletionException(err);
+      }
+    }, executor != null ? executor : Async.getExecutor());
+    result.whenComplete((value, err) -> {
+      if (result.isCancelled()) {
+        cancellation.cancel();
+      }
+    });
+    return result;
+  }
+
+  /**
+   * Performs a request and handles its response body as a stream in the calling thread
+   * @param <T> type of the handling result
+   * @param options request options
+   * @param handler handler of the successful response
+   * @return handling result
+   * @throws Exception if the request or the handler has failed
+   */
+  public <T> T requestStreamSync(HttpRequestOptions options, ResponseHandler<T> handler) throws Exception {
+    return requestStreamSync(options, handler, null);
+  }
+
+  /**
+   * Performs a request and handles its response body as a stream in the calling thread
+   * @param <T> type of the handling result
+   * @param options request options
+   * @param handler handler of the successful response
+   * @param retryListener listener of retries of the request, or {@code null}
+   * @return handling result
+   * @throws Exception if the request or the handler has failed
+   */
+  public <T> T requestStreamSync(HttpRequestOptions options, ResponseHandler<T> handler,
+    RetryListener retryListener) throws Exception {
+    return requestStreamSync(options, handler, retryListener, new Cancellation());
+  }
+
+  /**
+   * Performs a request and handles its response body as a stream in the calling thread
+   * @param <T> type of the handling result
+   * @param options request options
+   * @param handler handler of the successful response
+   * @param retryListener listener of retries of the request, or {@code null}
+   * @param cancellation handle which can be used to cancel the request from another thread
+   * @return handling result
+   * @throws CancellationException if the request was cancelled
+   * @throws Exception if the request or the handler has failed
+   */
+  public <T> T requestStreamSync(HttpRequestOptions options, ResponseHandler<T> handler,
+    RetryListener retryListener, Cancellation cancellation) throws Exception {
+    return requestStreamSync(options, handler, retryListener, cancellation, 0);
+  }
+
+  private <T> T requestStreamSync(HttpRequestOptions options, ResponseHandler<T> handler,
+    RetryListener retryListener, Cancellation cancellation, int retryCounter) throws Exception {
+    long retryUntil = System.currentTimeMillis() + (long) maxRetryDelay * retries;
+    while (true) {
+      Attempt<T> attempt = null;
+      Exception error;
+      try {
+        attempt = attempt(options, handler, cancellation);
+        error = null;
+      } catch (IOException err) {
+        cancellation.checkCancelled();
+        error = new ApiException(err.getMessage(), 0, err);
+      }
+      if (attempt != null) {
+        if (attempt.handlerError != null) {
+          cancellation.checkCancelled();
+          throw attempt.handlerError instanceof Exception ? (Exception) attempt.handlerError
+            : new CompletionException(attempt.handlerError);
+        }
+        error = checkHttpError(attempt);
+      }
+      if (error != null) {
+        int status = attempt != null ? attempt.status : 0;
+        if (retriableErrors.contains(error.getClass()) && retryCounter < retries) {
+          long delay = (long) Math.min(Math.pow(2, retryCounter) * minRetryDelay, maxRetryDelay);
+          notifyRetry(retryListener, status, delay);
+          cancellation.sleep(delay);
+          retryCounter++;
+          continue;
+        }
+        if (error instanceof TooManyRequestsException) {
+          TooManyRequestsExceptionMetadata metadata = ((TooManyRequestsException) error).metadata;
+          if (metadata != null && metadata.recommendedRetryTime != null) {
+            long retryTime = metadata.recommendedRetryTime.getDate().getTime();
+            if (retryTime < retryUntil) {
+              long delay = Math.max(0, retryTime - System.currentTimeMillis());
+              notifyRetry(retryListener, status, delay);
+              cancellation.sleep(delay);
+              continue;
+            }
+          }
+        }
+        throw error;
+      }
+      if (attempt.status == 202 && attempt.retryAfter != null) {
+        long retryAfter = Integer.valueOf(attempt.retryAfter) * 1000L;
+        if (retryUntil > System.currentTimeMillis() + retryAfter) {
+          notifyRetry(retryListener, attempt.status, retryAfter);
+          cancellation.sleep(retryAfter);
+          continue;
+        }
+        throw new TimeoutException("Timed out waiting for the end of the process of calculating metrics");
+      }
+      return attempt.result;
+    }
+  }
+
+  private <T> Attempt<T> attempt(HttpRequestOptions options, ResponseHandler<T> handler,
+    Cancellation cancellation) throws IOException {
+    HttpRequestBase request = createRequest(options);
+    cancellation.setRequest(request);
+    HttpResponse response = getApacheClient().execute(request);
+    HttpEntity entity = response.getEntity();
+    try {
+      Attempt<T> attempt = new Attempt<>();
+      attempt.status = response.getStatusLine().getStatusCode();
+      attempt.statusText = response.getStatusLine().getReasonPhrase();
+      if (attempt.status / 100 == 4 || attempt.status / 100 == 5) {
+        attempt.errorBody = entity != null ? EntityUtils.toString(entity, StandardCharsets.UTF_8) : "";
+      } else if (attempt.status == 202 && getHeader(response, "retry-after") != null) {
+        attempt.retryAfter = getHeader(response, "retry-after");
+      } else {
+        try (InputStream body = ContentDecoding.decode(entity != null ? entity.getContent()
+          : new ByteArrayInputStream(new byte[0]), getHeader(response, "content-encoding"))) {
+          attempt.result = handler.handle(new StreamResponse(attempt.status, name -> getHeader(response, name),
+            body));
+        } catch (Throwable err) {
+          attempt.handlerError = err;
+        }
+      }
+      return attempt;
+    } finally {
+      if (cancellation.isCancelled()) {
+        request.abort();
+      } else {
+        EntityUtils.consumeQuietly(entity);
+      }
+    }
+  }
+
+  /**
+   * Returns executor performing streamed requests
+   * @return executor, or {@code null} if the thread pool shared by MetaApi SDKs is used
+   */
+  public Executor getExecutor() {
+    return executor;
+  }
+
+  /**
+   * Sets executor performing streamed requests. Each request blocks a thread of the executor while
+   * it is sent, its response is handled and it is retried, and its future is completed in the same
+   * thread
+   * @param executor executor, or {@code null} to use the thread pool shared by MetaApi SDKs
+   */
+  public void setExecutor(Executor executor) {
+    this.executor = executor;
+  }
+
+  /**
+   * Returns options of the dedicated pool of connections of streamed requests
+   * @return pool options, or {@code null} if the connections of the default Unirest client are shared
+   */
+  public PoolOptions getPoolOptions() {
+    return poolOpts;
+  }
+
+  /**
+   * Closes pooled connections of streamed requests. Regular requests are not affected
+   * @throws IOException if failed to close the connections
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    closed = true;
+    if (pooledClient != null) {
+      pooledClient.close();
+    }
+  }
+
+  /**
+   * Returns the Apache HTTP client of streamed requests, which allows aborting requests in progress.
+   * Unless a dedicated pool is configured, the client backing Unirest is used
+   */
+  private org.apache.http.client.HttpClient getApacheClient() {
+    if (poolOpts == null) {
+      return (org.apache.http.client.HttpClient) Unirest.config().getClient().getClient();
+    }
+    CloseableHttpClient client = pooledClient;
+    return client != null ? client : createPooledClient();
+  }
+
+  private synchronized CloseableHttpClient createPooledClient() {
+    if (closed) {
+      throw new IllegalStateException("HTTP client is closed");
+    }
+    if (pooledClient == null) {
+      pooledClient = createPooledClient(poolOpts);
+    }
+    return pooledClient;
+  }
+
+  private static void validatePoolOptions(PoolOptions opts) throws ValidationException {
+    OptionsValidator validator = new OptionsValidator();
+    validator.validateNonZeroInt(opts.maxConnections, "poolOpts.maxConnections");
+    validator.validateNonZeroInt(opts.keepAliveInSeconds, "poolOpts.keepAliveInSeconds");
+    validator.validateNonZeroInt(opts.idleTimeoutInSeconds, "poolOpts.idleTimeoutInSeconds");
+    validator.validateNonZeroInt(opts.validateAfterInactivityInMilliseconds,
+      "poolOpts.validateAfterInactivityInMilliseconds");
+  }
+
+  private static CloseableHttpClient createPooledClient(PoolOptions opts) {
+    PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+    connectionManager.setMaxTotal(opts.maxConnections);
+    connectionManager.setDefaultMaxPerRoute(opts.maxConnections);
+    connectionManager.setValidateAfterInactivity(opts.validateAfterInactivityInMilliseconds);
+    long keepAlive = opts.keepAliveInSeconds * 1000L;
+    return HttpClients.custom()
+      .setConnectionManager(connectionManager)
+      .setKeepAliveStrategy((response, context) -> {
+        long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+        return serverKeepAlive > 0 ? Math.min(serverKeepAlive, keepAlive) : keepAlive;
+      })
+      .evictExpiredConnections()
+      .evictIdleConnections(opts.idleTimeoutInSeconds, TimeUnit.SECONDS)
+      .disableContentCompression()
+      .disableCookieManagement()
+      .build();
+  }
+
+  private HttpRequestBase createRequest(HttpRequestOptions options) throws IOException {
+    HttpRequestBase request;
+    if (options.getMethod() == Method.GET) {
+      request = new HttpGet();
+    } else {
+      HttpEntityEnclosingRequestBase bodyRequest = new HttpEntityEnclosingRequestBase() {
+        @Override
+        public String getMethod() {
+          return options.getMethod().name();
+        }
+      };
+      if (options.getBodyJson().isPresent()) {
+        bodyRequest.setEntity(new StringEntity(JsonMapper.getInstance().writeValueAsString(
+          options.getBodyJson().get()), ContentType.APPLICATION_JSON));
+      }
+      request = bodyRequest;
+    }
+    try {
+      URIBuilder uri = new URIBuilder(options.getUrl());
+      options.getQueryParameters().forEach((name, value) -> {
+        if (value instanceof Collection) {
+          ((Collection<?>) value).forEach(element -> uri.addParameter(name, String.valueOf(element)));
+        } else {
+          uri.addParameter(name, String.valueOf(value));
+        }
+      });
+      request.setURI(uri.build());
+    } catch (URISyntaxException err) {
+      throw new IOException(err);
+    }
+    request.setConfig(RequestConfig.custom().setConnectTimeout(connectTimeout).setSocketTimeout(requestTimeout)
+      .setConnectionRequestTimeout(requestTimeout).setNormalizeUri(false).build());
+    options.getHeaders().forEach((name, value) -> request.setHeader(name, String.valueOf(value)));
+    if (options.getHeaders().keySet().stream().noneMatch("accept-encoding"::equalsIgnoreCase)) {
+      request.setHeader("accept-encoding", ContentDecoding.ACCEPT_ENCODING);
+    }
+    return request;
+  }
+
+  private ApiException checkHttpError(Attempt<?> attempt) {
+    if (attempt.errorBody == null) {
+      return null;
+    }
+    Error error;
+    try {
+      error = JsonMapper.getInstance().readValue(attempt.errorBody, Error.class);
+    } catch (IOException err) {
+      error = null;
+    }
+    String message = error != null && error.message != null ? error.message : attempt.statusText;
+    try {
+      switch (attempt.status) {
+        case 400:
+          return new ValidationException(message, error != null && error.details != null
+            ? JsonMapper.getInstance().treeToValue(error.details, Object.class) : null);
+        case 401:
+          return new UnauthorizedException(message);
+        case 403:
+          return new ForbiddenException(message);
+        case 404:
+          return new NotFoundException(message);
+        case 409:
+          return new ConflictException(message);
+        case 429:
+          return new TooManyRequestsException(message, error != null && error.metadata != null
+            ? JsonMapper.getInstance().treeToValue(error.metadata, TooManyRequestsExceptionMetadata.class)
+            : null);
+        case 500:
+          return new InternalException(message);
+        default:
+          return new ApiException(message, attempt.status);
+      }
+    } catch (IOException err) {
+      return new ApiException(err.getMessage(), 0, err.getCause());
+    }
+  }
+
+  private static String readString(InputStream body) throws IOException {
+    ByteArrayOutputStream result = new ByteArrayOutputStream();
+    byte[] buffer = new byte[8192];
+    int length;
+    while ((length = body.read(buffer)) != -1) {
+      result.write(buffer, 0, length);
+    }
+    return new String(result.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static void notifyRetry(RetryListener listener, int status, long delay) {
+    if (listener != null) {
+      listener.onRetry(status, delay);
+    }
+  }
+
+  private static String getHeader(HttpResponse response, String name) {
+    Header header = response.getFirstHeader(name);
+    return header != null ? emptyToNull(header.getValue()) : null;
+  }
+
+  private static String emptyToNull(String value) {
+    return value == null || value.isEmpty() ? null : value;
+  }
+}
@@ -0,0 +1,81 @@
+package cloud.metaapi.sdk.clients;
+
+/**
+ * Receives telemetry of metrics requests sent to MetaStats API. Cache hits and requests joining
+ * an identical request in flight are not reported, since they do not reach the API. Methods are
+ * invoked on the threads completing the requests and must not block
+ */
+public interface MetaStatsRequestListener {
+
+  /**
+   * Statistics of a completed metrics request
+   */
+  public static class RequestStats {
+    /**
+     * MetaApi account id
+     */
+    public String accountId;
+    /**
+     * Request outcome, {@code "success"} or simple class name of the error, or its fully qualified
+     * name if the error class is anonymous
+     */
+    public String outcome;
+    /**
+     * Error the request has failed with, or {@code null}
+     */
+    public Throwable error;
+    /**
+     * Indicates whether the request was admitted by the circuit breaker and limiters and sent to
+     * the API, i.e. whether {@link MetaStatsRequestListener#onRequestStarted} was invoked for it
+     */
+    public boolean sent;
+    /**
+     * Total request duration including retries and deserialization in nanoseconds
+     */
+    public long durationInNanoseconds;
+    /**
+     * Time spent waiting for the client-side rate limiter in nanoseconds
+     */
+    public long rateLimitDelayInNanoseconds;
+    /**
+     * Time spent waiting for the adaptive concurrency limit in nanoseconds
+     */
+    public long concurrencyLimitDelayInNanoseconds;
+    /**
+     * Time spent reading and deserializing the response body in nanoseconds, or -1 if unknown
+     */
+    public long deserializationTimeInNanoseconds = -1;
+    /**
+     * Size of the response body in bytes, or -1 if unknown
+     */
+    public long responseSize = -1;
+    /**
+     * Indicates whether the server replied that the metrics were not modified since the previous
+     * response, so the previous metrics were reused
+     */
+    public boolean notModified;
+    /**
+     * Number of retries of the request, summed over all attempts of a hedged request, or -1 if
+     * unknown
+     */
+    public int retries = -1;
+    /**
+     * Total time spent waiting between retries in milliseconds, summed over all attempts of a
+     * hedged request
+     */
+    public long retryDelayInMilliseconds;
+  }
+
+  /**
+   * Invoked when a metrics request admitted by the circuit breaker and limiters is sent to the API.
+   * Requests rejected before are only reported as completed
+   * @param accountId MetaApi account id
+   */
+  default void onRequestStarted(String accountId) {}
+
+  /**
+   * Invoked when a metrics request has completed, successfully or not
+   * @param stats request statistics
+   */
+  default void onRequestCompleted(RequestStats stats) {}
+}
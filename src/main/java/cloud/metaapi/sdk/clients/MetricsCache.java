@@ -0,0 +1,369 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.MonthlyAnalyticsMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.OneTradeDurationMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationDiagramColumnCollectionMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationDiagramColumnMetrics;
+import cloud.metaapi.sdk.clients.MetricsSnapshotStore.Snapshot;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+import cloud.metaapi.sdk.util.Async;
+
+/**
+ * In-process LRU cache of account metrics with per-entry time to live and stale-while-revalidate
+ * support. Cached metrics are shared between callers and must not be modified
+ */
+public class MetricsCache {
+
+  private static Logger logger = LogManager.getLogger(MetricsCache.class);
+  private Options opts;
+  private LongSupplier clock;
+  private long weight;
+  private LinkedHashMap<MetricsKey, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+  private volatile MetricsSnapshotStore snapshotStore;
+  private ConcurrentHashMap<String, CompletableFuture<Void>> snapshotTasks = new ConcurrentHashMap<>();
+
+  /**
+   * Metrics cache options
+   */
+  public static class Options {
+    /**
+     * Maximum number of cached metrics, default 1000
+     */
+    public int maxEntries = 1000;
+    /**
+     * Maximum total weight of cached metrics, where the weight of metrics is the number of rows
+     * in their lists, or 0 for no weight limit, default 0
+     */
+    public long maxWeight = 0;
+    /**
+     * Time in seconds during which cached metrics are returned without a request, default 60
+     */
+    public int ttlInSeconds = 60;
+    /**
+     * Time in seconds after expiration during which stale metrics are still returned immediately
+     * while fresh ones are retrieved in background, default 0
+     */
+    public int staleWhileRevalidateInSeconds = 0;
+  }
+
+  private static class Entry {
+    public Metrics metrics;
+    public long fetchedAt;
+    public long weight;
+    public boolean refreshing;
+    public boolean restored;
+  }
+
+  /**
+   * Constructs metrics cache instance
+   * @param opts cache options
+   * @throws ValidationException if specified options are invalid
+   */
+  public MetricsCache(Options opts) throws ValidationException {
+    this(opts, System::currentTimeMillis);
+  }
+
+  /**
+   * Constructs metrics cache instance
+   * @param opts cache options
+   * @param clock source of current time in milliseconds
+   * @throws ValidationException if specified options are invalid
+   */
+  MetricsCache(Options opts, LongSupplier clock) throws ValidationException {
+    OptionsValidator validator = new OptionsValidator();
+    validator.validateNonZeroInt(opts.maxEntries, "cacheOpts.maxEntries");
+    validator.validateNonZeroInt(opts.ttlInSeconds, "cacheOpts.ttlInSeconds");
+    if (opts.maxWeight < 0 || opts.staleWhileRevalidateInSeconds < 0) {
+      throw new ValidationException("Parameters cacheOpts.maxWeight and "
+        + "cacheOpts.staleWhileRevalidateInSeconds must not be negative", null);
+    }
+    this.opts = opts;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns cached metrics of an account, loading them if they are missing or expired. Metrics
+   * within the stale-while-revalidate window and expired metrics restored from snapshots are returned
+   * immediately and refreshed in background
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions are included in the metrics
+   * @param loader supplier of a request retrieving fresh metrics
+   * @return completable future resolving with account metrics
+   */
+  public CompletableFuture<Metrics> get(String accountId, boolean includeOpenPositions,
+    Supplier<CompletableFuture<Metrics>> loader) {
+    MetricsKey key = new MetricsKey(accountId, includeOpenPositions);
+    long now = clock.getAsLong();
+    Metrics stale = null;
+    synchronized (this) {
+      Entry entry = entries.get(key);
+      if (entry != null) {
+        long age = now - entry.fetchedAt;
+        if (age < opts.ttlInSeconds * 1000L) {
+          return CompletableFuture.completedFuture(entry.metrics);
+        }
+        if (entry.restored || age < (opts.ttlInSeconds + opts.staleWhileRevalidateInSeconds) * 1000L) {
+          if (entry.refreshing) {
+            return CompletableFuture.completedFuture(entry.metrics);
+          }
+          entry.refreshing = true;
+          stale = entry.metrics;
+        }
+      }
+    }
+    CompletableFuture<Metrics> request = load(key, loader);
+    if (stale != null) {
+      request.exceptionally(err -> {
+        logger.error("Failed to refresh cached metrics of account " + accountId, err);
+        return null;
+      });
+      return CompletableFuture.completedFuture(stale);
+    }
+    return request;
+  }
+
+  /**
+   * Retrieves fresh metrics of an account regardless of cached ones and stores them in the cache
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions are included in the metrics
+   * @param loader supplier of a request retrieving fresh metrics
+   * @return completable future resolving with account metrics
+   */
+  public CompletableFuture<Metrics> refresh(String accountId, boolean includeOpenPositions,
+    Supplier<CompletableFuture<Metrics>> loader) {
+    return load(new MetricsKey(accountId, includeOpenPositions), loader);
+  }
+
+  /**
+   * Stores metrics of an account in the cache
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions are included in the metrics
+   * @param metrics account metrics
+   */
+  public void put(String accountId, boolean includeOpenPositions, Metrics metrics) {
+    put(new MetricsKey(accountId, includeOpenPositions), metrics);
+  }
+
+  /**
+   * Stores previously fetched metrics of an account in the cache, e.g. metrics loaded from a snapshot.
+   * If the metrics are expired, they are still returned once requested while fresh ones are
+   * retrieved in background
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions are included in the metrics
+   * @param metrics account metrics
+   * @param fetchedAt time the metrics were fetched at in milliseconds since epoch
+   */
+  public void restore(String accountId, boolean includeOpenPositions, Metrics metrics, long fetchedAt) {
+    Entry entry = createEntry(metrics);
+    entry.fetchedAt = fetchedAt;
+    entry.restored = true;
+    put(new MetricsKey(accountId, includeOpenPositions), entry);
+  }
+
+  /**
+   * Restores metrics from all snapshots of a snapshot store and persists metrics fetched afterwards
+   * to the store in background
+   * @param snapshotStore snapshot store, or {@code null} to stop persisting metrics
+   * @throws IOException if failed to list snapshots
+   */
+  public void setSnapshotStore(MetricsSnapshotStore snapshotStore) throws IOException {
+    if (snapshotStore != null) {
+      for (Snapshot snapshot : snapshotStore.loadAll()) {
+        restore(snapshot.accountId, snapshot.includeOpenPositions, snapshot.metrics, snapshot.fetchedAt);
+      }
+    }
+    this.snapshotStore = snapshotStore;
+  }
+
+  /**
+   * Removes all cached metrics of an account, including its snapshots
+   * @param accountId MetaApi account id
+   */
+  public void invalidate(String accountId) {
+    synchronized (this) {
+      remove(new MetricsKey(accountId, false));
+      remove(new MetricsKey(accountId, true));
+    }
+    MetricsSnapshotStore snapshotStore = this.snapshotStore;
+    if (snapshotStore != null) {
+      runSnapshotTask(accountId, () -> {
+        try {
+          snapshotStore.delete(accountId);
+        } catch (Throwable err) {
+          logger.error("Failed to delete metrics snapshots of account " + accountId, err);
+        }
+      });
+    }
+  }
+
+  /**
+   * Removes all cached metrics
+   */
+  public synchronized void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  /**
+   * Returns the number of cached metrics
+   * @return the number of cached metrics
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the total weight of cached metrics
+   * @return total weight of cached metrics
+   */
+  public synchronized long getWeight() {
+    return weight;
+  }
+
+  private CompletableFuture<Metrics> load(MetricsKey key, Supplier<CompletableFuture<Metrics>> loader) {
+    CompletableFuture<Metrics> request;
+    try {
+      request = loader.get();
+    } catch (Throwable err) {
+      request = new CompletableFuture<>();
+      request.completeExceptionally(err);
+    }
+    return Futures.whenComplete(request, (metrics, err) -> {
+      if (err == null && metrics != null) {
+        put(key, metrics);
+        persist(key, metrics);
+      } else {
+        synchronized (this) {
+          Entry entry = entries.get(key);
+          if (entry != null) {
+            entry.refreshing = false;
+          }
+        }
+      }
+    });
+  }
+
+  private void persist(MetricsKey key, Metrics metrics) {
+    MetricsSnapshotStore snapshotStore = this.snapshotStore;
+    if (snapshotStore != null) {
+      Snapshot snapshot = new Snapshot();
+      snapshot.accountId = key.getAccountId();
+      snapshot.includeOpenPositions = key.isIncludeOpenPositions();
+      snapshot.fetchedAt = clock.getAsLong();
+      snapshot.metrics = metrics;
+      runSnapshotTask(key.getAccountId(), () -> {
+        try {
+          snapshotStore.save(snapshot);
+        } catch (Throwable err) {
+          logger.error("Failed to save metrics snapshot of account " + key.getAccountId(), err);
+        }
+      });
+    }
+  }
+
+  /**
+   * Runs a snapshot store operation after the pending operations of the same account, so that a
+   * save still in flight can not restore snapshots deleted afterwards or overwrite a newer save
+   */
+  private void runSnapshotTask(String accountId, Runnable task) {
+    CompletableFuture<Void> future = snapshotTasks.compute(accountId, (id, previous) -> previous == null
+      ? Async.run(task) : previous.thenRunAsync(task, Async.getExecutor()));
+    future.whenComplete((result, err) -> snapshotTasks.remove(accountId, future));
+  }
+
+  private void put(MetricsKey key, Metrics metrics) {
+    Entry entry = createEntry(metrics);
+    entry.fetchedAt = clock.getAsLong();
+    put(key, entry);
+  }
+
+  private Entry createEntry(Metrics metrics) {
+    Entry entry = new Entry();
+    entry.metrics = metrics;
+    entry.weight = weigh(metrics);
+    return entry;
+  }
+
+  private synchronized void put(MetricsKey key, Entry entry) {
+    remove(key);
+    entries.put(key, entry);
+    weight += entry.weight;
+    Iterator<Map.Entry<MetricsKey, Entry>> iterator = entries.entrySet().iterator();
+    while (iterator.hasNext() && (entries.size() > opts.maxEntries
+      || (opts.maxWeight != 0 && weight > opts.maxWeight))) {
+      weight -= iterator.next().getValue().weight;
+      iterator.remove();
+    }
+  }
+
+  private void remove(MetricsKey key) {
+    Entry entry = entries.remove(key);
+    if (entry != null) {
+      weight -= entry.weight;
+    }
+  }
+
+  /**
+   * Estimates the weight of metrics as the number of rows in their lists
+   * @param metrics account metrics
+   * @return metrics weight
+   */
+  static long weigh(Metrics metrics) {
+    long result = 1 + size(metrics.dailyGrowth) + size(metrics.closeTradesByWeekDay)
+      + size(metrics.openTradesByHour) + size(metrics.riskOfRuin);
+    if (metrics.currencySummary != null) {
+      for (CurrencySummaryMetrics currency : metrics.currencySummary) {
+        result += 1 + size(currency.history);
+      }
+    }
+    if (metrics.monthlyAnalytics != null) {
+      for (MonthlyAnalyticsMetrics month : metrics.monthlyAnalytics) {
+        result += 1 + size(month.currencies);
+      }
+    }
+    if (metrics.tradeDuration != null) {
+      result += weigh(metrics.tradeDuration.won) + weigh(metrics.tradeDuration.lost);
+    }
+    if (metrics.tradeDurationDiagram != null) {
+      for (TradeDurationDiagramColumnMetrics column : metrics.tradeDurationDiagram) {
+        result += 1 + weigh(column.won) + weigh(column.lost);
+      }
+    }
+    return result;
+  }
+
+  private static long weigh(List<OneTradeDurationMetrics> durations) {
+    long result = 0;
+    if (durations != null) {
+      for (OneTradeDurationMetrics duration : durations) {
+        result += 1 + size(duration.gains) + size(duration.profits) + size(duration.lots)
+          + size(duration.pips);
+      }
+    }
+    return result;
+  }
+
+  private static long weigh(TradeDurationDiagramColumnCollectionMetrics collection) {
+    return collection == null ? 0 : size(collection.gains) + size(collection.profits)
+      + size(collection.lots) + size(collection.pips);
+  }
+
+  private static int size(List<?> list) {
+    return list != null ? list.size() : 0;
+  }
+}
@@ -0,0 +1,78 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Identifies a metrics request of an account
+ */
+class MetricsKey {
+
+  private String accountId;
+  private boolean includeOpenPositions;
+  private Set<MetricsSection> sections;
+
+  /**
+   * Constructs metrics key instance for metrics with all sections
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions are included in the metrics
+   */
+  MetricsKey(String accountId, boolean includeOpenPositions) {
+    this(accountId, includeOpenPositions, null);
+  }
+
+  /**
+   * Constructs metrics key instance
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions are included in the metrics
+   * @param sections requested metrics sections, or {@code null} for all sections
+   */
+  MetricsKey(String accountId, boolean includeOpenPositions, Set<MetricsSection> sections) {
+    this.accountId = accountId;
+    this.includeOpenPositions = includeOpenPositions;
+    this.sections = sections != null ? EnumSet.noneOf(MetricsSection.class) : null;
+    if (sections != null) {
+      this.sections.addAll(sections);
+    }
+  }
+
+  /**
+   * Returns MetaApi account id
+   * @return MetaApi account id
+   */
+  String getAccountId() {
+    return accountId;
+  }
+
+  /**
+   * Returns whether open positions are included in the metrics
+   * @return whether open positions are included in the metrics
+   */
+  boolean isIncludeOpenPositions() {
+    return includeOpenPositions;
+  }
+
+  /**
+   * Returns requested metrics sections
+   * @return requested metrics sections, or {@code null} for all sections
+   */
+  Set<MetricsSection> getSections() {
+    return sections;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof MetricsKey)) {
+      return false;
+    }
+    MetricsKey other = (MetricsKey) obj;
+    return includeOpenPositions == other.includeOpenPositions && Objects.equals(accountId, other.accountId)
+      && Objects.equals(sections, other.sections);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(accountId, includeOpenPositions, sections);
+  }
+}
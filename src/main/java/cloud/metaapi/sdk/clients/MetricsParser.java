@@ -0,0 +1,276 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.MonthlyAnalyticsMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.OneTradeDurationMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Periods;
+import cloud.metaapi.sdk.clients.MetaStatsClient.RiskOfRuinMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeByTimeMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationDiagramColumnMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationMetrics;
+import cloud.metaapi.sdk.util.JsonMapper;
+
+/**
+ * Deserializes metrics response token by token, skipping metrics sections which were not requested
+ * without materializing them. List sections are read row by row and either collected into the
+ * resulting metrics or passed to a stream listener without being retained
+ */
+class MetricsParser {
+
+  private ObjectMapper mapper = JsonMapper.getInstance();
+  private Set<MetricsSection> sections;
+  private MetricsStreamListener listener;
+
+  /**
+   * Constructs metrics parser instance
+   * @param sections metrics sections to deserialize, or {@code null} to deserialize all sections
+   */
+  MetricsParser(Set<MetricsSection> sections) {
+    this(sections, null);
+  }
+
+  /**
+   * Constructs metrics parser instance
+   * @param sections metrics sections to deserialize, or {@code null} to deserialize all sections
+   * @param listener listener receiving rows of list sections instead of the resulting metrics,
+   * or {@code null} to collect the rows into the resulting metrics
+   */
+  MetricsParser(Set<MetricsSection> sections, MetricsStreamListener listener) {
+    this.listener = listener;
+    this.sections = EnumSet.allOf(MetricsSection.class);
+    if (sections != null) {
+      this.sections.retainAll(sections);
+    }
+    if (this.sections.contains(MetricsSection.CURRENCY_SUMMARY_HISTORY)) {
+      this.sections.add(MetricsSection.CURRENCY_SUMMARY);
+    }
+  }
+
+  /**
+   * Returns whether rows of list sections are passed to a stream listener
+   * @return whether rows of list sections are passed to a stream listener
+   */
+  boolean isStreaming() {
+    return listener != null;
+  }
+
+  /**
+   * Deserializes metrics response
+   * @param json metrics response JSON
+   * @return account metrics
+   * @throws IOException if the response is not a valid metrics response
+   */
+  Metrics parseResponse(String json) throws IOException {
+    try (JsonParser parser = mapper.createParser(json)) {
+      return parseResponse(parser);
+    }
+  }
+
+  /**
+   * Deserializes metrics response
+   * @param body metrics response body stream
+   * @return account metrics
+   * @throws IOException if the response is not a valid metrics response
+   */
+  Metrics parseResponse(InputStream body) throws IOException {
+    try (JsonParser parser = mapper.createParser(body)) {
+      return parseResponse(parser);
+    }
+  }
+
+  /**
+   * Deserializes metrics response
+   * @param parser JSON parser positioned before the response object
+   * @return account metrics
+   * @throws IOException if the response is not a valid metrics response
+   */
+  Metrics parseResponse(JsonParser parser) throws IOException {
+    if (parser.nextToken() != JsonToken.START_OBJECT) {
+      throw new JsonParseException(parser, "Metrics response is not a JSON object");
+    }
+    Metrics result = null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      if (field.equals("metrics")) {
+        result = parseMetrics(parser);
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return result;
+  }
+
+  private Metrics parseMetrics(JsonParser parser) throws IOException {
+    if (parser.currentToken() == JsonToken.VALUE_NULL) {
+      return null;
+    }
+    ObjectNode scalars = mapper.createObjectNode();
+    Metrics sectionValues = new Metrics();
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      MetricsSection section = MetricsSection.forField(field);
+      if (section == null) {
+        scalars.set(field, parser.readValueAsTree());
+      } else if (!sections.contains(section)) {
+        parser.skipChildren();
+      } else {
+        parseSection(parser, section, sectionValues);
+      }
+    }
+    Metrics metrics = mapper.treeToValue(scalars, Metrics.class);
+    metrics.currencySummary = sectionValues.currencySummary;
+    metrics.dailyGrowth = sectionValues.dailyGrowth;
+    metrics.monthlyAnalytics = sectionValues.monthlyAnalytics;
+    metrics.closeTradesByWeekDay = sectionValues.closeTradesByWeekDay;
+    metrics.openTradesByHour = sectionValues.openTradesByHour;
+    metrics.periods = sectionValues.periods;
+    metrics.riskOfRuin = sectionValues.riskOfRuin;
+    metrics.tradeDuration = sectionValues.tradeDuration;
+    metrics.tradeDurationDiagram = sectionValues.tradeDurationDiagram;
+    return metrics;
+  }
+
+  private void parseSection(JsonParser parser, MetricsSection section, Metrics metrics) throws IOException {
+    switch (section) {
+      case CURRENCY_SUMMARY:
+        if (sections.contains(MetricsSection.CURRENCY_SUMMARY_HISTORY)) {
+          metrics.currencySummary = parseList(parser, CurrencySummaryMetrics.class,
+            listener != null ? listener::onCurrencySummary : null);
+        } else {
+          metrics.currencySummary = parseCurrencySummaryWithoutHistory(parser);
+        }
+        break;
+      case DAILY_GROWTH:
+        metrics.dailyGrowth = parseList(parser, DailyGrowthMetrics.class,
+          listener != null ? listener::onDailyGrowth : null);
+        break;
+      case MONTHLY_ANALYTICS:
+        metrics.monthlyAnalytics = parseList(parser, MonthlyAnalyticsMetrics.class,
+          listener != null ? listener::onMonthlyAnalytics : null);
+        break;
+      case CLOSE_TRADES_BY_WEEK_DAY:
+        metrics.closeTradesByWeekDay = parseList(parser, TradeByTimeMetrics.class,
+          listener != null ? listener::onCloseTradesByWeekDay : null);
+        break;
+      case OPEN_TRADES_BY_HOUR:
+        metrics.openTradesByHour = parseList(parser, TradeByTimeMetrics.class,
+          listener != null ? listener::onOpenTradesByHour : null);
+        break;
+      case PERIODS:
+        Periods periods = mapper.readValue(parser, Periods.class);
+        if (listener != null) {
+          listener.onPeriods(periods);
+        } else {
+          metrics.periods = periods;
+        }
+        break;
+      case RISK_OF_RUIN:
+        metrics.riskOfRuin = parseList(parser, RiskOfRuinMetrics.class,
+          listener != null ? listener::onRiskOfRuin : null);
+        break;
+      case TRADE_DURATION:
+        metrics.tradeDuration = parseTradeDuration(parser);
+        break;
+      case TRADE_DURATION_DIAGRAM:
+        metrics.tradeDurationDiagram = parseList(parser, TradeDurationDiagramColumnMetrics.class,
+          listener != null ? listener::onTradeDurationDiagramColumn : null);
+        break;
+      default:
+        parser.skipChildren();
+    }
+  }
+
+  private <T> List<T> parseList(JsonParser parser, Class<T> type, Consumer<T> consumer) throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return null;
+    }
+    List<T> result = consumer == null ? new ArrayList<>() : null;
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      T row = mapper.readValue(parser, type);
+      if (consumer != null) {
+        if (row != null) {
+          consumer.accept(row);
+        }
+      } else {
+        result.add(row);
+      }
+    }
+    return result;
+  }
+
+  private TradeDurationMetrics parseTradeDuration(JsonParser parser) throws IOException {
+    if (parser.currentToken() != JsonToken.START_OBJECT) {
+      parser.skipChildren();
+      return null;
+    }
+    TradeDurationMetrics result = listener == null ? new TradeDurationMetrics() : null;
+    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+      String field = parser.getCurrentName();
+      parser.nextToken();
+      if (field.equals("won") || field.equals("lost")) {
+        boolean won = field.equals("won");
+        List<OneTradeDurationMetrics> durations = parseList(parser, OneTradeDurationMetrics.class,
+          listener != null ? duration -> listener.onTradeDuration(won, duration) : null);
+        if (result != null && won) {
+          result.won = durations;
+        } else if (result != null) {
+          result.lost = durations;
+        }
+      } else {
+        parser.skipChildren();
+      }
+    }
+    return result;
+  }
+
+  private List<CurrencySummaryMetrics> parseCurrencySummaryWithoutHistory(JsonParser parser)
+    throws IOException {
+    if (parser.currentToken() != JsonToken.START_ARRAY) {
+      parser.skipChildren();
+      return null;
+    }
+    List<CurrencySummaryMetrics> result = new ArrayList<>();
+    while (parser.nextToken() != JsonToken.END_ARRAY) {
+      if (parser.currentToken() != JsonToken.START_OBJECT) {
+        parser.skipChildren();
+        continue;
+      }
+      ObjectNode currency = mapper.createObjectNode();
+      while (parser.nextToken() == JsonToken.FIELD_NAME) {
+        String field = parser.getCurrentName();
+        parser.nextToken();
+        if (field.equals("history")) {
+          parser.skipChildren();
+        } else {
+          currency.set(field, parser.readValueAsTree());
+        }
+      }
+      CurrencySummaryMetrics entry = mapper.treeToValue(currency, CurrencySummaryMetrics.class);
+      if (listener != null) {
+        listener.onCurrencySummary(entry);
+      } else {
+        result.add(entry);
+      }
+    }
+    return listener == null ? result : null;
+  }
+}
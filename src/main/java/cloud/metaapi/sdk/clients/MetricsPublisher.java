@@ -0,0 +1,190 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.AccountMetricsResult;
+import cloud.metaapi.sdk.clients.MetaStatsClient.BulkOptions;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Publishes metrics of multiple accounts in order of completion. Requests are sent only for results
+ * the subscriber has requested, so no more results than requested are ever held in memory. Each
+ * subscriber triggers its own retrieval of all accounts. Cancelling the subscription cancels the
+ * requests in flight
+ */
+class MetricsPublisher implements Publisher<AccountMetricsResult> {
+
+  private static Logger logger = LogManager.getLogger(MetricsPublisher.class);
+  private List<String> accountIds;
+  private BulkOptions opts;
+  private Function<String, CompletableFuture<Metrics>> fetcher;
+
+  /**
+   * Constructs metrics publisher instance
+   * @param accountIds MetaApi account ids
+   * @param opts bulk retrieval options
+   * @param fetcher function retrieving metrics of one account
+   */
+  MetricsPublisher(Collection<String> accountIds, BulkOptions opts,
+    Function<String, CompletableFuture<Metrics>> fetcher) {
+    this.accountIds = new ArrayList<>(accountIds);
+    this.opts = opts;
+    this.fetcher = fetcher;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super AccountMetricsResult> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("Subscriber must not be null");
+    }
+    MetricsSubscription subscription = new MetricsSubscription(subscriber);
+    try {
+      new OptionsValidator().validateNonZeroInt(opts.maxConcurrency, "maxConcurrency");
+    } catch (ValidationException err) {
+      subscription.invalidRequest = err;
+    }
+    subscriber.onSubscribe(subscription);
+    subscription.drain();
+  }
+
+  /**
+   * Subscription to results of all accounts. Signals to the subscriber are serialized by a drain
+   * loop which is entered by one thread at a time
+   */
+  private class MetricsSubscription implements Subscription {
+    private Subscriber<? super AccountMetricsResult> subscriber;
+    private Iterator<String> remaining = accountIds.iterator();
+    private Queue<AccountMetricsResult> completed = new ConcurrentLinkedQueue<>();
+    private Set<CompletableFuture<Metrics>> fetches = ConcurrentHashMap.newKeySet();
+    private AtomicLong requested = new AtomicLong();
+    private AtomicInteger inFlight = new AtomicInteger();
+    private AtomicInteger wip = new AtomicInteger();
+    private long pending;
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+
+    MetricsSubscription(Subscriber<? super AccountMetricsResult> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("Requested number of results must be positive, "
+          + "got " + n);
+      } else {
+        requested.accumulateAndGet(n, (current, added) -> current + added < 0
+          ? Long.MAX_VALUE : current + added);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      cancelFetches();
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      do {
+        if (cancelled) {
+          completed.clear();
+          continue;
+        }
+        if (invalidRequest != null) {
+          cancelled = true;
+          completed.clear();
+          subscriber.onError(invalidRequest);
+          continue;
+        }
+        long demand = requested.get();
+        long emitted = 0;
+        AccountMetricsResult result;
+        while (emitted < demand && !cancelled && (result = completed.poll()) != null) {
+          pending--;
+          emitted++;
+          emit(result);
+        }
+        if (emitted != 0 && demand != Long.MAX_VALUE) {
+          demand = requested.addAndGet(-emitted);
+        }
+        while (!cancelled && pending < demand && inFlight.get() < opts.maxConcurrency
+          && remaining.hasNext()) {
+          String accountId = remaining.next();
+          pending++;
+          inFlight.incrementAndGet();
+          CompletableFuture<Metrics> future = fetch(accountId);
+          fetches.add(future);
+          future.whenComplete((metrics, err) -> {
+            fetches.remove(future);
+            onComplete(accountId, metrics, err);
+          });
+        }
+        if (!cancelled && pending == 0 && !remaining.hasNext()) {
+          cancelled = true;
+          subscriber.onComplete();
+        }
+      } while (wip.decrementAndGet() != 0);
+    }
+
+    private void emit(AccountMetricsResult result) {
+      try {
+        subscriber.onNext(result);
+      } catch (Throwable err) {
+        logger.error("Metrics subscriber failed to handle result of account " + result.accountId
+          + ", cancelling the subscription", err);
+        cancelled = true;
+        cancelFetches();
+      }
+    }
+
+    private void cancelFetches() {
+      for (CompletableFuture<Metrics> future : fetches) {
+        future.cancel(true);
+      }
+    }
+
+    private CompletableFuture<Metrics> fetch(String accountId) {
+      try {
+        return fetcher.apply(accountId);
+      } catch (Throwable err) {
+        CompletableFuture<Metrics> future = new CompletableFuture<>();
+        future.completeExceptionally(err);
+        return future;
+      }
+    }
+
+    private void onComplete(String accountId, Metrics metrics, Throwable err) {
+      AccountMetricsResult result = new AccountMetricsResult();
+      result.accountId = accountId;
+      result.metrics = metrics;
+      result.error = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+      completed.add(result);
+      inFlight.decrementAndGet();
+      drain();
+    }
+  }
+}
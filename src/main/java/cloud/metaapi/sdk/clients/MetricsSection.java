@@ -0,0 +1,77 @@
+package cloud.metaapi.sdk.clients;
+
+/**
+ * List-heavy section of account metrics which can be requested selectively. Scalar metrics
+ * are always included, sections which were not requested are skipped during deserialization
+ * and remain {@code null}
+ */
+public enum MetricsSection {
+  /**
+   * Currency trading summary, without trading history of each currency
+   */
+  CURRENCY_SUMMARY("currencySummary"),
+  /**
+   * Trading history of each currency in currency trading summary, implies {@link #CURRENCY_SUMMARY}
+   */
+  CURRENCY_SUMMARY_HISTORY(null),
+  /**
+   * Daily gain
+   */
+  DAILY_GROWTH("dailyGrowth"),
+  /**
+   * Monthly analysis of trading
+   */
+  MONTHLY_ANALYTICS("monthlyAnalytics"),
+  /**
+   * Closing deals by days of the week
+   */
+  CLOSE_TRADES_BY_WEEK_DAY("closeTradesByWeekDay"),
+  /**
+   * Opening deals by hour of the day
+   */
+  OPEN_TRADES_BY_HOUR("openTradesByHour"),
+  /**
+   * Trading stats for a few periods
+   */
+  PERIODS("periods"),
+  /**
+   * Risk of ruin of balance
+   */
+  RISK_OF_RUIN("riskOfRuin"),
+  /**
+   * Metrics for each duration of trades
+   */
+  TRADE_DURATION("tradeDuration"),
+  /**
+   * Information columns about the duration of trades for the diagram
+   */
+  TRADE_DURATION_DIAGRAM("tradeDurationDiagram");
+
+  private String field;
+
+  private MetricsSection(String field) {
+    this.field = field;
+  }
+
+  /**
+   * Returns name of the metrics field holding this section
+   * @return field name, or {@code null} if the section is nested into another one
+   */
+  public String getField() {
+    return field;
+  }
+
+  /**
+   * Returns section held by a metrics field
+   * @param field metrics field name
+   * @return metrics section, or {@code null} if the field is a scalar one
+   */
+  public static MetricsSection forField(String field) {
+    for (MetricsSection section : values()) {
+      if (section.field != null && section.field.equals(field)) {
+        return section;
+      }
+    }
+    return null;
+  }
+}
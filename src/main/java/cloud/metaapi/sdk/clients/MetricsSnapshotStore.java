@@ -0,0 +1,210 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+import cloud.metaapi.sdk.util.JsonMapper;
+
+/**
+ * Persists last fetched metrics of accounts on local disk, so that a restarted process can serve
+ * metrics immediately. Each snapshot is stored in its own file consisting of a binary header followed
+ * by deflate-compressed metrics. Files are replaced atomically, so a crash during a write leaves the
+ * previous snapshot intact
+ */
+public class MetricsSnapshotStore {
+
+  private static Logger logger = LogManager.getLogger(MetricsSnapshotStore.class);
+  private static final int MAGIC = 0x4d53534e;
+  private static final int VERSION = 1;
+  private static final String EXTENSION = ".snapshot";
+  private ObjectMapper mapper = JsonMapper.getInstance();
+  private Options opts;
+  private Path directory;
+
+  /**
+   * Snapshot store options
+   */
+  public static class Options {
+    /**
+     * Directory to store snapshots in, created if missing
+     */
+    public String directory;
+    /**
+     * Maximum age of snapshots in seconds which are loaded on startup, or 0 to load snapshots
+     * of any age, default 604800 (one week)
+     */
+    public int maxAgeInSeconds = 604800;
+  }
+
+  /**
+   * Metrics snapshot
+   */
+  public static class Snapshot {
+    /**
+     * MetaApi account id
+     */
+    public String accountId;
+    /**
+     * Indicates whether open positions are included in the metrics
+     */
+    public boolean includeOpenPositions;
+    /**
+     * Time the metrics were fetched at in milliseconds since epoch
+     */
+    public long fetchedAt;
+    /**
+     * Account metrics
+     */
+    public Metrics metrics;
+  }
+
+  /**
+   * Constructs snapshot store instance
+   * @param opts snapshot store options
+   * @throws ValidationException if specified options are invalid
+   * @throws IOException if failed to create the snapshot directory
+   */
+  public MetricsSnapshotStore(Options opts) throws ValidationException, IOException {
+    if (opts.directory == null || opts.maxAgeInSeconds < 0) {
+      throw new ValidationException("Parameter snapshotOpts.directory is required and "
+        + "snapshotOpts.maxAgeInSeconds must not be negative", null);
+    }
+    this.opts = opts;
+    this.directory = Files.createDirectories(Paths.get(opts.directory));
+  }
+
+  /**
+   * Saves metrics snapshot of an account, replacing the previous one
+   * @param snapshot metrics snapshot
+   * @throws IOException if failed to write the snapshot
+   */
+  public void save(Snapshot snapshot) throws IOException {
+    Path file = getFile(snapshot.accountId, snapshot.includeOpenPositions);
+    Path tempFile = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+    Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try {
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(
+        Files.newOutputStream(tempFile)))) {
+        output.writeInt(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(snapshot.fetchedAt);
+        output.writeBoolean(snapshot.includeOpenPositions);
+        output.writeUTF(snapshot.accountId);
+        DeflaterOutputStream body = new DeflaterOutputStream(output, deflater);
+        try (JsonGenerator generator = mapper.getFactory().createGenerator((OutputStream) body)) {
+          generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+          mapper.writeValue(generator, snapshot.metrics);
+        }
+        body.finish();
+      }
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } finally {
+      deflater.end();
+      Files.deleteIfExists(tempFile);
+    }
+  }
+
+  /**
+   * Loads metrics snapshot of an account
+   * @param accountId MetaApi account id
+   * @param includeOpenPositions indicates whether open positions are included in the metrics
+   * @return metrics snapshot, or {@code null} if there is no snapshot
+   * @throws IOException if failed to read the snapshot
+   */
+  public Snapshot load(String accountId, boolean includeOpenPositions) throws IOException {
+    Path file = getFile(accountId, includeOpenPositions);
+    return Files.exists(file) ? read(file) : null;
+  }
+
+  /**
+   * Loads all snapshots which are not older than the configured maximum age. Unreadable
+   * snapshots are logged and skipped
+   * @return metrics snapshots
+   * @throws IOException if failed to list the snapshot directory
+   */
+  public List<Snapshot> loadAll() throws IOException {
+    List<Snapshot> result = new ArrayList<>();
+    long minFetchedAt = opts.maxAgeInSeconds != 0
+      ? System.currentTimeMillis() - opts.maxAgeInSeconds * 1000L : Long.MIN_VALUE;
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+      for (Path file : files) {
+        try {
+          Snapshot snapshot = read(file);
+          if (snapshot.fetchedAt >= minFetchedAt) {
+            result.add(snapshot);
+          }
+        } catch (IOException err) {
+          logger.error("Failed to read metrics snapshot " + file, err);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Deletes all snapshots of an account
+   * @param accountId MetaApi account id
+   * @throws IOException if failed to delete the snapshots
+   */
+  public void delete(String accountId) throws IOException {
+    Files.deleteIfExists(getFile(accountId, false));
+    Files.deleteIfExists(getFile(accountId, true));
+  }
+
+  private Snapshot read(Path file) throws IOException {
+    try (DataInputStream input = new DataInputStream(new BufferedInputStream(
+      Files.newInputStream(file)))) {
+      if (input.readInt() != MAGIC) {
+        throw new IOException("Not a metrics snapshot");
+      }
+      int version = input.readInt();
+      if (version != VERSION) {
+        throw new IOException("Unsupported metrics snapshot version " + version);
+      }
+      Snapshot snapshot = new Snapshot();
+      snapshot.fetchedAt = input.readLong();
+      snapshot.includeOpenPositions = input.readBoolean();
+      snapshot.accountId = input.readUTF();
+      InputStream body = new InflaterInputStream(input);
+      try (JsonParser parser = mapper.getFactory().createParser(body)) {
+        snapshot.metrics = mapper.readValue(parser, Metrics.class);
+      }
+      return snapshot;
+    }
+  }
+
+  private Path getFile(String accountId, boolean includeOpenPositions) {
+    try {
+      return directory.resolve(URLEncoder.encode(accountId, "UTF-8")
+        + (includeOpenPositions ? "~open-positions" : "") + EXTENSION);
+    } catch (UnsupportedEncodingException err) {
+      throw new IllegalStateException(err);
+    }
+  }
+}
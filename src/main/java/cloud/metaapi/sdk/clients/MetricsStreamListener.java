@@ -0,0 +1,73 @@
+package cloud.metaapi.sdk.clients;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.MonthlyAnalyticsMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.OneTradeDurationMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Periods;
+import cloud.metaapi.sdk.clients.MetaStatsClient.RiskOfRuinMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeByTimeMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationDiagramColumnMetrics;
+
+/**
+ * Receives rows of list-heavy metrics sections as soon as they are deserialized from the response.
+ * Streamed rows are not retained in the resulting metrics, so only one row of a section is held in
+ * memory at a time. Methods are invoked sequentially in the order of rows in the response
+ */
+public interface MetricsStreamListener {
+
+  /**
+   * Invoked when a currency trading summary entry is received
+   * @param currency currency trading summary entry
+   */
+  default void onCurrencySummary(CurrencySummaryMetrics currency) {}
+
+  /**
+   * Invoked when a daily growth entry is received
+   * @param day daily growth entry
+   */
+  default void onDailyGrowth(DailyGrowthMetrics day) {}
+
+  /**
+   * Invoked when a monthly analytics entry is received
+   * @param month monthly analytics entry
+   */
+  default void onMonthlyAnalytics(MonthlyAnalyticsMetrics month) {}
+
+  /**
+   * Invoked when an entry of closing deals by days of the week is received
+   * @param weekDay closing deals of a day of the week
+   */
+  default void onCloseTradesByWeekDay(TradeByTimeMetrics weekDay) {}
+
+  /**
+   * Invoked when an entry of opening deals by hours of the day is received
+   * @param hour opening deals of an hour of the day
+   */
+  default void onOpenTradesByHour(TradeByTimeMetrics hour) {}
+
+  /**
+   * Invoked when trading stats for periods are received
+   * @param periods trading stats for periods
+   */
+  default void onPeriods(Periods periods) {}
+
+  /**
+   * Invoked when a risk of ruin entry is received
+   * @param riskOfRuin risk of ruin entry
+   */
+  default void onRiskOfRuin(RiskOfRuinMetrics riskOfRuin) {}
+
+  /**
+   * Invoked when metrics of one trade duration bucket are received
+   * @param won {@code true} for a bucket of winning trades, {@code false} for losing ones
+   * @param duration metrics of the trade duration bucket
+   */
+  default void onTradeDuration(boolean won, OneTradeDurationMetrics duration) {}
+
+  /**
+   * Invoked when a trade duration diagram column is received
+   * @param column trade duration diagram column
+   */
+  default void onTradeDurationDiagramColumn(TradeDurationDiagramColumnMetrics column) {}
+}
@@ -0,0 +1,102 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Request listener recording metrics request telemetry to a Micrometer meter registry. Requires
+ * {@code io.micrometer:micrometer-core} on the classpath. Recorded meters:
+ * <ul>
+ * <li>{@code metastats.requests} timer of request latency tagged by outcome</li>
+ * <li>{@code metastats.requests.deserialization} timer of response deserialization tagged by outcome</li>
+ * <li>{@code metastats.requests.response.size} summary of response body sizes in bytes</li>
+ * <li>{@code metastats.requests.retries} summary of retries per request tagged by outcome</li>
+ * <li>{@code metastats.requests.retries.delay} timer of time spent waiting for retries tagged by outcome</li>
+ * <li>{@code metastats.requests.rate.limit.delay} timer of time spent waiting for the rate limiter</li>
+ * <li>{@code metastats.requests.concurrency.limit.delay} timer of time spent waiting for the adaptive
+ * concurrency limit</li>
+ * <li>{@code metastats.requests.not.modified} counter of requests answered with not modified</li>
+ * <li>{@code metastats.requests.in.flight} gauge of requests in flight</li>
+ * </ul>
+ */
+public class MicrometerRequestListener implements MetaStatsRequestListener {
+
+  private MeterRegistry registry;
+  private AtomicInteger inFlightRequests = new AtomicInteger();
+
+  /**
+   * Constructs Micrometer request listener instance
+   * @param registry meter registry to record meters to
+   */
+  public MicrometerRequestListener(MeterRegistry registry) {
+    this.registry = registry;
+    Gauge.builder("metastats.requests.in.flight", inFlightRequests, AtomicInteger::get)
+      .description("MetaStats metrics requests in flight")
+      .register(registry);
+  }
+
+  @Override
+  public void onRequestStarted(String accountId) {
+    inFlightRequests.incrementAndGet();
+  }
+
+  @Override
+  public void onRequestCompleted(RequestStats stats) {
+    if (stats.sent) {
+      inFlightRequests.decrementAndGet();
+    }
+    Timer.builder("metastats.requests")
+      .description("MetaStats metrics request latency")
+      .tag("outcome", stats.outcome)
+      .publishPercentileHistogram()
+      .register(registry)
+      .record(stats.durationInNanoseconds, TimeUnit.NANOSECONDS);
+    Timer.builder("metastats.requests.rate.limit.delay")
+      .description("Time spent waiting for the client-side rate limiter")
+      .register(registry)
+      .record(stats.rateLimitDelayInNanoseconds, TimeUnit.NANOSECONDS);
+    Timer.builder("metastats.requests.concurrency.limit.delay")
+      .description("Time spent waiting for the adaptive concurrency limit")
+      .register(registry)
+      .record(stats.concurrencyLimitDelayInNanoseconds, TimeUnit.NANOSECONDS);
+    if (stats.deserializationTimeInNanoseconds >= 0) {
+      Timer.builder("metastats.requests.deserialization")
+        .description("Time spent reading and deserializing MetaStats metrics responses")
+        .tag("outcome", stats.outcome)
+        .publishPercentileHistogram()
+        .register(registry)
+        .record(stats.deserializationTimeInNanoseconds, TimeUnit.NANOSECONDS);
+    }
+    if (stats.responseSize >= 0) {
+      DistributionSummary.builder("metastats.requests.response.size")
+        .description("MetaStats metrics response body size")
+        .baseUnit("bytes")
+        .register(registry)
+        .record(stats.responseSize);
+    }
+    if (stats.notModified) {
+      Counter.builder("metastats.requests.not.modified")
+        .description("MetaStats metrics requests answered with not modified")
+        .register(registry)
+        .increment();
+    }
+    if (stats.retries >= 0) {
+      DistributionSummary.builder("metastats.requests.retries")
+        .description("Retries per MetaStats metrics request")
+        .tag("outcome", stats.outcome)
+        .register(registry)
+        .record(stats.retries);
+      Timer.builder("metastats.requests.retries.delay")
+        .description("Time spent waiting to retry MetaStats metrics requests")
+        .tag("outcome", stats.outcome)
+        .register(registry)
+        .record(stats.retryDelayInMilliseconds, TimeUnit.MILLISECONDS);
+    }
+  }
+}
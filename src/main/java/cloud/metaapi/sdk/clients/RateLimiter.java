@@ -0,0 +1,138 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Token bucket rate limiter of requests. Requests exceeding the rate are queued in order of arrival
+ * and released as soon as tokens become available, so that they do not reach the server only to be
+ * rejected with 429 errors and retried. Waiting does not block any thread
+ */
+public class RateLimiter {
+
+  private static ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "metastats-rate-limiter");
+    thread.setDaemon(true);
+    return thread;
+  });
+  private LongSupplier clock;
+  private double tokensPerNanosecond;
+  private double burst;
+  private double tokens;
+  private long refilledAt;
+  private boolean drainScheduled;
+  private ArrayDeque<CompletableFuture<Void>> queue = new ArrayDeque<>();
+
+  /**
+   * Rate limiter options
+   */
+  public static class Options {
+    /**
+     * Sustained number of requests per second, default 10
+     */
+    public double requestsPerSecond = 10;
+    /**
+     * Maximum number of requests which can be sent at once after a period of inactivity, default 10
+     */
+    public int burst = 10;
+  }
+
+  /**
+   * Constructs rate limiter instance
+   * @param opts rate limiter options
+   * @throws ValidationException if specified options are invalid
+   */
+  public RateLimiter(Options opts) throws ValidationException {
+    this(opts, System::nanoTime);
+  }
+
+  /**
+   * Constructs rate limiter instance
+   * @param opts rate limiter options
+   * @param clock source of current time in nanoseconds
+   * @throws ValidationException if specified options are invalid
+   */
+  RateLimiter(Options opts, LongSupplier clock) throws ValidationException {
+    new OptionsValidator().validateNonZeroInt(opts.burst, "rateLimitOpts.burst");
+    if (!(opts.requestsPerSecond > 0)) {
+      throw new ValidationException("Parameter rateLimitOpts.requestsPerSecond must be positive", null);
+    }
+    this.clock = clock;
+    this.tokensPerNanosecond = opts.requestsPerSecond / TimeUnit.SECONDS.toNanos(1);
+    this.burst = opts.burst;
+    this.tokens = opts.burst;
+    this.refilledAt = clock.getAsLong();
+  }
+
+  /**
+   * Acquires a permit to send a request
+   * @return completable future resolving when the request may be sent. Cancelling the future
+   * releases its place in the queue
+   */
+  public CompletableFuture<Void> acquire() {
+    synchronized (this) {
+      refill();
+      if (queue.isEmpty() && tokens >= 1) {
+        tokens--;
+        return CompletableFuture.completedFuture(null);
+      }
+      CompletableFuture<Void> permit = new CompletableFuture<>();
+      queue.add(permit);
+      scheduleDrain();
+      return permit;
+    }
+  }
+
+  /**
+   * Returns the number of requests waiting for a permit
+   * @return the number of queued requests
+   */
+  public synchronized int getQueueSize() {
+    return queue.size();
+  }
+
+  /**
+   * Releases queued requests for which tokens became available
+   */
+  void drain() {
+    List<CompletableFuture<Void>> permits = new ArrayList<>();
+    synchronized (this) {
+      drainScheduled = false;
+      refill();
+      while (!queue.isEmpty() && tokens >= 1) {
+        CompletableFuture<Void> permit = queue.poll();
+        if (!permit.isDone()) {
+          tokens--;
+          permits.add(permit);
+        }
+      }
+      queue.removeIf(CompletableFuture::isDone);
+      if (!queue.isEmpty()) {
+        scheduleDrain();
+      }
+    }
+    permits.forEach(permit -> permit.complete(null));
+  }
+
+  private void refill() {
+    long now = clock.getAsLong();
+    tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNanosecond);
+    refilledAt = now;
+  }
+
+  private void scheduleDrain() {
+    if (!drainScheduled) {
+      drainScheduled = true;
+      long delay = (long) Math.ceil((1 - tokens) / tokensPerNanosecond);
+      scheduler.schedule(this::drain, Math.max(delay, 0), TimeUnit.NANOSECONDS);
+    }
+  }
+}
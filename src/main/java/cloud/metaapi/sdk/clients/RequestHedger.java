@@ -0,0 +1,210 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Sends hedged requests to cut tail latency. If a request has not completed within the configured
+ * percentile of recent request latencies, a second identical request is sent, the result of
+ * whichever request succeeds first is used and the other request is cancelled. The share of hedged
+ * requests is capped by a budget, so that a slow server is not loaded with duplicate requests
+ */
+public class RequestHedger {
+
+  /**
+   * Maximum number of hedged requests which can be sent at once when the budget is unused
+   */
+  private static final double HEDGE_BURST = 10;
+  private static ScheduledExecutorService defaultScheduler = Executors.newSingleThreadScheduledExecutor(
+    runnable -> {
+      Thread thread = new Thread(runnable, "metastats-request-hedger");
+      thread.setDaemon(true);
+      return thread;
+    });
+  private ScheduledExecutorService scheduler;
+  private LongSupplier clock;
+  private double percentile;
+  private long minDelay;
+  private int minimumSamples;
+  private double hedgesPerRequest;
+  private long[] latencies;
+  private int latencyCount;
+  private int latencyIndex;
+  private int samplesSinceUpdate;
+  private long delay = -1;
+  private double hedgeTokens = HEDGE_BURST;
+
+  /**
+   * Request hedging options
+   */
+  public static class Options {
+    /**
+     * Percentile of recent request latencies after which a hedged request is sent, default 95
+     */
+    public double percentile = 95;
+    /**
+     * Minimum delay before a hedged request is sent in milliseconds, default 50
+     */
+    public int minDelayInMilliseconds = 50;
+    /**
+     * Number of most recent latencies the percentile is computed from, default 1000
+     */
+    public int windowSize = 1000;
+    /**
+     * Minimum number of latencies recorded before requests are hedged, default 20
+     */
+    public int minimumSamples = 20;
+    /**
+     * Maximum percentage of requests which are hedged, default 10
+     */
+    public double maxHedgePercent = 10;
+  }
+
+  /**
+   * Constructs request hedger instance
+   * @param opts request hedging options
+   * @throws ValidationException if specified options are invalid
+   */
+  public RequestHedger(Options opts) throws ValidationException {
+    this(opts, defaultScheduler, System::nanoTime);
+  }
+
+  /**
+   * Constructs request hedger instance
+   * @param opts request hedging options
+   * @param scheduler scheduler of hedged requests
+   * @param clock source of current time in nanoseconds
+   * @throws ValidationException if specified options are invalid
+   */
+  RequestHedger(Options opts, ScheduledExecutorService scheduler, LongSupplier clock) throws ValidationException {
+    OptionsValidator validator = new OptionsValidator();
+    validator.validateNonZeroInt(opts.windowSize, "hedgingOpts.windowSize");
+    validator.validateNonZeroInt(opts.minimumSamples, "hedgingOpts.minimumSamples");
+    if (!(opts.percentile > 0 && opts.percentile < 100)) {
+      throw new ValidationException("Parameter hedgingOpts.percentile must be between 0 and 100", null);
+    }
+    if (!(opts.maxHedgePercent > 0 && opts.maxHedgePercent <= 100)) {
+      throw new ValidationException("Parameter hedgingOpts.maxHedgePercent must be greater than 0 and "
+        + "not greater than 100", null);
+    }
+    if (opts.minDelayInMilliseconds < 0) {
+      throw new ValidationException("Parameter hedgingOpts.minDelayInMilliseconds must not be negative", null);
+    }
+    if (opts.minimumSamples > opts.windowSize) {
+      throw new ValidationException("Parameter hedgingOpts.minimumSamples must not be greater than "
+        + "hedgingOpts.windowSize", null);
+    }
+    this.scheduler = scheduler;
+    this.clock = clock;
+    this.percentile = opts.percentile;
+    this.minDelay = TimeUnit.MILLISECONDS.toNanos(opts.minDelayInMilliseconds);
+    this.minimumSamples = opts.minimumSamples;
+    this.hedgesPerRequest = opts.maxHedgePercent / 100;
+    this.latencies = new long[opts.windowSize];
+  }
+
+  /**
+   * Sends a request, hedging it if it does not complete in time
+   * @param <T> request result type
+   * @param request supplier sending a request each time it is invoked
+   * @return completable future resolving with the result of the first successful request, or
+   * failing with the error of the last request if all requests have failed. Cancelling the future
+   * cancels all requests
+   */
+  public <T> CompletableFuture<T> execute(Supplier<CompletableFuture<T>> request) {
+    long hedgeDelay;
+    synchronized (this) {
+      hedgeTokens = Math.min(HEDGE_BURST, hedgeTokens + hedgesPerRequest);
+      hedgeDelay = getDelay();
+    }
+    long startTime = clock.getAsLong();
+    CompletableFuture<T> result = new CompletableFuture<>();
+    List<CompletableFuture<T>> attempts = new CopyOnWriteArrayList<>();
+    AtomicInteger pendingAttempts = new AtomicInteger(1);
+    send(request, result, attempts, pendingAttempts, startTime);
+    if (hedgeDelay != -1 && !result.isDone()) {
+      ScheduledFuture<?> hedge = scheduler.schedule(() -> {
+        if (!result.isDone() && tryAcquireHedge()) {
+          pendingAttempts.incrementAndGet();
+          send(request, result, attempts, pendingAttempts, startTime);
+        }
+      }, hedgeDelay, TimeUnit.NANOSECONDS);
+      result.whenComplete((value, err) -> hedge.cancel(false));
+    }
+    result.whenComplete((value, err) -> attempts.forEach(attempt -> attempt.cancel(false)));
+    return result;
+  }
+
+  /**
+   * Returns the current delay before a hedged request is sent
+   * @return delay in nanoseconds, or -1 if not enough latencies have been recorded yet
+   */
+  public synchronized long getDelay() {
+    if (latencyCount < minimumSamples) {
+      return -1;
+    }
+    if (delay == -1 || samplesSinceUpdate >= latencies.length / 10) {
+      long[] sorted = Arrays.copyOf(latencies, latencyCount);
+      Arrays.sort(sorted);
+      int index = Math.max((int) Math.ceil(percentile / 100 * sorted.length) - 1, 0);
+      delay = Math.max(sorted[index], minDelay);
+      samplesSinceUpdate = 0;
+    }
+    return delay;
+  }
+
+  /**
+   * Records latency of a successful request. Latency is measured from the start of the first
+   * attempt, so that a fast hedged attempt does not hide the latency of the slow one it replaced
+   * @param latency request latency in nanoseconds
+   */
+  synchronized void recordLatency(long latency) {
+    latencies[latencyIndex] = latency;
+    latencyIndex = (latencyIndex + 1) % latencies.length;
+    latencyCount = Math.min(latencyCount + 1, latencies.length);
+    samplesSinceUpdate++;
+  }
+
+  private synchronized boolean tryAcquireHedge() {
+    if (hedgeTokens < 1) {
+      return false;
+    }
+    hedgeTokens--;
+    return true;
+  }
+
+  private <T> void send(Supplier<CompletableFuture<T>> request, CompletableFuture<T> result,
+    List<CompletableFuture<T>> attempts, AtomicInteger pendingAttempts, long startTime) {
+    CompletableFuture<T> attempt;
+    try {
+      attempt = request.get();
+    } catch (Throwable err) {
+      attempt = new CompletableFuture<>();
+      attempt.completeExceptionally(err);
+    }
+    attempts.add(attempt);
+    if (result.isDone()) {
+      attempt.cancel(false);
+    }
+    attempt.whenComplete((value, err) -> {
+      if (err == null) {
+        if (result.complete(value)) {
+          recordLatency(clock.getAsLong() - startTime);
+        }
+      } else if (pendingAttempts.decrementAndGet() == 0) {
+        result.completeExceptionally(err);
+      }
+    });
+  }
+}
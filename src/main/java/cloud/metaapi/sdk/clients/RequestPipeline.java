@@ -0,0 +1,432 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import cloud.metaapi.sdk.clients.HttpRequestOptions.Method;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsHttpClient.RetryListener;
+import cloud.metaapi.sdk.clients.MetaStatsRequestListener.RequestStats;
+
+/**
+ * Stages shared by metrics requests of {@link MetaStatsClient} and {@link MetaStatsBlockingClient}:
+ * request telemetry, circuit breaker, rate limiter and concurrency limit. Each stage is provided
+ * in an asynchronous form chaining completable futures and in a blocking form waiting in the
+ * calling thread, and is skipped if it is not configured
+ */
+class RequestPipeline {
+
+  private static Logger logger = LogManager.getLogger(RequestPipeline.class);
+  private String host;
+  private String token;
+  private volatile MetaStatsRequestListener requestListener;
+  private volatile RateLimiter rateLimiter;
+  private volatile CircuitBreaker circuitBreaker;
+  private volatile ConcurrencyLimiter concurrencyLimiter;
+
+  /**
+   * Constructs request pipeline instance
+   * @param domain domain to connect to
+   * @param token authorization token
+   */
+  RequestPipeline(String domain, String token) {
+    this.host = "https://metastats-api-v1." + domain;
+    this.token = token;
+  }
+
+  MetaStatsRequestListener getRequestListener() {
+    return requestListener;
+  }
+
+  void setRequestListener(MetaStatsRequestListener requestListener) {
+    this.requestListener = requestListener;
+  }
+
+  RateLimiter getRateLimiter() {
+    return rateLimiter;
+  }
+
+  void setRateLimiter(RateLimiter rateLimiter) {
+    this.rateLimiter = rateLimiter;
+  }
+
+  CircuitBreaker getCircuitBreaker() {
+    return circuitBreaker;
+  }
+
+  void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+    this.circuitBreaker = circuitBreaker;
+  }
+
+  ConcurrencyLimiter getConcurrencyLimiter() {
+    return concurrencyLimiter;
+  }
+
+  void setConcurrencyLimiter(ConcurrencyLimiter concurrencyLimiter) {
+    this.concurrencyLimiter = concurrencyLimiter;
+  }
+
+  /**
+   * Creates options of a metrics request
+   * @param key metrics key
+   * @return request options
+   */
+  HttpRequestOptions createRequest(MetricsKey key) {
+    HttpRequestOptions opts = new HttpRequestOptions(host + "/users/current/accounts/" + key.getAccountId()
+      + "/metrics", Method.GET);
+    opts.getQueryParameters().put("includeOpenPositions", key.isIncludeOpenPositions());
+    opts.getHeaders().put("auth-token", token);
+    return opts;
+  }
+
+  /**
+   * Reports telemetry of a request to the request listener. The request must call
+   * {@link #notifyStarted} once it is admitted by the circuit breaker and limiters
+   * @param <T> request result type
+   * @param accountId MetaApi account id
+   * @param request function sending the request, receiving statistics to fill or {@code null} if
+   * telemetry is disabled
+   * @return request result
+   */
+  <T> CompletableFuture<T> withTelemetry(String accountId, Function<RequestStats, CompletableFuture<T>> request) {
+    MetaStatsRequestListener listener = requestListener;
+    if (listener == null) {
+      return request.apply(null);
+    }
+    ListenedStats stats = startStats(listener, accountId);
+    long startTime = System.nanoTime();
+    CompletableFuture<T> result;
+    try {
+      result = request.apply(stats);
+    } catch (Throwable err) {
+      result = Futures.failed(err);
+    }
+    return Futures.whenComplete(result, (value, err) -> completeStats(listener, stats, startTime, err));
+  }
+
+  /**
+   * Reports telemetry of a request to the request listener, blocking version of
+   * {@link #withTelemetry}. The request must call {@link #notifyStarted} once it is admitted by
+   * the circuit breaker and limiters
+   * @param <T> request result type
+   * @param accountId MetaApi account id
+   * @param request function sending the request, receiving statistics to fill or {@code null} if
+   * telemetry is disabled
+   * @return request result
+   * @throws Exception if the request has failed
+   */
+  <T> T withTelemetrySync(String accountId, BlockingRequest<T> request) throws Exception {
+    MetaStatsRequestListener listener = requestListener;
+    if (listener == null) {
+      return request.send(null);
+    }
+    ListenedStats stats = startStats(listener, accountId);
+    long startTime = System.nanoTime();
+    Throwable error = null;
+    try {
+      return request.send(stats);
+    } catch (Throwable err) {
+      error = err;
+      throw err;
+    } finally {
+      completeStats(listener, stats, startTime, error);
+    }
+  }
+
+  /**
+   * Notifies the request listener that a request admitted by the circuit breaker and limiters is
+   * sent to the API
+   * @param stats request statistics, or {@code null} if telemetry is disabled
+   */
+  void notifyStarted(RequestStats stats) {
+    if (stats != null) {
+      ListenedStats listenedStats = (ListenedStats) stats;
+      listenedStats.sent = true;
+      notifyListener(() -> listenedStats.listener.onRequestStarted(stats.accountId));
+    }
+  }
+
+  /**
+   * Blocking request receiving its statistics
+   * @param <T> request result type
+   */
+  interface BlockingRequest<T> {
+    /**
+     * Sends the request
+     * @param stats statistics of the request to fill, or {@code null} if telemetry is disabled
+     * @return request result
+     * @throws Exception if the request has failed
+     */
+    T send(RequestStats stats) throws Exception;
+  }
+
+  /**
+   * Sends a request if the circuit breaker allows it and reports its outcome to the breaker
+   * @param <T> request result type
+   * @param accountId MetaApi account id
+   * @param request supplier sending the request
+   * @return request result, or a future failing with {@link RequestRejectedException} while the
+   * circuit breaker is open
+   */
+  <T> CompletableFuture<T> withCircuitBreaker(String accountId, Supplier<CompletableFuture<T>> request) {
+    CircuitBreaker circuitBreaker = this.circuitBreaker;
+    if (circuitBreaker == null) {
+      return request.get();
+    }
+    if (!circuitBreaker.tryAcquire()) {
+      return Futures.failed(createRejection(accountId));
+    }
+    CompletableFuture<T> result;
+    try {
+      result = request.get();
+    } catch (Throwable err) {
+      circuitBreaker.onComplete(err);
+      throw err;
+    }
+    return Futures.whenComplete(result, (value, err) -> circuitBreaker.onComplete(err));
+  }
+
+  /**
+   * Sends a request if the circuit breaker allows it, blocking version of {@link #withCircuitBreaker}
+   * @param <T> request result type
+   * @param accountId MetaApi account id
+   * @param request request to send
+   * @return request result
+   * @throws RequestRejectedException if the circuit breaker is open
+   * @throws Exception if the request has failed
+   */
+  <T> T withCircuitBreakerSync(String accountId, Callable<T> request) throws Exception {
+    CircuitBreaker circuitBreaker = this.circuitBreaker;
+    if (circuitBreaker == null) {
+      return request.call();
+    }
+    if (!circuitBreaker.tryAcquire()) {
+      throw createRejection(accountId);
+    }
+    try {
+      T result = request.call();
+      circuitBreaker.onComplete(null);
+      return result;
+    } catch (Throwable err) {
+      circuitBreaker.onComplete(err);
+      throw err;
+    }
+  }
+
+  /**
+   * Sends a request once the rate limiter allows it
+   * @param <T> request result type
+   * @param stats request statistics to record the delay in, or {@code null}
+   * @param request supplier sending the request
+   * @return request result
+   */
+  <T> CompletableFuture<T> withRateLimit(RequestStats stats, Supplier<CompletableFuture<T>> request) {
+    RateLimiter rateLimiter = this.rateLimiter;
+    if (rateLimiter == null) {
+      return request.get();
+    }
+    long startTime = System.nanoTime();
+    return Futures.thenCompose(rateLimiter.acquire(), permit -> {
+      if (stats != null) {
+        stats.rateLimitDelayInNanoseconds = System.nanoTime() - startTime;
+      }
+      return request.get();
+    });
+  }
+
+  /**
+   * Sends a request once the rate limiter allows it, blocking version of {@link #withRateLimit}
+   * @param <T> request result type
+   * @param stats request statistics to record the delay in, or {@code null}
+   * @param request request to send
+   * @return request result
+   * @throws Exception if the request has failed
+   */
+  <T> T withRateLimitSync(RequestStats stats, Callable<T> request) throws Exception {
+    RateLimiter rateLimiter = this.rateLimiter;
+    if (rateLimiter != null) {
+      long startTime = System.nanoTime();
+      CompletableFuture<Void> permit = rateLimiter.acquire();
+      try {
+        permit.get();
+      } catch (InterruptedException err) {
+        permit.cancel(false);
+        throw err;
+      }
+      if (stats != null) {
+        stats.rateLimitDelayInNanoseconds = System.nanoTime() - startTime;
+      }
+    }
+    return request.call();
+  }
+
+  /**
+   * Sends a request within the concurrency limit and reports its outcome to the limiter
+   * @param <T> request result type
+   * @param stats request statistics to record the delay in, or {@code null}
+   * @param request supplier sending the request
+   * @return request result
+   */
+  <T> CompletableFuture<T> withConcurrencyLimit(RequestStats stats, Supplier<CompletableFuture<T>> request) {
+    ConcurrencyLimiter concurrencyLimiter = this.concurrencyLimiter;
+    if (concurrencyLimiter == null) {
+      return request.get();
+    }
+    long startTime = System.nanoTime();
+    return Futures.thenCompose(concurrencyLimiter.acquire(), permit -> {
+      if (stats != null) {
+        stats.concurrencyLimitDelayInNanoseconds = System.nanoTime() - startTime;
+      }
+      CompletableFuture<T> result;
+      try {
+        result = request.get();
+      } catch (Throwable err) {
+        permit.release(err);
+        throw err;
+      }
+      return Futures.whenComplete(result, (value, err) -> permit.release(err));
+    });
+  }
+
+  /**
+   * Sends a request within the concurrency limit, blocking version of {@link #withConcurrencyLimit}
+   * @param <T> request result type
+   * @param stats request statistics to record the delay in, or {@code null}
+   * @param request request to send
+   * @return request result
+   * @throws RequestRejectedException if the queue of the concurrency limiter is full
+   * @throws Exception if the request has failed
+   */
+  <T> T withConcurrencyLimitSync(RequestStats stats, Callable<T> request) throws Exception {
+    ConcurrencyLimiter concurrencyLimiter = this.concurrencyLimiter;
+    if (concurrencyLimiter == null) {
+      return request.call();
+    }
+    long startTime = System.nanoTime();
+    CompletableFuture<ConcurrencyLimiter.Permit> acquisition = concurrencyLimiter.acquire();
+    ConcurrencyLimiter.Permit permit;
+    try {
+      permit = acquisition.get();
+    } catch (InterruptedException err) {
+      acquisition.cancel(false);
+      acquisition.thenAccept(granted -> granted.release(new CancellationException()));
+      throw err;
+    } catch (ExecutionException err) {
+      if (err.getCause() instanceof RequestRejectedException) {
+        throw (RequestRejectedException) err.getCause();
+      }
+      throw err;
+    }
+    if (stats != null) {
+      stats.concurrencyLimitDelayInNanoseconds = System.nanoTime() - startTime;
+    }
+    try {
+      T result = request.call();
+      permit.release(null);
+      return result;
+    } catch (Throwable err) {
+      permit.release(err);
+      throw err;
+    }
+  }
+
+  /**
+   * Parses a metrics response, recording deserialization time and response size
+   * @param parser metrics parser
+   * @param body response body
+   * @param stats request statistics, or {@code null}
+   * @return parsed metrics
+   * @throws IOException if failed to parse the response
+   */
+  Metrics parseResponse(MetricsParser parser, InputStream body, RequestStats stats) throws IOException {
+    if (stats == null) {
+      return parser.parseResponse(body);
+    }
+    long startTime = System.nanoTime();
+    CountingInputStream countingBody = new CountingInputStream(body);
+    try {
+      return parser.parseResponse(countingBody);
+    } finally {
+      stats.deserializationTimeInNanoseconds = System.nanoTime() - startTime;
+      stats.responseSize = countingBody.getCount();
+    }
+  }
+
+  /**
+   * Returns listener recording retries of an attempt of a request. Retries of all attempts of a
+   * hedged request are summed up and reported when the request completes
+   * @param stats request statistics, or {@code null}
+   * @return retry listener, or {@code null} if statistics are not recorded
+   */
+  RetryListener createRetryListener(RequestStats stats) {
+    if (stats == null) {
+      return null;
+    }
+    ListenedStats listenedStats = (ListenedStats) stats;
+    listenedStats.retriesRecorded = true;
+    return (status, delay) -> {
+      listenedStats.retryCount.incrementAndGet();
+      listenedStats.retryDelay.addAndGet(delay);
+    };
+  }
+
+  private RequestRejectedException createRejection(String accountId) {
+    return new RequestRejectedException("Circuit breaker is open, metrics request of account " + accountId
+      + " was not sent");
+  }
+
+  private ListenedStats startStats(MetaStatsRequestListener listener, String accountId) {
+    ListenedStats stats = new ListenedStats();
+    stats.accountId = accountId;
+    stats.listener = listener;
+    return stats;
+  }
+
+  private void completeStats(MetaStatsRequestListener listener, ListenedStats stats, long startTime,
+    Throwable err) {
+    stats.durationInNanoseconds = System.nanoTime() - startTime;
+    if (stats.retriesRecorded) {
+      stats.retries = stats.retryCount.get();
+      stats.retryDelayInMilliseconds = stats.retryDelay.get();
+    }
+    stats.error = err instanceof CompletionException && err.getCause() != null ? err.getCause() : err;
+    stats.outcome = stats.error != null ? getOutcome(stats.error) : "success";
+    notifyListener(() -> listener.onRequestCompleted(stats));
+  }
+
+  private static String getOutcome(Throwable err) {
+    String name = err.getClass().getSimpleName();
+    return name.isEmpty() ? err.getClass().getName() : name;
+  }
+
+  private void notifyListener(Runnable notification) {
+    try {
+      notification.run();
+    } catch (Throwable err) {
+      logger.error("Failed to notify metrics request listener", err);
+    }
+  }
+
+  /**
+   * Request statistics remembering the listener to notify once the request is sent and counting
+   * retries of concurrent attempts of the request
+   */
+  private static class ListenedStats extends RequestStats {
+    private MetaStatsRequestListener listener;
+    private volatile boolean retriesRecorded;
+    private AtomicInteger retryCount = new AtomicInteger();
+    private AtomicLong retryDelay = new AtomicLong();
+  }
+}
@@ -0,0 +1,18 @@
+package cloud.metaapi.sdk.clients;
+
+/**
+ * Exception thrown when a request is rejected on the client side without being sent, because the
+ * circuit breaker is open or the queue of the concurrency limiter is full
+ */
+public class RequestRejectedException extends Exception {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Constructs request rejected exception
+   * @param message exception message
+   */
+  public RequestRejectedException(String message) {
+    super(message);
+  }
+}
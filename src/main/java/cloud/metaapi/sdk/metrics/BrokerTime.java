@@ -0,0 +1,102 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+/**
+ * Converts times to broker timezone. The zone offset is cached until the next transition, so that
+ * no objects are allocated for times within the same offset period
+ */
+class BrokerTime {
+
+  /**
+   * Milliseconds in a day
+   */
+  static final long DAY_IN_MILLISECONDS = 86400000L;
+  private static final DateTimeFormatter timeFormat = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+  private ZoneId timezone;
+  private ZoneRules zoneRules;
+  private long offset;
+  private long offsetValidFrom = Long.MAX_VALUE;
+  private long offsetValidUntil = Long.MIN_VALUE;
+
+  /**
+   * Constructs broker time instance
+   * @param timezone broker timezone
+   */
+  BrokerTime(ZoneId timezone) {
+    this.timezone = timezone;
+    this.zoneRules = timezone.getRules();
+  }
+
+  /**
+   * Converts time to broker local time
+   * @param time time in milliseconds since epoch
+   * @return local time in milliseconds since local epoch
+   */
+  long toLocalTime(long time) {
+    if (time < offsetValidFrom || time >= offsetValidUntil) {
+      Instant instant = Instant.ofEpochMilli(time);
+      offset = zoneRules.getOffset(instant).getTotalSeconds() * 1000L;
+      if (zoneRules.isFixedOffset()) {
+        offsetValidFrom = Long.MIN_VALUE;
+        offsetValidUntil = Long.MAX_VALUE;
+      } else {
+        ZoneOffsetTransition previous = zoneRules.previousTransition(instant.plusMillis(1));
+        ZoneOffsetTransition next = zoneRules.nextTransition(instant);
+        offsetValidFrom = previous != null ? previous.getInstant().toEpochMilli() : Long.MIN_VALUE;
+        offsetValidUntil = next != null ? next.getInstant().toEpochMilli() : Long.MAX_VALUE;
+      }
+    }
+    return time + offset;
+  }
+
+  /**
+   * Returns the broker day of a time
+   * @param time time in milliseconds since epoch
+   * @return days since epoch in broker timezone
+   */
+  long toDay(long time) {
+    return Math.floorDiv(toLocalTime(time), DAY_IN_MILLISECONDS);
+  }
+
+  /**
+   * Returns the broker hour of a time
+   * @param time time in milliseconds since epoch
+   * @return hour within 0-23
+   */
+  int toHour(long time) {
+    return (int) (Math.floorMod(toLocalTime(time), DAY_IN_MILLISECONDS) / 3600000);
+  }
+
+  /**
+   * Returns the broker weekday of a time
+   * @param time time in milliseconds since epoch
+   * @return weekday within 0-6 starting from Sunday
+   */
+  int toWeekDay(long time) {
+    return (int) Math.floorMod(toDay(time) + 4, 7L);
+  }
+
+  /**
+   * Formats time in broker timezone in YYYY-MM-DD HH:mm:ss.SSS format
+   * @param time time in milliseconds since epoch
+   * @return formatted time
+   */
+  String format(long time) {
+    return Instant.ofEpochMilli(time).atZone(timezone).format(timeFormat);
+  }
+
+  /**
+   * Formats a day in YYYY-MM-DD format
+   * @param day days since epoch
+   * @return formatted day
+   */
+  static String formatDay(long day) {
+    return LocalDate.ofEpochDay(day).toString();
+  }
+}
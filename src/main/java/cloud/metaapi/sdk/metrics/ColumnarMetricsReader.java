@@ -0,0 +1,327 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads columns of files written by {@link ColumnarMetricsWriter}. Only the chunks of requested
+ * columns are read from the file, so scanning a few columns of many accounts does not require reading
+ * or deserializing whole metrics.
+ * <p>
+ * Columns of the root table contain a value per account. Columns of list sections, e.g.
+ * {@code dailyGrowth.balance}, contain a value per list element of all accounts in order, the
+ * elements of a parent row are located with {@link #readOffsets}
+ */
+public class ColumnarMetricsReader implements Closeable {
+
+  private FileChannel channel;
+  private ColumnarSchema schema = new ColumnarSchema();
+  private Map<String, ColumnarSchema.Column> columnsByName = new HashMap<>();
+  private Map<String, ColumnarSchema.Table> tablesByPath = new HashMap<>();
+  private Map<ColumnarSchema.Column, ColumnarSchema.Table> columnTables = new HashMap<>();
+  private boolean compressed;
+  private List<RowGroup> rowGroups = new ArrayList<>();
+
+  /**
+   * Row group metadata
+   */
+  private static class RowGroup {
+    private int accounts;
+    private int[] rows;
+    private Chunk[] lengths;
+    private Chunk[][] columns;
+  }
+
+  /**
+   * Location of a column chunk
+   */
+  private static class Chunk {
+    private long offset;
+    private int stored;
+    private int raw;
+  }
+
+  /**
+   * Opens a columnar file
+   * @param path file path
+   * @throws IOException if the file could not be read or is not a columnar metrics file
+   */
+  public ColumnarMetricsReader(Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    try {
+      readFooter();
+    } catch (IOException | RuntimeException err) {
+      channel.close();
+      throw err;
+    }
+  }
+
+  /**
+   * Returns the number of accounts in the file
+   * @return the number of accounts
+   */
+  public int getAccountCount() {
+    int result = 0;
+    for (RowGroup rowGroup : rowGroups) {
+      result += rowGroup.accounts;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the names of all columns in the file
+   * @return column names
+   */
+  public List<String> getColumnNames() {
+    List<String> result = new ArrayList<>();
+    for (ColumnarSchema.Table table : schema.tables) {
+      for (ColumnarSchema.Column column : table.columns) {
+        result.add(column.name);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reads a numeric or boolean column. Booleans are read as 0 and 1
+   * @param name column name
+   * @return column values
+   * @throws IOException if the column does not exist, is not numeric or could not be read
+   */
+  public DoubleColumn readDoubleColumn(String name) throws IOException {
+    ColumnarSchema.Column column = getColumn(name);
+    if (column.type == ColumnarSchema.STRING) {
+      throw new IOException("Column " + name + " is not numeric");
+    }
+    ColumnarSchema.Table table = columnTables.get(column);
+    int columnIndex = table.columns.indexOf(column);
+    DoubleColumn.Builder builder = new DoubleColumn.Builder(countRows(table));
+    for (RowGroup rowGroup : rowGroups) {
+      int rows = rowGroup.rows[table.index];
+      ByteBuffer chunk = readChunk(rowGroup.columns[table.index][columnIndex]);
+      boolean[] nulls = readNulls(chunk, rows);
+      for (int i = 0; i < rows; i++) {
+        double value = column.type == ColumnarSchema.DOUBLE ? chunk.getDouble()
+          : column.type == ColumnarSchema.INT ? chunk.getInt() : chunk.get();
+        if (nulls != null && nulls[i]) {
+          builder.addNull();
+        } else {
+          builder.add(value);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Reads a string column
+   * @param name column name
+   * @return column values which may contain nulls
+   * @throws IOException if the column does not exist, is not a string column or could not be read
+   */
+  public List<String> readStringColumn(String name) throws IOException {
+    ColumnarSchema.Column column = getColumn(name);
+    if (column.type != ColumnarSchema.STRING) {
+      throw new IOException("Column " + name + " is not a string column");
+    }
+    ColumnarSchema.Table table = columnTables.get(column);
+    int columnIndex = table.columns.indexOf(column);
+    List<String> result = new ArrayList<>(countRows(table));
+    for (RowGroup rowGroup : rowGroups) {
+      int rows = rowGroup.rows[table.index];
+      ByteBuffer chunk = readChunk(rowGroup.columns[table.index][columnIndex]);
+      readNulls(chunk, rows);
+      for (int i = 0; i < rows; i++) {
+        int length = chunk.getInt();
+        if (length == -1) {
+          result.add(null);
+        } else {
+          result.add(new String(chunk.array(), chunk.arrayOffset() + chunk.position(), length,
+            StandardCharsets.UTF_8));
+          chunk.position(chunk.position() + length);
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Reads offsets of list elements, e.g. of {@code dailyGrowth}. Elements of the parent row
+   * {@code i} are located at indices from {@code offsets[i]} inclusive to {@code offsets[i + 1]}
+   * exclusive of the columns of the list. Missing lists are read as empty lists
+   * @param path list path
+   * @return offsets with a value per parent row and a final value equal to the number of elements
+   * @throws IOException if the list does not exist or could not be read
+   */
+  public int[] readOffsets(String path) throws IOException {
+    ColumnarSchema.Table table = tablesByPath.get(path);
+    if (table == null || table.parent == -1) {
+      throw new IOException("List " + path + " does not exist");
+    }
+    int[] offsets = new int[countRows(schema.tables.get(table.parent)) + 1];
+    int index = 0;
+    for (RowGroup rowGroup : rowGroups) {
+      int rows = rowGroup.rows[table.parent];
+      ByteBuffer chunk = readChunk(rowGroup.lengths[table.index]);
+      readNulls(chunk, rows);
+      for (int i = 0; i < rows; i++) {
+        offsets[index + 1] = offsets[index] + chunk.getInt();
+        index++;
+      }
+    }
+    return offsets;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void readFooter() throws IOException {
+    long size = channel.size();
+    if (size < 16) {
+      throw new IOException("Not a columnar metrics file");
+    }
+    ByteBuffer trailer = ByteBuffer.allocate(8);
+    readFully(trailer, size - 8);
+    int footerLength = trailer.getInt(0);
+    if (trailer.getInt(4) != ColumnarSchema.MAGIC || footerLength < 0 || footerLength > size - 12) {
+      throw new IOException("Not a columnar metrics file");
+    }
+    ByteBuffer footer = ByteBuffer.allocate(footerLength);
+    readFully(footer, size - 8 - footerLength);
+    DataInputStream input = new DataInputStream(new ByteArrayInputStream(footer.array()));
+    int version = input.readInt();
+    if (version != ColumnarSchema.VERSION) {
+      throw new IOException("Unsupported columnar metrics file version " + version);
+    }
+    compressed = input.readBoolean();
+    int tableCount = input.readInt();
+    for (int i = 0; i < tableCount; i++) {
+      String path = input.readUTF();
+      ColumnarSchema.Table table = schema.addTable(path, input.readInt());
+      table.scalar = input.readBoolean();
+      int columnCount = input.readInt();
+      for (int j = 0; j < columnCount; j++) {
+        ColumnarSchema.Column column = new ColumnarSchema.Column();
+        column.name = input.readUTF();
+        column.type = input.readByte();
+        table.columns.add(column);
+        columnsByName.put(column.name, column);
+        columnTables.put(column, table);
+      }
+      tablesByPath.put(path, table);
+    }
+    int rowGroupCount = input.readInt();
+    for (int i = 0; i < rowGroupCount; i++) {
+      RowGroup rowGroup = new RowGroup();
+      rowGroup.accounts = input.readInt();
+      rowGroup.rows = new int[tableCount];
+      rowGroup.lengths = new Chunk[tableCount];
+      rowGroup.columns = new Chunk[tableCount][];
+      for (ColumnarSchema.Table table : schema.tables) {
+        rowGroup.rows[table.index] = input.readInt();
+        if (table.parent != -1) {
+          rowGroup.lengths[table.index] = readChunkLocation(input);
+        }
+        rowGroup.columns[table.index] = new Chunk[table.columns.size()];
+        for (int j = 0; j < table.columns.size(); j++) {
+          rowGroup.columns[table.index][j] = readChunkLocation(input);
+        }
+      }
+      rowGroups.add(rowGroup);
+    }
+  }
+
+  private Chunk readChunkLocation(DataInputStream input) throws IOException {
+    Chunk chunk = new Chunk();
+    chunk.offset = input.readLong();
+    chunk.stored = input.readInt();
+    chunk.raw = input.readInt();
+    return chunk;
+  }
+
+  private ColumnarSchema.Column getColumn(String name) throws IOException {
+    ColumnarSchema.Column column = columnsByName.get(name);
+    if (column == null) {
+      throw new IOException("Column " + name + " does not exist");
+    }
+    return column;
+  }
+
+  private int countRows(ColumnarSchema.Table table) {
+    int result = 0;
+    for (RowGroup rowGroup : rowGroups) {
+      result += rowGroup.rows[table.index];
+    }
+    return result;
+  }
+
+  private ByteBuffer readChunk(Chunk chunk) throws IOException {
+    ByteBuffer stored = ByteBuffer.allocate(chunk.stored);
+    readFully(stored, chunk.offset);
+    if (!compressed) {
+      return stored;
+    }
+    Inflater inflater = new Inflater();
+    try {
+      inflater.setInput(stored.array());
+      byte[] raw = new byte[chunk.raw];
+      int count = 0;
+      while (count < raw.length && !inflater.finished()) {
+        int inflated = inflater.inflate(raw, count, raw.length - count);
+        if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+          break;
+        }
+        count += inflated;
+      }
+      if (count != raw.length) {
+        throw new IOException("Truncated column chunk");
+      }
+      return ByteBuffer.wrap(raw);
+    } catch (DataFormatException err) {
+      throw new IOException(err);
+    } finally {
+      inflater.end();
+    }
+  }
+
+  /**
+   * Reads the null bitmap of a chunk and positions the chunk at its values
+   */
+  private boolean[] readNulls(ByteBuffer chunk, int rows) {
+    if (chunk.get() == 0) {
+      return null;
+    }
+    boolean[] nulls = new boolean[rows];
+    int start = chunk.position();
+    for (int i = 0; i < rows; i++) {
+      nulls[i] = (chunk.get(start + (i >>> 3)) & (1 << (i & 7))) != 0;
+    }
+    chunk.position(start + (rows + 7) / 8);
+    return nulls;
+  }
+
+  private void readFully(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int count = channel.read(buffer, position + buffer.position());
+      if (count < 0) {
+        throw new IOException("Unexpected end of file");
+      }
+    }
+    buffer.flip();
+  }
+}
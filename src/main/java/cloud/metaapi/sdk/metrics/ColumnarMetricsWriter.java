@@ -0,0 +1,295 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.OptionsValidator;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Writes metrics of many accounts into a columnar file which can be read with
+ * {@link ColumnarMetricsReader}. Every scalar field of metrics is stored in its own column, list
+ * sections such as daily growth, monthly analytics and the trade duration diagram are stored as
+ * child tables whose rows are linked to accounts by list lengths, similar to Apache Arrow lists.
+ * Accounts are buffered in primitive column buffers and flushed as a row group once the row group
+ * size is reached, so memory stays bounded regardless of the number of accounts. Column chunks are
+ * optionally deflated. Metrics can be written from multiple threads, e.g. from
+ * {@link cloud.metaapi.sdk.clients.MetaStatsClient.BulkOptions#onResult}
+ * <p>
+ * File layout: magic, row groups of column chunks, footer with the schema and chunk offsets,
+ * footer length, magic
+ */
+public class ColumnarMetricsWriter implements Closeable {
+
+  private Options opts;
+  private DataOutputStream output;
+  private ColumnarSchema schema = ColumnarSchema.forMetrics();
+  private ColumnBuffer[][] columns;
+  private ColumnBuffer[] lengths;
+  private int[] rows;
+  private int accounts;
+  private long position;
+  private ByteArrayOutputStream footer = new ByteArrayOutputStream();
+  private DataOutputStream footerOutput = new DataOutputStream(footer);
+  private int rowGroups;
+  private Deflater deflater;
+  private byte[] buffer = new byte[8192];
+  private boolean closed;
+
+  /**
+   * Columnar writer options
+   */
+  public static class Options {
+    /**
+     * Number of accounts buffered in memory before they are written as a row group, default 1000
+     */
+    public int rowGroupSize = 1000;
+    /**
+     * Whether column chunks are deflated, default true
+     */
+    public boolean compress = true;
+  }
+
+  /**
+   * Buffer of values of one column of a row group
+   */
+  private static class ColumnBuffer {
+    private byte type;
+    private ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    private DataOutputStream data = new DataOutputStream(bytes);
+    private BitSet nulls = new BitSet();
+    private int size;
+
+    private ColumnBuffer(byte type) {
+      this.type = type;
+    }
+
+    private void add(Object value) throws IOException {
+      if (value == null) {
+        nulls.set(size);
+      }
+      switch (type) {
+        case ColumnarSchema.DOUBLE:
+          data.writeDouble(value != null ? ((Number) value).doubleValue() : Double.NaN);
+          break;
+        case ColumnarSchema.INT:
+          data.writeInt(value != null ? ((Number) value).intValue() : 0);
+          break;
+        case ColumnarSchema.BOOLEAN:
+          data.writeByte(value != null && (Boolean) value ? 1 : 0);
+          break;
+        default:
+          if (value == null) {
+            data.writeInt(-1);
+          } else {
+            byte[] utf = ((String) value).getBytes(StandardCharsets.UTF_8);
+            data.writeInt(utf.length);
+            data.write(utf);
+          }
+      }
+      size++;
+    }
+
+    private byte[] encode() throws IOException {
+      ByteArrayOutputStream result = new ByteArrayOutputStream(bytes.size() + 1);
+      if (nulls.isEmpty()) {
+        result.write(0);
+      } else {
+        result.write(1);
+        byte[] bitmap = nulls.toByteArray();
+        result.write(bitmap);
+        result.write(new byte[(size + 7) / 8 - bitmap.length]);
+      }
+      bytes.writeTo(result);
+      return result.toByteArray();
+    }
+
+    private void reset() {
+      bytes.reset();
+      nulls.clear();
+      size = 0;
+    }
+  }
+
+  /**
+   * Constructs columnar writer instance writing to a file
+   * @param path file path, an existing file is overwritten
+   * @param opts columnar writer options
+   * @throws ValidationException if specified options are invalid
+   * @throws IOException if the file could not be created
+   */
+  public ColumnarMetricsWriter(Path path, Options opts) throws ValidationException, IOException {
+    this(new BufferedOutputStream(Files.newOutputStream(path)), opts);
+  }
+
+  /**
+   * Constructs columnar writer instance
+   * @param output output stream to write to, closed when the writer is closed
+   * @param opts columnar writer options
+   * @throws ValidationException if specified options are invalid
+   * @throws IOException if the file header could not be written
+   */
+  public ColumnarMetricsWriter(OutputStream output, Options opts) throws ValidationException, IOException {
+    new OptionsValidator().validateNonZeroInt(opts.rowGroupSize, "columnarOpts.rowGroupSize");
+    this.opts = opts;
+    this.output = new DataOutputStream(output);
+    this.deflater = opts.compress ? new Deflater(Deflater.BEST_SPEED) : null;
+    List<ColumnarSchema.Table> tables = schema.tables;
+    columns = new ColumnBuffer[tables.size()][];
+    lengths = new ColumnBuffer[tables.size()];
+    rows = new int[tables.size()];
+    for (ColumnarSchema.Table table : tables) {
+      columns[table.index] = new ColumnBuffer[table.columns.size()];
+      for (int i = 0; i < table.columns.size(); i++) {
+        columns[table.index][i] = new ColumnBuffer(table.columns.get(i).type);
+      }
+      if (table.parent != -1) {
+        lengths[table.index] = new ColumnBuffer(ColumnarSchema.INT);
+      }
+    }
+    this.output.writeInt(ColumnarSchema.MAGIC);
+    position = 4;
+  }
+
+  /**
+   * Writes metrics of an account
+   * @param accountId account id
+   * @param metrics account metrics
+   * @throws IOException if a row group could not be written
+   */
+  public synchronized void write(String accountId, Metrics metrics) throws IOException {
+    if (closed) {
+      throw new IOException("Writer is closed");
+    }
+    ColumnarSchema.Table root = schema.tables.get(0);
+    columns[0][0].add(accountId);
+    for (int i = 1; i < root.columns.size(); i++) {
+      columns[0][i].add(ColumnarSchema.resolve(metrics, root.columns.get(i).path));
+    }
+    rows[0]++;
+    writeChildren(root, metrics);
+    if (++accounts == opts.rowGroupSize) {
+      flush();
+    }
+  }
+
+  /**
+   * Writes buffered accounts and the footer and closes the output
+   * @throws IOException if the file could not be written
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      if (accounts != 0) {
+        flush();
+      }
+      ByteArrayOutputStream schemaBytes = new ByteArrayOutputStream();
+      DataOutputStream schemaOutput = new DataOutputStream(schemaBytes);
+      schemaOutput.writeInt(ColumnarSchema.VERSION);
+      schemaOutput.writeBoolean(opts.compress);
+      schemaOutput.writeInt(schema.tables.size());
+      for (ColumnarSchema.Table table : schema.tables) {
+        schemaOutput.writeUTF(table.path);
+        schemaOutput.writeInt(table.parent);
+        schemaOutput.writeBoolean(table.scalar);
+        schemaOutput.writeInt(table.columns.size());
+        for (ColumnarSchema.Column column : table.columns) {
+          schemaOutput.writeUTF(column.name);
+          schemaOutput.writeByte(column.type);
+        }
+      }
+      schemaOutput.writeInt(rowGroups);
+      schemaOutput.flush();
+      output.write(schemaBytes.toByteArray());
+      footer.writeTo(output);
+      output.writeInt(schemaBytes.size() + footer.size());
+      output.writeInt(ColumnarSchema.MAGIC);
+    } finally {
+      if (deflater != null) {
+        deflater.end();
+      }
+      output.close();
+    }
+  }
+
+  private void writeChildren(ColumnarSchema.Table table, Object row) throws IOException {
+    for (ColumnarSchema.Table child : table.children) {
+      List<?> list = (List<?>) ColumnarSchema.resolve(row, child.listPath);
+      lengths[child.index].add(list != null ? list.size() : null);
+      if (list == null) {
+        continue;
+      }
+      ColumnBuffer[] childColumns = columns[child.index];
+      for (Object element : list) {
+        if (child.scalar) {
+          childColumns[0].add(element);
+        } else {
+          for (int i = 0; i < childColumns.length; i++) {
+            childColumns[i].add(ColumnarSchema.resolve(element, child.columns.get(i).path));
+          }
+          writeChildren(child, element);
+        }
+        rows[child.index]++;
+      }
+    }
+  }
+
+  /**
+   * Writes buffered accounts as a row group and records chunk offsets in the footer
+   */
+  private void flush() throws IOException {
+    footerOutput.writeInt(accounts);
+    for (ColumnarSchema.Table table : schema.tables) {
+      footerOutput.writeInt(rows[table.index]);
+      if (lengths[table.index] != null) {
+        writeChunk(lengths[table.index]);
+      }
+      for (ColumnBuffer column : columns[table.index]) {
+        writeChunk(column);
+      }
+      rows[table.index] = 0;
+    }
+    rowGroups++;
+    accounts = 0;
+    output.flush();
+  }
+
+  private void writeChunk(ColumnBuffer column) throws IOException {
+    byte[] raw = column.encode();
+    column.reset();
+    int stored = raw.length;
+    if (deflater != null) {
+      deflater.reset();
+      deflater.setInput(raw);
+      deflater.finish();
+      stored = 0;
+      while (!deflater.finished()) {
+        int count = deflater.deflate(buffer);
+        output.write(buffer, 0, count);
+        stored += count;
+      }
+    } else {
+      output.write(raw);
+    }
+    footerOutput.writeLong(position);
+    footerOutput.writeInt(stored);
+    footerOutput.writeInt(raw.length);
+    position += stored;
+  }
+}
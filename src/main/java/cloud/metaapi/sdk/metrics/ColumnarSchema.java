@@ -0,0 +1,227 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+
+/**
+ * Layout of metrics in columnar files. The schema is derived from the public fields of the metrics
+ * model: scalar fields become columns, fields of nested objects are flattened into columns with
+ * dotted names and lists become child tables whose rows belong to rows of their parent table
+ */
+class ColumnarSchema {
+
+  /**
+   * File magic written at the start and at the end of a file
+   */
+  static final int MAGIC = 0x4d534346;
+  /**
+   * File format version
+   */
+  static final int VERSION = 1;
+  /**
+   * Column of double values
+   */
+  static final byte DOUBLE = 1;
+  /**
+   * Column of int values
+   */
+  static final byte INT = 2;
+  /**
+   * Column of boolean values
+   */
+  static final byte BOOLEAN = 3;
+  /**
+   * Column of string values
+   */
+  static final byte STRING = 4;
+  /**
+   * Name of the account id column of the root table
+   */
+  static final String ACCOUNT_ID = "accountId";
+  private static ColumnarSchema metricsSchema;
+
+  /**
+   * Tables in depth-first order, the root table of accounts first
+   */
+  final List<Table> tables = new ArrayList<>();
+
+  /**
+   * Table of rows
+   */
+  static class Table {
+    /**
+     * Table index in the schema
+     */
+    int index;
+    /**
+     * Dotted path of the list field of the table, empty for the root table
+     */
+    String path;
+    /**
+     * Index of the parent table, or -1 for the root table
+     */
+    int parent;
+    /**
+     * Table columns
+     */
+    List<Column> columns = new ArrayList<>();
+    /**
+     * Child tables
+     */
+    List<Table> children = new ArrayList<>();
+    /**
+     * Fields leading from a parent row to the list of the table, or {@code null} if read from a file
+     */
+    Field[] listPath;
+    /**
+     * Whether rows of the table are scalar list elements stored in a single column
+     */
+    boolean scalar;
+  }
+
+  /**
+   * Column of a table
+   */
+  static class Column {
+    /**
+     * Dotted column name including the table path
+     */
+    String name;
+    /**
+     * Column type
+     */
+    byte type;
+    /**
+     * Fields leading from a table row to the value, empty for scalar tables, or {@code null}
+     * if read from a file
+     */
+    Field[] path;
+  }
+
+  /**
+   * Returns the schema of metrics
+   * @return metrics schema
+   */
+  static synchronized ColumnarSchema forMetrics() {
+    if (metricsSchema == null) {
+      ColumnarSchema schema = new ColumnarSchema();
+      Table root = schema.addTable("", -1);
+      Column accountId = new Column();
+      accountId.name = ACCOUNT_ID;
+      accountId.type = STRING;
+      accountId.path = new Field[0];
+      root.columns.add(accountId);
+      schema.addFields(root, Metrics.class, "", new Field[0]);
+      metricsSchema = schema;
+    }
+    return metricsSchema;
+  }
+
+  /**
+   * Adds a table to the schema
+   * @param path table path
+   * @param parent parent table index, or -1
+   * @return added table
+   */
+  Table addTable(String path, int parent) {
+    Table table = new Table();
+    table.index = tables.size();
+    table.path = path;
+    table.parent = parent;
+    tables.add(table);
+    if (parent != -1) {
+      tables.get(parent).children.add(table);
+    }
+    return table;
+  }
+
+  /**
+   * Returns the type of a column of values of a class
+   * @param type value class
+   * @return column type, or 0 if values of the class are not scalar
+   */
+  static byte getType(Class<?> type) {
+    if (type == double.class || type == Double.class) {
+      return DOUBLE;
+    } else if (type == int.class || type == Integer.class) {
+      return INT;
+    } else if (type == boolean.class || type == Boolean.class) {
+      return BOOLEAN;
+    } else if (type == String.class) {
+      return STRING;
+    }
+    return 0;
+  }
+
+  /**
+   * Resolves a value by following fields
+   * @param object object to start from
+   * @param path fields to follow
+   * @return resolved value, or {@code null} if an intermediate value is {@code null}
+   */
+  static Object resolve(Object object, Field[] path) {
+    try {
+      for (Field field : path) {
+        if (object == null) {
+          return null;
+        }
+        object = field.get(object);
+      }
+      return object;
+    } catch (IllegalAccessException err) {
+      throw new IllegalStateException(err);
+    }
+  }
+
+  private void addFields(Table table, Class<?> type, String prefix, Field[] parentPath) {
+    for (Field field : type.getFields()) {
+      if (Modifier.isStatic(field.getModifiers())) {
+        continue;
+      }
+      JsonProperty property = field.getAnnotation(JsonProperty.class);
+      String name = prefix + (property != null && !property.value().isEmpty() ? property.value() : field.getName());
+      Field[] path = Arrays.copyOf(parentPath, parentPath.length + 1);
+      path[parentPath.length] = field;
+      byte columnType = getType(field.getType());
+      if (columnType != 0) {
+        Column column = new Column();
+        column.name = qualify(table, name);
+        column.type = columnType;
+        column.path = path;
+        table.columns.add(column);
+      } else if (field.getType() == List.class) {
+        Type elementType = ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0];
+        Table child = addTable(qualify(table, name), table.index);
+        child.listPath = path;
+        Class<?> elementClass = (Class<?>) elementType;
+        byte elementColumnType = getType(elementClass);
+        if (elementColumnType != 0) {
+          Column column = new Column();
+          column.name = child.path;
+          column.type = elementColumnType;
+          column.path = new Field[0];
+          child.columns.add(column);
+          child.scalar = true;
+        } else {
+          addFields(child, elementClass, "", new Field[0]);
+        }
+      } else if (!field.getType().isPrimitive() && !field.getType().isEnum()
+          && field.getType().getName().startsWith("cloud.metaapi.")) {
+        addFields(table, field.getType(), name + ".", path);
+      }
+    }
+  }
+
+  private static String qualify(Table table, String name) {
+    return table.path.isEmpty() ? name : table.path + "." + name;
+  }
+}
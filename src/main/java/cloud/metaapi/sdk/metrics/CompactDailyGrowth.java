@@ -0,0 +1,212 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+
+/**
+ * Compact columnar representation of daily growth metrics. Each field of {@link DailyGrowthMetrics}
+ * is stored in its own primitive column instead of a separate object per day
+ */
+public class CompactDailyGrowth {
+
+  /**
+   * Dates of trading days in broker timezone as days since epoch
+   */
+  public int[] dates;
+  /**
+   * Cumulative profit per day
+   */
+  public DoubleColumn profit;
+  /**
+   * Cumulative pips per day
+   */
+  public DoubleColumn pips;
+  /**
+   * Cumulative lots per day
+   */
+  public DoubleColumn lots;
+  /**
+   * Cumulative gains per day
+   */
+  public DoubleColumn gains;
+  /**
+   * Total profit in the day end
+   */
+  public DoubleColumn totalProfit;
+  /**
+   * Total gains in the day end
+   */
+  public DoubleColumn totalGains;
+  /**
+   * Balance in the day end
+   */
+  public double[] balance;
+  /**
+   * Maximum registered drawdown in percentage for the day
+   */
+  public DoubleColumn drawdownPercentage;
+  /**
+   * Maximum registered drawdown in the account currency for the day
+   */
+  public DoubleColumn drawdownProfit;
+
+  /**
+   * Builder of compact daily growth metrics appending one day at a time
+   */
+  public static class Builder {
+    private int[] dates;
+    private int size;
+    private DoubleColumn.Builder profit;
+    private DoubleColumn.Builder pips;
+    private DoubleColumn.Builder lots;
+    private DoubleColumn.Builder gains;
+    private DoubleColumn.Builder totalProfit;
+    private DoubleColumn.Builder totalGains;
+    private DoubleColumn.Builder balance;
+    private DoubleColumn.Builder drawdownPercentage;
+    private DoubleColumn.Builder drawdownProfit;
+
+    /**
+     * Constructs builder instance
+     */
+    public Builder() {
+      this(16);
+    }
+
+    /**
+     * Constructs builder instance
+     * @param capacity expected number of days
+     */
+    public Builder(int capacity) {
+      dates = new int[Math.max(capacity, 1)];
+      profit = new DoubleColumn.Builder(capacity);
+      pips = new DoubleColumn.Builder(capacity);
+      lots = new DoubleColumn.Builder(capacity);
+      gains = new DoubleColumn.Builder(capacity);
+      totalProfit = new DoubleColumn.Builder(capacity);
+      totalGains = new DoubleColumn.Builder(capacity);
+      balance = new DoubleColumn.Builder(capacity);
+      drawdownPercentage = new DoubleColumn.Builder(capacity);
+      drawdownProfit = new DoubleColumn.Builder(capacity);
+    }
+
+    /**
+     * Appends metrics of a day
+     * @param day daily growth metrics
+     * @return this builder
+     */
+    public Builder add(DailyGrowthMetrics day) {
+      if (size == dates.length) {
+        dates = Arrays.copyOf(dates, size * 2);
+      }
+      dates[size++] = parseDay(day.date);
+      profit.add(day.profit);
+      pips.add(day.pips);
+      lots.add(day.lots);
+      gains.add(day.gains);
+      totalProfit.add(day.totalProfit);
+      totalGains.add(day.totalGains);
+      balance.add(day.balance);
+      drawdownPercentage.add(day.drawdownPercentage);
+      drawdownProfit.add(day.drawdownProfit);
+      return this;
+    }
+
+    /**
+     * Builds compact daily growth metrics. The builder must not be used afterwards
+     * @return compact daily growth metrics
+     */
+    public CompactDailyGrowth build() {
+      CompactDailyGrowth result = new CompactDailyGrowth();
+      result.dates = size == dates.length ? dates : Arrays.copyOf(dates, size);
+      result.profit = profit.build();
+      result.pips = pips.build();
+      result.lots = lots.build();
+      result.gains = gains.build();
+      result.totalProfit = totalProfit.build();
+      result.totalGains = totalGains.build();
+      result.balance = balance.build().toArray();
+      result.drawdownPercentage = drawdownPercentage.build();
+      result.drawdownProfit = drawdownProfit.build();
+      return result;
+    }
+  }
+
+  /**
+   * Creates compact daily growth metrics
+   * @param days daily growth metrics, or {@code null}
+   * @return compact daily growth metrics, or {@code null} if days are {@code null}
+   */
+  public static CompactDailyGrowth of(List<DailyGrowthMetrics> days) {
+    if (days == null) {
+      return null;
+    }
+    Builder builder = new Builder(days.size());
+    for (DailyGrowthMetrics day : days) {
+      if (day != null) {
+        builder.add(day);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Returns the number of days
+   * @return the number of days
+   */
+  public int size() {
+    return dates.length;
+  }
+
+  /**
+   * Returns metrics of a day
+   * @param index day index
+   * @return daily growth metrics
+   */
+  public DailyGrowthMetrics get(int index) {
+    DailyGrowthMetrics result = new DailyGrowthMetrics();
+    result.date = LocalDate.ofEpochDay(dates[index]).toString();
+    result.profit = profit.getBoxed(index);
+    result.pips = pips.getBoxed(index);
+    result.lots = lots.getBoxed(index);
+    result.gains = gains.getBoxed(index);
+    result.totalProfit = totalProfit.getBoxed(index);
+    result.totalGains = totalGains.getBoxed(index);
+    result.balance = balance[index];
+    result.drawdownPercentage = drawdownPercentage.getBoxed(index);
+    result.drawdownProfit = drawdownProfit.getBoxed(index);
+    return result;
+  }
+
+  /**
+   * Converts compact metrics back to a list of daily growth metrics
+   * @return list of daily growth metrics
+   */
+  public List<DailyGrowthMetrics> toList() {
+    List<DailyGrowthMetrics> result = new ArrayList<>(size());
+    for (int i = 0; i < size(); i++) {
+      result.add(get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Parses a YYYY-MM-DD date into days since epoch without a date time formatter
+   */
+  static int parseDay(String date) {
+    return (int) LocalDate.of(parseNumber(date, 0, 4), parseNumber(date, 5, 7), parseNumber(date, 8, 10))
+      .toEpochDay();
+  }
+
+  private static int parseNumber(String value, int from, int to) {
+    int result = 0;
+    for (int i = from; i < to; i++) {
+      result = result * 10 + value.charAt(i) - '0';
+    }
+    return result;
+  }
+}
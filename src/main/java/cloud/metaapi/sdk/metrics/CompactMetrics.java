@@ -0,0 +1,247 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.MonthlyAnalyticsMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.OneTradeDurationMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Periods;
+import cloud.metaapi.sdk.clients.MetaStatsClient.RiskOfRuinMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeByTimeMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationDiagramColumnMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationMetrics;
+import cloud.metaapi.sdk.clients.MetricsStreamListener;
+
+/**
+ * Memory efficient representation of account metrics intended for holding metrics of many accounts
+ * in memory. Daily growth, trade duration and trade duration diagram sections are stored in primitive
+ * columns, other metrics are kept as is
+ */
+public class CompactMetrics {
+
+  private static final Field[] metricsFields = Metrics.class.getFields();
+
+  /**
+   * Metrics without daily growth, trade duration and trade duration diagram sections
+   */
+  public Metrics metrics;
+  /**
+   * Daily growth metrics, or {@code null}
+   */
+  public CompactDailyGrowth dailyGrowth;
+  /**
+   * Metrics of winning trades for each duration of trades, or {@code null}
+   */
+  public List<CompactTradeValues.OneTradeDuration> tradeDurationWon;
+  /**
+   * Metrics of losing trades for each duration of trades, or {@code null}
+   */
+  public List<CompactTradeValues.OneTradeDuration> tradeDurationLost;
+  /**
+   * Trade duration diagram columns, or {@code null}
+   */
+  public List<CompactTradeDurationDiagramColumn> tradeDurationDiagram;
+
+  /**
+   * Builder of compact metrics from a metrics stream. Rows are compacted as soon as they are received,
+   * so the full boxed representation of list sections is never held in memory. Pass the builder as a
+   * listener to {@link cloud.metaapi.sdk.clients.MetaStatsClient#streamMetrics} and build compact
+   * metrics with the resulting metrics once the stream completes
+   */
+  public static class Builder implements MetricsStreamListener {
+    private CompactDailyGrowth.Builder dailyGrowth;
+    private List<CompactTradeValues.OneTradeDuration> tradeDurationWon;
+    private List<CompactTradeValues.OneTradeDuration> tradeDurationLost;
+    private List<CompactTradeDurationDiagramColumn> tradeDurationDiagram;
+    private List<CurrencySummaryMetrics> currencySummary;
+    private List<MonthlyAnalyticsMetrics> monthlyAnalytics;
+    private List<TradeByTimeMetrics> closeTradesByWeekDay;
+    private List<TradeByTimeMetrics> openTradesByHour;
+    private List<RiskOfRuinMetrics> riskOfRuin;
+    private Periods periods;
+
+    @Override
+    public void onCurrencySummary(CurrencySummaryMetrics currency) {
+      currencySummary = add(currencySummary, currency);
+    }
+
+    @Override
+    public void onDailyGrowth(DailyGrowthMetrics day) {
+      if (dailyGrowth == null) {
+        dailyGrowth = new CompactDailyGrowth.Builder();
+      }
+      dailyGrowth.add(day);
+    }
+
+    @Override
+    public void onMonthlyAnalytics(MonthlyAnalyticsMetrics month) {
+      monthlyAnalytics = add(monthlyAnalytics, month);
+    }
+
+    @Override
+    public void onCloseTradesByWeekDay(TradeByTimeMetrics weekDay) {
+      closeTradesByWeekDay = add(closeTradesByWeekDay, weekDay);
+    }
+
+    @Override
+    public void onOpenTradesByHour(TradeByTimeMetrics hour) {
+      openTradesByHour = add(openTradesByHour, hour);
+    }
+
+    @Override
+    public void onPeriods(Periods periods) {
+      this.periods = periods;
+    }
+
+    @Override
+    public void onRiskOfRuin(RiskOfRuinMetrics riskOfRuin) {
+      this.riskOfRuin = add(this.riskOfRuin, riskOfRuin);
+    }
+
+    @Override
+    public void onTradeDuration(boolean won, OneTradeDurationMetrics duration) {
+      if (won) {
+        tradeDurationWon = add(tradeDurationWon, CompactTradeValues.OneTradeDuration.of(duration));
+      } else {
+        tradeDurationLost = add(tradeDurationLost, CompactTradeValues.OneTradeDuration.of(duration));
+      }
+    }
+
+    @Override
+    public void onTradeDurationDiagramColumn(TradeDurationDiagramColumnMetrics column) {
+      tradeDurationDiagram = add(tradeDurationDiagram, CompactTradeDurationDiagramColumn.of(column));
+    }
+
+    /**
+     * Builds compact metrics from the received rows
+     * @param metrics metrics returned by the completed stream
+     * @return compact metrics
+     */
+    public CompactMetrics build(Metrics metrics) {
+      CompactMetrics result = new CompactMetrics();
+      result.metrics = copyWithoutCompactedSections(metrics);
+      if (currencySummary != null) {
+        result.metrics.currencySummary = currencySummary;
+      }
+      if (monthlyAnalytics != null) {
+        result.metrics.monthlyAnalytics = monthlyAnalytics;
+      }
+      if (closeTradesByWeekDay != null) {
+        result.metrics.closeTradesByWeekDay = closeTradesByWeekDay;
+      }
+      if (openTradesByHour != null) {
+        result.metrics.openTradesByHour = openTradesByHour;
+      }
+      if (riskOfRuin != null) {
+        result.metrics.riskOfRuin = riskOfRuin;
+      }
+      if (periods != null) {
+        result.metrics.periods = periods;
+      }
+      result.dailyGrowth = dailyGrowth != null ? dailyGrowth.build() : CompactDailyGrowth.of(metrics.dailyGrowth);
+      result.tradeDurationWon = tradeDurationWon != null ? tradeDurationWon
+        : metrics.tradeDuration != null ? compact(metrics.tradeDuration.won) : null;
+      result.tradeDurationLost = tradeDurationLost != null ? tradeDurationLost
+        : metrics.tradeDuration != null ? compact(metrics.tradeDuration.lost) : null;
+      result.tradeDurationDiagram = tradeDurationDiagram != null ? tradeDurationDiagram
+        : compactDiagram(metrics.tradeDurationDiagram);
+      return result;
+    }
+
+    private static <T> List<T> add(List<T> list, T item) {
+      List<T> result = list != null ? list : new ArrayList<>();
+      result.add(item);
+      return result;
+    }
+  }
+
+  /**
+   * Creates compact metrics. The given metrics are not modified
+   * @param metrics account metrics
+   * @return compact metrics
+   */
+  public static CompactMetrics of(Metrics metrics) {
+    return new Builder().build(metrics);
+  }
+
+  /**
+   * Converts compact metrics back to regular metrics
+   * @return account metrics
+   */
+  public Metrics toMetrics() {
+    Metrics result = copyWithoutCompactedSections(metrics);
+    result.dailyGrowth = dailyGrowth != null ? dailyGrowth.toList() : null;
+    if (tradeDurationWon != null || tradeDurationLost != null) {
+      result.tradeDuration = new TradeDurationMetrics();
+      result.tradeDuration.won = expand(tradeDurationWon);
+      result.tradeDuration.lost = expand(tradeDurationLost);
+    }
+    if (tradeDurationDiagram != null) {
+      result.tradeDurationDiagram = new ArrayList<>(tradeDurationDiagram.size());
+      for (CompactTradeDurationDiagramColumn column : tradeDurationDiagram) {
+        result.tradeDurationDiagram.add(column.toMetrics());
+      }
+    }
+    return result;
+  }
+
+  private static Metrics copyWithoutCompactedSections(Metrics metrics) {
+    Metrics result = new Metrics();
+    try {
+      for (Field field : metricsFields) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          field.set(result, field.get(metrics));
+        }
+      }
+    } catch (IllegalAccessException err) {
+      throw new IllegalStateException(err);
+    }
+    result.dailyGrowth = null;
+    result.tradeDuration = null;
+    result.tradeDurationDiagram = null;
+    return result;
+  }
+
+  private static List<CompactTradeValues.OneTradeDuration> compact(List<OneTradeDurationMetrics> durations) {
+    if (durations == null) {
+      return null;
+    }
+    List<CompactTradeValues.OneTradeDuration> result = new ArrayList<>(durations.size());
+    for (OneTradeDurationMetrics duration : durations) {
+      if (duration != null) {
+        result.add(CompactTradeValues.OneTradeDuration.of(duration));
+      }
+    }
+    return result;
+  }
+
+  private static List<CompactTradeDurationDiagramColumn> compactDiagram(
+    List<TradeDurationDiagramColumnMetrics> columns) {
+    if (columns == null) {
+      return null;
+    }
+    List<CompactTradeDurationDiagramColumn> result = new ArrayList<>(columns.size());
+    for (TradeDurationDiagramColumnMetrics column : columns) {
+      if (column != null) {
+        result.add(CompactTradeDurationDiagramColumn.of(column));
+      }
+    }
+    return result;
+  }
+
+  private static List<OneTradeDurationMetrics> expand(List<CompactTradeValues.OneTradeDuration> durations) {
+    if (durations == null) {
+      return null;
+    }
+    List<OneTradeDurationMetrics> result = new ArrayList<>(durations.size());
+    for (CompactTradeValues.OneTradeDuration duration : durations) {
+      result.add(duration.toMetrics());
+    }
+    return result;
+  }
+}
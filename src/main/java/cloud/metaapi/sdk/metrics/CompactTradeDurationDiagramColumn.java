@@ -0,0 +1,71 @@
+package cloud.metaapi.sdk.metrics;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationDiagramColumnMetrics;
+
+/**
+ * Compact representation of an information column about the duration of trades for the diagram
+ */
+public class CompactTradeDurationDiagramColumn {
+
+  /**
+   * The number of durations in this column
+   */
+  public int durations;
+  /**
+   * The number of trades in this column
+   */
+  public int trades;
+  /**
+   * Name of this column, one of "seconds", "minutes", "hours", "days", "weeks", "months"
+   */
+  public String name;
+  /**
+   * Minimum trade duration in this column in seconds
+   */
+  public int minDurationInSeconds;
+  /**
+   * Maximum trade duration in this column in seconds, or {@code null}
+   */
+  public Integer maxDurationInSeconds;
+  /**
+   * Values of winning trades in this column, or {@code null}
+   */
+  public CompactTradeValues won;
+  /**
+   * Values of losing trades in this column, or {@code null}
+   */
+  public CompactTradeValues lost;
+
+  /**
+   * Creates compact diagram column
+   * @param column diagram column
+   * @return compact diagram column
+   */
+  public static CompactTradeDurationDiagramColumn of(TradeDurationDiagramColumnMetrics column) {
+    CompactTradeDurationDiagramColumn result = new CompactTradeDurationDiagramColumn();
+    result.durations = column.durations;
+    result.trades = column.trades;
+    result.name = column.name;
+    result.minDurationInSeconds = column.minDurationInSeconds;
+    result.maxDurationInSeconds = column.maxDurationInSeconds;
+    result.won = CompactTradeValues.of(column.won);
+    result.lost = CompactTradeValues.of(column.lost);
+    return result;
+  }
+
+  /**
+   * Converts the compact column back to a diagram column
+   * @return diagram column
+   */
+  public TradeDurationDiagramColumnMetrics toMetrics() {
+    TradeDurationDiagramColumnMetrics result = new TradeDurationDiagramColumnMetrics();
+    result.durations = durations;
+    result.trades = trades;
+    result.name = name;
+    result.minDurationInSeconds = minDurationInSeconds;
+    result.maxDurationInSeconds = maxDurationInSeconds;
+    result.won = won != null ? won.toDiagramColumnCollection() : null;
+    result.lost = lost != null ? lost.toDiagramColumnCollection() : null;
+    return result;
+  }
+}
@@ -0,0 +1,102 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.util.List;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.OneTradeDurationMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationDiagramColumnCollectionMetrics;
+
+/**
+ * Compact representation of per-trade value lists backed by primitive columns
+ */
+public class CompactTradeValues {
+
+  /**
+   * Column of gains
+   */
+  public DoubleColumn gains;
+  /**
+   * Column of profits
+   */
+  public DoubleColumn profits;
+  /**
+   * Column of lots
+   */
+  public DoubleColumn lots;
+  /**
+   * Column of pips, or {@code null}
+   */
+  public DoubleColumn pips;
+
+  /**
+   * Creates compact trade values from a diagram column collection
+   * @param collection diagram column collection, or {@code null}
+   * @return compact trade values, or {@code null} if the collection is {@code null}
+   */
+  public static CompactTradeValues of(TradeDurationDiagramColumnCollectionMetrics collection) {
+    if (collection == null) {
+      return null;
+    }
+    CompactTradeValues result = new CompactTradeValues();
+    result.gains = DoubleColumn.of(collection.gains);
+    result.profits = DoubleColumn.of(collection.profits);
+    result.lots = DoubleColumn.of(collection.lots);
+    result.pips = DoubleColumn.of(collection.pips);
+    return result;
+  }
+
+  /**
+   * Converts the values back to a diagram column collection
+   * @return diagram column collection
+   */
+  public TradeDurationDiagramColumnCollectionMetrics toDiagramColumnCollection() {
+    TradeDurationDiagramColumnCollectionMetrics result = new TradeDurationDiagramColumnCollectionMetrics();
+    result.gains = toList(gains);
+    result.profits = toList(profits);
+    result.lots = toList(lots);
+    result.pips = toList(pips);
+    return result;
+  }
+
+  /**
+   * Compact metrics of one trade duration
+   */
+  public static class OneTradeDuration extends CompactTradeValues {
+    /**
+     * Duration of trades in minutes
+     */
+    public double durationInMinutes;
+
+    /**
+     * Creates compact metrics of one trade duration
+     * @param metrics metrics of one trade duration
+     * @return compact metrics of one trade duration
+     */
+    public static OneTradeDuration of(OneTradeDurationMetrics metrics) {
+      OneTradeDuration result = new OneTradeDuration();
+      result.gains = DoubleColumn.of(metrics.gains);
+      result.profits = DoubleColumn.of(metrics.profits);
+      result.lots = DoubleColumn.of(metrics.lots);
+      result.pips = DoubleColumn.of(metrics.pips);
+      result.durationInMinutes = metrics.durationInMinutes;
+      return result;
+    }
+
+    /**
+     * Converts the compact metrics back to metrics of one trade duration
+     * @return metrics of one trade duration
+     */
+    public OneTradeDurationMetrics toMetrics() {
+      OneTradeDurationMetrics result = new OneTradeDurationMetrics();
+      result.gains = toList(gains);
+      result.profits = toList(profits);
+      result.lots = toList(lots);
+      result.pips = toList(pips);
+      result.durationInMinutes = durationInMinutes;
+      return result;
+    }
+  }
+
+  private static List<Double> toList(DoubleColumn column) {
+    return column != null ? column.toList() : null;
+  }
+}
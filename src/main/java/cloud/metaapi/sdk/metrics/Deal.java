@@ -0,0 +1,77 @@
+package cloud.metaapi.sdk.metrics;
+
+/**
+ * Deal supplied to {@link MetricsEngine}. Instances are not retained by the engine, so one instance
+ * may be reused for a whole stream of deals
+ */
+public class Deal {
+
+  /**
+   * Deal type
+   */
+  public enum Type {
+    /**
+     * Buy deal
+     */
+    BUY,
+    /**
+     * Sell deal
+     */
+    SELL,
+    /**
+     * Balance operation, i.e. a deposit or a withdrawal
+     */
+    BALANCE
+  }
+
+  /**
+   * Deal entry type
+   */
+  public enum EntryType {
+    /**
+     * Deal opening a position
+     */
+    IN,
+    /**
+     * Deal closing a position fully or partially
+     */
+    OUT
+  }
+
+  /**
+   * Deal time in milliseconds since epoch
+   */
+  public long time;
+  /**
+   * Deal type
+   */
+  public Type type;
+  /**
+   * Deal entry type, ignored for balance operations
+   */
+  public EntryType entryType;
+  /**
+   * Id of the position the deal belongs to, ignored for balance operations
+   */
+  public String positionId;
+  /**
+   * Volume of the deal in lots
+   */
+  public double volume;
+  /**
+   * Deal profit, or the amount of a balance operation which is negative for withdrawals
+   */
+  public double profit;
+  /**
+   * Deal commission, usually negative
+   */
+  public double commission;
+  /**
+   * Deal swap
+   */
+  public double swap;
+  /**
+   * Profit of a closing deal in pips, or {@code NaN} if unknown
+   */
+  public double pips = Double.NaN;
+}
@@ -0,0 +1,239 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable column of nullable double values backed by a primitive array. Null values are tracked
+ * in a bitmap which is allocated only if the column contains nulls
+ */
+public final class DoubleColumn {
+
+  private final double[] values;
+  private final long[] nulls;
+  private final int size;
+
+  private DoubleColumn(double[] values, long[] nulls, int size) {
+    this.values = values;
+    this.nulls = nulls;
+    this.size = size;
+  }
+
+  /**
+   * Builder of a double column
+   */
+  public static class Builder {
+    private double[] values;
+    private long[] nulls;
+    private int size;
+
+    /**
+     * Constructs column builder instance
+     */
+    public Builder() {
+      this(16);
+    }
+
+    /**
+     * Constructs column builder instance
+     * @param capacity expected number of values
+     */
+    public Builder(int capacity) {
+      values = new double[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Appends a value to the column
+     * @param value value to append, or {@code null}
+     * @return this builder
+     */
+    public Builder add(Double value) {
+      if (value == null) {
+        addNull();
+      } else {
+        add(value.doubleValue());
+      }
+      return this;
+    }
+
+    /**
+     * Appends a non-null value to the column
+     * @param value value to append
+     * @return this builder
+     */
+    public Builder add(double value) {
+      ensureCapacity();
+      values[size++] = value;
+      return this;
+    }
+
+    /**
+     * Appends a null value to the column
+     * @return this builder
+     */
+    public Builder addNull() {
+      ensureCapacity();
+      if (nulls == null) {
+        nulls = new long[(values.length + 63) >>> 6];
+      } else if (nulls.length << 6 < values.length) {
+        nulls = Arrays.copyOf(nulls, (values.length + 63) >>> 6);
+      }
+      nulls[size >>> 6] |= 1L << size;
+      values[size++] = Double.NaN;
+      return this;
+    }
+
+    /**
+     * Builds the column. The builder must not be used afterwards
+     * @return column with appended values
+     */
+    public DoubleColumn build() {
+      double[] trimmedValues = size == values.length ? values : Arrays.copyOf(values, size);
+      long[] trimmedNulls = nulls == null ? null : Arrays.copyOf(nulls, (size + 63) >>> 6);
+      return new DoubleColumn(trimmedValues, trimmedNulls, size);
+    }
+
+    private void ensureCapacity() {
+      if (size == values.length) {
+        values = Arrays.copyOf(values, values.length * 2);
+      }
+    }
+  }
+
+  /**
+   * Creates a column from a list of boxed values
+   * @param values list of values which may contain nulls, or {@code null}
+   * @return column, or {@code null} if the list is {@code null}
+   */
+  public static DoubleColumn of(List<Double> values) {
+    if (values == null) {
+      return null;
+    }
+    Builder builder = new Builder(values.size());
+    for (Double value : values) {
+      builder.add(value);
+    }
+    return builder.build();
+  }
+
+  /**
+   * Creates a column from primitive values without nulls
+   * @param values column values
+   * @return column
+   */
+  public static DoubleColumn of(double... values) {
+    return new DoubleColumn(values.clone(), null, values.length);
+  }
+
+  /**
+   * Returns the number of values in the column
+   * @return the number of values in the column
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Returns whether the column contains null values
+   * @return whether the column contains null values
+   */
+  public boolean hasNulls() {
+    if (nulls != null) {
+      for (long word : nulls) {
+        if (word != 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns whether the value at the index is null
+   * @param index value index
+   * @return whether the value at the index is null
+   */
+  public boolean isNull(int index) {
+    checkIndex(index);
+    return nulls != null && (nulls[index >>> 6] & (1L << index)) != 0;
+  }
+
+  /**
+   * Returns the value at the index
+   * @param index value index
+   * @return value at the index, or {@link Double#NaN} if the value is null
+   */
+  public double get(int index) {
+    checkIndex(index);
+    return values[index];
+  }
+
+  /**
+   * Returns the value at the index as a boxed value
+   * @param index value index
+   * @return value at the index, or {@code null}
+   */
+  public Double getBoxed(int index) {
+    return isNull(index) ? null : values[index];
+  }
+
+  /**
+   * Returns a copy of the column values
+   * @return copy of the column values where nulls are represented by {@link Double#NaN}
+   */
+  public double[] toArray() {
+    return values.clone();
+  }
+
+  /**
+   * Converts the column to a list of boxed values
+   * @return list of boxed values
+   */
+  public List<Double> toList() {
+    List<Double> result = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      result.add(getBoxed(i));
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (!(obj instanceof DoubleColumn)) {
+      return false;
+    }
+    DoubleColumn other = (DoubleColumn) obj;
+    if (size != other.size) {
+      return false;
+    }
+    for (int i = 0; i < size; i++) {
+      if (isNull(i) != other.isNull(i)
+        || Double.doubleToLongBits(values[i]) != Double.doubleToLongBits(other.values[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int result = 1;
+    for (int i = 0; i < size; i++) {
+      long bits = isNull(i) ? 0 : Double.doubleToLongBits(values[i]);
+      result = 31 * result + (int) (bits ^ (bits >>> 32));
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return toList().toString();
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+    }
+  }
+}
@@ -0,0 +1,434 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryHistoryDayMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryTotalMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryTradeMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.OneTradeDurationMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeByTimeMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationMetrics;
+import cloud.metaapi.sdk.util.JsonMapper;
+
+/**
+ * Folds newly closed trades into metrics received from the server, so that metrics stay current
+ * between server recomputations. Running state is restored from the received metrics once, after
+ * that each trade is applied in O(1) time updating a copy of the metrics owned by the accumulator,
+ * so that metrics shared with other callers or held in the metrics cache are not modified.
+ * <p>
+ * Updated fields are the balance and trade totals, best and worst trades, win and loss averages,
+ * {@code profitFactor}, {@code expectancy}, {@code gain}, {@code absoluteGain}, {@code maxDrawdown}
+ * (from the balance peak), {@code standardDeviationProfit}, {@code kurtosisProfit} (approximate,
+ * since skewness is not known from the received metrics), {@code highestBalance},
+ * {@code dailyGrowth}, {@code currencySummary}, {@code closeTradesByWeekDay}, {@code openTradesByHour},
+ * {@code riskOfRuin} and {@code tradeDuration}. Other fields keep their received values until the
+ * next server recomputation. Instances are not thread safe
+ */
+public class MetricsAccumulator {
+
+  private Metrics metrics;
+  private BrokerTime brokerTime;
+  private long lastTime = Long.MIN_VALUE;
+  private int wonTrades;
+  private int lostTrades;
+  private int longTrades;
+  private int longWonTrades;
+  private int shortWonTrades;
+  private double grossProfit;
+  private double grossLoss;
+  private double lossSign;
+  private int pipsTrades;
+  private double wonPips;
+  private int wonPipsTrades;
+  private double lostPips;
+  private int lostPipsTrades;
+  private double totalDuration;
+  private RunningMoments profitMoments;
+  private boolean hasKurtosis;
+  private double peak;
+  private TradeTimeBuckets closeTradesByWeekDay = new TradeTimeBuckets(false);
+  private TradeTimeBuckets openTradesByHour = new TradeTimeBuckets(true);
+  private Map<String, CurrencySummaryMetrics> currencies = new HashMap<>();
+  private Map<Double, OneTradeDurationMetrics> wonDurations = new HashMap<>();
+  private Map<Double, OneTradeDurationMetrics> lostDurations = new HashMap<>();
+  private DailyGrowthMetrics lastDay;
+  private long day = Long.MIN_VALUE;
+  private long firstDay = Long.MIN_VALUE;
+  private double dayBase;
+  private double growthBeforeDay = 1;
+
+  /**
+   * Metrics accumulator options
+   */
+  public static class Options {
+    /**
+     * Broker timezone used to group trades by days and hours and to format dates, default UTC
+     */
+    public ZoneId timezone = ZoneOffset.UTC;
+  }
+
+  /**
+   * Constructs metrics accumulator instance with default options
+   * @param metrics metrics received from the server, copied before trades are added
+   */
+  public MetricsAccumulator(Metrics metrics) {
+    this(metrics, new Options());
+  }
+
+  /**
+   * Constructs metrics accumulator instance
+   * @param metrics metrics received from the server, copied before trades are added
+   * @param opts metrics accumulator options
+   */
+  public MetricsAccumulator(Metrics metrics, Options opts) {
+    metrics = JsonMapper.getInstance().convertValue(metrics, Metrics.class);
+    this.metrics = metrics;
+    this.brokerTime = new BrokerTime(opts.timezone);
+    int trades = metrics.trades;
+    wonTrades = (int) Math.round(valueOf(metrics.wonTradesPercent) * trades / 100);
+    lostTrades = (int) Math.round(valueOf(metrics.lostTradesPercent) * trades / 100);
+    longTrades = metrics.longTrades != null ? metrics.longTrades : 0;
+    longWonTrades = metrics.longWonTrades != null ? metrics.longWonTrades : 0;
+    shortWonTrades = metrics.shortWonTrades != null ? metrics.shortWonTrades : 0;
+    grossProfit = valueOf(metrics.averageWin) * wonTrades;
+    grossLoss = -Math.abs(valueOf(metrics.averageLoss)) * lostTrades;
+    lossSign = metrics.averageLoss != null && metrics.averageLoss > 0 ? 1 : -1;
+    if (metrics.pips != null) {
+      pipsTrades = trades;
+      wonPipsTrades = metrics.averageWinPips != null ? wonTrades : 0;
+      wonPips = valueOf(metrics.averageWinPips) * wonPipsTrades;
+      lostPipsTrades = metrics.averageLossPips != null ? lostTrades : 0;
+      lostPips = -Math.abs(valueOf(metrics.averageLossPips)) * lostPipsTrades;
+    }
+    totalDuration = valueOf(metrics.averageTradeLengthInMilliseconds) * trades;
+    if (metrics.standardDeviationProfit != null || trades < 2) {
+      profitMoments = new RunningMoments(trades, trades != 0 ? metrics.profit / trades : 0,
+        valueOf(metrics.standardDeviationProfit),
+        metrics.kurtosisProfit != null ? metrics.kurtosisProfit : Double.NaN);
+      hasKurtosis = metrics.kurtosisProfit != null || trades < 2;
+    }
+    peak = Math.max(metrics.highestBalance != null ? metrics.highestBalance : metrics.balance, metrics.balance);
+    if (metrics.closeTradesByWeekDay == null) {
+      metrics.closeTradesByWeekDay = new ArrayList<>();
+    }
+    for (TradeByTimeMetrics bucket : metrics.closeTradesByWeekDay) {
+      closeTradesByWeekDay.add(bucket);
+    }
+    if (metrics.openTradesByHour == null) {
+      metrics.openTradesByHour = new ArrayList<>();
+    }
+    for (TradeByTimeMetrics bucket : metrics.openTradesByHour) {
+      openTradesByHour.add(bucket);
+    }
+    if (metrics.currencySummary == null) {
+      metrics.currencySummary = new ArrayList<>();
+    }
+    for (CurrencySummaryMetrics currency : metrics.currencySummary) {
+      currencies.put(currency.currency, currency);
+    }
+    if (metrics.tradeDuration == null) {
+      metrics.tradeDuration = new TradeDurationMetrics();
+    }
+    metrics.tradeDuration.won = indexDurations(metrics.tradeDuration.won, wonDurations);
+    metrics.tradeDuration.lost = indexDurations(metrics.tradeDuration.lost, lostDurations);
+    if (metrics.dailyGrowth == null) {
+      metrics.dailyGrowth = new ArrayList<>();
+    }
+    if (!metrics.dailyGrowth.isEmpty()) {
+      firstDay = LocalDate.parse(metrics.dailyGrowth.get(0).date).toEpochDay();
+      lastDay = metrics.dailyGrowth.get(metrics.dailyGrowth.size() - 1);
+      day = LocalDate.parse(lastDay.date).toEpochDay();
+      dayBase = lastDay.balance - valueOf(lastDay.profit);
+      double dayGrowth = 1 + valueOf(lastDay.gains) / 100;
+      growthBeforeDay = dayGrowth != 0 ? (1 + valueOf(lastDay.totalGains) / 100) / dayGrowth : 1;
+    }
+  }
+
+  /**
+   * Adds a closed trade
+   * @param symbol trade symbol
+   * @param openTime time the trade was opened at in milliseconds since epoch
+   * @param closeTime time the trade was closed at in milliseconds since epoch
+   * @param isLong whether the trade is long
+   * @param volume trade volume in lots
+   * @param profit trade profit including commissions and swaps
+   * @param pips trade profit in pips, or {@code NaN} if unknown
+   * @throws IllegalArgumentException if the trade was closed before the previously added one
+   */
+  public void addTrade(String symbol, long openTime, long closeTime, boolean isLong, double volume,
+    double profit, double pips) {
+    if (closeTime < lastTime) {
+      throw new IllegalArgumentException("Trades must be added in order of close time");
+    }
+    lastTime = closeTime;
+    double gain = metrics.balance > 0 ? profit / metrics.balance * 100 : 0;
+    boolean won = profit > 0;
+    boolean hasPips = !Double.isNaN(pips);
+    metrics.balance += profit;
+    metrics.equity += profit;
+    metrics.profit += profit;
+    int trades = ++metrics.trades;
+    metrics.lots = valueOf(metrics.lots) + volume;
+    totalDuration += closeTime - openTime;
+    metrics.averageTradeLengthInMilliseconds = totalDuration / trades;
+    updateTradeCounts(isLong, profit);
+    if (metrics.bestTrade == null || profit > metrics.bestTrade) {
+      metrics.bestTrade = profit;
+      metrics.bestTradeDate = brokerTime.format(closeTime);
+    }
+    if (metrics.worstTrade == null || profit < metrics.worstTrade) {
+      metrics.worstTrade = profit;
+      metrics.worstTradeDate = brokerTime.format(closeTime);
+    }
+    if (hasPips) {
+      updatePips(closeTime, pips);
+    }
+    if (profitMoments != null) {
+      profitMoments.add(profit);
+      metrics.standardDeviationProfit = toNullable(profitMoments.getStandardDeviation());
+      if (hasKurtosis) {
+        metrics.kurtosisProfit = toNullable(profitMoments.getKurtosis());
+      }
+    }
+    if (metrics.gain != null) {
+      metrics.gain = ((1 + metrics.gain / 100) * (1 + gain / 100) - 1) * 100;
+    }
+    if (metrics.deposits > 0) {
+      metrics.absoluteGain = metrics.profit / metrics.deposits * 100;
+    }
+    if (metrics.highestBalance == null || metrics.balance > metrics.highestBalance) {
+      metrics.highestBalance = metrics.balance;
+      metrics.highestBalanceDate = brokerTime.format(closeTime);
+    }
+    peak = Math.max(peak, metrics.balance);
+    double drawdownProfit = peak - metrics.balance;
+    double drawdown = peak > 0 ? drawdownProfit / peak * 100 : 0;
+    metrics.maxDrawdown = Math.max(valueOf(metrics.maxDrawdown), drawdown);
+    String date = updateDay(closeTime, profit, pips, volume, drawdown, drawdownProfit);
+    int weekDay = brokerTime.toWeekDay(closeTime);
+    closeTradesByWeekDay.add(weekDay, isLong, profit, pips, volume, gain);
+    closeTradesByWeekDay.update(weekDay, metrics.closeTradesByWeekDay);
+    int hour = brokerTime.toHour(openTime);
+    openTradesByHour.add(hour, isLong, profit, pips, volume, gain);
+    openTradesByHour.update(hour, metrics.openTradesByHour);
+    updateCurrency(symbol, date, isLong, profit, pips);
+    metrics.riskOfRuin = MetricsEngine.computeRiskOfRuin(trades, lostTrades, grossLoss, metrics.balance);
+    double minutes = Math.max(0, (closeTime - openTime) / 60000);
+    Map<Double, OneTradeDurationMetrics> durations = won ? wonDurations : lostDurations;
+    OneTradeDurationMetrics duration = durations.get(minutes);
+    if (duration == null) {
+      duration = new OneTradeDurationMetrics();
+      duration.durationInMinutes = minutes;
+      duration.gains = new ArrayList<>();
+      duration.profits = new ArrayList<>();
+      duration.lots = new ArrayList<>();
+      durations.put(minutes, duration);
+      (won ? metrics.tradeDuration.won : metrics.tradeDuration.lost).add(duration);
+    }
+    duration.gains.add(gain);
+    duration.profits.add(profit);
+    duration.lots.add(volume);
+    if (hasPips) {
+      if (duration.pips == null) {
+        duration.pips = new ArrayList<>();
+      }
+      duration.pips.add(pips);
+    }
+  }
+
+  /**
+   * Returns the accumulated metrics. This is a copy of the metrics passed to the constructor, which
+   * keeps being updated by subsequently added trades
+   * @return accumulated metrics
+   */
+  public Metrics getMetrics() {
+    return metrics;
+  }
+
+  private void updateTradeCounts(boolean isLong, double profit) {
+    int trades = metrics.trades;
+    if (isLong) {
+      longTrades++;
+    }
+    if (profit > 0) {
+      wonTrades++;
+      grossProfit += profit;
+      if (isLong) {
+        longWonTrades++;
+      } else {
+        shortWonTrades++;
+      }
+    } else if (profit < 0) {
+      lostTrades++;
+      grossLoss += profit;
+    }
+    metrics.longTrades = longTrades;
+    metrics.shortTrades = trades - longTrades;
+    metrics.longWonTrades = longWonTrades;
+    metrics.shortWonTrades = shortWonTrades;
+    metrics.longWonTradesPercent = longTrades != 0 ? longWonTrades * 100.0 / longTrades : null;
+    metrics.shortWonTradesPercent = trades != longTrades ? shortWonTrades * 100.0 / (trades - longTrades) : null;
+    metrics.wonTradesPercent = wonTrades * 100.0 / trades;
+    metrics.lostTradesPercent = lostTrades * 100.0 / trades;
+    metrics.averageWin = wonTrades != 0 ? grossProfit / wonTrades : null;
+    metrics.averageLoss = lostTrades != 0 ? lossSign * -grossLoss / lostTrades : null;
+    metrics.profitFactor = grossLoss != 0 ? grossProfit / -grossLoss : null;
+    metrics.expectancy = metrics.profit / trades;
+  }
+
+  private void updatePips(long closeTime, double pips) {
+    metrics.pips = valueOf(metrics.pips) + pips;
+    pipsTrades++;
+    metrics.expectancyPips = metrics.pips / pipsTrades;
+    if (pips > 0) {
+      wonPips += pips;
+      wonPipsTrades++;
+      metrics.averageWinPips = wonPips / wonPipsTrades;
+    } else if (pips < 0) {
+      lostPips += pips;
+      lostPipsTrades++;
+      metrics.averageLossPips = lossSign * -lostPips / lostPipsTrades;
+    }
+    if (metrics.bestTradePips == null || pips > metrics.bestTradePips) {
+      metrics.bestTradePips = pips;
+      metrics.bestTradePipsDate = brokerTime.format(closeTime);
+    }
+    if (metrics.worstTradePips == null || pips < metrics.worstTradePips) {
+      metrics.worstTradePips = pips;
+      metrics.worstTradePipsDate = brokerTime.format(closeTime);
+    }
+  }
+
+  private String updateDay(long closeTime, double profit, double pips, double volume, double drawdown,
+    double drawdownProfit) {
+    long tradeDay = brokerTime.toDay(closeTime);
+    if (firstDay == Long.MIN_VALUE) {
+      firstDay = tradeDay;
+    }
+    if (lastDay == null || tradeDay != day) {
+      DailyGrowthMetrics newDay = new DailyGrowthMetrics();
+      newDay.date = BrokerTime.formatDay(tradeDay);
+      newDay.profit = 0.0;
+      newDay.lots = 0.0;
+      newDay.totalProfit = lastDay != null ? valueOf(lastDay.totalProfit) : 0;
+      newDay.drawdownPercentage = 0.0;
+      newDay.drawdownProfit = 0.0;
+      growthBeforeDay = lastDay != null ? 1 + valueOf(lastDay.totalGains) / 100 : 1;
+      dayBase = metrics.balance - profit;
+      day = tradeDay;
+      lastDay = newDay;
+      metrics.dailyGrowth.add(newDay);
+    }
+    lastDay.profit = valueOf(lastDay.profit) + profit;
+    lastDay.lots = valueOf(lastDay.lots) + volume;
+    if (!Double.isNaN(pips)) {
+      lastDay.pips = valueOf(lastDay.pips) + pips;
+    }
+    lastDay.totalProfit = valueOf(lastDay.totalProfit) + profit;
+    lastDay.gains = dayBase > 0 ? lastDay.profit / dayBase * 100 : 0;
+    lastDay.totalGains = (growthBeforeDay * (1 + lastDay.gains / 100) - 1) * 100;
+    lastDay.balance = metrics.balance;
+    lastDay.drawdownPercentage = Math.max(valueOf(lastDay.drawdownPercentage), drawdown);
+    lastDay.drawdownProfit = Math.max(valueOf(lastDay.drawdownProfit), drawdownProfit);
+    metrics.daysSinceTradingStarted = (int) (day - firstDay);
+    return lastDay.date;
+  }
+
+  private void updateCurrency(String symbol, String date, boolean isLong, double profit, double pips) {
+    CurrencySummaryMetrics currency = currencies.get(symbol);
+    if (currency == null) {
+      currency = new CurrencySummaryMetrics();
+      currency.currency = symbol;
+      currency.history = new ArrayList<>();
+      currency.total = new CurrencySummaryTotalMetrics();
+      currencies.put(symbol, currency);
+      metrics.currencySummary.add(currency);
+    }
+    boolean hasPips = !Double.isNaN(pips);
+    CurrencySummaryTotalMetrics total = currency.total;
+    total.profit += profit;
+    total.trades++;
+    if (hasPips) {
+      total.pips = valueOf(total.pips) + pips;
+    }
+    total.wonTrades = (total.wonTrades != null ? total.wonTrades : 0) + (profit > 0 ? 1 : 0);
+    total.lostTrades = (total.lostTrades != null ? total.lostTrades : 0) + (profit < 0 ? 1 : 0);
+    total.wonTradesPercent = total.wonTrades * 100.0 / total.trades;
+    total.lostTradesPercent = total.lostTrades * 100.0 / total.trades;
+    CurrencySummaryTradeMetrics side = isLong ? currency.long_ : currency.short_;
+    if (side == null) {
+      side = new CurrencySummaryTradeMetrics();
+      if (isLong) {
+        currency.long_ = side;
+      } else {
+        currency.short_ = side;
+      }
+    }
+    side.profit += profit;
+    side.trades++;
+    if (hasPips) {
+      side.pips = valueOf(side.pips) + pips;
+    }
+    if (currency.history == null) {
+      currency.history = new ArrayList<>();
+    }
+    List<CurrencySummaryHistoryDayMetrics> history = currency.history;
+    CurrencySummaryHistoryDayMetrics historyDay = history.isEmpty() ? null : history.get(history.size() - 1);
+    if (historyDay == null || !date.equals(historyDay.date)) {
+      historyDay = new CurrencySummaryHistoryDayMetrics();
+      historyDay.date = date;
+      history.add(historyDay);
+    }
+    historyDay.totalProfit += profit;
+    if (isLong) {
+      historyDay.longProfit = valueOf(historyDay.longProfit) + profit;
+    } else {
+      historyDay.shortProfit = valueOf(historyDay.shortProfit) + profit;
+    }
+    if (hasPips) {
+      historyDay.totalPips = valueOf(historyDay.totalPips) + pips;
+      if (isLong) {
+        historyDay.longPips = valueOf(historyDay.longPips) + pips;
+      } else {
+        historyDay.shortPips = valueOf(historyDay.shortPips) + pips;
+      }
+    }
+  }
+
+  private static List<OneTradeDurationMetrics> indexDurations(List<OneTradeDurationMetrics> durations,
+    Map<Double, OneTradeDurationMetrics> index) {
+    if (durations == null) {
+      durations = new ArrayList<>();
+    }
+    for (OneTradeDurationMetrics duration : durations) {
+      if (duration.gains == null) {
+        duration.gains = new ArrayList<>();
+      }
+      if (duration.profits == null) {
+        duration.profits = new ArrayList<>();
+      }
+      if (duration.lots == null) {
+        duration.lots = new ArrayList<>();
+      }
+      index.put(duration.durationInMinutes, duration);
+    }
+    return durations;
+  }
+
+  private static double valueOf(Double value) {
+    return value != null ? value : 0;
+  }
+
+  private static Double toNullable(double value) {
+    return Double.isNaN(value) ? null : value;
+  }
+}
@@ -0,0 +1,184 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.MonthlyAnalyticsMetrics;
+import cloud.metaapi.sdk.clients.MetricsSection;
+
+/**
+ * Changes between two successive metrics of the same account. Daily growth is treated as an
+ * append-only series: only days starting from the last previously known day are compared, so the
+ * cost of a diff does not grow with the length of the history
+ */
+public class MetricsDiff {
+
+  private static final Field[] scalarFields = findScalarFields();
+
+  /**
+   * Changed scalar metrics by field name with their new values, {@code null} values mean
+   * that the metric was removed
+   */
+  public Map<String, Object> changedScalars = new LinkedHashMap<>();
+  /**
+   * Days appended to daily growth
+   */
+  public List<DailyGrowthMetrics> appendedDays = new ArrayList<>();
+  /**
+   * Previously known days of daily growth whose values have changed, typically the current day
+   */
+  public List<DailyGrowthMetrics> changedDays = new ArrayList<>();
+  /**
+   * New or changed months of monthly analytics
+   */
+  public List<MonthlyAnalyticsMetrics> changedMonths = new ArrayList<>();
+  /**
+   * Dates of months removed from monthly analytics
+   */
+  public List<String> removedMonths = new ArrayList<>();
+  /**
+   * New or changed currency summary entries
+   */
+  public List<CurrencySummaryMetrics> changedCurrencies = new ArrayList<>();
+  /**
+   * Currencies removed from currency summary
+   */
+  public List<String> removedCurrencies = new ArrayList<>();
+  /**
+   * Sections which changed and have to be replaced as a whole. Includes daily growth if its
+   * history was rewritten rather than appended to, i.e. its first day or the position of the last
+   * previously known day differ
+   */
+  public Set<MetricsSection> changedSections = EnumSet.noneOf(MetricsSection.class);
+
+  /**
+   * Computes changes between two successive metrics of an account
+   * @param previous previous metrics, or {@code null} if there are none
+   * @param current current metrics
+   * @return metrics diff
+   */
+  public static MetricsDiff compute(Metrics previous, Metrics current) {
+    if (previous == null) {
+      previous = new Metrics();
+    }
+    MetricsDiff diff = new MetricsDiff();
+    diff.compareScalars(previous, current);
+    diff.compareDailyGrowth(previous.dailyGrowth, current.dailyGrowth);
+    diff.compareMonthlyAnalytics(previous.monthlyAnalytics, current.monthlyAnalytics);
+    diff.compareCurrencySummary(previous.currencySummary, current.currencySummary);
+    diff.compareSection(MetricsSection.CLOSE_TRADES_BY_WEEK_DAY, previous.closeTradesByWeekDay,
+      current.closeTradesByWeekDay);
+    diff.compareSection(MetricsSection.OPEN_TRADES_BY_HOUR, previous.openTradesByHour,
+      current.openTradesByHour);
+    diff.compareSection(MetricsSection.PERIODS, previous.periods, current.periods);
+    diff.compareSection(MetricsSection.RISK_OF_RUIN, previous.riskOfRuin, current.riskOfRuin);
+    diff.compareSection(MetricsSection.TRADE_DURATION, previous.tradeDuration, current.tradeDuration);
+    diff.compareSection(MetricsSection.TRADE_DURATION_DIAGRAM, previous.tradeDurationDiagram,
+      current.tradeDurationDiagram);
+    return diff;
+  }
+
+  /**
+   * Returns whether there are no changes
+   * @return whether there are no changes
+   */
+  public boolean isEmpty() {
+    return changedScalars.isEmpty() && appendedDays.isEmpty() && changedDays.isEmpty()
+      && changedMonths.isEmpty() && removedMonths.isEmpty() && changedCurrencies.isEmpty()
+      && removedCurrencies.isEmpty() && changedSections.isEmpty();
+  }
+
+  private void compareScalars(Metrics previous, Metrics current) {
+    try {
+      for (Field field : scalarFields) {
+        Object value = field.get(current);
+        if (!ModelEquality.equal(field.get(previous), value)) {
+          changedScalars.put(field.getName(), value);
+        }
+      }
+    } catch (IllegalAccessException err) {
+      throw new IllegalStateException(err);
+    }
+  }
+
+  private void compareDailyGrowth(List<DailyGrowthMetrics> previous, List<DailyGrowthMetrics> current) {
+    if (previous == null || previous.isEmpty()) {
+      if (current != null) {
+        appendedDays.addAll(current);
+      }
+      return;
+    }
+    if (current == null || current.size() < previous.size()) {
+      changedSections.add(MetricsSection.DAILY_GROWTH);
+      return;
+    }
+    int lastIndex = previous.size() - 1;
+    DailyGrowthMetrics lastDay = previous.get(lastIndex);
+    DailyGrowthMetrics sameDay = current.get(lastIndex);
+    if (lastDay == null || sameDay == null || lastDay.date == null || !lastDay.date.equals(sameDay.date)
+      || !ModelEquality.equal(previous.get(0), current.get(0))) {
+      changedSections.add(MetricsSection.DAILY_GROWTH);
+      return;
+    }
+    if (!ModelEquality.equal(lastDay, sameDay)) {
+      changedDays.add(sameDay);
+    }
+    appendedDays.addAll(current.subList(lastIndex + 1, current.size()));
+  }
+
+  private void compareMonthlyAnalytics(List<MonthlyAnalyticsMetrics> previous,
+    List<MonthlyAnalyticsMetrics> current) {
+    compareByKey(previous, current, month -> month.date, changedMonths, removedMonths);
+  }
+
+  private void compareCurrencySummary(List<CurrencySummaryMetrics> previous,
+    List<CurrencySummaryMetrics> current) {
+    compareByKey(previous, current, currency -> currency.currency, changedCurrencies, removedCurrencies);
+  }
+
+  private <T> void compareByKey(List<T> previous, List<T> current, Function<T, String> key,
+    List<T> changed, List<String> removed) {
+    Map<String, T> previousByKey = new HashMap<>();
+    if (previous != null) {
+      for (T item : previous) {
+        if (item != null) {
+          previousByKey.put(key.apply(item), item);
+        }
+      }
+    }
+    if (current != null) {
+      for (T item : current) {
+        if (item != null && !ModelEquality.equal(previousByKey.remove(key.apply(item)), item)) {
+          changed.add(item);
+        }
+      }
+    }
+    removed.addAll(previousByKey.keySet());
+  }
+
+  private void compareSection(MetricsSection section, Object previous, Object current) {
+    if (!ModelEquality.equal(previous, current)) {
+      changedSections.add(section);
+    }
+  }
+
+  private static Field[] findScalarFields() {
+    List<Field> result = new ArrayList<>();
+    for (Field field : ModelEquality.getFields(Metrics.class)) {
+      if (MetricsSection.forField(field.getName()) == null) {
+        result.add(field);
+      }
+    }
+    return result.toArray(new Field[0]);
+  }
+}
@@ -0,0 +1,523 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.OneTradeDurationMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.RiskOfRuinMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationMetrics;
+
+/**
+ * Computes metrics locally from a history of deals, e.g. of a backtest which does not exist as
+ * a MetaApi account. Deals are folded into running totals in a single pass with O(1) work and no
+ * allocations per deal, except for open positions and per-trade rows kept for the trade duration
+ * section. Metrics can be retrieved at any time and reflect all deals added so far.
+ * <p>
+ * Computed fields are the balance and trade totals, best and worst trades, win and loss averages,
+ * {@code profitFactor}, {@code expectancy}, {@code gain}, {@code absoluteGain}, {@code maxDrawdown},
+ * {@code standardDeviationProfit}, {@code kurtosisProfit}, {@code zScore}, {@code sharpeRatio} and
+ * {@code sortinoRatio} (computed from per-trade gains without a risk-free rate), {@code dailyGrowth},
+ * {@code closeTradesByWeekDay}, {@code openTradesByHour}, {@code riskOfRuin} and {@code tradeDuration}.
+ * Other fields remain {@code null}. Gains are percentages of the balance before a trade or a day.
+ * Instances are not thread safe
+ */
+public class MetricsEngine {
+
+  private Options opts;
+  private BrokerTime brokerTime;
+  private Map<String, OpenPosition> openPositions = new HashMap<>();
+  private long firstTime = Long.MIN_VALUE;
+  private long lastTime = Long.MIN_VALUE;
+  private double balance;
+  private double deposits;
+  private double withdrawals;
+  private double commissions;
+  private double interest;
+  private double highestBalance = Double.NEGATIVE_INFINITY;
+  private long highestBalanceTime;
+  private double peak = Double.NaN;
+  private double maxDrawdown;
+  private int trades;
+  private int wonTrades;
+  private int lostTrades;
+  private int longTrades;
+  private int longWonTrades;
+  private int shortWonTrades;
+  private double profit;
+  private double grossProfit;
+  private double grossLoss;
+  private double lots;
+  private double pips;
+  private int pipsTrades;
+  private double wonPips;
+  private int wonPipsTrades;
+  private double lostPips;
+  private int lostPipsTrades;
+  private double bestTrade = Double.NEGATIVE_INFINITY;
+  private long bestTradeTime;
+  private double worstTrade = Double.POSITIVE_INFINITY;
+  private long worstTradeTime;
+  private double bestTradePips = Double.NEGATIVE_INFINITY;
+  private long bestTradePipsTime;
+  private double worstTradePips = Double.POSITIVE_INFINITY;
+  private long worstTradePipsTime;
+  private double totalDuration;
+  private RunningMoments profitMoments = new RunningMoments();
+  private RunningMoments gainMoments = new RunningMoments();
+  private double negativeGainSquares;
+  private int runs;
+  private boolean lastWon;
+  private List<DailyGrowthMetrics> days = new ArrayList<>();
+  private long day = Long.MIN_VALUE;
+  private double dayProfit;
+  private double dayPips;
+  private boolean dayHasPips;
+  private double dayLots;
+  private double dayBase;
+  private double dayDrawdownPercentage;
+  private double dayDrawdownProfit;
+  private double totalProfit;
+  private double growth = 1;
+  private TradeTimeBuckets closeTradesByWeekDay = new TradeTimeBuckets(false);
+  private TradeTimeBuckets openTradesByHour = new TradeTimeBuckets(true);
+  private int durationCount;
+  private long[] durationMinutes = new long[16];
+  private double[] durationGains = new double[16];
+  private double[] durationProfits = new double[16];
+  private double[] durationLots = new double[16];
+  private double[] durationPips = new double[16];
+
+  /**
+   * Metrics engine options
+   */
+  public static class Options {
+    /**
+     * Broker timezone used to group deals by days and hours and to format dates, default UTC
+     */
+    public ZoneId timezone = ZoneOffset.UTC;
+    /**
+     * Indicates whether the trade duration section is computed. It requires a row per trade to be
+     * kept in memory, default true
+     */
+    public boolean tradeDuration = true;
+  }
+
+  /**
+   * Open part of a position
+   */
+  private static class OpenPosition {
+    private long time;
+    private boolean isLong;
+    private double volume;
+    private double commission;
+  }
+
+  /**
+   * Constructs metrics engine instance with default options
+   */
+  public MetricsEngine() {
+    this(new Options());
+  }
+
+  /**
+   * Constructs metrics engine instance
+   * @param opts metrics engine options
+   */
+  public MetricsEngine(Options opts) {
+    this.opts = opts;
+    this.brokerTime = new BrokerTime(opts.timezone);
+  }
+
+  /**
+   * Adds a deal. Opening deals are matched with closing deals by position id, each closing deal
+   * produces a closed trade which carries the proportional part of the commission of the opening
+   * deals. Closing deals without a known opening deal produce trades of zero duration
+   * @param deal deal to add
+   * @throws IllegalArgumentException if the deal is older than the previously added one
+   */
+  public void addDeal(Deal deal) {
+    if (deal.type == Deal.Type.BALANCE) {
+      addBalanceOperation(deal.time, deal.profit);
+      return;
+    }
+    advance(deal.time);
+    commissions += deal.commission;
+    interest += deal.swap;
+    double change = deal.profit + deal.commission + deal.swap;
+    if (deal.entryType == Deal.EntryType.IN) {
+      OpenPosition position = openPositions.get(deal.positionId);
+      if (position == null) {
+        position = new OpenPosition();
+        position.time = deal.time;
+        position.isLong = deal.type == Deal.Type.BUY;
+        openPositions.put(deal.positionId, position);
+      }
+      position.volume += deal.volume;
+      position.commission += deal.commission;
+      applyBalanceChange(deal.time, change);
+      return;
+    }
+    OpenPosition position = openPositions.get(deal.positionId);
+    long openTime = deal.time;
+    boolean isLong = deal.type == Deal.Type.SELL;
+    double openCommission = 0;
+    if (position != null) {
+      openTime = position.time;
+      isLong = position.isLong;
+      double share = position.volume > deal.volume ? deal.volume / position.volume : 1;
+      openCommission = position.commission * share;
+      position.commission -= openCommission;
+      position.volume -= deal.volume;
+      if (share == 1) {
+        openPositions.remove(deal.positionId);
+      }
+    }
+    closeTrade(openTime, deal.time, isLong, deal.volume, change + openCommission, deal.pips, change);
+  }
+
+  /**
+   * Adds a closed trade directly, without matching deals
+   * @param openTime time the trade was opened at in milliseconds since epoch
+   * @param closeTime time the trade was closed at in milliseconds since epoch
+   * @param isLong whether the trade is long
+   * @param volume trade volume in lots
+   * @param profit trade profit including commissions and swaps
+   * @param pips trade profit in pips, or {@code NaN} if unknown
+   * @throws IllegalArgumentException if the trade was closed before the previously added deal
+   */
+  public void addTrade(long openTime, long closeTime, boolean isLong, double volume, double profit,
+    double pips) {
+    advance(closeTime);
+    closeTrade(openTime, closeTime, isLong, volume, profit, pips, profit);
+  }
+
+  /**
+   * Adds a balance operation
+   * @param time operation time in milliseconds since epoch
+   * @param amount operation amount, positive for deposits and negative for withdrawals
+   * @throws IllegalArgumentException if the operation is older than the previously added deal
+   */
+  public void addBalanceOperation(long time, double amount) {
+    advance(time);
+    if (amount >= 0) {
+      deposits += amount;
+    } else {
+      withdrawals -= amount;
+    }
+    dayBase += amount;
+    balance += amount;
+    peak = Double.isNaN(peak) ? balance : Math.max(peak + amount, balance);
+    updateHighestBalance(time);
+  }
+
+  /**
+   * Returns metrics of all deals added so far
+   * @return computed metrics
+   */
+  public Metrics getMetrics() {
+    Metrics metrics = new Metrics();
+    metrics.balance = balance;
+    metrics.equity = balance;
+    metrics.trades = trades;
+    metrics.profit = profit;
+    metrics.deposits = deposits;
+    metrics.withdrawals = withdrawals;
+    metrics.commissions = commissions;
+    metrics.interest = interest;
+    metrics.lots = lots;
+    metrics.maxDrawdown = maxDrawdown;
+    metrics.absoluteGain = deposits > 0 ? profit / deposits * 100 : null;
+    if (firstTime != Long.MIN_VALUE) {
+      metrics.highestBalance = highestBalance;
+      metrics.highestBalanceDate = brokerTime.format(highestBalanceTime);
+      metrics.daysSinceTradingStarted = (int) (brokerTime.toDay(lastTime) - brokerTime.toDay(firstTime));
+      metrics.dailyGrowth = new ArrayList<>(days);
+      metrics.dailyGrowth.add(createDay(growth * (1 + getDayGain() / 100)));
+      metrics.gain = (growth * (1 + getDayGain() / 100) - 1) * 100;
+    }
+    if (trades != 0) {
+      addTradeMetrics(metrics);
+    }
+    return metrics;
+  }
+
+  private void addTradeMetrics(Metrics metrics) {
+    metrics.longTrades = longTrades;
+    metrics.shortTrades = trades - longTrades;
+    metrics.longWonTrades = longWonTrades;
+    metrics.shortWonTrades = shortWonTrades;
+    metrics.longWonTradesPercent = longTrades != 0 ? longWonTrades * 100.0 / longTrades : null;
+    metrics.shortWonTradesPercent = trades != longTrades ? shortWonTrades * 100.0 / (trades - longTrades) : null;
+    metrics.wonTradesPercent = wonTrades * 100.0 / trades;
+    metrics.lostTradesPercent = lostTrades * 100.0 / trades;
+    metrics.expectancy = profit / trades;
+    metrics.averageTradeLengthInMilliseconds = totalDuration / trades;
+    metrics.bestTrade = bestTrade;
+    metrics.bestTradeDate = brokerTime.format(bestTradeTime);
+    metrics.worstTrade = worstTrade;
+    metrics.worstTradeDate = brokerTime.format(worstTradeTime);
+    metrics.averageWin = wonTrades != 0 ? grossProfit / wonTrades : null;
+    metrics.averageLoss = lostTrades != 0 ? grossLoss / lostTrades : null;
+    metrics.profitFactor = grossLoss != 0 ? grossProfit / -grossLoss : null;
+    if (pipsTrades != 0) {
+      metrics.pips = pips;
+      metrics.expectancyPips = pips / pipsTrades;
+      metrics.bestTradePips = bestTradePips;
+      metrics.bestTradePipsDate = brokerTime.format(bestTradePipsTime);
+      metrics.worstTradePips = worstTradePips;
+      metrics.worstTradePipsDate = brokerTime.format(worstTradePipsTime);
+      metrics.averageWinPips = wonPipsTrades != 0 ? wonPips / wonPipsTrades : null;
+      metrics.averageLossPips = lostPipsTrades != 0 ? lostPips / lostPipsTrades : null;
+    }
+    metrics.standardDeviationProfit = toNullable(profitMoments.getStandardDeviation());
+    metrics.kurtosisProfit = toNullable(profitMoments.getKurtosis());
+    double gainDeviation = gainMoments.getStandardDeviation();
+    metrics.sharpeRatio = gainDeviation > 0 ? gainMoments.getMean() / gainDeviation : null;
+    metrics.sortinoRatio = negativeGainSquares > 0
+      ? gainMoments.getMean() / Math.sqrt(negativeGainSquares / trades) : null;
+    double outcomes = 2.0 * wonTrades * (trades - wonTrades);
+    metrics.zScore = trades > 1 && outcomes * (outcomes - trades) > 0
+      ? (trades * (runs - 0.5) - outcomes) / Math.sqrt(outcomes * (outcomes - trades) / (trades - 1)) : null;
+    metrics.closeTradesByWeekDay = closeTradesByWeekDay.toMetrics();
+    metrics.openTradesByHour = openTradesByHour.toMetrics();
+    metrics.riskOfRuin = computeRiskOfRuin(trades, lostTrades, grossLoss, balance);
+    if (opts.tradeDuration) {
+      metrics.tradeDuration = computeTradeDuration();
+    }
+  }
+
+  private void closeTrade(long openTime, long closeTime, boolean isLong, double volume, double profit,
+    double pips, double balanceChange) {
+    double gain = balance > 0 ? profit / balance * 100 : 0;
+    applyBalanceChange(closeTime, balanceChange);
+    boolean won = profit > 0;
+    trades++;
+    this.profit += profit;
+    lots += volume;
+    totalDuration += closeTime - openTime;
+    if (isLong) {
+      longTrades++;
+    }
+    if (won) {
+      wonTrades++;
+      grossProfit += profit;
+      if (isLong) {
+        longWonTrades++;
+      } else {
+        shortWonTrades++;
+      }
+    } else if (profit < 0) {
+      lostTrades++;
+      grossLoss += profit;
+    }
+    if (trades == 1 || won != lastWon) {
+      runs++;
+      lastWon = won;
+    }
+    if (profit > bestTrade) {
+      bestTrade = profit;
+      bestTradeTime = closeTime;
+    }
+    if (profit < worstTrade) {
+      worstTrade = profit;
+      worstTradeTime = closeTime;
+    }
+    if (!Double.isNaN(pips)) {
+      this.pips += pips;
+      pipsTrades++;
+      dayPips += pips;
+      dayHasPips = true;
+      if (pips > 0) {
+        wonPips += pips;
+        wonPipsTrades++;
+      } else if (pips < 0) {
+        lostPips += pips;
+        lostPipsTrades++;
+      }
+      if (pips > bestTradePips) {
+        bestTradePips = pips;
+        bestTradePipsTime = closeTime;
+      }
+      if (pips < worstTradePips) {
+        worstTradePips = pips;
+        worstTradePipsTime = closeTime;
+      }
+    }
+    profitMoments.add(profit);
+    gainMoments.add(gain);
+    if (gain < 0) {
+      negativeGainSquares += gain * gain;
+    }
+    dayLots += volume;
+    closeTradesByWeekDay.add(brokerTime.toWeekDay(closeTime), isLong, profit, pips, volume, gain);
+    openTradesByHour.add(brokerTime.toHour(openTime), isLong, profit, pips, volume, gain);
+    if (opts.tradeDuration) {
+      addDuration(Math.max(0, (closeTime - openTime) / 60000), gain, profit, volume, pips);
+    }
+  }
+
+  private void applyBalanceChange(long time, double change) {
+    balance += change;
+    dayProfit += change;
+    totalProfit += change;
+    if (Double.isNaN(peak)) {
+      peak = balance - change;
+    }
+    peak = Math.max(peak, balance);
+    if (peak > 0) {
+      double drawdownProfit = peak - balance;
+      double drawdown = drawdownProfit / peak * 100;
+      maxDrawdown = Math.max(maxDrawdown, drawdown);
+      dayDrawdownPercentage = Math.max(dayDrawdownPercentage, drawdown);
+      dayDrawdownProfit = Math.max(dayDrawdownProfit, drawdownProfit);
+    }
+    updateHighestBalance(time);
+  }
+
+  private void updateHighestBalance(long time) {
+    if (balance > highestBalance) {
+      highestBalance = balance;
+      highestBalanceTime = time;
+    }
+  }
+
+  private void advance(long time) {
+    if (time < lastTime) {
+      throw new IllegalArgumentException("Deals must be added in order of time");
+    }
+    if (firstTime == Long.MIN_VALUE) {
+      firstTime = time;
+    }
+    lastTime = time;
+    long newDay = brokerTime.toDay(time);
+    if (newDay != day) {
+      if (day != Long.MIN_VALUE) {
+        growth *= 1 + getDayGain() / 100;
+        days.add(createDay(growth));
+      }
+      day = newDay;
+      dayProfit = 0;
+      dayPips = 0;
+      dayHasPips = false;
+      dayLots = 0;
+      dayBase = balance;
+      dayDrawdownPercentage = 0;
+      dayDrawdownProfit = 0;
+    }
+  }
+
+  private double getDayGain() {
+    return dayBase > 0 ? dayProfit / dayBase * 100 : 0;
+  }
+
+  private DailyGrowthMetrics createDay(double totalGrowth) {
+    DailyGrowthMetrics metrics = new DailyGrowthMetrics();
+    metrics.date = BrokerTime.formatDay(day);
+    metrics.profit = dayProfit;
+    metrics.pips = dayHasPips ? dayPips : null;
+    metrics.lots = dayLots;
+    metrics.gains = getDayGain();
+    metrics.totalProfit = totalProfit;
+    metrics.totalGains = (totalGrowth - 1) * 100;
+    metrics.balance = balance;
+    metrics.drawdownPercentage = dayDrawdownPercentage;
+    metrics.drawdownProfit = dayDrawdownProfit;
+    return metrics;
+  }
+
+  /**
+   * Computes the probability of losing 10-100% of the balance in a row of losing trades of
+   * the average loss, assuming independent trades
+   * @param trades number of trades
+   * @param lostTrades number of losing trades
+   * @param grossLoss total loss of losing trades, non-positive
+   * @param balance current balance
+   * @return risk of ruin metrics, or {@code null} if there are no losing trades or no balance
+   */
+  static List<RiskOfRuinMetrics> computeRiskOfRuin(int trades, int lostTrades, double grossLoss,
+    double balance) {
+    if (lostTrades == 0 || grossLoss >= 0 || balance <= 0) {
+      return null;
+    }
+    double lossProbability = (double) lostTrades / trades;
+    double averageLoss = -grossLoss / lostTrades;
+    List<RiskOfRuinMetrics> result = new ArrayList<>(10);
+    for (int lossSize = 10; lossSize <= 100; lossSize += 10) {
+      RiskOfRuinMetrics metrics = new RiskOfRuinMetrics();
+      metrics.lossSize = lossSize;
+      metrics.consecutiveLosingTrades = (int) Math.max(1, Math.ceil(balance * lossSize / 100 / averageLoss));
+      metrics.probabilityOfLoss = Math.pow(lossProbability, metrics.consecutiveLosingTrades) * 100;
+      result.add(metrics);
+    }
+    return result;
+  }
+
+  private void addDuration(long minutes, double gain, double profit, double volume, double pips) {
+    if (durationCount == durationMinutes.length) {
+      int capacity = durationCount + (durationCount >> 1);
+      durationMinutes = Arrays.copyOf(durationMinutes, capacity);
+      durationGains = Arrays.copyOf(durationGains, capacity);
+      durationProfits = Arrays.copyOf(durationProfits, capacity);
+      durationLots = Arrays.copyOf(durationLots, capacity);
+      durationPips = Arrays.copyOf(durationPips, capacity);
+    }
+    durationMinutes[durationCount] = minutes;
+    durationGains[durationCount] = gain;
+    durationProfits[durationCount] = profit;
+    durationLots[durationCount] = volume;
+    durationPips[durationCount] = pips;
+    durationCount++;
+  }
+
+  /**
+   * Groups trades by outcome and duration in minutes. Trades are sorted by a primitive key packing
+   * the outcome, the duration and the index of a trade, so no objects are allocated per trade
+   * except for the resulting boxed lists
+   */
+  private TradeDurationMetrics computeTradeDuration() {
+    long[] keys = new long[durationCount];
+    for (int i = 0; i < durationCount; i++) {
+      long outcome = durationProfits[i] > 0 ? 0 : 1;
+      keys[i] = outcome << 62 | Math.min(durationMinutes[i], Integer.MAX_VALUE) << 31 | i;
+    }
+    Arrays.sort(keys);
+    TradeDurationMetrics result = new TradeDurationMetrics();
+    result.won = new ArrayList<>();
+    result.lost = new ArrayList<>();
+    OneTradeDurationMetrics group = null;
+    long groupKey = -1;
+    for (long key : keys) {
+      int index = (int) (key & Integer.MAX_VALUE);
+      if (key >>> 31 != groupKey) {
+        groupKey = key >>> 31;
+        group = new OneTradeDurationMetrics();
+        group.durationInMinutes = durationMinutes[index];
+        group.gains = new ArrayList<>();
+        group.profits = new ArrayList<>();
+        group.lots = new ArrayList<>();
+        (key >>> 62 == 0 ? result.won : result.lost).add(group);
+      }
+      group.gains.add(durationGains[index]);
+      group.profits.add(durationProfits[index]);
+      group.lots.add(durationLots[index]);
+      if (!Double.isNaN(durationPips[index])) {
+        if (group.pips == null) {
+          group.pips = new ArrayList<>();
+        }
+        group.pips.add(durationPips[index]);
+      }
+    }
+    return result;
+  }
+
+  private static Double toNullable(double value) {
+    return Double.isNaN(value) ? null : value;
+  }
+}
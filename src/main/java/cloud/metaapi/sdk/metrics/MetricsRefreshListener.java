@@ -0,0 +1,26 @@
+package cloud.metaapi.sdk.metrics;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+
+/**
+ * Subscriber receiving metrics refreshed by {@link MetricsRefreshScheduler}. Methods are invoked
+ * on the thread completing the request, so they should return quickly
+ */
+public interface MetricsRefreshListener {
+
+  /**
+   * Invoked when metrics of an account were retrieved for the first time or have changed
+   * @param accountId MetaApi account id
+   * @param metrics account metrics
+   * @param diff changes since the previously retrieved metrics
+   */
+  void onMetricsUpdated(String accountId, Metrics metrics, MetricsDiff diff);
+
+  /**
+   * Invoked when metrics of an account failed to refresh. The refresh is retried after
+   * the configured interval of the account
+   * @param accountId MetaApi account id
+   * @param error refresh error
+   */
+  default void onRefreshFailed(String accountId, Throwable error) {}
+}
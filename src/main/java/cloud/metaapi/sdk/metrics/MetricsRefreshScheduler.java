@@ -0,0 +1,358 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.OptionsValidator;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Keeps metrics of a fleet of accounts fresh by polling them in background and publishes changed
+ * metrics to subscribers. Refreshes are jittered so that accounts with equal intervals do not hit the
+ * server at once, due accounts are refreshed in order of priority when the number of requests in
+ * flight is exhausted, and intervals of accounts whose metrics stay the same are gradually lengthened
+ * until their metrics change again. Refreshed metrics are stored in the metrics cache of the client,
+ * if any. The last metrics of each account are kept in memory to detect changes
+ */
+public class MetricsRefreshScheduler {
+
+  private static Logger logger = LogManager.getLogger(MetricsRefreshScheduler.class);
+  private static final long TICK_INTERVAL_IN_MILLISECONDS = 1000;
+  private MetaStatsClient client;
+  private Options opts;
+  private LongSupplier clock;
+  private Random random;
+  private Map<String, Account> accounts = new HashMap<>();
+  private PriorityQueue<Account> waiting = new PriorityQueue<>(
+    Comparator.comparingLong(account -> account.nextRefreshAt));
+  private PriorityQueue<Account> ready = new PriorityQueue<>(
+    Comparator.<Account>comparingInt(account -> -account.priority)
+      .thenComparingLong(account -> account.nextRefreshAt));
+  private int inFlight;
+  private AtomicInteger wip = new AtomicInteger();
+  private List<MetricsRefreshListener> listeners = new CopyOnWriteArrayList<>();
+  private ScheduledExecutorService executor;
+  private boolean stopped;
+
+  /**
+   * Refresh scheduler options
+   */
+  public static class Options {
+    /**
+     * Refresh interval of accounts added without an interval in seconds, default 300
+     */
+    public int defaultIntervalInSeconds = 300;
+    /**
+     * Maximum interval in seconds an account is lengthened to while its metrics do not change.
+     * Intervals of accounts which are configured longer are not lengthened, default 3600
+     */
+    public int maxIntervalInSeconds = 3600;
+    /**
+     * Multiplier applied to the interval of an account each time its metrics did not change,
+     * 1 disables the adaptation, default 2
+     */
+    public double unchangedIntervalMultiplier = 2;
+    /**
+     * Fraction of an interval by which each refresh is randomly shifted earlier or later,
+     * between 0 and 1, default 0.1
+     */
+    public double jitter = 0.1;
+    /**
+     * Period in seconds the first refreshes of added accounts are spread over, or the refresh
+     * interval of an account if it is shorter, default 60
+     */
+    public int startupSpreadInSeconds = 60;
+    /**
+     * Maximum number of refresh requests in flight, default 5
+     */
+    public int maxConcurrency = 5;
+    /**
+     * Indicates whether open positions are included in the refreshed metrics, default false
+     */
+    public boolean includeOpenPositions = false;
+  }
+
+  /**
+   * Refresh state of an account
+   */
+  private static class Account {
+    private String id;
+    private int priority;
+    private long baseInterval;
+    private long interval;
+    private long nextRefreshAt;
+    private Metrics metrics;
+    private boolean removed;
+  }
+
+  /**
+   * Constructs refresh scheduler instance. Accounts are not refreshed until the scheduler is started
+   * @param client MetaStats client to retrieve metrics with
+   * @param opts refresh scheduler options
+   * @throws ValidationException if specified options are invalid
+   */
+  public MetricsRefreshScheduler(MetaStatsClient client, Options opts) throws ValidationException {
+    this(client, opts, () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime()), new Random());
+  }
+
+  /**
+   * Constructs refresh scheduler instance
+   * @param client MetaStats client to retrieve metrics with
+   * @param opts refresh scheduler options
+   * @param clock source of current time in milliseconds
+   * @param random source of jitter
+   * @throws ValidationException if specified options are invalid
+   */
+  MetricsRefreshScheduler(MetaStatsClient client, Options opts, LongSupplier clock, Random random)
+    throws ValidationException {
+    OptionsValidator validator = new OptionsValidator();
+    validator.validateNonZeroInt(opts.defaultIntervalInSeconds, "refreshOpts.defaultIntervalInSeconds");
+    validator.validateNonZeroInt(opts.maxIntervalInSeconds, "refreshOpts.maxIntervalInSeconds");
+    validator.validateNonZeroInt(opts.maxConcurrency, "refreshOpts.maxConcurrency");
+    if (!(opts.unchangedIntervalMultiplier >= 1)) {
+      throw new ValidationException("Parameter refreshOpts.unchangedIntervalMultiplier must be at least 1",
+        null);
+    }
+    if (!(opts.jitter >= 0 && opts.jitter < 1)) {
+      throw new ValidationException("Parameter refreshOpts.jitter must be between 0 and 1", null);
+    }
+    if (opts.startupSpreadInSeconds < 0) {
+      throw new ValidationException("Parameter refreshOpts.startupSpreadInSeconds must not be negative",
+        null);
+    }
+    this.client = client;
+    this.opts = opts;
+    this.clock = clock;
+    this.random = random;
+  }
+
+  /**
+   * Adds an account refreshed with the default interval and priority
+   * @param accountId MetaApi account id
+   */
+  public void addAccount(String accountId) {
+    addAccount(accountId, opts.defaultIntervalInSeconds, 0);
+  }
+
+  /**
+   * Adds an account to refresh, or updates the interval and priority of an already added one
+   * @param accountId MetaApi account id
+   * @param intervalInSeconds refresh interval in seconds
+   * @param priority priority of the account, accounts with higher priority are refreshed first
+   * when more accounts are due than requests are allowed in flight
+   * @throws IllegalArgumentException if the interval is not positive
+   */
+  public synchronized void addAccount(String accountId, int intervalInSeconds, int priority) {
+    if (intervalInSeconds <= 0) {
+      throw new IllegalArgumentException("Refresh interval must be positive");
+    }
+    Account account = accounts.get(accountId);
+    long interval = intervalInSeconds * 1000L;
+    if (account != null) {
+      boolean isReady = ready.remove(account);
+      account.priority = priority;
+      account.baseInterval = interval;
+      account.interval = interval;
+      if (isReady) {
+        ready.add(account);
+      }
+      return;
+    }
+    account = new Account();
+    account.id = accountId;
+    account.priority = priority;
+    account.baseInterval = interval;
+    account.interval = interval;
+    account.nextRefreshAt = clock.getAsLong()
+      + (long) (random.nextDouble() * Math.min(interval, opts.startupSpreadInSeconds * 1000L));
+    accounts.put(accountId, account);
+    waiting.add(account);
+  }
+
+  /**
+   * Stops refreshing an account
+   * @param accountId MetaApi account id
+   */
+  public synchronized void removeAccount(String accountId) {
+    Account account = accounts.remove(accountId);
+    if (account != null) {
+      account.removed = true;
+      waiting.remove(account);
+      ready.remove(account);
+    }
+  }
+
+  /**
+   * Returns the current refresh interval of an account, which may be lengthened while its metrics
+   * do not change
+   * @param accountId MetaApi account id
+   * @return refresh interval in milliseconds, or {@code null} if the account is not added
+   */
+  public synchronized Long getIntervalInMilliseconds(String accountId) {
+    Account account = accounts.get(accountId);
+    return account != null ? account.interval : null;
+  }
+
+  /**
+   * Returns the last retrieved metrics of an account
+   * @param accountId MetaApi account id
+   * @return account metrics, or {@code null} if the account is not added or not yet retrieved
+   */
+  public synchronized Metrics getMetrics(String accountId) {
+    Account account = accounts.get(accountId);
+    return account != null ? account.metrics : null;
+  }
+
+  /**
+   * Adds a listener receiving updated metrics
+   * @param listener refresh listener
+   */
+  public void addListener(MetricsRefreshListener listener) {
+    listeners.add(listener);
+  }
+
+  /**
+   * Removes a listener receiving updated metrics
+   * @param listener refresh listener
+   */
+  public void removeListener(MetricsRefreshListener listener) {
+    listeners.remove(listener);
+  }
+
+  /**
+   * Starts refreshing accounts in background
+   */
+  public synchronized void start() {
+    stopped = false;
+    if (executor == null) {
+      executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metastats-refresh-scheduler");
+        thread.setDaemon(true);
+        return thread;
+      });
+      executor.scheduleWithFixedDelay(() -> {
+        try {
+          tick();
+        } catch (Throwable err) {
+          logger.error("Failed to schedule metrics refreshes", err);
+        }
+      }, 0, TICK_INTERVAL_IN_MILLISECONDS, TimeUnit.MILLISECONDS);
+    }
+  }
+
+  /**
+   * Stops refreshing accounts. Requests in flight are completed and their listeners notified, but
+   * their completion does not start further refreshes
+   */
+  public synchronized void stop() {
+    stopped = true;
+    if (executor != null) {
+      executor.shutdown();
+      executor = null;
+    }
+  }
+
+  /**
+   * Starts refreshes of due accounts while the number of requests in flight allows
+   */
+  void tick() {
+    if (wip.getAndIncrement() != 0) {
+      return;
+    }
+    do {
+      for (Account account : takeDueAccounts()) {
+        refresh(account);
+      }
+    } while (wip.decrementAndGet() != 0);
+  }
+
+  private synchronized List<Account> takeDueAccounts() {
+    if (stopped) {
+      return Collections.emptyList();
+    }
+    long now = clock.getAsLong();
+    while (!waiting.isEmpty() && waiting.peek().nextRefreshAt <= now) {
+      ready.add(waiting.poll());
+    }
+    List<Account> result = new ArrayList<>();
+    while (inFlight < opts.maxConcurrency && !ready.isEmpty()) {
+      Account account = ready.poll();
+      inFlight++;
+      result.add(account);
+    }
+    return result;
+  }
+
+  private void refresh(Account account) {
+    CompletableFuture<Metrics> request;
+    try {
+      request = client.refreshMetrics(account.id, opts.includeOpenPositions);
+    } catch (Throwable err) {
+      request = new CompletableFuture<>();
+      request.completeExceptionally(err);
+    }
+    request.whenComplete((metrics, err) -> {
+      try {
+        onRefreshed(account, metrics,
+          err instanceof CompletionException && err.getCause() != null ? err.getCause() : err);
+      } finally {
+        tick();
+      }
+    });
+  }
+
+  private void onRefreshed(Account account, Metrics metrics, Throwable err) {
+    Metrics previous;
+    MetricsDiff diff = null;
+    synchronized (this) {
+      inFlight--;
+      previous = account.metrics;
+      if (err == null) {
+        diff = MetricsDiff.compute(previous, metrics);
+        if (previous != null && diff.isEmpty()) {
+          long maxInterval = Math.max(account.baseInterval, opts.maxIntervalInSeconds * 1000L);
+          account.interval = Math.min(maxInterval, (long) (account.interval * opts.unchangedIntervalMultiplier));
+        } else {
+          account.interval = account.baseInterval;
+        }
+        account.metrics = metrics;
+      }
+      if (!account.removed) {
+        long interval = err == null ? account.interval : account.baseInterval;
+        account.nextRefreshAt = clock.getAsLong()
+          + (long) (interval * (1 + opts.jitter * (2 * random.nextDouble() - 1)));
+        waiting.add(account);
+      }
+    }
+    for (MetricsRefreshListener listener : listeners) {
+      try {
+        if (err != null) {
+          listener.onRefreshFailed(account.id, err);
+        } else if (previous == null || !diff.isEmpty()) {
+          listener.onMetricsUpdated(account.id, metrics, diff);
+        }
+      } catch (Throwable listenerErr) {
+        logger.error("Failed to notify metrics refresh listener", listenerErr);
+      }
+    }
+  }
+}
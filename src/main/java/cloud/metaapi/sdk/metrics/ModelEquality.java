@@ -0,0 +1,76 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compares metrics models field by field. Models have public fields and no equals methods
+ */
+class ModelEquality {
+
+  private static Map<Class<?>, Field[]> fields = new ConcurrentHashMap<>();
+
+  /**
+   * Compares two values, recursing into lists and models
+   * @param a first value, or {@code null}
+   * @param b second value, or {@code null}
+   * @return whether the values are equal
+   */
+  static boolean equal(Object a, Object b) {
+    if (a == b) {
+      return true;
+    }
+    if (a == null || b == null || a.getClass() != b.getClass()) {
+      return a instanceof List && b instanceof List && equalLists((List<?>) a, (List<?>) b);
+    }
+    if (a instanceof List) {
+      return equalLists((List<?>) a, (List<?>) b);
+    }
+    if (a.getClass().getName().startsWith("java.") || a.getClass().isEnum()) {
+      return a.equals(b);
+    }
+    try {
+      for (Field field : getFields(a.getClass())) {
+        if (!equal(field.get(a), field.get(b))) {
+          return false;
+        }
+      }
+    } catch (IllegalAccessException err) {
+      throw new IllegalStateException(err);
+    }
+    return true;
+  }
+
+  /**
+   * Returns public instance fields of a model class
+   * @param modelClass model class
+   * @return public instance fields
+   */
+  static Field[] getFields(Class<?> modelClass) {
+    return fields.computeIfAbsent(modelClass, key -> {
+      List<Field> result = new ArrayList<>();
+      for (Field field : key.getFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          result.add(field);
+        }
+      }
+      return result.toArray(new Field[0]);
+    });
+  }
+
+  private static boolean equalLists(List<?> a, List<?> b) {
+    if (a.size() != b.size()) {
+      return false;
+    }
+    for (int i = 0; i < a.size(); i++) {
+      if (!equal(a.get(i), b.get(i))) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
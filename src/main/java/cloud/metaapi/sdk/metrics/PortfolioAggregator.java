@@ -0,0 +1,526 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryHistoryDayMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryTotalMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryTradeMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.PeriodMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Periods;
+import cloud.metaapi.sdk.clients.OptionsValidator;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Merges metrics of many accounts into metrics of a portfolio. Accounts are split into batches
+ * aggregated in parallel on a fork-join pool, daily growth series of a batch are merged into
+ * primitive arrays indexed by day, so that series of different accounts are aligned by date without
+ * per-day objects until the final result is built.
+ * <p>
+ * The portfolio metrics contain the summed balance, equity, profit, deposits, withdrawals, trades,
+ * lots, pips, commissions and interest, {@code wonTradesPercent} weighted by trades, the combined
+ * {@code dailyGrowth} series, {@code gain} and {@code maxDrawdown} of the combined series,
+ * the merged {@code currencySummary} and summed {@code periods}. Daily portfolio balances carry
+ * the last known balance of accounts without a row on that day. Daily gains are profits relative
+ * to the balance at the start of the day, drawdowns are measured on the compounded daily gains,
+ * so that deposits and withdrawals do not appear as drawdowns. Gains of periods are weighted by
+ * account balances, percentages of won trades by trades. Other fields remain {@code null}
+ */
+public class PortfolioAggregator {
+
+  private Options opts;
+
+  /**
+   * Portfolio aggregator options
+   */
+  public static class Options {
+    /**
+     * Fork-join pool to aggregate accounts in, or {@code null} to use the common pool, default
+     * {@code null}
+     */
+    public ForkJoinPool pool;
+    /**
+     * Number of accounts aggregated sequentially by one task, default 64
+     */
+    public int batchSize = 64;
+  }
+
+  /**
+   * Constructs portfolio aggregator instance with default options
+   */
+  public PortfolioAggregator() {
+    this.opts = new Options();
+  }
+
+  /**
+   * Constructs portfolio aggregator instance
+   * @param opts portfolio aggregator options
+   * @throws ValidationException if specified options are invalid
+   */
+  public PortfolioAggregator(Options opts) throws ValidationException {
+    new OptionsValidator().validateNonZeroInt(opts.batchSize, "aggregatorOpts.batchSize");
+    this.opts = opts;
+  }
+
+  /**
+   * Aggregates metrics of accounts into metrics of a portfolio. Metrics of accounts are not modified
+   * @param metrics metrics of accounts
+   * @return portfolio metrics
+   */
+  public Metrics aggregate(Collection<Metrics> metrics) {
+    Metrics[] accounts = metrics.toArray(new Metrics[0]);
+    AggregationTask task = new AggregationTask(accounts, 0, accounts.length);
+    ForkJoinPool pool = opts.pool != null ? opts.pool : ForkJoinPool.commonPool();
+    return pool.invoke(task).toMetrics();
+  }
+
+  /**
+   * Aggregates a range of accounts, splitting it in halves until it fits into a batch
+   */
+  private class AggregationTask extends RecursiveTask<Portfolio> {
+
+    private static final long serialVersionUID = 1L;
+    private Metrics[] accounts;
+    private int from;
+    private int to;
+
+    private AggregationTask(Metrics[] accounts, int from, int to) {
+      this.accounts = accounts;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Portfolio compute() {
+      if (to - from <= opts.batchSize) {
+        Portfolio portfolio = new Portfolio();
+        for (int i = from; i < to; i++) {
+          portfolio.add(accounts[i]);
+        }
+        return portfolio;
+      }
+      int middle = (from + to) >>> 1;
+      AggregationTask left = new AggregationTask(accounts, from, middle);
+      left.fork();
+      Portfolio right = new AggregationTask(accounts, middle, to).compute();
+      return left.join().merge(right);
+    }
+  }
+
+  /**
+   * Partial aggregate of a range of accounts
+   */
+  private static class Portfolio {
+    private double balance;
+    private double equity;
+    private double profit;
+    private double deposits;
+    private double withdrawals;
+    private int trades;
+    private long wonTrades;
+    private double lots;
+    private Double pips;
+    private Double commissions;
+    private Double interest;
+    private long firstDay = Long.MAX_VALUE;
+    private int length;
+    private double[] dayProfit = new double[0];
+    private double[] dayPips = new double[0];
+    private double[] dayLots = new double[0];
+    private double[] dayBalanceChange = new double[0];
+    private boolean[] dayPresent = new boolean[0];
+    private boolean[] dayHasPips = new boolean[0];
+    private Map<String, CurrencyTotals> currencies = new HashMap<>();
+    private PeriodTotals[] periods = new PeriodTotals[4];
+
+    private void add(Metrics metrics) {
+      balance += metrics.balance;
+      equity += metrics.equity;
+      profit += metrics.profit;
+      deposits += metrics.deposits;
+      withdrawals += valueOf(metrics.withdrawals);
+      trades += metrics.trades;
+      wonTrades += Math.round(valueOf(metrics.wonTradesPercent) * metrics.trades / 100);
+      lots += valueOf(metrics.lots);
+      pips = sum(pips, metrics.pips);
+      commissions = sum(commissions, metrics.commissions);
+      interest = sum(interest, metrics.interest);
+      if (metrics.dailyGrowth != null && !metrics.dailyGrowth.isEmpty()) {
+        addDailyGrowth(metrics.dailyGrowth);
+      }
+      if (metrics.currencySummary != null) {
+        for (CurrencySummaryMetrics currency : metrics.currencySummary) {
+          currencies.computeIfAbsent(currency.currency, CurrencyTotals::new).add(currency);
+        }
+      }
+      if (metrics.periods != null) {
+        PeriodMetrics[] accountPeriods = toArray(metrics.periods);
+        for (int i = 0; i < periods.length; i++) {
+          if (accountPeriods[i] != null) {
+            if (periods[i] == null) {
+              periods[i] = new PeriodTotals();
+            }
+            periods[i].add(accountPeriods[i], metrics.balance);
+          }
+        }
+      }
+    }
+
+    private void addDailyGrowth(List<DailyGrowthMetrics> dailyGrowth) {
+      long accountFirstDay = CompactDailyGrowth.parseDay(dailyGrowth.get(0).date);
+      long accountLastDay = CompactDailyGrowth.parseDay(dailyGrowth.get(dailyGrowth.size() - 1).date);
+      ensureRange(accountFirstDay, accountLastDay + 1);
+      double previousBalance = 0;
+      for (DailyGrowthMetrics day : dailyGrowth) {
+        int index = (int) (CompactDailyGrowth.parseDay(day.date) - firstDay);
+        dayProfit[index] += valueOf(day.profit);
+        dayLots[index] += valueOf(day.lots);
+        if (day.pips != null) {
+          dayPips[index] += day.pips;
+          dayHasPips[index] = true;
+        }
+        dayBalanceChange[index] += day.balance - previousBalance;
+        dayPresent[index] = true;
+        previousBalance = day.balance;
+      }
+    }
+
+    private Portfolio merge(Portfolio other) {
+      balance += other.balance;
+      equity += other.equity;
+      profit += other.profit;
+      deposits += other.deposits;
+      withdrawals += other.withdrawals;
+      trades += other.trades;
+      wonTrades += other.wonTrades;
+      lots += other.lots;
+      pips = sum(pips, other.pips);
+      commissions = sum(commissions, other.commissions);
+      interest = sum(interest, other.interest);
+      if (other.length != 0) {
+        ensureRange(other.firstDay, other.firstDay + other.length);
+        int offset = (int) (other.firstDay - firstDay);
+        for (int i = 0; i < other.length; i++) {
+          dayProfit[offset + i] += other.dayProfit[i];
+          dayPips[offset + i] += other.dayPips[i];
+          dayLots[offset + i] += other.dayLots[i];
+          dayBalanceChange[offset + i] += other.dayBalanceChange[i];
+          dayPresent[offset + i] |= other.dayPresent[i];
+          dayHasPips[offset + i] |= other.dayHasPips[i];
+        }
+      }
+      for (CurrencyTotals currency : other.currencies.values()) {
+        CurrencyTotals existing = currencies.putIfAbsent(currency.currency, currency);
+        if (existing != null) {
+          existing.merge(currency);
+        }
+      }
+      for (int i = 0; i < periods.length; i++) {
+        if (periods[i] == null) {
+          periods[i] = other.periods[i];
+        } else if (other.periods[i] != null) {
+          periods[i].merge(other.periods[i]);
+        }
+      }
+      return this;
+    }
+
+    /**
+     * Extends daily arrays to cover days from inclusive to exclusive
+     */
+    private void ensureRange(long from, long to) {
+      long newFirstDay = Math.min(firstDay, from);
+      long newEnd = Math.max(length != 0 ? firstDay + length : to, to);
+      if (newFirstDay == firstDay && newEnd == firstDay + length) {
+        return;
+      }
+      int newLength = (int) (newEnd - newFirstDay);
+      int offset = length != 0 ? (int) (firstDay - newFirstDay) : 0;
+      dayProfit = extend(dayProfit, newLength, offset);
+      dayPips = extend(dayPips, newLength, offset);
+      dayLots = extend(dayLots, newLength, offset);
+      dayBalanceChange = extend(dayBalanceChange, newLength, offset);
+      boolean[] present = new boolean[newLength];
+      System.arraycopy(dayPresent, 0, present, offset, length);
+      dayPresent = present;
+      boolean[] hasPips = new boolean[newLength];
+      System.arraycopy(dayHasPips, 0, hasPips, offset, length);
+      dayHasPips = hasPips;
+      firstDay = newFirstDay;
+      length = newLength;
+    }
+
+    private double[] extend(double[] values, int newLength, int offset) {
+      double[] result = new double[newLength];
+      System.arraycopy(values, 0, result, offset, length);
+      return result;
+    }
+
+    private Metrics toMetrics() {
+      Metrics metrics = new Metrics();
+      metrics.balance = balance;
+      metrics.equity = equity;
+      metrics.profit = profit;
+      metrics.deposits = deposits;
+      metrics.withdrawals = withdrawals;
+      metrics.trades = trades;
+      metrics.wonTradesPercent = trades != 0 ? wonTrades * 100.0 / trades : null;
+      metrics.lots = lots;
+      metrics.pips = pips;
+      metrics.commissions = commissions;
+      metrics.interest = interest;
+      metrics.dailyGrowth = new ArrayList<>();
+      double dayBalance = 0;
+      double totalProfit = 0;
+      double peakTotalProfit = 0;
+      double growth = 1;
+      double peakGrowth = 1;
+      double maxDrawdown = 0;
+      for (int i = 0; i < length; i++) {
+        dayBalance += dayBalanceChange[i];
+        if (!dayPresent[i]) {
+          continue;
+        }
+        DailyGrowthMetrics day = new DailyGrowthMetrics();
+        day.date = BrokerTime.formatDay(firstDay + i);
+        day.profit = dayProfit[i];
+        day.pips = dayHasPips[i] ? dayPips[i] : null;
+        day.lots = dayLots[i];
+        day.balance = dayBalance;
+        double startBalance = dayBalance - dayProfit[i];
+        day.gains = startBalance > 0 ? dayProfit[i] / startBalance * 100 : 0;
+        growth *= 1 + day.gains / 100;
+        peakGrowth = Math.max(peakGrowth, growth);
+        totalProfit += dayProfit[i];
+        peakTotalProfit = Math.max(peakTotalProfit, totalProfit);
+        day.totalProfit = totalProfit;
+        day.totalGains = (growth - 1) * 100;
+        day.drawdownPercentage = peakGrowth > 0 ? (1 - growth / peakGrowth) * 100 : 0;
+        day.drawdownProfit = peakTotalProfit - totalProfit;
+        maxDrawdown = Math.max(maxDrawdown, day.drawdownPercentage);
+        metrics.dailyGrowth.add(day);
+      }
+      if (!metrics.dailyGrowth.isEmpty()) {
+        metrics.gain = (growth - 1) * 100;
+        metrics.maxDrawdown = maxDrawdown;
+      }
+      metrics.currencySummary = new ArrayList<>(currencies.size());
+      for (CurrencyTotals currency : currencies.values()) {
+        metrics.currencySummary.add(currency.toMetrics());
+      }
+      metrics.currencySummary.sort((a, b) -> a.currency.compareTo(b.currency));
+      metrics.periods = new Periods();
+      metrics.periods.today = periods[0] != null ? periods[0].toMetrics() : null;
+      metrics.periods.thisWeek = periods[1] != null ? periods[1].toMetrics() : null;
+      metrics.periods.thisMonth = periods[2] != null ? periods[2].toMetrics() : null;
+      metrics.periods.thisYear = periods[3] != null ? periods[3].toMetrics() : null;
+      return metrics;
+    }
+  }
+
+  /**
+   * Merged currency summary of a currency
+   */
+  private static class CurrencyTotals {
+    private String currency;
+    private CurrencySummaryTotalMetrics total = new CurrencySummaryTotalMetrics();
+    private CurrencySummaryTradeMetrics short_;
+    private CurrencySummaryTradeMetrics long_;
+    private Map<String, CurrencySummaryHistoryDayMetrics> history = new HashMap<>();
+
+    private CurrencyTotals(String currency) {
+      this.currency = currency;
+    }
+
+    private void add(CurrencySummaryMetrics metrics) {
+      if (metrics.total != null) {
+        addTotal(metrics.total);
+      }
+      short_ = addTrades(short_, metrics.short_);
+      long_ = addTrades(long_, metrics.long_);
+      if (metrics.history != null) {
+        for (CurrencySummaryHistoryDayMetrics day : metrics.history) {
+          addDay(day);
+        }
+      }
+    }
+
+    private void merge(CurrencyTotals other) {
+      addTotal(other.total);
+      short_ = addTrades(short_, other.short_);
+      long_ = addTrades(long_, other.long_);
+      for (CurrencySummaryHistoryDayMetrics day : other.history.values()) {
+        addDay(day);
+      }
+    }
+
+    private void addTotal(CurrencySummaryTotalMetrics metrics) {
+      total.profit += metrics.profit;
+      total.trades += metrics.trades;
+      total.pips = sum(total.pips, metrics.pips);
+      total.wonTrades = sum(total.wonTrades, metrics.wonTrades);
+      total.lostTrades = sum(total.lostTrades, metrics.lostTrades);
+    }
+
+    private CurrencySummaryTradeMetrics addTrades(CurrencySummaryTradeMetrics target,
+      CurrencySummaryTradeMetrics metrics) {
+      if (metrics == null) {
+        return target;
+      }
+      if (target == null) {
+        target = new CurrencySummaryTradeMetrics();
+      }
+      target.profit += metrics.profit;
+      target.trades += metrics.trades;
+      target.pips = sum(target.pips, metrics.pips);
+      return target;
+    }
+
+    private void addDay(CurrencySummaryHistoryDayMetrics metrics) {
+      CurrencySummaryHistoryDayMetrics day = history.get(metrics.date);
+      if (day == null) {
+        day = new CurrencySummaryHistoryDayMetrics();
+        day.date = metrics.date;
+        history.put(metrics.date, day);
+      }
+      day.totalProfit += metrics.totalProfit;
+      day.totalPips = sum(day.totalPips, metrics.totalPips);
+      day.shortProfit = sum(day.shortProfit, metrics.shortProfit);
+      day.longProfit = sum(day.longProfit, metrics.longProfit);
+      day.shortPips = sum(day.shortPips, metrics.shortPips);
+      day.longPips = sum(day.longPips, metrics.longPips);
+    }
+
+    private CurrencySummaryMetrics toMetrics() {
+      CurrencySummaryMetrics metrics = new CurrencySummaryMetrics();
+      metrics.currency = currency;
+      metrics.total = total;
+      if (total.trades != 0) {
+        total.wonTradesPercent = total.wonTrades != null ? total.wonTrades * 100.0 / total.trades : null;
+        total.lostTradesPercent = total.lostTrades != null ? total.lostTrades * 100.0 / total.trades : null;
+      }
+      metrics.short_ = short_;
+      metrics.long_ = long_;
+      metrics.history = new ArrayList<>(history.values());
+      metrics.history.sort((a, b) -> a.date.compareTo(b.date));
+      return metrics;
+    }
+  }
+
+  /**
+   * Summed metrics of a period
+   */
+  private static class PeriodTotals {
+    private Double profit;
+    private Double pips;
+    private Double lots;
+    private Integer trades;
+    private Double profitDifference;
+    private Double pipsDifference;
+    private Double lotsDifference;
+    private Double tradesDifference;
+    private double gain;
+    private double gainDifference;
+    private double gainWeight;
+    private boolean hasGain;
+    private double wonTradesPercent;
+    private double wonTradesPercentDifference;
+    private double wonWeight;
+    private boolean hasWonTradesPercent;
+
+    private void add(PeriodMetrics metrics, double balance) {
+      profit = sum(profit, metrics.profit);
+      pips = sum(pips, metrics.pips);
+      lots = sum(lots, metrics.lots);
+      trades = sum(trades, metrics.trades);
+      profitDifference = sum(profitDifference, metrics.profitDifference);
+      pipsDifference = sum(pipsDifference, metrics.pipsDifference);
+      lotsDifference = sum(lotsDifference, metrics.lotsDifference);
+      tradesDifference = sum(tradesDifference, metrics.tradesDifference);
+      if (metrics.gain != null) {
+        double weight = Math.max(balance, 0);
+        gain += metrics.gain * weight;
+        gainDifference += valueOf(metrics.gainDifference) * weight;
+        gainWeight += weight;
+        hasGain = true;
+      }
+      if (metrics.wonTradesPercent != null) {
+        double weight = metrics.trades != null ? metrics.trades : 0;
+        wonTradesPercent += metrics.wonTradesPercent * weight;
+        wonTradesPercentDifference += valueOf(metrics.wonTradesPercentDifference) * weight;
+        wonWeight += weight;
+        hasWonTradesPercent = true;
+      }
+    }
+
+    private void merge(PeriodTotals other) {
+      profit = sum(profit, other.profit);
+      pips = sum(pips, other.pips);
+      lots = sum(lots, other.lots);
+      trades = sum(trades, other.trades);
+      profitDifference = sum(profitDifference, other.profitDifference);
+      pipsDifference = sum(pipsDifference, other.pipsDifference);
+      lotsDifference = sum(lotsDifference, other.lotsDifference);
+      tradesDifference = sum(tradesDifference, other.tradesDifference);
+      gain += other.gain;
+      gainDifference += other.gainDifference;
+      gainWeight += other.gainWeight;
+      hasGain |= other.hasGain;
+      wonTradesPercent += other.wonTradesPercent;
+      wonTradesPercentDifference += other.wonTradesPercentDifference;
+      wonWeight += other.wonWeight;
+      hasWonTradesPercent |= other.hasWonTradesPercent;
+    }
+
+    private PeriodMetrics toMetrics() {
+      PeriodMetrics metrics = new PeriodMetrics();
+      metrics.profit = profit;
+      metrics.pips = pips;
+      metrics.lots = lots;
+      metrics.trades = trades;
+      metrics.profitDifference = profitDifference;
+      metrics.pipsDifference = pipsDifference;
+      metrics.lotsDifference = lotsDifference;
+      metrics.tradesDifference = tradesDifference;
+      if (hasGain) {
+        metrics.gain = gainWeight > 0 ? gain / gainWeight : 0;
+        metrics.gainDifference = gainWeight > 0 ? gainDifference / gainWeight : 0;
+      }
+      if (hasWonTradesPercent) {
+        metrics.wonTradesPercent = wonWeight > 0 ? wonTradesPercent / wonWeight : 0;
+        metrics.wonTradesPercentDifference = wonWeight > 0 ? wonTradesPercentDifference / wonWeight : 0;
+      }
+      return metrics;
+    }
+  }
+
+  private static PeriodMetrics[] toArray(Periods periods) {
+    return new PeriodMetrics[] {periods.today, periods.thisWeek, periods.thisMonth, periods.thisYear};
+  }
+
+  private static double valueOf(Double value) {
+    return value != null ? value : 0;
+  }
+
+  private static Double sum(Double a, Double b) {
+    if (a == null) {
+      return b;
+    }
+    return b == null ? a : Double.valueOf(a + b);
+  }
+
+  private static Integer sum(Integer a, Integer b) {
+    if (a == null) {
+      return b;
+    }
+    return b == null ? a : Integer.valueOf(a + b);
+  }
+}
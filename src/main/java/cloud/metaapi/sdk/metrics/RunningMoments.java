@@ -0,0 +1,83 @@
+package cloud.metaapi.sdk.metrics;
+
+/**
+ * Mean, variance and kurtosis of a stream of values updated in O(1) per value with numerically
+ * stable central moment updates (Welford, Terriberry)
+ */
+class RunningMoments {
+
+  private long count;
+  private double mean;
+  private double m2;
+  private double m3;
+  private double m4;
+
+  /**
+   * Constructs running moments instance without values
+   */
+  RunningMoments() {}
+
+  /**
+   * Constructs running moments instance continuing from known statistics of previous values.
+   * The third central moment is not known from these statistics and is assumed to be zero, so
+   * the kurtosis of continued moments is approximate
+   * @param count number of previous values
+   * @param mean mean of previous values
+   * @param standardDeviation sample standard deviation of previous values
+   * @param kurtosis excess kurtosis of previous values, or {@code NaN} if unknown
+   */
+  RunningMoments(long count, double mean, double standardDeviation, double kurtosis) {
+    this.count = count;
+    this.mean = mean;
+    this.m2 = count > 1 ? standardDeviation * standardDeviation * (count - 1) : 0;
+    this.m4 = Double.isNaN(kurtosis) ? 0 : (kurtosis + 3) * m2 * m2 / count;
+  }
+
+  /**
+   * Adds a value
+   * @param value value to add
+   */
+  void add(double value) {
+    long previousCount = count++;
+    double delta = value - mean;
+    double deltaN = delta / count;
+    double deltaN2 = deltaN * deltaN;
+    double term = delta * deltaN * previousCount;
+    mean += deltaN;
+    m4 += term * deltaN2 * ((double) count * count - 3 * count + 3) + 6 * deltaN2 * m2 - 4 * deltaN * m3;
+    m3 += term * deltaN * (count - 2) - 3 * deltaN * m2;
+    m2 += term;
+  }
+
+  /**
+   * Returns the number of added values
+   * @return the number of values
+   */
+  long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns the mean of added values
+   * @return mean, or 0 if there are no values
+   */
+  double getMean() {
+    return mean;
+  }
+
+  /**
+   * Returns the sample standard deviation of added values
+   * @return standard deviation, or {@code NaN} if there are less than two values
+   */
+  double getStandardDeviation() {
+    return count > 1 ? Math.sqrt(m2 / (count - 1)) : Double.NaN;
+  }
+
+  /**
+   * Returns the excess kurtosis of added values
+   * @return excess kurtosis, or {@code NaN} if there are less than two distinct values
+   */
+  double getKurtosis() {
+    return count > 1 && m2 != 0 ? count * m4 / (m2 * m2) - 3 : Double.NaN;
+  }
+}
@@ -0,0 +1,200 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeByTimeMetrics;
+
+/**
+ * Totals of trades grouped by hour of the day or by day of the week, kept in primitive arrays
+ */
+class TradeTimeBuckets {
+
+  private static final int PROFIT = 0;
+  private static final int SHORT_PROFIT = 1;
+  private static final int LONG_PROFIT = 2;
+  private static final int WON_PROFIT = 3;
+  private static final int LOST_PROFIT = 4;
+  private static final int PIPS = 5;
+  private static final int SHORT_PIPS = 6;
+  private static final int LONG_PIPS = 7;
+  private static final int WON_PIPS = 8;
+  private static final int LOST_PIPS = 9;
+  private static final int LOTS = 10;
+  private static final int GAINS = 11;
+  private static final int SHORT_GAINS = 12;
+  private static final int LONG_GAINS = 13;
+  private static final int WON_GAINS = 14;
+  private static final int LOST_GAINS = 15;
+  private static final int TRADES = 16;
+  private static final int SHORT_TRADES = 17;
+  private static final int LONG_TRADES = 18;
+  private static final int WON_TRADES = 19;
+  private static final int LOST_TRADES = 20;
+  private static final int FIELDS = 21;
+  private boolean byHour;
+  private double[][] values;
+  private boolean[] hasPips;
+
+  /**
+   * Constructs trade time buckets instance
+   * @param byHour {@code true} to group trades by 24 hours of the day, {@code false} to group them
+   * by 7 days of the week
+   */
+  TradeTimeBuckets(boolean byHour) {
+    this.byHour = byHour;
+    int size = byHour ? 24 : 7;
+    this.values = new double[size][FIELDS];
+    this.hasPips = new boolean[size];
+  }
+
+  /**
+   * Adds a trade
+   * @param bucket hour within 0-23 or weekday within 0-6 starting from Sunday
+   * @param isLong whether the trade is long
+   * @param profit trade profit
+   * @param pips trade profit in pips, or {@code NaN} if unknown
+   * @param lots trade volume
+   * @param gain trade gain in percents
+   */
+  void add(int bucket, boolean isLong, double profit, double pips, double lots, double gain) {
+    double[] row = values[bucket];
+    boolean won = profit > 0;
+    boolean lost = profit < 0;
+    row[PROFIT] += profit;
+    row[isLong ? LONG_PROFIT : SHORT_PROFIT] += profit;
+    row[LOTS] += lots;
+    row[GAINS] += gain;
+    row[isLong ? LONG_GAINS : SHORT_GAINS] += gain;
+    row[TRADES]++;
+    row[isLong ? LONG_TRADES : SHORT_TRADES]++;
+    if (!Double.isNaN(pips)) {
+      hasPips[bucket] = true;
+      row[PIPS] += pips;
+      row[isLong ? LONG_PIPS : SHORT_PIPS] += pips;
+    }
+    if (won || lost) {
+      row[won ? WON_PROFIT : LOST_PROFIT] += profit;
+      row[won ? WON_GAINS : LOST_GAINS] += gain;
+      row[won ? WON_TRADES : LOST_TRADES]++;
+      if (!Double.isNaN(pips)) {
+        row[won ? WON_PIPS : LOST_PIPS] += pips;
+      }
+    }
+  }
+
+  /**
+   * Adds totals of a bucket received from the server. Metrics without a valid bucket are skipped
+   * @param metrics bucket metrics, whose hour or day field identifies the bucket
+   */
+  void add(TradeByTimeMetrics metrics) {
+    int bucket = getBucket(metrics);
+    if (bucket < 0 || bucket >= values.length) {
+      return;
+    }
+    double[] row = values[bucket];
+    row[PROFIT] += metrics.profit;
+    row[SHORT_PROFIT] += valueOf(metrics.shortProfit);
+    row[LONG_PROFIT] += valueOf(metrics.longProfit);
+    row[WON_PROFIT] += valueOf(metrics.wonProfit);
+    row[LOST_PROFIT] += valueOf(metrics.lostProfit);
+    if (metrics.pips != null) {
+      hasPips[bucket] = true;
+      row[PIPS] += metrics.pips;
+      row[SHORT_PIPS] += valueOf(metrics.shortPips);
+      row[LONG_PIPS] += valueOf(metrics.longPips);
+      row[WON_PIPS] += valueOf(metrics.wonPips);
+      row[LOST_PIPS] += valueOf(metrics.lostPips);
+    }
+    row[LOTS] += metrics.lots;
+    row[GAINS] += metrics.gains;
+    row[SHORT_GAINS] += valueOf(metrics.shortGains);
+    row[LONG_GAINS] += valueOf(metrics.longGains);
+    row[WON_GAINS] += valueOf(metrics.wonGains);
+    row[LOST_GAINS] += valueOf(metrics.lostGains);
+    row[TRADES] += metrics.trades;
+    row[SHORT_TRADES] += valueOf(metrics.shortTrades);
+    row[LONG_TRADES] += valueOf(metrics.longTrades);
+    row[WON_TRADES] += valueOf(metrics.wonTrades);
+    row[LOST_TRADES] += valueOf(metrics.lostTrades);
+  }
+
+  /**
+   * Converts non-empty buckets to metrics
+   * @return metrics of buckets with trades in order of buckets
+   */
+  List<TradeByTimeMetrics> toMetrics() {
+    List<TradeByTimeMetrics> result = new ArrayList<>();
+    for (int bucket = 0; bucket < values.length; bucket++) {
+      if (values[bucket][TRADES] != 0) {
+        TradeByTimeMetrics metrics = new TradeByTimeMetrics();
+        fill(bucket, metrics);
+        result.add(metrics);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Updates the metrics of a bucket within a list of metrics in order of buckets, inserting them
+   * if the bucket is not in the list yet
+   * @param bucket bucket to update
+   * @param metrics list of metrics to update
+   */
+  void update(int bucket, List<TradeByTimeMetrics> metrics) {
+    int index = 0;
+    while (index < metrics.size() && getBucket(metrics.get(index)) < bucket) {
+      index++;
+    }
+    if (index == metrics.size() || getBucket(metrics.get(index)) != bucket) {
+      metrics.add(index, new TradeByTimeMetrics());
+    }
+    fill(bucket, metrics.get(index));
+  }
+
+  private int getBucket(TradeByTimeMetrics metrics) {
+    Integer bucket = byHour ? metrics.hour : metrics.day;
+    return bucket != null ? bucket : -1;
+  }
+
+  private void fill(int bucket, TradeByTimeMetrics metrics) {
+    double[] row = values[bucket];
+    double trades = row[TRADES];
+    metrics.profit = row[PROFIT];
+    metrics.shortProfit = row[SHORT_PROFIT];
+    metrics.longProfit = row[LONG_PROFIT];
+    metrics.wonProfit = row[WON_PROFIT];
+    metrics.lostProfit = row[LOST_PROFIT];
+    if (hasPips[bucket]) {
+      metrics.pips = row[PIPS];
+      metrics.shortPips = row[SHORT_PIPS];
+      metrics.longPips = row[LONG_PIPS];
+      metrics.wonPips = row[WON_PIPS];
+      metrics.lostPips = row[LOST_PIPS];
+    }
+    metrics.lots = row[LOTS];
+    metrics.gains = row[GAINS];
+    metrics.shortGains = row[SHORT_GAINS];
+    metrics.longGains = row[LONG_GAINS];
+    metrics.wonGains = row[WON_GAINS];
+    metrics.lostGains = row[LOST_GAINS];
+    metrics.trades = (int) trades;
+    metrics.shortTrades = (int) row[SHORT_TRADES];
+    metrics.longTrades = (int) row[LONG_TRADES];
+    metrics.wonTrades = (int) row[WON_TRADES];
+    metrics.lostTrades = (int) row[LOST_TRADES];
+    metrics.shortTradesPercent = row[SHORT_TRADES] / trades * 100;
+    metrics.longTradesPercent = row[LONG_TRADES] / trades * 100;
+    metrics.wonTradesPercent = row[WON_TRADES] / trades * 100;
+    metrics.lostTradesPercent = row[LOST_TRADES] / trades * 100;
+    if (byHour) {
+      metrics.hour = bucket;
+    } else {
+      metrics.day = bucket;
+    }
+  }
+
+  private static double valueOf(Number value) {
+    return value != null ? value.doubleValue() : 0;
+  }
+}
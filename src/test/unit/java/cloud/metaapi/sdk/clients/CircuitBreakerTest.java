@@ -0,0 +1,141 @@
+package cloud.metaapi.sdk.clients;
+
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.JsonParseException;
+
+import cloud.metaapi.sdk.clients.error_handler.ApiException;
+import cloud.metaapi.sdk.clients.error_handler.InternalException;
+import cloud.metaapi.sdk.clients.error_handler.NotFoundException;
+import cloud.metaapi.sdk.clients.error_handler.TooManyRequestsException;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link CircuitBreaker}
+ */
+class CircuitBreakerTest {
+
+  private AtomicLong now = new AtomicLong();
+  private CircuitBreaker circuitBreaker;
+
+  @BeforeEach
+  void setUp() throws ValidationException {
+    CircuitBreaker.Options opts = new CircuitBreaker.Options();
+    opts.failureRateThreshold = 50;
+    opts.minimumRequests = 4;
+    opts.windowSize = 4;
+    opts.openStateDurationInSeconds = 10;
+    opts.halfOpenRequests = 2;
+    circuitBreaker = new CircuitBreaker(opts, now::get);
+  }
+
+  /**
+   * Tests {@link CircuitBreaker#onComplete}
+   */
+  @Test
+  void testOpensWhenFailureRateExceedsThreshold() {
+    complete(null);
+    complete(new TimeoutException("timeout"));
+    complete(null);
+    Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    complete(new CompletionException(new InternalException("error")));
+    Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    Assertions.assertThat(circuitBreaker.tryAcquire()).isFalse();
+  }
+
+  /**
+   * Tests {@link CircuitBreaker#onComplete}
+   */
+  @Test
+  void testSlidesWindowOverRecentRequests() {
+    complete(new ApiException("connection error", 0));
+    complete(null);
+    complete(null);
+    complete(null);
+    complete(null);
+    complete(new ApiException("connection error", 0));
+    Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    complete(new ApiException("connection error", 0));
+    Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+  }
+
+  /**
+   * Tests {@link CircuitBreaker#tryAcquire}
+   */
+  @Test
+  void testClosesAfterSuccessfulTrialRequests() {
+    for (int i = 0; i < 4; i++) {
+      complete(new TimeoutException("timeout"));
+    }
+    now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    Assertions.assertThat(circuitBreaker.tryAcquire()).isTrue();
+    Assertions.assertThat(circuitBreaker.tryAcquire()).isTrue();
+    Assertions.assertThat(circuitBreaker.tryAcquire()).isFalse();
+    circuitBreaker.onComplete(new RequestRejectedException("rejected"));
+    Assertions.assertThat(circuitBreaker.tryAcquire()).isTrue();
+    circuitBreaker.onComplete(null);
+    Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+    circuitBreaker.onComplete(new NotFoundException("not found"));
+    Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+  }
+
+  /**
+   * Tests {@link CircuitBreaker#tryAcquire}
+   */
+  @Test
+  void testReopensAfterFailedTrialRequest() {
+    for (int i = 0; i < 4; i++) {
+      complete(new TimeoutException("timeout"));
+    }
+    now.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    Assertions.assertThat(circuitBreaker.tryAcquire()).isTrue();
+    circuitBreaker.onComplete(new InternalException("error"));
+    Assertions.assertThat(circuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+    now.addAndGet(TimeUnit.SECONDS.toNanos(9));
+    Assertions.assertThat(circuitBreaker.tryAcquire()).isFalse();
+  }
+
+  /**
+   * Tests {@link CircuitBreaker#isFailure}
+   */
+  @Test
+  void testClassifiesErrors() {
+    Assertions.assertThat(CircuitBreaker.isFailure(null)).isFalse();
+    Assertions.assertThat(CircuitBreaker.isFailure(new TimeoutException("timeout"))).isTrue();
+    Assertions.assertThat(CircuitBreaker.isFailure(new ApiException("connection error", 0))).isTrue();
+    Assertions.assertThat(CircuitBreaker.isFailure(new ApiException("bad gateway", 502))).isTrue();
+    Assertions.assertThat(CircuitBreaker.isFailure(new TooManyRequestsException("too many requests", null)))
+      .isFalse();
+    Assertions.assertThat(CircuitBreaker.isFailure(new NotFoundException("not found"))).isFalse();
+    Assertions.assertThat(CircuitBreaker.isFailure(new RequestRejectedException("rejected"))).isFalse();
+    Assertions.assertThat(CircuitBreaker.isFailure(new java.util.concurrent.TimeoutException("deadline")))
+      .isTrue();
+    Assertions.assertThat(CircuitBreaker.isFailure(new SocketTimeoutException("read timed out"))).isTrue();
+    Assertions.assertThat(CircuitBreaker.isFailure(new JsonParseException(null, "unexpected token"))).isFalse();
+    Assertions.assertThat(CircuitBreaker.isFailure(new IllegalStateException("invalid state"))).isFalse();
+    Assertions.assertThat(CircuitBreaker.isFailure(new ValidationException("invalid value", null))).isFalse();
+  }
+
+  /**
+   * Tests {@link CircuitBreaker#CircuitBreaker}
+   */
+  @Test
+  void testValidatesOptions() {
+    CircuitBreaker.Options opts = new CircuitBreaker.Options();
+    opts.minimumRequests = 100;
+    Assertions.assertThatThrownBy(() -> new CircuitBreaker(opts)).isInstanceOf(ValidationException.class);
+  }
+
+  private void complete(Throwable error) {
+    Assertions.assertThat(circuitBreaker.tryAcquire()).isTrue();
+    circuitBreaker.onComplete(error);
+  }
+}
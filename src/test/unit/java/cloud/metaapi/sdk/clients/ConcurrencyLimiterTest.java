@@ -0,0 +1,119 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cloud.metaapi.sdk.clients.error_handler.ApiException;
+import cloud.metaapi.sdk.clients.error_handler.InternalException;
+import cloud.metaapi.sdk.clients.error_handler.NotFoundException;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link ConcurrencyLimiter}
+ */
+class ConcurrencyLimiterTest {
+
+  private AtomicLong now = new AtomicLong();
+  private ConcurrencyLimiter limiter;
+
+  @BeforeEach
+  void setUp() throws ValidationException {
+    ConcurrencyLimiter.Options opts = new ConcurrencyLimiter.Options();
+    opts.initialLimit = 2;
+    opts.minLimit = 1;
+    opts.maxLimit = 3;
+    opts.backoffRatio = 0.5;
+    opts.latencyTolerance = 2;
+    opts.maxQueueSize = 1;
+    limiter = new ConcurrencyLimiter(opts, now::get);
+  }
+
+  /**
+   * Tests {@link ConcurrencyLimiter#acquire}
+   */
+  @Test
+  void testQueuesAndRejectsRequestsExceedingLimit() throws Exception {
+    CompletableFuture<ConcurrencyLimiter.Permit> first = limiter.acquire();
+    CompletableFuture<ConcurrencyLimiter.Permit> second = limiter.acquire();
+    CompletableFuture<ConcurrencyLimiter.Permit> third = limiter.acquire();
+    CompletableFuture<ConcurrencyLimiter.Permit> fourth = limiter.acquire();
+    Assertions.assertThat(first).isCompleted();
+    Assertions.assertThat(second).isCompleted();
+    Assertions.assertThat(third).isNotDone();
+    Assertions.assertThat(fourth).isCompletedExceptionally();
+    Assertions.assertThatThrownBy(fourth::join).hasCauseInstanceOf(RequestRejectedException.class);
+    first.get().release(null);
+    first.get().release(null);
+    Assertions.assertThat(third).isCompleted();
+    Assertions.assertThat(limiter.getInFlight()).isEqualTo(2);
+    Assertions.assertThat(limiter.getQueueSize()).isZero();
+  }
+
+  /**
+   * Tests {@link ConcurrencyLimiter#acquire}
+   */
+  @Test
+  void testSkipsCancelledRequests() throws Exception {
+    CompletableFuture<ConcurrencyLimiter.Permit> first = limiter.acquire();
+    limiter.acquire();
+    CompletableFuture<ConcurrencyLimiter.Permit> third = limiter.acquire();
+    third.cancel(false);
+    Assertions.assertThat(limiter.acquire()).isNotDone();
+    first.get().release(null);
+    Assertions.assertThat(limiter.getInFlight()).isEqualTo(2);
+  }
+
+  /**
+   * Tests {@link ConcurrencyLimiter.Permit#release}
+   */
+  @Test
+  void testIncreasesLimitWhileLatencyIsStable() throws Exception {
+    for (int i = 0; i < 4; i++) {
+      CompletableFuture<ConcurrencyLimiter.Permit> first = limiter.acquire();
+      CompletableFuture<ConcurrencyLimiter.Permit> second = limiter.acquire();
+      now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+      first.get().release(null);
+      second.get().release(new NotFoundException("not found"));
+    }
+    Assertions.assertThat(limiter.getLimit()).isEqualTo(3);
+  }
+
+  /**
+   * Tests {@link ConcurrencyLimiter.Permit#release}
+   */
+  @Test
+  void testDecreasesLimitOnOverload() throws Exception {
+    release(100, null);
+    release(300, null);
+    Assertions.assertThat(limiter.getLimit()).isEqualTo(1);
+    setUp();
+    release(100, new ApiException("too many requests", 429));
+    Assertions.assertThat(limiter.getLimit()).isEqualTo(1);
+    setUp();
+    release(100, new InternalException("error"));
+    Assertions.assertThat(limiter.getLimit()).isEqualTo(1);
+    release(100, new InternalException("error"));
+    Assertions.assertThat(limiter.getLimit()).isEqualTo(1);
+  }
+
+  /**
+   * Tests {@link ConcurrencyLimiter#ConcurrencyLimiter}
+   */
+  @Test
+  void testValidatesOptions() {
+    ConcurrencyLimiter.Options opts = new ConcurrencyLimiter.Options();
+    opts.backoffRatio = 1;
+    Assertions.assertThatThrownBy(() -> new ConcurrencyLimiter(opts)).isInstanceOf(ValidationException.class);
+  }
+
+  private void release(long latencyInMilliseconds, Throwable error) throws Exception {
+    ConcurrencyLimiter.Permit permit = limiter.acquire().get();
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyInMilliseconds));
+    permit.release(error);
+  }
+}
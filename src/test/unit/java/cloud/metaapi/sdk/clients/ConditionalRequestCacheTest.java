@@ -0,0 +1,128 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsRequestListener.RequestStats;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link ConditionalRequestCache}
+ */
+class ConditionalRequestCacheTest {
+
+  private HttpServer server;
+  private MetaStatsClient client;
+  private ConditionalRequestCache cache;
+  private String etag = "\"v1\"";
+  private String balance = "100";
+  private List<String> receivedValidators = new ArrayList<>();
+  private List<RequestStats> completed = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws IOException, ValidationException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      String validator = exchange.getRequestHeaders().getFirst("if-none-match");
+      receivedValidators.add(validator);
+      if (etag.equals(validator)) {
+        exchange.sendResponseHeaders(304, -1);
+        exchange.close();
+        return;
+      }
+      byte[] body = ("{\"metrics\":{\"balance\":" + balance + "}}").getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("etag", etag);
+      exchange.getResponseHeaders().add("content-type", "application/json");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream output = exchange.getResponseBody()) {
+        output.write(body);
+      }
+    });
+    server.start();
+    String url = "http://localhost:" + server.getAddress().getPort();
+    MetaStatsHttpClient httpClient = new MetaStatsHttpClient(10000, 10000, new RetryOptions()) {
+      @Override
+      public <T> CompletableFuture<T> requestStream(HttpRequestOptions options, ResponseHandler<T> handler,
+        RetryListener retryListener) {
+        options.setUrl(options.getUrl().replace("https://metastats-api-v1.stub.local", url));
+        return super.requestStream(options, handler, retryListener);
+      }
+    };
+    client = new MetaStatsClient(httpClient, "token", "stub.local");
+    cache = new ConditionalRequestCache(new ConditionalRequestCache.Options());
+    client.setConditionalRequestCache(cache);
+    client.setRequestListener(new MetaStatsRequestListener() {
+      @Override
+      public void onRequestCompleted(RequestStats stats) {
+        completed.add(stats);
+      }
+    });
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+  }
+
+  /**
+   * Tests {@link MetaStatsClient#getMetrics(String)}
+   */
+  @Test
+  void testReusesMetricsIfNotModified() {
+    Metrics first = client.getMetrics("accountId").join();
+    Metrics second = client.getMetrics("accountId").join();
+    Assertions.assertThat(second).isSameAs(first);
+    Assertions.assertThat(receivedValidators).containsExactly(null, "\"v1\"");
+    Assertions.assertThat(completed).extracting(stats -> stats.notModified).containsExactly(false, true);
+    Assertions.assertThat(completed.get(1).responseSize).isZero();
+    etag = "\"v2\"";
+    balance = "200";
+    Metrics third = client.getMetrics("accountId").join();
+    Assertions.assertThat(third.balance).isEqualTo(200);
+    Assertions.assertThat(client.getMetrics("accountId").join()).isSameAs(third);
+    Assertions.assertThat(receivedValidators).containsExactly(null, "\"v1\"", "\"v1\"", "\"v2\"");
+  }
+
+  /**
+   * Tests {@link ConditionalRequestCache#invalidate(String)}
+   */
+  @Test
+  void testSendsUnconditionalRequestAfterInvalidation() {
+    Metrics first = client.getMetrics("accountId").join();
+    cache.invalidate("accountId");
+    Assertions.assertThat(client.getMetrics("accountId").join()).isNotSameAs(first);
+    Assertions.assertThat(receivedValidators).containsExactly(null, null);
+  }
+
+  /**
+   * Tests {@link ConditionalRequestCache#put}
+   */
+  @Test
+  void testEvictsLeastRecentlyUsedValidators() throws ValidationException {
+    ConditionalRequestCache.Options opts = new ConditionalRequestCache.Options();
+    opts.maxEntries = 2;
+    ConditionalRequestCache cache = new ConditionalRequestCache(opts);
+    cache.put(new MetricsKey("1", false), "a", null, new Metrics());
+    cache.put(new MetricsKey("2", false), null, "Wed, 21 Oct 2015 07:28:00 GMT", new Metrics());
+    cache.get(new MetricsKey("1", false));
+    cache.put(new MetricsKey("3", false), "c", null, new Metrics());
+    Assertions.assertThat(cache.size()).isEqualTo(2);
+    Assertions.assertThat(cache.get(new MetricsKey("2", false))).isNull();
+    Assertions.assertThat(cache.get(new MetricsKey("1", false)).etag).isEqualTo("a");
+    cache.put(new MetricsKey("1", false), null, null, new Metrics());
+    Assertions.assertThat(cache.get(new MetricsKey("1", false))).isNull();
+  }
+}
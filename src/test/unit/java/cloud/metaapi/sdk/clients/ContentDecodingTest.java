@@ -0,0 +1,74 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link ContentDecoding}
+ */
+class ContentDecodingTest {
+
+  private static final String body = "{\"metrics\":{\"balance\":100,\"dailyGrowth\":[]}}";
+
+  /**
+   * Tests {@link ContentDecoding#decode}
+   */
+  @Test
+  void testDecodesGzip() throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (OutputStream gzip = new GZIPOutputStream(output)) {
+      gzip.write(body.getBytes(StandardCharsets.UTF_8));
+    }
+    Assertions.assertThat(decode(output.toByteArray(), "gzip")).isEqualTo(body);
+    Assertions.assertThat(decode(output.toByteArray(), "X-GZIP")).isEqualTo(body);
+  }
+
+  /**
+   * Tests {@link ContentDecoding#decode}
+   */
+  @Test
+  void testDecodesZlibAndRawDeflate() throws IOException {
+    Assertions.assertThat(decode(deflate(false), "deflate")).isEqualTo(body);
+    Assertions.assertThat(decode(deflate(true), "deflate")).isEqualTo(body);
+  }
+
+  /**
+   * Tests {@link ContentDecoding#decode}
+   */
+  @Test
+  void testPassesThroughIdentityAndRejectsUnknownEncodings() throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    Assertions.assertThat(decode(bytes, null)).isEqualTo(body);
+    Assertions.assertThat(decode(bytes, "identity")).isEqualTo(body);
+    Assertions.assertThatThrownBy(() -> decode(bytes, "compress")).isInstanceOf(IOException.class);
+    Assertions.assertThat(ContentDecoding.ACCEPT_ENCODING).isEqualTo("gzip, deflate");
+  }
+
+  private byte[] deflate(boolean raw) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, raw);
+    try (OutputStream deflate = new DeflaterOutputStream(output, deflater)) {
+      deflate.write(body.getBytes(StandardCharsets.UTF_8));
+    } finally {
+      deflater.end();
+    }
+    return output.toByteArray();
+  }
+
+  private String decode(byte[] bytes, String encoding) throws IOException {
+    try (InputStream input = ContentDecoding.decode(new ByteArrayInputStream(bytes), encoding)) {
+      return IOUtils.toString(input, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -0,0 +1,128 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsHttpClient.ResponseHandler;
+import cloud.metaapi.sdk.clients.MetaStatsHttpClient.StreamResponse;
+import cloud.metaapi.sdk.clients.MetaStatsRequestListener.RequestStats;
+import cloud.metaapi.sdk.clients.error_handler.NotFoundException;
+
+/**
+ * Tests {@link MetaStatsBlockingClient}
+ */
+class MetaStatsBlockingClientTest {
+
+  private static final String response = "{\"metrics\":{\"balance\":100,\"trades\":2,"
+    + "\"dailyGrowth\":[{\"date\":\"2020-01-01\",\"balance\":100}]}}";
+  private MetaStatsHttpClient httpClient;
+  private MetaStatsBlockingClient client;
+  private List<Thread> handlerThreads = new ArrayList<>();
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() throws Exception {
+    httpClient = Mockito.mock(MetaStatsHttpClient.class);
+    Mockito.when(httpClient.requestStreamSync(Mockito.any(), Mockito.any())).thenAnswer(invocation ->
+      handle(invocation.getArgument(1)));
+    Mockito.when(httpClient.requestStreamSync(Mockito.any(), Mockito.any(), Mockito.any()))
+      .thenAnswer(invocation -> handle(invocation.getArgument(1)));
+    client = new MetaStatsBlockingClient(httpClient, "token", "agiliumtrade.agiliumtrade.ai");
+  }
+
+  /**
+   * Tests {@link MetaStatsBlockingClient#getMetrics(String, boolean)}
+   */
+  @Test
+  void testRetrievesMetricsInCallingThread() throws Exception {
+    Metrics metrics = client.getMetrics("accountId", true);
+    Assertions.assertThat(metrics.balance).isEqualTo(100);
+    Assertions.assertThat(metrics.dailyGrowth).hasSize(1);
+    Assertions.assertThat(handlerThreads).containsExactly(Thread.currentThread());
+    Mockito.verify(httpClient).requestStreamSync(Mockito.argThat(opts -> {
+      Assertions.assertThat(opts.getUrl()).isEqualTo("https://metastats-api-v1.agiliumtrade.agiliumtrade.ai"
+        + "/users/current/accounts/accountId/metrics");
+      Assertions.assertThat(opts.getQueryParameters().get("includeOpenPositions")).isEqualTo(true);
+      Assertions.assertThat(opts.getHeaders().get("auth-token")).isEqualTo("token");
+      return true;
+    }), Mockito.any(), Mockito.isNull());
+  }
+
+  /**
+   * Tests {@link MetaStatsBlockingClient#getMetrics(String, boolean, java.util.Set)}
+   */
+  @Test
+  void testRetrievesSelectedSections() throws Exception {
+    Metrics metrics = client.getMetrics("accountId", false, EnumSet.noneOf(MetricsSection.class));
+    Assertions.assertThat(metrics.trades).isEqualTo(2);
+    Assertions.assertThat(metrics.dailyGrowth).isNull();
+  }
+
+  /**
+   * Tests {@link MetaStatsBlockingClient#getMetrics(String)}
+   */
+  @Test
+  void testReportsFailedRequestsToListener() throws Exception {
+    List<RequestStats> completed = new ArrayList<>();
+    client.setRequestListener(new MetaStatsRequestListener() {
+      @Override
+      public void onRequestCompleted(RequestStats stats) {
+        completed.add(stats);
+      }
+    });
+    NotFoundException error = new NotFoundException("Account not found");
+    Mockito.doThrow(error).when(httpClient).requestStreamSync(Mockito.any(), Mockito.any(), Mockito.any());
+    Assertions.assertThatThrownBy(() -> client.getMetrics("accountId")).isSameAs(error);
+    Assertions.assertThat(completed).hasSize(1);
+    Assertions.assertThat(completed.get(0).outcome).isEqualTo("NotFoundException");
+    Assertions.assertThat(completed.get(0).error).isSameAs(error);
+    Assertions.assertThat(completed.get(0).durationInNanoseconds).isPositive();
+  }
+
+  /**
+   * Tests {@link MetaStatsBlockingClient#getMetrics(String)}
+   */
+  @Test
+  void testWaitsForRateLimiter() throws Exception {
+    AtomicLong now = new AtomicLong();
+    RateLimiter.Options opts = new RateLimiter.Options();
+    opts.requestsPerSecond = 1;
+    opts.burst = 1;
+    RateLimiter rateLimiter = new RateLimiter(opts, now::get);
+    client.setRateLimiter(rateLimiter);
+    client.getMetrics("accountId");
+    Thread thread = new Thread(() -> {
+      try {
+        client.getMetrics("accountId");
+      } catch (Exception err) {
+        throw new IllegalStateException(err);
+      }
+    });
+    thread.start();
+    while (rateLimiter.getQueueSize() == 0) {
+      Thread.sleep(1);
+    }
+    Assertions.assertThat(handlerThreads).hasSize(1);
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    rateLimiter.drain();
+    thread.join(5000);
+    Assertions.assertThat(handlerThreads).hasSize(2);
+  }
+
+  private synchronized Metrics handle(ResponseHandler<Metrics> handler) throws Exception {
+    handlerThreads.add(Thread.currentThread());
+    return handler.handle(new StreamResponse(200, name -> null,
+      new ByteArrayInputStream(response.getBytes(StandardCharsets.UTF_8))));
+  }
+}
@@ -1,15 +1,33 @@
 package cloud.metaapi.sdk.clients;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 import cloud.metaapi.sdk.clients.HttpRequestOptions.Method;
+import cloud.metaapi.sdk.clients.MetaStatsClient.AccountMetricsResult;
+import cloud.metaapi.sdk.clients.MetaStatsClient.BulkOptions;
 import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
 import cloud.metaapi.sdk.clients.MetaStatsClient.MetricsResponse;
+import cloud.metaapi.sdk.clients.MetaStatsHttpClient.RetryListener;
+import cloud.metaapi.sdk.clients.MetaStatsRequestListener.RequestStats;
+import cloud.metaapi.sdk.clients.error_handler.NotFoundException;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
 
 /**
  * Tests {@link MetaStatsClient}
@@ -68,4 +86,374 @@ class MetaStatsClientTest {
       return true;
     }), Mockito.eq(MetricsResponse.class));
   }
+  
+  /**
+   * Tests {@link MetaStatsClient#getMetrics(java.util.Collection, BulkOptions)}
+   */
+  @Test
+  void testRetrievesMetricsOfMultipleAccountsWithBoundedConcurrency() {
+    Map<String, CompletableFuture<MetricsResponse>> requests = new ConcurrentHashMap<>();
+    Mockito.doAnswer(invocation -> {
+      String url = invocation.<HttpRequestOptions>getArgument(0).getUrl();
+      String id = url.split("/accounts/")[1].split("/")[0];
+      CompletableFuture<MetricsResponse> future = new CompletableFuture<>();
+      requests.put(id, future);
+      return future;
+    }).when(httpClient).requestJson(Mockito.any(), Mockito.any());
+    List<AccountMetricsResult> streamed = new ArrayList<>();
+    BulkOptions opts = new BulkOptions();
+    opts.maxConcurrency = 2;
+    opts.onResult = streamed::add;
+    CompletableFuture<List<AccountMetricsResult>> future = metaStatsClient
+      .getMetrics(Arrays.asList("id1", "id2", "id3"), opts);
+    Assertions.assertThat(requests.keySet()).containsExactlyInAnyOrder("id1", "id2");
+    requests.get("id2").complete(new MetricsResponse() {{ metrics = expected; }});
+    Assertions.assertThat(requests.keySet()).containsExactlyInAnyOrder("id1", "id2", "id3");
+    Assertions.assertThat(streamed).hasSize(1);
+    requests.get("id3").completeExceptionally(new Exception("test"));
+    requests.get("id1").complete(new MetricsResponse() {{ metrics = expected; }});
+    List<AccountMetricsResult> results = future.join();
+    Assertions.assertThat(results).extracting(result -> result.accountId)
+      .containsExactly("id2", "id3", "id1");
+    Assertions.assertThat(results.get(0).metrics).isSameAs(expected);
+    Assertions.assertThat(results.get(1).error).hasMessage("test");
+    Assertions.assertThat(results.get(1).metrics).isNull();
+    Assertions.assertThat(streamed).isEqualTo(results);
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#getMetrics(java.util.Collection, BulkOptions)}
+   */
+  @Test
+  void testDoesNotRetrieveMetricsOfMultipleAccountsWithInvalidConcurrency() {
+    BulkOptions opts = new BulkOptions();
+    opts.maxConcurrency = 0;
+    Assertions.assertThatThrownBy(() -> metaStatsClient.getMetrics(Arrays.asList("id1"), opts).join())
+      .hasCauseInstanceOf(ValidationException.class);
+    Mockito.verify(httpClient, Mockito.never()).requestJson(Mockito.any(), Mockito.any());
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#getMetrics(String, boolean)}
+   */
+  @Test
+  void testRetrievesAccountMetricsFromCache() throws ValidationException {
+    metaStatsClient.setCache(new MetricsCache(new MetricsCache.Options()));
+    Assertions.assertThat(metaStatsClient.getMetrics(accountId, false).join()).isSameAs(expected);
+    Assertions.assertThat(metaStatsClient.getMetrics(accountId, false).join()).isSameAs(expected);
+    Mockito.verify(httpClient, Mockito.times(1)).requestJson(Mockito.any(), Mockito.any());
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#getMetrics(String, boolean)}
+   */
+  @Test
+  void testSharesInFlightRequestBetweenConcurrentCalls() {
+    CompletableFuture<MetricsResponse> response = new CompletableFuture<>();
+    Mockito.doReturn(response).when(httpClient).requestJson(Mockito.any(), Mockito.any());
+    CompletableFuture<Metrics> first = metaStatsClient.getMetrics(accountId, false);
+    CompletableFuture<Metrics> second = metaStatsClient.getMetrics(accountId, false);
+    metaStatsClient.getMetrics(accountId, true);
+    second.cancel(false);
+    response.complete(new MetricsResponse() {{ metrics = expected; }});
+    Assertions.assertThat(first.join()).isSameAs(expected);
+    Mockito.verify(httpClient, Mockito.times(2)).requestJson(Mockito.any(), Mockito.any());
+    metaStatsClient.getMetrics(accountId, false);
+    Mockito.verify(httpClient, Mockito.times(3)).requestJson(Mockito.any(), Mockito.any());
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#getMetrics(String, boolean, java.util.Set)}
+   */
+  @Test
+  void testRetrievesSelectedSectionsOfAccountMetricsFromApi() {
+    Mockito.doReturn(CompletableFuture.completedFuture("{\"metrics\":{\"trades\":10,\"balance\":10105,"
+      + "\"dailyGrowth\":[{\"date\":\"2020-01-01\",\"balance\":10105}],\"riskOfRuin\":[{\"lossSize\":1}]}}"))
+      .when(httpClient).request(Mockito.any());
+    Metrics metrics = metaStatsClient.getMetrics(accountId, true, EnumSet.of(MetricsSection.DAILY_GROWTH)).join();
+    Assertions.assertThat(metrics.trades).isEqualTo(10);
+    Assertions.assertThat(metrics.dailyGrowth).hasSize(1);
+    Assertions.assertThat(metrics.riskOfRuin).isNull();
+    Mockito.verify(httpClient).request(Mockito.argThat(opts -> {
+      HttpRequestOptions expectedOpts = new HttpRequestOptions(
+        "https://metastats-api-v1.agiliumtrade.agiliumtrade.ai/users/current/accounts/"
+        + accountId + "/metrics", Method.GET);
+      expectedOpts.getHeaders().put("auth-token", token);
+      expectedOpts.getQueryParameters().put("includeOpenPositions", true);
+      Assertions.assertThat(opts).usingRecursiveComparison().isEqualTo(expectedOpts);
+      return true;
+    }));
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#streamMetrics}
+   */
+  @Test
+  void testStreamsAccountMetricsFromApi() {
+    Mockito.doReturn(CompletableFuture.completedFuture("{\"metrics\":{\"trades\":10,"
+      + "\"dailyGrowth\":[{\"date\":\"2020-01-01\"},{\"date\":\"2020-01-02\"}]}}"))
+      .when(httpClient).request(Mockito.any());
+    List<String> days = new ArrayList<>();
+    Metrics metrics = metaStatsClient.streamMetrics(accountId, false, null, new MetricsStreamListener() {
+      @Override
+      public void onDailyGrowth(MetaStatsClient.DailyGrowthMetrics day) {
+        days.add(day.date);
+      }
+    }).join();
+    Assertions.assertThat(days).containsExactly("2020-01-01", "2020-01-02");
+    Assertions.assertThat(metrics.trades).isEqualTo(10);
+    Assertions.assertThat(metrics.dailyGrowth).isNull();
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#setRequestListener}
+   */
+  @Test
+  void testReportsRequestTelemetryToListener() {
+    String json = "{\"metrics\":{\"trades\":10}}";
+    Mockito.doReturn(CompletableFuture.completedFuture(json)).when(httpClient).request(Mockito.any());
+    List<String> startedRequests = new ArrayList<>();
+    List<RequestStats> completedRequests = new ArrayList<>();
+    metaStatsClient.setRequestListener(new MetaStatsRequestListener() {
+      @Override
+      public void onRequestStarted(String accountId) {
+        startedRequests.add(accountId);
+      }
+
+      @Override
+      public void onRequestCompleted(RequestStats stats) {
+        completedRequests.add(stats);
+      }
+    });
+    Assertions.assertThat(metaStatsClient.getMetrics(accountId).join().trades).isEqualTo(10);
+    Assertions.assertThat(startedRequests).containsExactly(accountId);
+    Assertions.assertThat(completedRequests).hasSize(1);
+    RequestStats stats = completedRequests.get(0);
+    Assertions.assertThat(stats.accountId).isEqualTo(accountId);
+    Assertions.assertThat(stats.outcome).isEqualTo("success");
+    Assertions.assertThat(stats.error).isNull();
+    Assertions.assertThat(stats.responseSize).isEqualTo(json.length());
+    Assertions.assertThat(stats.deserializationTimeInNanoseconds).isNotNegative();
+    Assertions.assertThat(stats.durationInNanoseconds).isGreaterThanOrEqualTo(
+      stats.deserializationTimeInNanoseconds);
+    CompletableFuture<String> failure = new CompletableFuture<>();
+    failure.completeExceptionally(new NotFoundException("Account not found"));
+    Mockito.doReturn(failure).when(httpClient).request(Mockito.any());
+    Assertions.assertThatThrownBy(() -> metaStatsClient.getMetrics(accountId).join())
+      .hasCauseInstanceOf(NotFoundException.class);
+    Assertions.assertThat(completedRequests).hasSize(2);
+    Assertions.assertThat(completedRequests.get(1).outcome).isEqualTo("NotFoundException");
+    Assertions.assertThat(completedRequests.get(1).error).isInstanceOf(NotFoundException.class);
+    Assertions.assertThat(completedRequests.get(1).sent).isTrue();
+    CompletableFuture<String> anonymousFailure = new CompletableFuture<>();
+    anonymousFailure.completeExceptionally(new RuntimeException() {});
+    Mockito.doReturn(anonymousFailure).when(httpClient).request(Mockito.any());
+    Assertions.assertThatThrownBy(() -> metaStatsClient.getMetrics(accountId).join());
+    Assertions.assertThat(completedRequests.get(2).outcome).startsWith(MetaStatsClientTest.class.getName() + "$");
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#setRateLimiter}
+   */
+  @Test
+  void testWaitsForRateLimiterBeforeSendingRequest() {
+    RateLimiter rateLimiter = Mockito.mock(RateLimiter.class);
+    CompletableFuture<Void> permit = new CompletableFuture<>();
+    Mockito.when(rateLimiter.acquire()).thenReturn(permit);
+    metaStatsClient.setRateLimiter(rateLimiter);
+    CompletableFuture<Metrics> metrics = metaStatsClient.getMetrics(accountId);
+    Mockito.verify(httpClient, Mockito.never()).requestJson(Mockito.any(), Mockito.any());
+    permit.complete(null);
+    Assertions.assertThat(metrics.join()).usingRecursiveComparison().isEqualTo(expected);
+    Mockito.verify(httpClient).requestJson(Mockito.any(), Mockito.any());
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#setCircuitBreaker}
+   */
+  @Test
+  void testFailsFastWhileCircuitBreakerIsOpen() throws ValidationException {
+    CircuitBreaker.Options opts = new CircuitBreaker.Options();
+    opts.minimumRequests = 1;
+    metaStatsClient.setCircuitBreaker(new CircuitBreaker(opts));
+    Mockito.doReturn(CompletableFuture.supplyAsync(() -> {
+      throw new CompletionException(new TimeoutException("timeout"));
+    })).when(httpClient).requestJson(Mockito.any(), Mockito.any());
+    Assertions.assertThatThrownBy(() -> metaStatsClient.getMetrics(accountId).join())
+      .hasCauseInstanceOf(TimeoutException.class);
+    List<String> startedRequests = new ArrayList<>();
+    List<RequestStats> completedRequests = new ArrayList<>();
+    metaStatsClient.setRequestListener(new MetaStatsRequestListener() {
+      @Override
+      public void onRequestStarted(String accountId) {
+        startedRequests.add(accountId);
+      }
+
+      @Override
+      public void onRequestCompleted(RequestStats stats) {
+        completedRequests.add(stats);
+      }
+    });
+    Assertions.assertThatThrownBy(() -> metaStatsClient.getMetrics(accountId).join())
+      .hasCauseInstanceOf(RequestRejectedException.class);
+    Mockito.verify(httpClient).requestJson(Mockito.any(), Mockito.any());
+    Assertions.assertThat(startedRequests).isEmpty();
+    Assertions.assertThat(completedRequests).hasSize(1);
+    Assertions.assertThat(completedRequests.get(0).outcome).isEqualTo("RequestRejectedException");
+    Assertions.assertThat(completedRequests.get(0).sent).isFalse();
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#setConcurrencyLimiter}
+   */
+  @Test
+  void testWaitsForConcurrencyLimitBeforeSendingRequest() throws ValidationException {
+    ConcurrencyLimiter.Options opts = new ConcurrencyLimiter.Options();
+    opts.initialLimit = 1;
+    ConcurrencyLimiter concurrencyLimiter = new ConcurrencyLimiter(opts);
+    metaStatsClient.setConcurrencyLimiter(concurrencyLimiter);
+    CompletableFuture<MetricsResponse> response = new CompletableFuture<>();
+    Mockito.doReturn(response).when(httpClient).requestJson(Mockito.any(), Mockito.any());
+    CompletableFuture<Metrics> first = metaStatsClient.getMetrics(accountId);
+    CompletableFuture<Metrics> second = metaStatsClient.getMetrics("2345678");
+    Mockito.verify(httpClient).requestJson(Mockito.any(), Mockito.any());
+    Assertions.assertThat(concurrencyLimiter.getQueueSize()).isEqualTo(1);
+    response.complete(new MetricsResponse() {{ metrics = expected; }});
+    Assertions.assertThat(first.join()).usingRecursiveComparison().isEqualTo(expected);
+    Assertions.assertThat(second.join()).usingRecursiveComparison().isEqualTo(expected);
+    Mockito.verify(httpClient, Mockito.times(2)).requestJson(Mockito.any(), Mockito.any());
+    Assertions.assertThat(concurrencyLimiter.getInFlight()).isZero();
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#getMetrics(String, boolean, java.util.Set, Instant)}
+   */
+  @Test
+  void testCancelsRequestWhenDeadlineIsReached() {
+    RateLimiter rateLimiter = Mockito.mock(RateLimiter.class);
+    CompletableFuture<Void> permit = new CompletableFuture<>();
+    Mockito.when(rateLimiter.acquire()).thenReturn(permit);
+    metaStatsClient.setRateLimiter(rateLimiter);
+    CompletableFuture<Metrics> metrics = metaStatsClient.getMetrics(accountId, false, null,
+      Instant.now().plusMillis(50));
+    Assertions.assertThatThrownBy(metrics::join).hasCauseInstanceOf(TimeoutException.class);
+    Assertions.assertThat(permit).isCancelled();
+    Mockito.verify(httpClient, Mockito.never()).requestJson(Mockito.any(), Mockito.any());
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#getMetrics(String)}
+   */
+  @Test
+  void testCancelsSharedRequestOnlyWhenAllCallsAreCancelled() {
+    RateLimiter rateLimiter = Mockito.mock(RateLimiter.class);
+    CompletableFuture<Void> permit = new CompletableFuture<>();
+    Mockito.when(rateLimiter.acquire()).thenReturn(permit);
+    metaStatsClient.setRateLimiter(rateLimiter);
+    CompletableFuture<Metrics> first = metaStatsClient.getMetrics(accountId);
+    CompletableFuture<Metrics> second = metaStatsClient.getMetrics(accountId);
+    first.cancel(false);
+    Assertions.assertThat(permit).isNotDone();
+    second.cancel(false);
+    Assertions.assertThat(permit).isCancelled();
+    CompletableFuture<Void> nextPermit = CompletableFuture.completedFuture(null);
+    Mockito.when(rateLimiter.acquire()).thenReturn(nextPermit);
+    Assertions.assertThat(metaStatsClient.getMetrics(accountId).join()).usingRecursiveComparison()
+      .isEqualTo(expected);
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#setCompletionExecutor}
+   */
+  @Test
+  void testCompletesMetricsInCompletionExecutor() {
+    CompletableFuture<MetricsResponse> response = new CompletableFuture<>();
+    Mockito.doReturn(response).when(httpClient).requestJson(Mockito.any(), Mockito.any());
+    List<Runnable> completions = new ArrayList<>();
+    metaStatsClient.setCompletionExecutor(completions::add);
+    CompletableFuture<Metrics> metrics = metaStatsClient.getMetrics(accountId);
+    response.complete(new MetricsResponse() {{ metrics = expected; }});
+    Assertions.assertThat(metrics).isNotDone();
+    Assertions.assertThat(completions).hasSize(1);
+    completions.get(0).run();
+    Assertions.assertThat(metrics.join()).isSameAs(expected);
+    RateLimiter rateLimiter = Mockito.mock(RateLimiter.class);
+    CompletableFuture<Void> permit = new CompletableFuture<>();
+    Mockito.when(rateLimiter.acquire()).thenReturn(permit);
+    metaStatsClient.setRateLimiter(rateLimiter);
+    metaStatsClient.getMetrics(accountId).cancel(false);
+    Assertions.assertThat(permit).isCancelled();
+  }
+  
+  /**
+   * Tests {@link MetaStatsClient#setRequestHedger}
+   */
+  @Test
+  void testHedgesOnlyHttpRequestWithinRateLimit() throws ValidationException {
+    RateLimiter rateLimiter = Mockito.mock(RateLimiter.class);
+    Mockito.when(rateLimiter.acquire()).thenReturn(CompletableFuture.completedFuture(null));
+    metaStatsClient.setRateLimiter(rateLimiter);
+    ScheduledExecutorService scheduler = Mockito.mock(ScheduledExecutorService.class);
+    Mockito.doReturn(Mockito.mock(ScheduledFuture.class)).when(scheduler)
+      .schedule(Mockito.any(Runnable.class), Mockito.anyLong(), Mockito.any());
+    RequestHedger.Options hedgingOpts = new RequestHedger.Options();
+    hedgingOpts.minimumSamples = 1;
+    RequestHedger hedger = new RequestHedger(hedgingOpts, scheduler, System::nanoTime);
+    hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(100));
+    metaStatsClient.setRequestHedger(hedger);
+    CompletableFuture<MetricsResponse> response = new CompletableFuture<>();
+    Mockito.doReturn(response).when(httpClient).requestJson(Mockito.any(), Mockito.any());
+    CompletableFuture<Metrics> metrics = metaStatsClient.getMetrics(accountId);
+    ArgumentCaptor<Runnable> hedge = ArgumentCaptor.forClass(Runnable.class);
+    Mockito.verify(scheduler).schedule(hedge.capture(), Mockito.anyLong(), Mockito.any());
+    hedge.getValue().run();
+    response.complete(new MetricsResponse() {{ metrics = expected; }});
+    Assertions.assertThat(metrics.join()).isSameAs(expected);
+    Mockito.verify(httpClient, Mockito.times(2)).requestJson(Mockito.any(), Mockito.any());
+    Mockito.verify(rateLimiter, Mockito.times(1)).acquire();
+  }
+
+  /**
+   * Tests {@link MetaStatsClient#setRequestHedger}
+   */
+  @Test
+  void testSumsRetriesOfHedgedAttempts() throws ValidationException {
+    MetaStatsHttpClient streamingClient = Mockito.mock(MetaStatsHttpClient.class);
+    List<RetryListener> retryListeners = new ArrayList<>();
+    List<CompletableFuture<Metrics>> attempts = new ArrayList<>();
+    Mockito.doAnswer(invocation -> {
+      retryListeners.add(invocation.getArgument(2));
+      CompletableFuture<Metrics> attempt = new CompletableFuture<>();
+      attempts.add(attempt);
+      return attempt;
+    }).when(streamingClient).requestStream(Mockito.any(), Mockito.any(), Mockito.any());
+    MetaStatsClient client = new MetaStatsClient(streamingClient, token);
+    List<RequestStats> completedRequests = new ArrayList<>();
+    client.setRequestListener(new MetaStatsRequestListener() {
+      @Override
+      public void onRequestCompleted(RequestStats stats) {
+        completedRequests.add(stats);
+      }
+    });
+    ScheduledExecutorService scheduler = Mockito.mock(ScheduledExecutorService.class);
+    Mockito.doReturn(Mockito.mock(ScheduledFuture.class)).when(scheduler)
+      .schedule(Mockito.any(Runnable.class), Mockito.anyLong(), Mockito.any());
+    RequestHedger.Options hedgingOpts = new RequestHedger.Options();
+    hedgingOpts.minimumSamples = 1;
+    RequestHedger hedger = new RequestHedger(hedgingOpts, scheduler, System::nanoTime);
+    hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(100));
+    client.setRequestHedger(hedger);
+    CompletableFuture<Metrics> metrics = client.getMetrics(accountId);
+    retryListeners.get(0).onRetry(500, 1000);
+    ArgumentCaptor<Runnable> hedge = ArgumentCaptor.forClass(Runnable.class);
+    Mockito.verify(scheduler).schedule(hedge.capture(), Mockito.anyLong(), Mockito.any());
+    hedge.getValue().run();
+    retryListeners.get(1).onRetry(500, 2000);
+    retryListeners.get(0).onRetry(0, 4000);
+    attempts.get(1).complete(expected);
+    Assertions.assertThat(metrics.join()).isSameAs(expected);
+    Assertions.assertThat(completedRequests).hasSize(1);
+    Assertions.assertThat(completedRequests.get(0).retries).isEqualTo(3);
+    Assertions.assertThat(completedRequests.get(0).retryDelayInMilliseconds).isEqualTo(7000);
+  }
 }
@@ -0,0 +1,348 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import cloud.metaapi.sdk.clients.HttpRequestOptions.Method;
+import cloud.metaapi.sdk.clients.error_handler.NotFoundException;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link MetaStatsHttpClient}
+ */
+class MetaStatsHttpClientTest {
+
+  private HttpServer server;
+  private String url;
+  private AtomicInteger requests = new AtomicInteger();
+  private MetaStatsHttpClient httpClient;
+
+  @BeforeEach
+  void setUp() throws IOException, ValidationException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.start();
+    url = "http://localhost:" + server.getAddress().getPort();
+    RetryOptions retryOpts = new RetryOptions();
+    retryOpts.retries = 2;
+    retryOpts.minDelayInSeconds = 1;
+    retryOpts.maxDelayInSeconds = 1;
+    httpClient = new MetaStatsHttpClient(10000, 10000, retryOpts);
+  }
+
+  @AfterEach
+  void tearDown() {
+    server.stop(0);
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#requestStream}
+   */
+  @Test
+  void testStreamsResponseBody() {
+    server.createContext("/test", exchange -> {
+      Assertions.assertThat(exchange.getRequestURI().getQuery()).isEqualTo("includeOpenPositions=true");
+      Assertions.assertThat(exchange.getRequestHeaders().getFirst("auth-token")).isEqualTo("token");
+      exchange.getResponseHeaders().add("x-test", "value");
+      respond(exchange, 200, "{\"value\":1}");
+    });
+    HttpRequestOptions opts = new HttpRequestOptions(url + "/test", Method.GET);
+    opts.getQueryParameters().put("includeOpenPositions", true);
+    opts.getHeaders().put("auth-token", "token");
+    String body = httpClient.requestStream(opts, response -> {
+      Assertions.assertThat(response.getStatus()).isEqualTo(200);
+      Assertions.assertThat(response.getHeader("X-Test")).isEqualTo("value");
+      Assertions.assertThat(response.getHeader("x-missing")).isNull();
+      return IOUtils.toString(response.getBody(), StandardCharsets.UTF_8);
+    }).join();
+    Assertions.assertThat(body).isEqualTo("{\"value\":1}");
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#requestStream}
+   */
+  @Test
+  void testConvertsHttpErrors() {
+    server.createContext("/test", exchange -> {
+      requests.incrementAndGet();
+      respond(exchange, 404, "{\"id\":404,\"error\":\"NotFoundError\",\"message\":\"Account not found\"}");
+    });
+    Assertions.assertThatThrownBy(() -> httpClient.requestStream(new HttpRequestOptions(url + "/test",
+      Method.GET), response -> "").join())
+      .isInstanceOf(CompletionException.class)
+      .hasCauseInstanceOf(NotFoundException.class)
+      .hasMessageContaining("Account not found");
+    Assertions.assertThat(requests.get()).isEqualTo(1);
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#requestStream}
+   */
+  @Test
+  void testRetriesInternalErrors() {
+    server.createContext("/test", exchange -> {
+      if (requests.incrementAndGet() == 1) {
+        respond(exchange, 500, "{\"id\":500,\"error\":\"InternalError\",\"message\":\"Error\"}");
+      } else {
+        respond(exchange, 200, "ok");
+      }
+    });
+    List<Integer> retries = new ArrayList<>();
+    String body = httpClient.requestStream(new HttpRequestOptions(url + "/test", Method.GET),
+      response -> IOUtils.toString(response.getBody(), StandardCharsets.UTF_8),
+      (status, delay) -> retries.add(status)).join();
+    Assertions.assertThat(body).isEqualTo("ok");
+    Assertions.assertThat(requests.get()).isEqualTo(2);
+    Assertions.assertThat(retries).containsExactly(500);
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#request(HttpRequestOptions, int)}
+   */
+  @Test
+  void testRetriesAndConvertsErrorsOfRegularRequests() {
+    server.createContext("/test", exchange -> {
+      if (requests.incrementAndGet() == 1) {
+        respond(exchange, 500, "{\"id\":500,\"error\":\"InternalError\",\"message\":\"Error\"}");
+      } else {
+        respond(exchange, 200, "{\"value\":1}");
+      }
+    });
+    server.createContext("/missing", exchange ->
+      respond(exchange, 404, "{\"id\":404,\"error\":\"NotFoundError\",\"message\":\"Account not found\"}"));
+    Assertions.assertThat(httpClient.request(new HttpRequestOptions(url + "/test", Method.GET)).join())
+      .isEqualTo("{\"value\":1}");
+    Assertions.assertThat(requests.get()).isEqualTo(2);
+    Assertions.assertThatThrownBy(() -> httpClient.requestJson(new HttpRequestOptions(url + "/missing",
+      Method.GET), Object.class).join())
+      .hasCauseInstanceOf(NotFoundException.class)
+      .hasMessageContaining("Account not found");
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#requestStream}
+   */
+  @Test
+  void testWaitsForMetricsCalculation() {
+    server.createContext("/test", exchange -> {
+      if (requests.incrementAndGet() == 1) {
+        exchange.getResponseHeaders().add("retry-after", "1");
+        respond(exchange, 202, "");
+      } else {
+        respond(exchange, 200, "ok");
+      }
+    });
+    String body = httpClient.requestStream(new HttpRequestOptions(url + "/test", Method.GET),
+      response -> IOUtils.toString(response.getBody(), StandardCharsets.UTF_8)).join();
+    Assertions.assertThat(body).isEqualTo("ok");
+    Assertions.assertThat(requests.get()).isEqualTo(2);
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#requestStream}
+   */
+  @Test
+  void testDoesNotRetryHandlerErrors() {
+    server.createContext("/test", exchange -> {
+      requests.incrementAndGet();
+      respond(exchange, 200, "ok");
+    });
+    Assertions.assertThatThrownBy(() -> httpClient.requestStream(new HttpRequestOptions(url + "/test",
+      Method.GET), response -> {
+        throw new IOException("test");
+      }).join()).hasCauseInstanceOf(IOException.class);
+    Assertions.assertThat(requests.get()).isEqualTo(1);
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#requestStream}
+   */
+  @Test
+  void testNegotiatesCompression() {
+    server.createContext("/test", exchange -> {
+      Assertions.assertThat(exchange.getRequestHeaders().getFirst("accept-encoding")).contains("gzip", "deflate");
+      exchange.getResponseHeaders().add("content-encoding", "gzip");
+      exchange.sendResponseHeaders(200, 0);
+      try (OutputStream output = new GZIPOutputStream(exchange.getResponseBody())) {
+        output.write("{\"value\":1}".getBytes(StandardCharsets.UTF_8));
+      }
+    });
+    String body = httpClient.requestStream(new HttpRequestOptions(url + "/test", Method.GET),
+      response -> IOUtils.toString(response.getBody(), StandardCharsets.UTF_8)).join();
+    Assertions.assertThat(body).isEqualTo("{\"value\":1}");
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#requestStreamSync(HttpRequestOptions, MetaStatsHttpClient.ResponseHandler,
+   * MetaStatsHttpClient.RetryListener, MetaStatsHttpClient.Cancellation)}
+   */
+  @Test
+  void testAbortsCancelledRequest() throws Exception {
+    CountDownLatch received = new CountDownLatch(1);
+    CountDownLatch released = new CountDownLatch(1);
+    server.createContext("/test", exchange -> {
+      received.countDown();
+      try {
+        released.await();
+      } catch (InterruptedException err) {
+        Thread.currentThread().interrupt();
+      }
+      respond(exchange, 200, "ok");
+    });
+    MetaStatsHttpClient.Cancellation cancellation = new MetaStatsHttpClient.Cancellation();
+    CompletableFuture<String> result = CompletableFuture.supplyAsync(() -> {
+      try {
+        return httpClient.requestStreamSync(new HttpRequestOptions(url + "/test", Method.GET),
+          response -> IOUtils.toString(response.getBody(), StandardCharsets.UTF_8), null, cancellation);
+      } catch (Exception err) {
+        throw new CompletionException(err);
+      }
+    });
+    Assertions.assertThat(received.await(5, TimeUnit.SECONDS)).isTrue();
+    cancellation.cancel();
+    try {
+      Assertions.assertThatThrownBy(() -> result.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(CancellationException.class);
+    } finally {
+      released.countDown();
+    }
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#requestStream}
+   */
+  @Test
+  void testStopsRetriesOfCancelledRequest() throws Exception {
+    CountDownLatch retried = new CountDownLatch(1);
+    server.createContext("/test", exchange -> {
+      requests.incrementAndGet();
+      respond(exchange, 500, "{\"id\":500,\"error\":\"InternalError\",\"message\":\"Error\"}");
+    });
+    List<Long> retries = new ArrayList<>();
+    CompletableFuture<String> result = httpClient.requestStream(new HttpRequestOptions(url + "/test", Method.GET),
+      response -> "ok", (status, delay) -> {
+        retries.add(delay);
+        retried.countDown();
+      });
+    Assertions.assertThat(retried.await(5, TimeUnit.SECONDS)).isTrue();
+    result.cancel(false);
+    Thread.sleep(1500);
+    Assertions.assertThat(requests.get()).isEqualTo(1);
+    Assertions.assertThat(retries).hasSize(1);
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#MetaStatsHttpClient(int, int, RetryOptions, MetaStatsHttpClient.PoolOptions)}
+   */
+  @Test
+  void testReusesPooledConnections() throws Exception {
+    List<Integer> ports = new ArrayList<>();
+    server.createContext("/test", exchange -> {
+      ports.add(exchange.getRemoteAddress().getPort());
+      respond(exchange, 200, "ok");
+    });
+    try (MetaStatsHttpClient pooledClient = new MetaStatsHttpClient(10000, 10000, new RetryOptions(),
+      new MetaStatsHttpClient.PoolOptions())) {
+      for (int i = 0; i < 3; i++) {
+        Assertions.assertThat(pooledClient.requestStream(new HttpRequestOptions(url + "/test", Method.GET),
+          response -> IOUtils.toString(response.getBody(), StandardCharsets.UTF_8)).join()).isEqualTo("ok");
+      }
+    }
+    Assertions.assertThat(ports).hasSize(3).containsOnly(ports.get(0));
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#requestStreamSync(HttpRequestOptions, MetaStatsHttpClient.ResponseHandler)}
+   */
+  @Test
+  void testServesManyBlockingCallersConcurrentlyFromDedicatedPool() throws Exception {
+    int callers = 50;
+    CountDownLatch arrived = new CountDownLatch(callers);
+    ExecutorService serverExecutor = Executors.newFixedThreadPool(callers);
+    HttpServer concurrentServer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    concurrentServer.setExecutor(serverExecutor);
+    concurrentServer.createContext("/test", exchange -> {
+      arrived.countDown();
+      try {
+        arrived.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException err) {
+        Thread.currentThread().interrupt();
+      }
+      respond(exchange, 200, "ok");
+    });
+    concurrentServer.start();
+    ExecutorService callerExecutor = Executors.newFixedThreadPool(callers);
+    MetaStatsHttpClient.PoolOptions poolOpts = new MetaStatsHttpClient.PoolOptions();
+    poolOpts.maxConnections = callers;
+    try (MetaStatsHttpClient pooledClient = new MetaStatsHttpClient(10000, 10000, new RetryOptions(),
+      poolOpts)) {
+      String concurrentUrl = "http://localhost:" + concurrentServer.getAddress().getPort() + "/test";
+      List<Future<String>> results = new ArrayList<>();
+      for (int i = 0; i < callers; i++) {
+        results.add(callerExecutor.submit(() -> pooledClient.requestStreamSync(new HttpRequestOptions(
+          concurrentUrl, Method.GET), response -> IOUtils.toString(response.getBody(), StandardCharsets.UTF_8))));
+      }
+      for (Future<String> result : results) {
+        Assertions.assertThat(result.get(10, TimeUnit.SECONDS)).isEqualTo("ok");
+      }
+      Assertions.assertThat(arrived.getCount()).isZero();
+    } finally {
+      callerExecutor.shutdown();
+      concurrentServer.stop(0);
+      serverExecutor.shutdown();
+    }
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#MetaStatsHttpClient(int, int, RetryOptions, MetaStatsHttpClient.PoolOptions)}
+   */
+  @Test
+  void testValidatesPoolOptions() {
+    MetaStatsHttpClient.PoolOptions poolOpts = new MetaStatsHttpClient.PoolOptions();
+    poolOpts.maxConnections = 0;
+    Assertions.assertThatThrownBy(() -> new MetaStatsHttpClient(10000, 10000, new RetryOptions(), poolOpts))
+      .isInstanceOf(ValidationException.class);
+  }
+
+  /**
+   * Tests {@link MetaStatsHttpClient#setExecutor}
+   */
+  @Test
+  void testPerformsStreamedRequestsInExecutor() {
+    server.createContext("/test", exchange -> respond(exchange, 200, "ok"));
+    httpClient.setExecutor(runnable -> new Thread(runnable, "test-executor").start());
+    String thread = httpClient.requestStream(new HttpRequestOptions(url + "/test", Method.GET),
+      response -> Thread.currentThread().getName()).join();
+    Assertions.assertThat(thread).isEqualTo("test-executor");
+  }
+
+  private void respond(HttpExchange exchange, int status, String body) throws IOException {
+    byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+    try (OutputStream output = exchange.getResponseBody()) {
+      output.write(bytes);
+    }
+  }
+}
@@ -0,0 +1,243 @@
+package cloud.metaapi.sdk.clients;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link MetricsCache}
+ */
+class MetricsCacheTest {
+
+  private AtomicLong now = new AtomicLong(1000000);
+  private MetricsCache.Options opts;
+  private List<CompletableFuture<Metrics>> requests;
+
+  @BeforeEach
+  void setUp() {
+    opts = new MetricsCache.Options();
+    opts.ttlInSeconds = 10;
+    opts.staleWhileRevalidateInSeconds = 20;
+    requests = new ArrayList<>();
+  }
+
+  /**
+   * Tests {@link MetricsCache#get}
+   */
+  @Test
+  void testReturnsFreshMetricsWithoutRequest() throws ValidationException {
+    MetricsCache cache = new MetricsCache(opts, now::get);
+    Metrics metrics = new Metrics();
+    CompletableFuture<Metrics> first = cache.get("id", false, this::request);
+    requests.get(0).complete(metrics);
+    Assertions.assertThat(first.join()).isSameAs(metrics);
+    now.addAndGet(9000);
+    Assertions.assertThat(cache.get("id", false, this::request).join()).isSameAs(metrics);
+    Assertions.assertThat(requests).hasSize(1);
+    cache.get("id", true, this::request);
+    Assertions.assertThat(requests).hasSize(2);
+  }
+
+  /**
+   * Tests {@link MetricsCache#get}
+   */
+  @Test
+  void testReturnsStaleMetricsWhileRefreshingInBackground() throws ValidationException {
+    MetricsCache cache = new MetricsCache(opts, now::get);
+    Metrics stale = new Metrics();
+    Metrics fresh = new Metrics();
+    cache.put("id", false, stale);
+    now.addAndGet(15000);
+    Assertions.assertThat(cache.get("id", false, this::request).join()).isSameAs(stale);
+    Assertions.assertThat(cache.get("id", false, this::request).join()).isSameAs(stale);
+    Assertions.assertThat(requests).hasSize(1);
+    requests.get(0).complete(fresh);
+    Assertions.assertThat(cache.get("id", false, this::request).join()).isSameAs(fresh);
+    Assertions.assertThat(requests).hasSize(1);
+  }
+
+  /**
+   * Tests {@link MetricsCache#refresh}
+   */
+  @Test
+  void testRefreshesUnexpiredMetrics() throws ValidationException {
+    MetricsCache cache = new MetricsCache(opts, now::get);
+    Metrics fresh = new Metrics();
+    cache.put("id", false, new Metrics());
+    CompletableFuture<Metrics> result = cache.refresh("id", false, this::request);
+    Assertions.assertThat(requests).hasSize(1);
+    requests.get(0).complete(fresh);
+    Assertions.assertThat(result.join()).isSameAs(fresh);
+    Assertions.assertThat(cache.get("id", false, this::request).join()).isSameAs(fresh);
+  }
+
+  /**
+   * Tests {@link MetricsCache#get}
+   */
+  @Test
+  void testKeepsStaleMetricsIfRefreshFails() throws ValidationException {
+    MetricsCache cache = new MetricsCache(opts, now::get);
+    Metrics stale = new Metrics();
+    cache.put("id", false, stale);
+    now.addAndGet(15000);
+    cache.get("id", false, this::request);
+    requests.get(0).completeExceptionally(new Exception("test"));
+    Assertions.assertThat(cache.get("id", false, this::request).join()).isSameAs(stale);
+    Assertions.assertThat(requests).hasSize(2);
+  }
+
+  /**
+   * Tests {@link MetricsCache#get}
+   */
+  @Test
+  void testRequestsMetricsAfterStaleWindow() throws ValidationException {
+    MetricsCache cache = new MetricsCache(opts, now::get);
+    cache.put("id", false, new Metrics());
+    now.addAndGet(30000);
+    CompletableFuture<Metrics> future = cache.get("id", false, this::request);
+    Assertions.assertThat(future).isNotDone();
+    Metrics fresh = new Metrics();
+    requests.get(0).complete(fresh);
+    Assertions.assertThat(future.join()).isSameAs(fresh);
+  }
+
+  /**
+   * Tests {@link MetricsCache#put}
+   */
+  @Test
+  void testEvictsLeastRecentlyUsedMetrics() throws ValidationException {
+    opts.maxEntries = 2;
+    MetricsCache cache = new MetricsCache(opts, now::get);
+    cache.put("id1", false, new Metrics());
+    cache.put("id2", false, new Metrics());
+    cache.get("id1", false, this::request);
+    cache.put("id3", false, new Metrics());
+    Assertions.assertThat(cache.size()).isEqualTo(2);
+    cache.get("id1", false, this::request);
+    cache.get("id3", false, this::request);
+    Assertions.assertThat(requests).isEmpty();
+    cache.get("id2", false, this::request);
+    Assertions.assertThat(requests).hasSize(1);
+  }
+
+  /**
+   * Tests {@link MetricsCache#put}
+   */
+  @Test
+  void testEvictsMetricsExceedingMaxWeight() throws ValidationException {
+    opts.maxWeight = 5;
+    MetricsCache cache = new MetricsCache(opts, now::get);
+    Metrics heavy = new Metrics();
+    heavy.dailyGrowth = Arrays.asList(new DailyGrowthMetrics(), new DailyGrowthMetrics(),
+      new DailyGrowthMetrics());
+    cache.put("id1", false, new Metrics());
+    cache.put("id2", false, heavy);
+    Assertions.assertThat(cache.getWeight()).isEqualTo(5);
+    cache.put("id3", false, new Metrics());
+    Assertions.assertThat(cache.size()).isEqualTo(2);
+    Assertions.assertThat(cache.getWeight()).isEqualTo(5);
+  }
+
+  /**
+   * Tests {@link MetricsCache#MetricsCache(MetricsCache.Options)}
+   */
+  @Test
+  void testDoesNotCreateCacheWithInvalidOptions() {
+    opts.ttlInSeconds = 0;
+    Assertions.assertThatThrownBy(() -> new MetricsCache(opts)).isInstanceOf(ValidationException.class);
+  }
+
+  private CompletableFuture<Metrics> request() {
+    CompletableFuture<Metrics> request = new CompletableFuture<>();
+    requests.add(request);
+    return request;
+  }
+
+  /**
+   * Tests {@link MetricsCache#restore}
+   */
+  @Test
+  void testReturnsExpiredRestoredMetricsWhileRefreshingInBackground() throws ValidationException {
+    MetricsCache cache = new MetricsCache(opts, now::get);
+    Metrics restored = new Metrics();
+    Metrics fresh = new Metrics();
+    cache.restore("id", false, restored, now.get() - 3600000);
+    Assertions.assertThat(cache.get("id", false, this::request).join()).isSameAs(restored);
+    Assertions.assertThat(cache.get("id", false, this::request).join()).isSameAs(restored);
+    Assertions.assertThat(requests).hasSize(1);
+    requests.get(0).complete(fresh);
+    Assertions.assertThat(cache.get("id", false, this::request).join()).isSameAs(fresh);
+  }
+
+  /**
+   * Tests {@link MetricsCache#setSnapshotStore}
+   */
+  @Test
+  void testRestoresAndPersistsSnapshots(@TempDir Path directory) throws Exception {
+    MetricsSnapshotStore.Options storeOpts = new MetricsSnapshotStore.Options();
+    storeOpts.directory = directory.toString();
+    MetricsSnapshotStore store = new MetricsSnapshotStore(storeOpts);
+    MetricsSnapshotStore.Snapshot snapshot = new MetricsSnapshotStore.Snapshot();
+    snapshot.accountId = "restored";
+    snapshot.fetchedAt = System.currentTimeMillis();
+    snapshot.metrics = new Metrics();
+    snapshot.metrics.balance = 100;
+    store.save(snapshot);
+    MetricsCache cache = new MetricsCache(opts);
+    cache.setSnapshotStore(store);
+    Assertions.assertThat(cache.get("restored", false, this::request).join().balance).isEqualTo(100);
+    Assertions.assertThat(requests).isEmpty();
+    Metrics fetched = new Metrics();
+    fetched.balance = 200;
+    cache.get("fetched", true, this::request);
+    requests.get(0).complete(fetched);
+    for (int i = 0; i < 100 && store.load("fetched", true) == null; i++) {
+      Thread.sleep(20);
+    }
+    Assertions.assertThat(store.load("fetched", true).metrics.balance).isEqualTo(200);
+  }
+
+  /**
+   * Tests {@link MetricsCache#invalidate}
+   */
+  @Test
+  void testDeletesSnapshotsAfterPendingSave() throws Exception {
+    MetricsSnapshotStore store = Mockito.mock(MetricsSnapshotStore.class);
+    CountDownLatch saving = new CountDownLatch(1);
+    CountDownLatch saved = new CountDownLatch(1);
+    Mockito.doAnswer(invocation -> {
+      saving.countDown();
+      saved.await(1, TimeUnit.SECONDS);
+      return null;
+    }).when(store).save(Mockito.any());
+    MetricsCache cache = new MetricsCache(opts);
+    cache.setSnapshotStore(store);
+    cache.get("id", false, this::request);
+    requests.get(0).complete(new Metrics());
+    Assertions.assertThat(saving.await(1, TimeUnit.SECONDS)).isTrue();
+    cache.invalidate("id");
+    Thread.sleep(50);
+    Mockito.verify(store, Mockito.never()).delete("id");
+    saved.countDown();
+    Mockito.verify(store, Mockito.timeout(1000)).delete("id");
+    InOrder inOrder = Mockito.inOrder(store);
+    inOrder.verify(store).save(Mockito.any());
+    inOrder.verify(store).delete("id");
+  }
+}
@@ -0,0 +1,114 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.MetricsResponse;
+import cloud.metaapi.sdk.util.JsonMapper;
+
+/**
+ * Tests {@link MetricsParser}
+ */
+class MetricsParserTest {
+
+  private String json = "{\"metrics\":{\"trades\":10,\"balance\":10105,\"equity\":10102.5,\"gain\":0.01,"
+    + "\"currencySummary\":[{\"currency\":\"EURUSD\",\"history\":[{\"date\":\"2020-01-01\",\"totalProfit\":1}],"
+    + "\"total\":{\"profit\":104,\"trades\":10},\"short\":{\"profit\":4,\"trades\":3}}],"
+    + "\"dailyGrowth\":[{\"date\":\"2020-01-01\",\"balance\":10105,\"gains\":0.01},null],"
+    + "\"periods\":{\"today\":{\"profit\":1}},"
+    + "\"tradeDuration\":{\"won\":[{\"gains\":[1.5,null],\"profits\":[2],\"lots\":[0.1],"
+    + "\"durationInMinutes\":5}]},\"zScore\":1.5,\"unknownField\":{\"nested\":[1,2]}},\"id\":\"1\"}";
+
+  /**
+   * Tests {@link MetricsParser#parseResponse(String)}
+   */
+  @Test
+  void testParsesAllSectionsLikeDefaultDeserializer() throws IOException {
+    Metrics expected = JsonMapper.getInstance().readValue(json, MetricsResponse.class).metrics;
+    Metrics metrics = new MetricsParser(null).parseResponse(json);
+    Assertions.assertThat(metrics).usingRecursiveComparison().isEqualTo(expected);
+  }
+
+  /**
+   * Tests {@link MetricsParser#parseResponse(String)}
+   */
+  @Test
+  void testSkipsSectionsWhichWereNotRequested() throws IOException {
+    Metrics metrics = new MetricsParser(EnumSet.of(MetricsSection.CURRENCY_SUMMARY)).parseResponse(json);
+    Assertions.assertThat(metrics.trades).isEqualTo(10);
+    Assertions.assertThat(metrics.equity).isEqualTo(10102.5);
+    Assertions.assertThat(metrics.zScore).isEqualTo(1.5);
+    Assertions.assertThat(metrics.dailyGrowth).isNull();
+    Assertions.assertThat(metrics.periods).isNull();
+    Assertions.assertThat(metrics.tradeDuration).isNull();
+    Assertions.assertThat(metrics.currencySummary).hasSize(1);
+    Assertions.assertThat(metrics.currencySummary.get(0).currency).isEqualTo("EURUSD");
+    Assertions.assertThat(metrics.currencySummary.get(0).total.profit).isEqualTo(104);
+    Assertions.assertThat(metrics.currencySummary.get(0).short_.trades).isEqualTo(3);
+    Assertions.assertThat(metrics.currencySummary.get(0).history).isNull();
+  }
+
+  /**
+   * Tests {@link MetricsParser#parseResponse(String)}
+   */
+  @Test
+  void testParsesScalarMetricsOnly() throws IOException {
+    Metrics metrics = new MetricsParser(EnumSet.noneOf(MetricsSection.class)).parseResponse(json);
+    Assertions.assertThat(metrics.balance).isEqualTo(10105);
+    Assertions.assertThat(metrics.gain).isEqualTo(0.01);
+    Assertions.assertThat(metrics.currencySummary).isNull();
+    Assertions.assertThat(metrics.dailyGrowth).isNull();
+  }
+
+  /**
+   * Tests {@link MetricsParser#parseResponse(String)}
+   */
+  @Test
+  void testParsesCurrencySummaryHistoryIfRequested() throws IOException {
+    Metrics metrics = new MetricsParser(EnumSet.of(MetricsSection.CURRENCY_SUMMARY_HISTORY))
+      .parseResponse(json);
+    Assertions.assertThat(metrics.currencySummary.get(0).history).hasSize(1);
+    Assertions.assertThat(metrics.currencySummary.get(0).history.get(0).totalProfit).isEqualTo(1);
+  }
+
+  /**
+   * Tests {@link MetricsParser#parseResponse(java.io.InputStream)}
+   */
+  @Test
+  void testPassesRowsToStreamListener() throws IOException {
+    List<Object> rows = new ArrayList<>();
+    MetricsStreamListener listener = new MetricsStreamListener() {
+      @Override
+      public void onDailyGrowth(DailyGrowthMetrics day) {
+        rows.add(day.date);
+      }
+
+      @Override
+      public void onCurrencySummary(CurrencySummaryMetrics currency) {
+        rows.add(currency.currency);
+      }
+
+      @Override
+      public void onTradeDuration(boolean won, MetaStatsClient.OneTradeDurationMetrics duration) {
+        rows.add(won + ":" + duration.durationInMinutes);
+      }
+    };
+    Metrics metrics = new MetricsParser(null, listener)
+      .parseResponse(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+    Assertions.assertThat(rows).containsExactly("EURUSD", "2020-01-01", "true:5.0");
+    Assertions.assertThat(metrics.balance).isEqualTo(10105);
+    Assertions.assertThat(metrics.dailyGrowth).isNull();
+    Assertions.assertThat(metrics.currencySummary).isNull();
+    Assertions.assertThat(metrics.tradeDuration).isNull();
+  }
+}
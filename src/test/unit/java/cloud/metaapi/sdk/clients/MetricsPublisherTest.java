@@ -0,0 +1,175 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.AccountMetricsResult;
+import cloud.metaapi.sdk.clients.MetaStatsClient.BulkOptions;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link MetricsPublisher}
+ */
+class MetricsPublisherTest {
+
+  private Map<String, CompletableFuture<Metrics>> requests;
+  private BulkOptions opts;
+  private RecordingSubscriber subscriber;
+
+  /**
+   * Subscriber recording received signals
+   */
+  static class RecordingSubscriber implements Subscriber<AccountMetricsResult> {
+    Subscription subscription;
+    List<String> results = new ArrayList<>();
+    Throwable error;
+    boolean completed;
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(AccountMetricsResult result) {
+      results.add(result.accountId + (result.error != null ? ":failed" : ""));
+    }
+
+    @Override
+    public void onError(Throwable error) {
+      this.error = error;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+  @BeforeEach
+  void setUp() {
+    requests = new LinkedHashMap<>();
+    opts = new BulkOptions();
+    opts.maxConcurrency = 2;
+    subscriber = new RecordingSubscriber();
+  }
+
+  /**
+   * Tests {@link MetricsPublisher#subscribe}
+   */
+  @Test
+  void testSendsRequestsOnlyForRequestedResults() {
+    publisher("1", "2", "3", "4").subscribe(subscriber);
+    Assertions.assertThat(requests).isEmpty();
+    subscriber.subscription.request(1);
+    Assertions.assertThat(requests).containsOnlyKeys("1");
+    requests.get("1").complete(new Metrics());
+    Assertions.assertThat(subscriber.results).containsExactly("1");
+    Assertions.assertThat(requests).containsOnlyKeys("1");
+    subscriber.subscription.request(5);
+    Assertions.assertThat(requests).containsOnlyKeys("1", "2", "3");
+    requests.get("3").completeExceptionally(new IllegalStateException("test"));
+    Assertions.assertThat(requests).containsOnlyKeys("1", "2", "3", "4");
+    requests.get("4").complete(new Metrics());
+    Assertions.assertThat(subscriber.completed).isFalse();
+    requests.get("2").complete(new Metrics());
+    Assertions.assertThat(subscriber.results).containsExactly("1", "3:failed", "4", "2");
+    Assertions.assertThat(subscriber.completed).isTrue();
+  }
+
+  /**
+   * Tests {@link MetricsPublisher#subscribe}
+   */
+  @Test
+  void testStopsRequestingAfterCancel() {
+    publisher("1", "2", "3").subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.subscription.cancel();
+    requests.get("1").complete(new Metrics());
+    requests.get("2").complete(new Metrics());
+    Assertions.assertThat(requests).containsOnlyKeys("1", "2");
+    Assertions.assertThat(subscriber.results).isEmpty();
+    Assertions.assertThat(subscriber.completed).isFalse();
+  }
+
+  /**
+   * Tests {@link MetricsPublisher#subscribe}
+   */
+  @Test
+  void testCancelsRequestsInFlightOnCancel() {
+    publisher("1", "2", "3").subscribe(subscriber);
+    subscriber.subscription.request(Long.MAX_VALUE);
+    subscriber.subscription.cancel();
+    Assertions.assertThat(requests.get("1")).isCancelled();
+    Assertions.assertThat(requests.get("2")).isCancelled();
+    Assertions.assertThat(requests).containsOnlyKeys("1", "2");
+  }
+
+  /**
+   * Tests {@link MetricsPublisher#subscribe}
+   */
+  @Test
+  void testCancelsRequestsInFlightWhenSubscriberFails() {
+    RecordingSubscriber failingSubscriber = new RecordingSubscriber() {
+      @Override
+      public void onNext(AccountMetricsResult result) {
+        throw new IllegalStateException("test");
+      }
+    };
+    publisher("1", "2", "3").subscribe(failingSubscriber);
+    failingSubscriber.subscription.request(Long.MAX_VALUE);
+    requests.get("1").complete(new Metrics());
+    Assertions.assertThat(requests.get("2")).isCancelled();
+    Assertions.assertThat(requests).containsOnlyKeys("1", "2");
+  }
+
+  /**
+   * Tests {@link MetricsPublisher#subscribe}
+   */
+  @Test
+  void testSignalsErrorOnInvalidRequest() {
+    publisher("1").subscribe(subscriber);
+    subscriber.subscription.request(0);
+    Assertions.assertThat(subscriber.error).isInstanceOf(IllegalArgumentException.class);
+    subscriber.subscription.request(1);
+    Assertions.assertThat(requests).isEmpty();
+  }
+
+  /**
+   * Tests {@link MetricsPublisher#subscribe}
+   */
+  @Test
+  void testSignalsErrorOnInvalidOptions() {
+    opts.maxConcurrency = 0;
+    publisher("1").subscribe(subscriber);
+    Assertions.assertThat(subscriber.error).isInstanceOf(ValidationException.class);
+  }
+
+  /**
+   * Tests {@link MetricsPublisher#subscribe}
+   */
+  @Test
+  void testCompletesWithoutAccounts() {
+    publisher().subscribe(subscriber);
+    Assertions.assertThat(subscriber.completed).isTrue();
+  }
+
+  private MetricsPublisher publisher(String... accountIds) {
+    return new MetricsPublisher(Arrays.asList(accountIds), opts, accountId -> {
+      CompletableFuture<Metrics> request = new CompletableFuture<>();
+      requests.put(accountId, request);
+      return request;
+    });
+  }
+}
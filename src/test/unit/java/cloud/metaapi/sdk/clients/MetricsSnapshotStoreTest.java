@@ -0,0 +1,92 @@
+package cloud.metaapi.sdk.clients;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.Stream;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetricsSnapshotStore.Snapshot;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link MetricsSnapshotStore}
+ */
+class MetricsSnapshotStoreTest {
+
+  @TempDir
+  Path directory;
+  private MetricsSnapshotStore store;
+
+  @BeforeEach
+  void setUp() throws ValidationException, IOException {
+    MetricsSnapshotStore.Options opts = new MetricsSnapshotStore.Options();
+    opts.directory = directory.resolve("snapshots").toString();
+    opts.maxAgeInSeconds = 3600;
+    store = new MetricsSnapshotStore(opts);
+  }
+
+  /**
+   * Tests {@link MetricsSnapshotStore#save}
+   */
+  @Test
+  void testSavesAndLoadsSnapshots() throws IOException {
+    Snapshot snapshot = createSnapshot("account/1", true, System.currentTimeMillis());
+    store.save(snapshot);
+    Assertions.assertThat(store.load("account/1", true)).usingRecursiveComparison().isEqualTo(snapshot);
+    Assertions.assertThat(store.load("account/1", false)).isNull();
+    store.save(createSnapshot("account/1", true, snapshot.fetchedAt + 1));
+    Assertions.assertThat(store.load("account/1", true).fetchedAt).isEqualTo(snapshot.fetchedAt + 1);
+    try (Stream<Path> files = Files.list(directory.resolve("snapshots"))) {
+      Assertions.assertThat(files.count()).isEqualTo(1);
+    }
+  }
+
+  /**
+   * Tests {@link MetricsSnapshotStore#loadAll}
+   */
+  @Test
+  void testLoadsAllRecentValidSnapshots() throws IOException {
+    long now = System.currentTimeMillis();
+    store.save(createSnapshot("recent", false, now));
+    store.save(createSnapshot("recent", true, now - 1000));
+    store.save(createSnapshot("old", false, now - 7200000));
+    Files.write(directory.resolve("snapshots").resolve("corrupted.snapshot"), new byte[] {1, 2, 3});
+    Assertions.assertThat(store.loadAll()).extracting(snapshot -> snapshot.accountId + ":"
+      + snapshot.includeOpenPositions).containsExactlyInAnyOrder("recent:false", "recent:true");
+  }
+
+  /**
+   * Tests {@link MetricsSnapshotStore#delete}
+   */
+  @Test
+  void testDeletesSnapshotsOfAccount() throws IOException {
+    store.save(createSnapshot("id", false, System.currentTimeMillis()));
+    store.save(createSnapshot("id", true, System.currentTimeMillis()));
+    store.delete("id");
+    Assertions.assertThat(store.loadAll()).isEmpty();
+  }
+
+  private Snapshot createSnapshot(String accountId, boolean includeOpenPositions, long fetchedAt) {
+    Snapshot snapshot = new Snapshot();
+    snapshot.accountId = accountId;
+    snapshot.includeOpenPositions = includeOpenPositions;
+    snapshot.fetchedAt = fetchedAt;
+    snapshot.metrics = new Metrics();
+    snapshot.metrics.balance = 10105;
+    snapshot.metrics.trades = 10;
+    DailyGrowthMetrics day = new DailyGrowthMetrics();
+    day.date = "2020-01-01";
+    day.balance = 10105;
+    day.gains = 0.01;
+    snapshot.metrics.dailyGrowth = Arrays.asList(day);
+    return snapshot;
+  }
+}
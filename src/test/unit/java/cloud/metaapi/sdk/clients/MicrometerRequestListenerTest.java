@@ -0,0 +1,81 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.concurrent.TimeUnit;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cloud.metaapi.sdk.clients.MetaStatsRequestListener.RequestStats;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Tests {@link MicrometerRequestListener}
+ */
+class MicrometerRequestListenerTest {
+
+  /**
+   * Tests {@link MicrometerRequestListener#onRequestCompleted}
+   */
+  @Test
+  void testRecordsRequestMeters() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MicrometerRequestListener listener = new MicrometerRequestListener(registry);
+    listener.onRequestStarted("accountId");
+    listener.onRequestStarted("accountId");
+    Assertions.assertThat(registry.get("metastats.requests.in.flight").gauge().value()).isEqualTo(2);
+    RequestStats stats = new RequestStats();
+    stats.accountId = "accountId";
+    stats.outcome = "success";
+    stats.sent = true;
+    stats.durationInNanoseconds = TimeUnit.MILLISECONDS.toNanos(30);
+    stats.deserializationTimeInNanoseconds = TimeUnit.MILLISECONDS.toNanos(10);
+    stats.responseSize = 1000;
+    stats.retries = 2;
+    stats.retryDelayInMilliseconds = 3000;
+    listener.onRequestCompleted(stats);
+    Assertions.assertThat(registry.get("metastats.requests.in.flight").gauge().value()).isEqualTo(1);
+    Assertions.assertThat(registry.get("metastats.requests").tag("outcome", "success").timer()
+      .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(30);
+    Assertions.assertThat(registry.get("metastats.requests.deserialization").timer()
+      .totalTime(TimeUnit.MILLISECONDS)).isEqualTo(10);
+    Assertions.assertThat(registry.get("metastats.requests.response.size").summary().totalAmount())
+      .isEqualTo(1000);
+    Assertions.assertThat(registry.get("metastats.requests.retries").summary().totalAmount()).isEqualTo(2);
+    Assertions.assertThat(registry.get("metastats.requests.retries.delay").timer()
+      .totalTime(TimeUnit.SECONDS)).isEqualTo(3);
+  }
+
+  /**
+   * Tests {@link MicrometerRequestListener#onRequestCompleted}
+   */
+  @Test
+  void testSkipsUnknownValues() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MicrometerRequestListener listener = new MicrometerRequestListener(registry);
+    listener.onRequestStarted("accountId");
+    RequestStats stats = new RequestStats();
+    stats.outcome = "NotFoundException";
+    stats.sent = true;
+    listener.onRequestCompleted(stats);
+    Assertions.assertThat(registry.get("metastats.requests").tag("outcome", "NotFoundException").timer()
+      .count()).isEqualTo(1);
+    Assertions.assertThat(registry.find("metastats.requests.response.size").summary()).isNull();
+    Assertions.assertThat(registry.find("metastats.requests.retries").summary()).isNull();
+  }
+
+  /**
+   * Tests {@link MicrometerRequestListener#onRequestCompleted}
+   */
+  @Test
+  void testDoesNotCountRejectedRequestsInFlight() {
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    MicrometerRequestListener listener = new MicrometerRequestListener(registry);
+    listener.onRequestStarted("accountId");
+    RequestStats stats = new RequestStats();
+    stats.outcome = "RequestRejectedException";
+    listener.onRequestCompleted(stats);
+    Assertions.assertThat(registry.get("metastats.requests.in.flight").gauge().value()).isEqualTo(1);
+    Assertions.assertThat(registry.get("metastats.requests").tag("outcome", "RequestRejectedException").timer()
+      .count()).isEqualTo(1);
+  }
+}
@@ -0,0 +1,104 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link RateLimiter}
+ */
+class RateLimiterTest {
+
+  private AtomicLong now = new AtomicLong();
+  private RateLimiter rateLimiter;
+
+  @BeforeEach
+  void setUp() throws ValidationException {
+    RateLimiter.Options opts = new RateLimiter.Options();
+    opts.requestsPerSecond = 1;
+    opts.burst = 2;
+    rateLimiter = new RateLimiter(opts, now::get);
+  }
+
+  /**
+   * Tests {@link RateLimiter#acquire()}
+   */
+  @Test
+  void testQueuesRequestsExceedingRate() {
+    Assertions.assertThat(rateLimiter.acquire()).isCompleted();
+    Assertions.assertThat(rateLimiter.acquire()).isCompleted();
+    CompletableFuture<Void> third = rateLimiter.acquire();
+    CompletableFuture<Void> fourth = rateLimiter.acquire();
+    Assertions.assertThat(third).isNotDone();
+    Assertions.assertThat(rateLimiter.getQueueSize()).isEqualTo(2);
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+    rateLimiter.drain();
+    Assertions.assertThat(third).isNotDone();
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+    rateLimiter.drain();
+    Assertions.assertThat(third).isCompleted();
+    Assertions.assertThat(fourth).isNotDone();
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    rateLimiter.drain();
+    Assertions.assertThat(fourth).isCompleted();
+    Assertions.assertThat(rateLimiter.getQueueSize()).isZero();
+  }
+
+  /**
+   * Tests {@link RateLimiter#acquire()}
+   */
+  @Test
+  void testDoesNotAccumulateTokensAboveBurst() {
+    now.addAndGet(TimeUnit.SECONDS.toNanos(100));
+    Assertions.assertThat(rateLimiter.acquire()).isCompleted();
+    Assertions.assertThat(rateLimiter.acquire()).isCompleted();
+    Assertions.assertThat(rateLimiter.acquire()).isNotDone();
+  }
+
+  /**
+   * Tests {@link RateLimiter#acquire()}
+   */
+  @Test
+  void testSkipsCancelledRequests() {
+    rateLimiter.acquire();
+    rateLimiter.acquire();
+    CompletableFuture<Void> cancelled = rateLimiter.acquire();
+    CompletableFuture<Void> next = rateLimiter.acquire();
+    cancelled.cancel(false);
+    now.addAndGet(TimeUnit.SECONDS.toNanos(1));
+    rateLimiter.drain();
+    Assertions.assertThat(next).isCompleted();
+    Assertions.assertThat(rateLimiter.getQueueSize()).isZero();
+  }
+
+  /**
+   * Tests {@link RateLimiter#acquire()}
+   */
+  @Test
+  void testReleasesQueuedRequestsInBackground() throws ValidationException {
+    RateLimiter.Options opts = new RateLimiter.Options();
+    opts.requestsPerSecond = 20;
+    opts.burst = 1;
+    RateLimiter rateLimiter = new RateLimiter(opts);
+    rateLimiter.acquire();
+    long startTime = System.nanoTime();
+    rateLimiter.acquire().join();
+    Assertions.assertThat(System.nanoTime() - startTime).isGreaterThan(TimeUnit.MILLISECONDS.toNanos(30));
+  }
+
+  /**
+   * Tests {@link RateLimiter#RateLimiter(RateLimiter.Options)}
+   */
+  @Test
+  void testDoesNotCreateRateLimiterWithInvalidOptions() {
+    RateLimiter.Options opts = new RateLimiter.Options();
+    opts.requestsPerSecond = 0;
+    Assertions.assertThatThrownBy(() -> new RateLimiter(opts)).isInstanceOf(ValidationException.class);
+  }
+}
@@ -0,0 +1,149 @@
+package cloud.metaapi.sdk.clients;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import cloud.metaapi.sdk.clients.error_handler.InternalException;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link RequestHedger}
+ */
+class RequestHedgerTest {
+
+  private AtomicLong now = new AtomicLong();
+  private ScheduledExecutorService scheduler;
+  private RequestHedger hedger;
+  private List<CompletableFuture<String>> requests = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() throws ValidationException {
+    scheduler = Mockito.mock(ScheduledExecutorService.class);
+    Mockito.doReturn(Mockito.mock(ScheduledFuture.class)).when(scheduler)
+      .schedule(Mockito.any(Runnable.class), Mockito.anyLong(), Mockito.any());
+    RequestHedger.Options opts = new RequestHedger.Options();
+    opts.percentile = 90;
+    opts.minDelayInMilliseconds = 5;
+    opts.windowSize = 10;
+    opts.minimumSamples = 10;
+    opts.maxHedgePercent = 50;
+    hedger = new RequestHedger(opts, scheduler, now::get);
+  }
+
+  /**
+   * Tests {@link RequestHedger#getDelay}
+   */
+  @Test
+  void testComputesDelayFromRecentLatencies() {
+    for (int i = 1; i <= 9; i++) {
+      hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(i * 10));
+    }
+    Assertions.assertThat(hedger.getDelay()).isEqualTo(-1);
+    hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(1000));
+    Assertions.assertThat(hedger.getDelay()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(90));
+    for (int i = 0; i < 10; i++) {
+      hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    Assertions.assertThat(hedger.getDelay()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(5));
+  }
+
+  /**
+   * Tests {@link RequestHedger#execute}
+   */
+  @Test
+  void testDoesNotHedgeBeforeLatenciesAreKnown() {
+    CompletableFuture<String> result = hedger.execute(this::request);
+    Mockito.verify(scheduler, Mockito.never()).schedule(Mockito.any(Runnable.class), Mockito.anyLong(),
+      Mockito.any());
+    requests.get(0).complete("first");
+    Assertions.assertThat(result.join()).isEqualTo("first");
+  }
+
+  /**
+   * Tests {@link RequestHedger#execute}
+   */
+  @Test
+  void testUsesFirstSuccessfulRequestAndCancelsOther() {
+    recordLatencies(100);
+    CompletableFuture<String> result = hedger.execute(this::request);
+    runHedge(100);
+    Assertions.assertThat(requests).hasSize(2);
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+    requests.get(1).complete("second");
+    Assertions.assertThat(result.join()).isEqualTo("second");
+    Assertions.assertThat(requests.get(0)).isCancelled();
+  }
+
+  /**
+   * Tests {@link RequestHedger#execute}
+   */
+  @Test
+  void testRecordsLatencyFromStartOfFirstRequest() {
+    recordLatencies(100);
+    for (int i = 0; i < 2; i++) {
+      hedger.execute(this::request);
+      runHedge(100);
+      now.addAndGet(TimeUnit.MILLISECONDS.toNanos(20));
+      requests.get(requests.size() - 1).complete("hedged");
+    }
+    Assertions.assertThat(hedger.getDelay()).isEqualTo(TimeUnit.MILLISECONDS.toNanos(120));
+  }
+
+  /**
+   * Tests {@link RequestHedger#execute}
+   */
+  @Test
+  void testFailsWhenAllRequestsFail() {
+    recordLatencies(100);
+    CompletableFuture<String> result = hedger.execute(this::request);
+    runHedge(100);
+    requests.get(0).completeExceptionally(new InternalException("error"));
+    Assertions.assertThat(result).isNotDone();
+    requests.get(1).completeExceptionally(new InternalException("error"));
+    Assertions.assertThatThrownBy(result::join).hasCauseInstanceOf(InternalException.class);
+  }
+
+  /**
+   * Tests {@link RequestHedger#execute}
+   */
+  @Test
+  void testLimitsShareOfHedgedRequests() {
+    recordLatencies(100);
+    for (int i = 0; i < 20; i++) {
+      hedger.execute(this::request);
+      runHedge(100);
+    }
+    Assertions.assertThat(requests).hasSize(39);
+  }
+
+  private CompletableFuture<String> request() {
+    CompletableFuture<String> request = new CompletableFuture<>();
+    requests.add(request);
+    return request;
+  }
+
+  private void recordLatencies(long latencyInMilliseconds) {
+    for (int i = 0; i < 10; i++) {
+      hedger.recordLatency(TimeUnit.MILLISECONDS.toNanos(latencyInMilliseconds));
+    }
+  }
+
+  private void runHedge(long expectedDelayInMilliseconds) {
+    ArgumentCaptor<Runnable> hedge = ArgumentCaptor.forClass(Runnable.class);
+    Mockito.verify(scheduler, Mockito.atLeastOnce()).schedule(hedge.capture(),
+      Mockito.eq(TimeUnit.MILLISECONDS.toNanos(expectedDelayInMilliseconds)), Mockito.eq(TimeUnit.NANOSECONDS));
+    now.addAndGet(TimeUnit.MILLISECONDS.toNanos(expectedDelayInMilliseconds));
+    hedge.getValue().run();
+  }
+}
@@ -0,0 +1,106 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationDiagramColumnCollectionMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeDurationDiagramColumnMetrics;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link ColumnarMetricsWriter} and {@link ColumnarMetricsReader}
+ */
+class ColumnarMetricsWriterTest {
+
+  @TempDir
+  Path directory;
+
+  /**
+   * Tests {@link ColumnarMetricsWriter#write}
+   */
+  @Test
+  void testWritesColumnsOfAccounts() throws Exception {
+    for (boolean compress : new boolean[] {true, false}) {
+      Path path = directory.resolve("metrics-" + compress + ".bin");
+      ColumnarMetricsWriter.Options opts = new ColumnarMetricsWriter.Options();
+      opts.rowGroupSize = 2;
+      opts.compress = compress;
+      try (ColumnarMetricsWriter writer = new ColumnarMetricsWriter(path, opts)) {
+        writer.write("account1", createMetrics(1000, 2));
+        writer.write("account2", new Metrics());
+        writer.write("account3", createMetrics(2000, 1));
+      }
+      try (ColumnarMetricsReader reader = new ColumnarMetricsReader(path)) {
+        Assertions.assertThat(reader.getAccountCount()).isEqualTo(3);
+        Assertions.assertThat(reader.getColumnNames()).contains("balance", "periods.today.profit",
+          "dailyGrowth.balance", "monthlyAnalytics.currencies.currency", "tradeDurationDiagram.won.gains",
+          "currencySummary.long.profit");
+        Assertions.assertThat(reader.readStringColumn("accountId"))
+          .containsExactly("account1", "account2", "account3");
+        Assertions.assertThat(reader.readDoubleColumn("balance")).isEqualTo(DoubleColumn.of(1000, 0, 2000));
+        DoubleColumn gain = reader.readDoubleColumn("gain");
+        Assertions.assertThat(gain.getBoxed(0)).isEqualTo(5.0);
+        Assertions.assertThat(gain.isNull(1)).isTrue();
+        Assertions.assertThat(reader.readOffsets("dailyGrowth")).containsExactly(0, 2, 2, 3);
+        Assertions.assertThat(reader.readStringColumn("dailyGrowth.date"))
+          .containsExactly("2020-01-01", "2020-01-02", "2020-01-01");
+        Assertions.assertThat(reader.readDoubleColumn("dailyGrowth.balance"))
+          .isEqualTo(DoubleColumn.of(1000, 1001, 2000));
+        Assertions.assertThat(reader.readOffsets("tradeDurationDiagram")).containsExactly(0, 1, 1, 2);
+        Assertions.assertThat(reader.readStringColumn("tradeDurationDiagram.name"))
+          .containsExactly("minutes", "minutes");
+        Assertions.assertThat(reader.readOffsets("tradeDurationDiagram.won.gains")).containsExactly(0, 2, 4);
+        Assertions.assertThat(reader.readDoubleColumn("tradeDurationDiagram.won.gains"))
+          .isEqualTo(DoubleColumn.of(1, 2, 1, 2));
+      }
+    }
+  }
+
+  /**
+   * Tests {@link ColumnarMetricsReader#ColumnarMetricsReader}
+   */
+  @Test
+  void testRejectsOtherFiles() throws IOException {
+    Path path = directory.resolve("other.json");
+    Files.write(path, "{\"balance\": 1000, \"trades\": 10}".getBytes());
+    Assertions.assertThatThrownBy(() -> new ColumnarMetricsReader(path)).isInstanceOf(IOException.class);
+  }
+
+  /**
+   * Tests {@link ColumnarMetricsWriter#ColumnarMetricsWriter}
+   */
+  @Test
+  void testValidatesOptions() {
+    ColumnarMetricsWriter.Options opts = new ColumnarMetricsWriter.Options();
+    opts.rowGroupSize = 0;
+    Assertions.assertThatThrownBy(() -> new ColumnarMetricsWriter(directory.resolve("metrics.bin"), opts))
+      .isInstanceOf(ValidationException.class);
+  }
+
+  private Metrics createMetrics(double balance, int days) {
+    Metrics metrics = new Metrics();
+    metrics.balance = balance;
+    metrics.gain = 5.0;
+    DailyGrowthMetrics[] dailyGrowth = new DailyGrowthMetrics[days];
+    for (int i = 0; i < days; i++) {
+      dailyGrowth[i] = new DailyGrowthMetrics();
+      dailyGrowth[i].date = "2020-01-0" + (i + 1);
+      dailyGrowth[i].balance = balance + i;
+    }
+    metrics.dailyGrowth = Arrays.asList(dailyGrowth);
+    TradeDurationDiagramColumnMetrics column = new TradeDurationDiagramColumnMetrics();
+    column.name = "minutes";
+    column.won = new TradeDurationDiagramColumnCollectionMetrics();
+    column.won.gains = Arrays.asList(1.0, 2.0);
+    metrics.tradeDurationDiagram = Arrays.asList(column);
+    return metrics;
+  }
+}
@@ -0,0 +1,74 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import cloud.metaapi.sdk.clients.HttpClient;
+import cloud.metaapi.sdk.clients.MetaStatsClient;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.util.JsonMapper;
+
+/**
+ * Tests {@link CompactMetrics}
+ */
+class CompactMetricsTest {
+
+  private String json = "{\"metrics\":{\"trades\":10,\"balance\":10105,\"gain\":0.01,"
+    + "\"currencySummary\":[{\"currency\":\"EURUSD\",\"total\":{\"profit\":104,\"trades\":10}}],"
+    + "\"dailyGrowth\":[{\"date\":\"2020-01-01\",\"balance\":10105,\"gains\":0.01},"
+    + "{\"date\":\"2020-01-02\",\"balance\":10110,\"profit\":5,\"drawdownProfit\":2}],"
+    + "\"tradeDuration\":{\"won\":[{\"gains\":[1.5,null],\"profits\":[2,3],\"lots\":[0.1,0.2],"
+    + "\"durationInMinutes\":5}],\"lost\":[{\"gains\":[-1],\"profits\":[-2],\"lots\":[0.1],"
+    + "\"pips\":[-10],\"durationInMinutes\":7}]},"
+    + "\"tradeDurationDiagram\":[{\"durations\":1,\"trades\":2,\"name\":\"minutes\",\"minDurationInSeconds\":60,"
+    + "\"won\":{\"gains\":[1,2],\"profits\":[3,4],\"lots\":[0.1,0.1]}}]}}";
+
+  /**
+   * Tests {@link CompactMetrics#of(Metrics)}
+   */
+  @Test
+  void testConvertsMetricsToCompactFormAndBack() throws IOException {
+    Metrics metrics = parse(json);
+    CompactMetrics compact = CompactMetrics.of(metrics);
+    Assertions.assertThat(compact.metrics.dailyGrowth).isNull();
+    Assertions.assertThat(compact.metrics.tradeDuration).isNull();
+    Assertions.assertThat(compact.metrics.tradeDurationDiagram).isNull();
+    Assertions.assertThat(compact.metrics.balance).isEqualTo(10105);
+    Assertions.assertThat(metrics.dailyGrowth).hasSize(2);
+    Assertions.assertThat(compact.dailyGrowth.balance).containsExactly(10105, 10110);
+    Assertions.assertThat(compact.dailyGrowth.dates).containsExactly((int) LocalDate.of(2020, 1, 1).toEpochDay(),
+      (int) LocalDate.of(2020, 1, 2).toEpochDay());
+    Assertions.assertThat(compact.dailyGrowth.profit.isNull(0)).isTrue();
+    Assertions.assertThat(compact.tradeDurationWon.get(0).gains.toList()).containsExactly(1.5, null);
+    Assertions.assertThat(compact.tradeDurationWon.get(0).pips).isNull();
+    Assertions.assertThat(compact.tradeDurationDiagram.get(0).won.profits.get(1)).isEqualTo(4);
+    Assertions.assertThat(compact.toMetrics()).usingRecursiveComparison().isEqualTo(metrics);
+  }
+
+  /**
+   * Tests {@link CompactMetrics.Builder}
+   */
+  @Test
+  void testBuildsCompactMetricsFromStream() throws IOException {
+    Metrics expected = parse(json);
+    HttpClient httpClient = Mockito.mock(HttpClient.class);
+    Mockito.when(httpClient.request(Mockito.any())).thenReturn(CompletableFuture.completedFuture(json));
+    MetaStatsClient client = new MetaStatsClient(httpClient, "token");
+    CompactMetrics.Builder builder = new CompactMetrics.Builder();
+    Metrics streamed = client.streamMetrics("accountId", false, null, builder).join();
+    CompactMetrics compact = builder.build(streamed);
+    Assertions.assertThat(compact.metrics.currencySummary).hasSize(1);
+    Assertions.assertThat(compact.dailyGrowth.size()).isEqualTo(2);
+    Assertions.assertThat(compact.toMetrics()).usingRecursiveComparison().isEqualTo(expected);
+  }
+
+  private Metrics parse(String json) throws IOException {
+    return JsonMapper.getInstance().treeToValue(JsonMapper.getInstance().readTree(json).get("metrics"),
+      Metrics.class);
+  }
+}
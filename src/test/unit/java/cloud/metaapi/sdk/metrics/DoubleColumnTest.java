@@ -0,0 +1,60 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests {@link DoubleColumn}
+ */
+class DoubleColumnTest {
+
+  /**
+   * Tests {@link DoubleColumn#of(List)}
+   */
+  @Test
+  void testStoresValuesAndNulls() {
+    DoubleColumn column = DoubleColumn.of(Arrays.asList(1.5, null, -2.0));
+    Assertions.assertThat(column.size()).isEqualTo(3);
+    Assertions.assertThat(column.hasNulls()).isTrue();
+    Assertions.assertThat(column.get(0)).isEqualTo(1.5);
+    Assertions.assertThat(column.isNull(1)).isTrue();
+    Assertions.assertThat(column.get(1)).isNaN();
+    Assertions.assertThat(column.getBoxed(1)).isNull();
+    Assertions.assertThat(column.toList()).containsExactly(1.5, null, -2.0);
+    Assertions.assertThat(DoubleColumn.of((List<Double>) null)).isNull();
+    Assertions.assertThatThrownBy(() -> column.get(3)).isInstanceOf(IndexOutOfBoundsException.class);
+  }
+
+  /**
+   * Tests {@link DoubleColumn.Builder}
+   */
+  @Test
+  void testGrowsBeyondInitialCapacity() {
+    DoubleColumn.Builder builder = new DoubleColumn.Builder(1);
+    List<Double> expected = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      Double value = i % 7 == 0 ? null : (double) i;
+      builder.add(value);
+      expected.add(value);
+    }
+    DoubleColumn column = builder.build();
+    Assertions.assertThat(column.toList()).isEqualTo(expected);
+    Assertions.assertThat(column).isEqualTo(DoubleColumn.of(expected));
+    Assertions.assertThat(column.hashCode()).isEqualTo(DoubleColumn.of(expected).hashCode());
+  }
+
+  /**
+   * Tests {@link DoubleColumn#hasNulls()}
+   */
+  @Test
+  void testDoesNotAllocateNullBitmapWithoutNulls() {
+    DoubleColumn column = DoubleColumn.of(Arrays.asList(1.0, 2.0));
+    Assertions.assertThat(column.hasNulls()).isFalse();
+    Assertions.assertThat(column).isEqualTo(DoubleColumn.of(1, 2));
+    Assertions.assertThat(column.toArray()).containsExactly(1, 2);
+  }
+}
@@ -0,0 +1,161 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.time.Instant;
+import java.util.ArrayList;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.TradeByTimeMetrics;
+
+/**
+ * Tests {@link MetricsAccumulator}
+ */
+class MetricsAccumulatorTest {
+
+  private static final Offset<Double> precision = Offset.offset(1e-9);
+  private static final long start = Instant.parse("2020-01-06T00:00:00Z").toEpochMilli();
+  private static final long hour = 3600000L;
+  private static final double[] profits = {12, -5, 7.5, -20, 3, 0, 14, -2.5};
+
+  /**
+   * Tests {@link MetricsAccumulator#addTrade}
+   */
+  @Test
+  void testMatchesMetricsComputedFromScratch() {
+    MetricsEngine seedEngine = new MetricsEngine();
+    MetricsEngine engine = new MetricsEngine();
+    seedEngine.addBalanceOperation(start, 1000);
+    engine.addBalanceOperation(start, 1000);
+    for (int i = 0; i < 4; i++) {
+      addTrade(seedEngine, i);
+      addTrade(engine, i);
+    }
+    MetricsAccumulator accumulator = new MetricsAccumulator(seedEngine.getMetrics());
+    for (int i = 4; i < profits.length; i++) {
+      addTrade(engine, i);
+      accumulator.addTrade("EURUSD", openTime(i), closeTime(i), i % 2 == 0, 0.1 * (i + 1), profits[i], i);
+    }
+    Metrics expected = engine.getMetrics();
+    Metrics actual = accumulator.getMetrics();
+    Assertions.assertThat(actual.balance).isCloseTo(expected.balance, precision);
+    Assertions.assertThat(actual.trades).isEqualTo(expected.trades);
+    Assertions.assertThat(actual.profit).isCloseTo(expected.profit, precision);
+    Assertions.assertThat(actual.lots).isCloseTo(expected.lots, precision);
+    Assertions.assertThat(actual.pips).isCloseTo(expected.pips, precision);
+    Assertions.assertThat(actual.wonTradesPercent).isCloseTo(expected.wonTradesPercent, precision);
+    Assertions.assertThat(actual.longWonTradesPercent).isCloseTo(expected.longWonTradesPercent, precision);
+    Assertions.assertThat(actual.averageWin).isCloseTo(expected.averageWin, precision);
+    Assertions.assertThat(actual.averageLoss).isCloseTo(expected.averageLoss, precision);
+    Assertions.assertThat(actual.profitFactor).isCloseTo(expected.profitFactor, precision);
+    Assertions.assertThat(actual.expectancy).isCloseTo(expected.expectancy, precision);
+    Assertions.assertThat(actual.bestTrade).isEqualTo(expected.bestTrade);
+    Assertions.assertThat(actual.worstTradeDate).isEqualTo(expected.worstTradeDate);
+    Assertions.assertThat(actual.standardDeviationProfit).isCloseTo(expected.standardDeviationProfit, precision);
+    Assertions.assertThat(actual.maxDrawdown).isCloseTo(expected.maxDrawdown, precision);
+    Assertions.assertThat(actual.gain).isCloseTo(expected.gain, precision);
+    Assertions.assertThat(actual.averageTradeLengthInMilliseconds)
+      .isCloseTo(expected.averageTradeLengthInMilliseconds, precision);
+    Assertions.assertThat(actual.daysSinceTradingStarted).isEqualTo(expected.daysSinceTradingStarted);
+    Assertions.assertThat(actual.dailyGrowth).hasSameSizeAs(expected.dailyGrowth);
+    for (int i = 0; i < expected.dailyGrowth.size(); i++) {
+      Assertions.assertThat(actual.dailyGrowth.get(i).date).isEqualTo(expected.dailyGrowth.get(i).date);
+      Assertions.assertThat(actual.dailyGrowth.get(i).totalGains)
+        .isCloseTo(expected.dailyGrowth.get(i).totalGains, precision);
+      Assertions.assertThat(actual.dailyGrowth.get(i).drawdownProfit)
+        .isCloseTo(expected.dailyGrowth.get(i).drawdownProfit, precision);
+    }
+    Assertions.assertThat(actual.openTradesByHour).usingRecursiveFieldByFieldElementComparator()
+      .isEqualTo(expected.openTradesByHour);
+    Assertions.assertThat(actual.closeTradesByWeekDay).usingRecursiveFieldByFieldElementComparator()
+      .isEqualTo(expected.closeTradesByWeekDay);
+    Assertions.assertThat(actual.riskOfRuin).usingRecursiveFieldByFieldElementComparator()
+      .isEqualTo(expected.riskOfRuin);
+    Assertions.assertThat(actual.tradeDuration.won.stream().mapToInt(m -> m.profits.size()).sum())
+      .isEqualTo(expected.tradeDuration.won.stream().mapToInt(m -> m.profits.size()).sum());
+  }
+
+  /**
+   * Tests {@link MetricsAccumulator#addTrade}
+   */
+  @Test
+  void testUpdatesCurrencySummary() {
+    Metrics metrics = new Metrics();
+    metrics.balance = 1000;
+    MetricsAccumulator accumulator = new MetricsAccumulator(metrics);
+    accumulator.addTrade("EURUSD", start, start + hour, true, 1, 10, 5);
+    accumulator.addTrade("GBPUSD", start + hour, start + 2 * hour, false, 1, -4, -2);
+    accumulator.addTrade("EURUSD", start + 25 * hour, start + 26 * hour, false, 1, 6, Double.NaN);
+    Metrics accumulated = accumulator.getMetrics();
+    Assertions.assertThat(accumulated.currencySummary).extracting(m -> m.currency)
+      .containsExactly("EURUSD", "GBPUSD");
+    CurrencySummaryMetrics currency = accumulated.currencySummary.get(0);
+    Assertions.assertThat(currency.total.profit).isEqualTo(16);
+    Assertions.assertThat(currency.total.trades).isEqualTo(2);
+    Assertions.assertThat(currency.total.pips).isEqualTo(5);
+    Assertions.assertThat(currency.total.wonTradesPercent).isEqualTo(100);
+    Assertions.assertThat(currency.long_.profit).isEqualTo(10);
+    Assertions.assertThat(currency.short_.profit).isEqualTo(6);
+    Assertions.assertThat(currency.history).extracting(m -> m.date).containsExactly("2020-01-06", "2020-01-07");
+    Assertions.assertThat(accumulated.currencySummary.get(1).total.lostTrades).isEqualTo(1);
+    Assertions.assertThat(accumulated.balance).isEqualTo(1012);
+    Assertions.assertThat(metrics.balance).isEqualTo(1000);
+    Assertions.assertThat(metrics.currencySummary).isNull();
+  }
+
+  /**
+   * Tests {@link MetricsAccumulator#MetricsAccumulator}
+   */
+  @Test
+  void testSkipsTradesByTimeWithoutBucket() {
+    Metrics metrics = new Metrics();
+    metrics.openTradesByHour = new ArrayList<>();
+    metrics.openTradesByHour.add(createTradesByTime(null, null, 5));
+    metrics.openTradesByHour.add(createTradesByTime(3, null, 8));
+    metrics.closeTradesByWeekDay = new ArrayList<>();
+    metrics.closeTradesByWeekDay.add(createTradesByTime(null, null, 5));
+    MetricsAccumulator accumulator = new MetricsAccumulator(metrics);
+    accumulator.addTrade("EURUSD", start, start + hour, true, 1, 10, Double.NaN);
+    Metrics accumulated = accumulator.getMetrics();
+    Assertions.assertThat(accumulated.openTradesByHour).extracting(m -> m.hour).containsExactly(null, 0, 3);
+    Assertions.assertThat(accumulated.openTradesByHour.get(1).profit).isEqualTo(10);
+    Assertions.assertThat(accumulated.openTradesByHour.get(2).profit).isEqualTo(8);
+    Assertions.assertThat(accumulated.closeTradesByWeekDay).extracting(m -> m.day).containsExactly(null, 1);
+  }
+
+  /**
+   * Tests {@link MetricsAccumulator#addTrade}
+   */
+  @Test
+  void testRejectsTradesOutOfOrder() {
+    Metrics metrics = new Metrics();
+    MetricsAccumulator accumulator = new MetricsAccumulator(metrics);
+    accumulator.addTrade("EURUSD", start, start + hour, true, 1, 10, Double.NaN);
+    Assertions.assertThatThrownBy(() -> accumulator.addTrade("EURUSD", start, start + 1, true, 1, 10, Double.NaN))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private void addTrade(MetricsEngine engine, int i) {
+    engine.addTrade(openTime(i), closeTime(i), i % 2 == 0, 0.1 * (i + 1), profits[i], i);
+  }
+
+  private long openTime(int i) {
+    return start + i * 24 * hour + (i % 5) * hour;
+  }
+
+  private long closeTime(int i) {
+    return openTime(i) + (i % 3 + 1) * hour;
+  }
+
+  private TradeByTimeMetrics createTradesByTime(Integer hour, Integer day, double profit) {
+    TradeByTimeMetrics metrics = new TradeByTimeMetrics();
+    metrics.hour = hour;
+    metrics.day = day;
+    metrics.profit = profit;
+    metrics.trades = 1;
+    return metrics;
+  }
+}
@@ -0,0 +1,123 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryTotalMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.MonthlyAnalyticsMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.PeriodMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Periods;
+import cloud.metaapi.sdk.clients.MetricsSection;
+
+/**
+ * Tests {@link MetricsDiff}
+ */
+class MetricsDiffTest {
+
+  /**
+   * Tests {@link MetricsDiff#compute}
+   */
+  @Test
+  void testReturnsEmptyDiffForEqualMetrics() {
+    Assertions.assertThat(MetricsDiff.compute(createMetrics(), createMetrics()).isEmpty()).isTrue();
+  }
+
+  /**
+   * Tests {@link MetricsDiff#compute}
+   */
+  @Test
+  void testDetectsChanges() {
+    Metrics previous = createMetrics();
+    Metrics current = createMetrics();
+    current.balance = 10200;
+    current.gain = null;
+    current.dailyGrowth.get(1).balance = 10200;
+    current.dailyGrowth.add(day("2020-01-03", 10300));
+    current.monthlyAnalytics.get(0).profit = 5.0;
+    current.monthlyAnalytics.add(month("2020-02"));
+    current.currencySummary.get(1).total.profit = 20;
+    current.currencySummary.remove(0);
+    current.periods.today.profit = 3.0;
+    MetricsDiff diff = MetricsDiff.compute(previous, current);
+    Assertions.assertThat(diff.changedScalars).containsOnlyKeys("balance", "gain");
+    Assertions.assertThat(diff.changedScalars.get("balance")).isEqualTo(10200.0);
+    Assertions.assertThat(diff.changedScalars.get("gain")).isNull();
+    Assertions.assertThat(diff.changedDays).extracting(day -> day.date).containsExactly("2020-01-02");
+    Assertions.assertThat(diff.appendedDays).extracting(day -> day.date).containsExactly("2020-01-03");
+    Assertions.assertThat(diff.changedMonths).extracting(month -> month.date)
+      .containsExactly("2020-01", "2020-02");
+    Assertions.assertThat(diff.removedMonths).isEmpty();
+    Assertions.assertThat(diff.changedCurrencies).extracting(currency -> currency.currency)
+      .containsExactly("GBPUSD");
+    Assertions.assertThat(diff.removedCurrencies).containsExactly("EURUSD");
+    Assertions.assertThat(diff.changedSections).containsExactly(MetricsSection.PERIODS);
+  }
+
+  /**
+   * Tests {@link MetricsDiff#compute}
+   */
+  @Test
+  void testDetectsRewrittenDailyGrowthHistory() {
+    Metrics previous = createMetrics();
+    Metrics current = createMetrics();
+    current.dailyGrowth.remove(0);
+    current.dailyGrowth.add(day("2020-01-03", 10300));
+    MetricsDiff diff = MetricsDiff.compute(previous, current);
+    Assertions.assertThat(diff.changedSections).containsExactly(MetricsSection.DAILY_GROWTH);
+    Assertions.assertThat(diff.appendedDays).isEmpty();
+  }
+
+  /**
+   * Tests {@link MetricsDiff#compute}
+   */
+  @Test
+  void testTreatsAllDataAsNewWithoutPreviousMetrics() {
+    MetricsDiff diff = MetricsDiff.compute(null, createMetrics());
+    Assertions.assertThat(diff.appendedDays).hasSize(2);
+    Assertions.assertThat(diff.changedCurrencies).hasSize(2);
+    Assertions.assertThat(diff.changedScalars).containsKeys("balance", "gain");
+    Assertions.assertThat(diff.changedSections).containsExactly(MetricsSection.PERIODS);
+  }
+
+  private Metrics createMetrics() {
+    Metrics metrics = new Metrics();
+    metrics.balance = 10105;
+    metrics.gain = 0.01;
+    metrics.dailyGrowth = new ArrayList<>(Arrays.asList(day("2020-01-01", 10000), day("2020-01-02", 10105)));
+    metrics.monthlyAnalytics = new ArrayList<>(Arrays.asList(month("2020-01")));
+    metrics.currencySummary = new ArrayList<>(Arrays.asList(currency("EURUSD"), currency("GBPUSD")));
+    metrics.periods = new Periods();
+    metrics.periods.today = new PeriodMetrics();
+    metrics.periods.today.profit = 1.0;
+    return metrics;
+  }
+
+  private DailyGrowthMetrics day(String date, double balance) {
+    DailyGrowthMetrics day = new DailyGrowthMetrics();
+    day.date = date;
+    day.balance = balance;
+    return day;
+  }
+
+  private MonthlyAnalyticsMetrics month(String date) {
+    MonthlyAnalyticsMetrics month = new MonthlyAnalyticsMetrics();
+    month.date = date;
+    month.profit = 1.0;
+    return month;
+  }
+
+  private CurrencySummaryMetrics currency(String name) {
+    CurrencySummaryMetrics currency = new CurrencySummaryMetrics();
+    currency.currency = name;
+    currency.total = new CurrencySummaryTotalMetrics();
+    currency.total.profit = 10;
+    return currency;
+  }
+}
@@ -0,0 +1,135 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.time.Instant;
+import java.time.ZoneId;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+
+/**
+ * Tests {@link MetricsEngine}
+ */
+class MetricsEngineTest {
+
+  private static final Offset<Double> precision = Offset.offset(1e-9);
+
+  /**
+   * Tests {@link MetricsEngine#addDeal}
+   */
+  @Test
+  void testComputesMetricsFromDeals() {
+    MetricsEngine engine = new MetricsEngine();
+    Deal deal = new Deal();
+    deal.type = Deal.Type.BALANCE;
+    deal.time = time("2020-01-06T00:00:00Z");
+    deal.profit = 1000;
+    engine.addDeal(deal);
+    deal.type = Deal.Type.BUY;
+    deal.entryType = Deal.EntryType.IN;
+    deal.positionId = "1";
+    deal.time = time("2020-01-06T10:00:00Z");
+    deal.volume = 1;
+    deal.profit = 0;
+    deal.commission = -2;
+    engine.addDeal(deal);
+    deal.type = Deal.Type.SELL;
+    deal.entryType = Deal.EntryType.OUT;
+    deal.time = time("2020-01-06T12:00:00Z");
+    deal.profit = 102;
+    deal.pips = 10;
+    engine.addDeal(deal);
+    engine.addTrade(time("2020-01-07T09:00:00Z"), time("2020-01-07T09:30:00Z"), false, 0.5, -49.4, -5);
+    Metrics metrics = engine.getMetrics();
+    Assertions.assertThat(metrics.balance).isCloseTo(1048.6, precision);
+    Assertions.assertThat(metrics.deposits).isEqualTo(1000);
+    Assertions.assertThat(metrics.trades).isEqualTo(2);
+    Assertions.assertThat(metrics.profit).isCloseTo(48.6, precision);
+    Assertions.assertThat(metrics.commissions).isEqualTo(-4);
+    Assertions.assertThat(metrics.pips).isEqualTo(5);
+    Assertions.assertThat(metrics.lots).isEqualTo(1.5);
+    Assertions.assertThat(metrics.wonTradesPercent).isEqualTo(50);
+    Assertions.assertThat(metrics.longWonTrades).isEqualTo(1);
+    Assertions.assertThat(metrics.shortTrades).isEqualTo(1);
+    Assertions.assertThat(metrics.bestTrade).isEqualTo(98);
+    Assertions.assertThat(metrics.bestTradeDate).isEqualTo("2020-01-06 12:00:00.000");
+    Assertions.assertThat(metrics.profitFactor).isCloseTo(98 / 49.4, precision);
+    Assertions.assertThat(metrics.highestBalance).isEqualTo(1098);
+    Assertions.assertThat(metrics.maxDrawdown).isCloseTo(49.4 / 1098 * 100, precision);
+    Assertions.assertThat(metrics.averageTradeLengthInMilliseconds).isEqualTo(75 * 60000.0);
+    Assertions.assertThat(metrics.gain).isCloseTo(4.86, precision);
+    Assertions.assertThat(metrics.absoluteGain).isCloseTo(4.86, precision);
+    Assertions.assertThat(metrics.daysSinceTradingStarted).isEqualTo(1);
+    Assertions.assertThat(metrics.dailyGrowth).hasSize(2);
+    Assertions.assertThat(metrics.dailyGrowth.get(0).date).isEqualTo("2020-01-06");
+    Assertions.assertThat(metrics.dailyGrowth.get(0).gains).isCloseTo(9.8, precision);
+    Assertions.assertThat(metrics.dailyGrowth.get(1).date).isEqualTo("2020-01-07");
+    Assertions.assertThat(metrics.dailyGrowth.get(1).profit).isCloseTo(-49.4, precision);
+    Assertions.assertThat(metrics.dailyGrowth.get(1).totalGains).isCloseTo(4.86, precision);
+    Assertions.assertThat(metrics.closeTradesByWeekDay).extracting(m -> m.day).containsExactly(1, 2);
+    Assertions.assertThat(metrics.openTradesByHour).extracting(m -> m.hour).containsExactly(9, 10);
+    Assertions.assertThat(metrics.tradeDuration.won).extracting(m -> m.durationInMinutes)
+      .containsExactly(120.0);
+    Assertions.assertThat(metrics.tradeDuration.lost).extracting(m -> m.durationInMinutes)
+      .containsExactly(30.0);
+    Assertions.assertThat(metrics.riskOfRuin).hasSize(10);
+    Assertions.assertThat(metrics.riskOfRuin.get(0).consecutiveLosingTrades).isEqualTo(3);
+    Assertions.assertThat(metrics.riskOfRuin.get(0).probabilityOfLoss).isCloseTo(12.5, precision);
+  }
+
+  /**
+   * Tests {@link MetricsEngine#getMetrics}
+   */
+  @Test
+  void testComputesTradeStatistics() {
+    MetricsEngine engine = new MetricsEngine();
+    engine.addBalanceOperation(0, 1000);
+    double[] profits = {1, -2, 3, -4};
+    for (int i = 0; i < profits.length; i++) {
+      engine.addTrade(i * 1000, i * 1000 + 500, true, 1, profits[i], Double.NaN);
+    }
+    Metrics metrics = engine.getMetrics();
+    Assertions.assertThat(metrics.standardDeviationProfit).isCloseTo(Math.sqrt(29 / 3.0), precision);
+    Assertions.assertThat(metrics.kurtosisProfit).isCloseTo(4 * 310.25 / (29 * 29) - 3, precision);
+    Assertions.assertThat(metrics.zScore).isCloseTo(6 / Math.sqrt(32 / 3.0), precision);
+    Assertions.assertThat(metrics.pips).isNull();
+    Assertions.assertThat(metrics.sharpeRatio).isNotNull();
+    Assertions.assertThat(metrics.sortinoRatio).isNotNull();
+  }
+
+  /**
+   * Tests {@link MetricsEngine.Options#timezone}
+   */
+  @Test
+  void testGroupsDealsInBrokerTimezone() {
+    MetricsEngine.Options opts = new MetricsEngine.Options();
+    opts.timezone = ZoneId.of("Europe/Kiev");
+    MetricsEngine engine = new MetricsEngine(opts);
+    engine.addBalanceOperation(time("2020-01-06T00:00:00Z"), 1000);
+    engine.addTrade(time("2020-01-06T23:00:00Z"), time("2020-01-06T23:30:00Z"), true, 1, 10, Double.NaN);
+    engine.addTrade(time("2020-07-06T21:00:00Z"), time("2020-07-06T21:30:00Z"), true, 1, 10, Double.NaN);
+    Metrics metrics = engine.getMetrics();
+    Assertions.assertThat(metrics.dailyGrowth).extracting(m -> m.date)
+      .containsExactly("2020-01-06", "2020-01-07", "2020-07-07");
+    Assertions.assertThat(metrics.closeTradesByWeekDay).extracting(m -> m.day).containsExactly(2);
+    Assertions.assertThat(metrics.openTradesByHour).extracting(m -> m.hour).containsExactly(0, 1);
+    Assertions.assertThat(metrics.bestTradeDate).isEqualTo("2020-01-07 01:30:00.000");
+  }
+
+  /**
+   * Tests {@link MetricsEngine#addDeal}
+   */
+  @Test
+  void testRejectsDealsOutOfOrder() {
+    MetricsEngine engine = new MetricsEngine();
+    engine.addBalanceOperation(1000, 1000);
+    Assertions.assertThatThrownBy(() -> engine.addTrade(0, 500, true, 1, 10, Double.NaN))
+      .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private long time(String time) {
+    return Instant.parse(time).toEpochMilli();
+  }
+}
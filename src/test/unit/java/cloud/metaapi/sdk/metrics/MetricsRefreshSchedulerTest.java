@@ -0,0 +1,175 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.assertj.core.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link MetricsRefreshScheduler}
+ */
+class MetricsRefreshSchedulerTest {
+
+  private AtomicLong now = new AtomicLong();
+  private MetaStatsClient client;
+  private MetricsRefreshScheduler.Options opts;
+  private List<String> updates = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    client = Mockito.mock(MetaStatsClient.class);
+    opts = new MetricsRefreshScheduler.Options();
+    opts.jitter = 0;
+    opts.startupSpreadInSeconds = 0;
+    opts.maxIntervalInSeconds = 40;
+  }
+
+  /**
+   * Tests {@link MetricsRefreshScheduler#addAccount(String, int, int)}
+   */
+  @Test
+  void testLengthensIntervalWhileMetricsDoNotChange() throws ValidationException {
+    Mockito.when(client.refreshMetrics("accountId", false))
+      .thenAnswer(invocation -> CompletableFuture.completedFuture(metrics(100)));
+    MetricsRefreshScheduler scheduler = createScheduler();
+    scheduler.addAccount("accountId", 10, 0);
+    scheduler.tick();
+    Assertions.assertThat(updates).containsExactly("accountId:100.0");
+    Assertions.assertThat(scheduler.getIntervalInMilliseconds("accountId")).isEqualTo(10000);
+    now.addAndGet(9999);
+    scheduler.tick();
+    Mockito.verify(client, Mockito.times(1)).refreshMetrics("accountId", false);
+    now.addAndGet(1);
+    scheduler.tick();
+    Assertions.assertThat(scheduler.getIntervalInMilliseconds("accountId")).isEqualTo(20000);
+    now.addAndGet(20000);
+    scheduler.tick();
+    Assertions.assertThat(scheduler.getIntervalInMilliseconds("accountId")).isEqualTo(40000);
+    now.addAndGet(40000);
+    scheduler.tick();
+    Assertions.assertThat(scheduler.getIntervalInMilliseconds("accountId")).isEqualTo(40000);
+    Mockito.when(client.refreshMetrics("accountId", false))
+      .thenReturn(CompletableFuture.completedFuture(metrics(200)));
+    now.addAndGet(40000);
+    scheduler.tick();
+    Assertions.assertThat(scheduler.getIntervalInMilliseconds("accountId")).isEqualTo(10000);
+    Assertions.assertThat(updates).containsExactly("accountId:100.0", "accountId:200.0");
+    Assertions.assertThat(scheduler.getMetrics("accountId").balance).isEqualTo(200);
+  }
+
+  /**
+   * Tests {@link MetricsRefreshScheduler#addAccount(String, int, int)}
+   */
+  @Test
+  void testRefreshesAccountsWithHigherPriorityFirst() throws ValidationException {
+    opts.maxConcurrency = 1;
+    List<CompletableFuture<Metrics>> requests = new ArrayList<>();
+    List<String> refreshed = new ArrayList<>();
+    Mockito.when(client.refreshMetrics(Mockito.anyString(), Mockito.eq(false))).thenAnswer(invocation -> {
+      refreshed.add(invocation.getArgument(0));
+      CompletableFuture<Metrics> request = new CompletableFuture<>();
+      requests.add(request);
+      return request;
+    });
+    MetricsRefreshScheduler scheduler = createScheduler();
+    scheduler.addAccount("low", 10, 0);
+    scheduler.addAccount("high", 10, 5);
+    scheduler.addAccount("medium", 10, 1);
+    scheduler.tick();
+    Assertions.assertThat(refreshed).containsExactly("high");
+    requests.get(0).complete(metrics(1));
+    Assertions.assertThat(refreshed).containsExactly("high", "medium");
+    requests.get(1).completeExceptionally(new IllegalStateException("test"));
+    Assertions.assertThat(refreshed).containsExactly("high", "medium", "low");
+    Assertions.assertThat(updates).containsExactly("high:1.0", "medium:failed");
+  }
+
+  /**
+   * Tests {@link MetricsRefreshScheduler#addAccount(String, int, int)}
+   */
+  @Test
+  void testSpreadsFirstRefreshesOverStartupPeriod() throws ValidationException {
+    opts.startupSpreadInSeconds = 60;
+    opts.maxConcurrency = 100;
+    Mockito.when(client.refreshMetrics(Mockito.anyString(), Mockito.eq(false)))
+      .thenReturn(new CompletableFuture<>());
+    MetricsRefreshScheduler scheduler = createScheduler();
+    for (int i = 0; i < 60; i++) {
+      scheduler.addAccount("accountId" + i, 300, 0);
+    }
+    now.addAndGet(30000);
+    scheduler.tick();
+    Mockito.verify(client, Mockito.atLeast(20)).refreshMetrics(Mockito.anyString(), Mockito.eq(false));
+    Mockito.verify(client, Mockito.atMost(40)).refreshMetrics(Mockito.anyString(), Mockito.eq(false));
+  }
+
+  /**
+   * Tests {@link MetricsRefreshScheduler#removeAccount(String)}
+   */
+  @Test
+  void testStopsRefreshingRemovedAccounts() throws ValidationException {
+    Mockito.when(client.refreshMetrics("accountId", false))
+      .thenAnswer(invocation -> CompletableFuture.completedFuture(metrics(100)));
+    MetricsRefreshScheduler scheduler = createScheduler();
+    scheduler.addAccount("accountId", 10, 0);
+    scheduler.tick();
+    scheduler.removeAccount("accountId");
+    now.addAndGet(100000);
+    scheduler.tick();
+    Mockito.verify(client, Mockito.times(1)).refreshMetrics("accountId", false);
+    Assertions.assertThat(scheduler.getIntervalInMilliseconds("accountId")).isNull();
+  }
+
+  /**
+   * Tests {@link MetricsRefreshScheduler#stop}
+   */
+  @Test
+  void testDoesNotStartRefreshesAfterStop() throws ValidationException {
+    opts.maxConcurrency = 1;
+    CompletableFuture<Metrics> request = new CompletableFuture<>();
+    Mockito.when(client.refreshMetrics(Mockito.anyString(), Mockito.eq(false))).thenReturn(request);
+    MetricsRefreshScheduler scheduler = createScheduler();
+    scheduler.addAccount("first", 10, 1);
+    scheduler.addAccount("second", 10, 0);
+    scheduler.tick();
+    Mockito.verify(client).refreshMetrics("first", false);
+    scheduler.stop();
+    request.complete(metrics(100));
+    now.addAndGet(100000);
+    scheduler.tick();
+    Assertions.assertThat(updates).containsExactly("first:100.0");
+    Mockito.verify(client, Mockito.times(1)).refreshMetrics(Mockito.anyString(), Mockito.eq(false));
+  }
+
+  private MetricsRefreshScheduler createScheduler() throws ValidationException {
+    MetricsRefreshScheduler scheduler = new MetricsRefreshScheduler(client, opts, now::get, new Random(1));
+    scheduler.addListener(new MetricsRefreshListener() {
+      @Override
+      public void onMetricsUpdated(String accountId, Metrics metrics, MetricsDiff diff) {
+        updates.add(accountId + ":" + metrics.balance);
+      }
+
+      @Override
+      public void onRefreshFailed(String accountId, Throwable error) {
+        updates.add(accountId + ":failed");
+      }
+    });
+    return scheduler;
+  }
+
+  private Metrics metrics(double balance) {
+    Metrics metrics = new Metrics();
+    metrics.balance = balance;
+    return metrics;
+  }
+}
@@ -0,0 +1,142 @@
+package cloud.metaapi.sdk.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.assertj.core.api.Assertions;
+import org.assertj.core.data.Offset;
+import org.junit.jupiter.api.Test;
+
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryHistoryDayMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.CurrencySummaryTotalMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.DailyGrowthMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Metrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.PeriodMetrics;
+import cloud.metaapi.sdk.clients.MetaStatsClient.Periods;
+import cloud.metaapi.sdk.clients.error_handler.ValidationException;
+
+/**
+ * Tests {@link PortfolioAggregator}
+ */
+class PortfolioAggregatorTest {
+
+  private static final Offset<Double> precision = Offset.offset(1e-9);
+
+  /**
+   * Tests {@link PortfolioAggregator#aggregate}
+   */
+  @Test
+  void testAggregatesAccounts() throws Exception {
+    PortfolioAggregator.Options opts = new PortfolioAggregator.Options();
+    opts.batchSize = 1;
+    Metrics portfolio = new PortfolioAggregator(opts).aggregate(createAccounts());
+    Assertions.assertThat(portfolio.balance).isEqualTo(2050);
+    Assertions.assertThat(portfolio.trades).isEqualTo(30);
+    Assertions.assertThat(portfolio.wonTradesPercent).isCloseTo(60, precision);
+    Assertions.assertThat(portfolio.dailyGrowth).extracting(m -> m.date)
+      .containsExactly("2020-01-01", "2020-01-02", "2020-01-03", "2020-01-05");
+    Assertions.assertThat(portfolio.dailyGrowth).extracting(m -> m.balance)
+      .containsExactly(1000.0, 2100.0, 2000.0, 2050.0);
+    Assertions.assertThat(portfolio.dailyGrowth).extracting(m -> m.profit)
+      .containsExactly(0.0, 100.0, -100.0, 50.0);
+    Assertions.assertThat(portfolio.dailyGrowth.get(1).gains).isCloseTo(100 / 20.0, precision);
+    Assertions.assertThat(portfolio.dailyGrowth.get(2).drawdownProfit).isCloseTo(100, precision);
+    Assertions.assertThat(portfolio.maxDrawdown).isCloseTo(100 / 21.0, precision);
+    Assertions.assertThat(portfolio.gain).isCloseTo((1.05 * (20 / 21.0) * (2050 / 2000.0) - 1) * 100, precision);
+    Assertions.assertThat(portfolio.currencySummary).extracting(m -> m.currency).containsExactly("EURUSD", "GBPUSD");
+    CurrencySummaryMetrics currency = portfolio.currencySummary.get(0);
+    Assertions.assertThat(currency.total.profit).isEqualTo(150);
+    Assertions.assertThat(currency.total.trades).isEqualTo(20);
+    Assertions.assertThat(currency.total.wonTradesPercent).isEqualTo(55);
+    Assertions.assertThat(currency.history).extracting(m -> m.date).containsExactly("2020-01-02", "2020-01-05");
+    Assertions.assertThat(currency.history.get(0).totalProfit).isEqualTo(100);
+    Assertions.assertThat(portfolio.periods.today.profit).isEqualTo(60);
+    Assertions.assertThat(portfolio.periods.today.gain).isCloseTo((1 * 1000 + 4 * 1050) / 2050.0, precision);
+    Assertions.assertThat(portfolio.periods.thisWeek).isNull();
+  }
+
+  /**
+   * Tests {@link PortfolioAggregator#aggregate}
+   */
+  @Test
+  void testParallelAggregationMatchesSequential() throws Exception {
+    List<Metrics> accounts = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      accounts.addAll(createAccounts());
+    }
+    PortfolioAggregator.Options opts = new PortfolioAggregator.Options();
+    opts.batchSize = 3;
+    Metrics parallel = new PortfolioAggregator(opts).aggregate(accounts);
+    opts.batchSize = accounts.size();
+    Metrics sequential = new PortfolioAggregator(opts).aggregate(accounts);
+    Assertions.assertThat(parallel).usingRecursiveComparison().isEqualTo(sequential);
+  }
+
+  /**
+   * Tests {@link PortfolioAggregator#PortfolioAggregator(PortfolioAggregator.Options)}
+   */
+  @Test
+  void testValidatesOptions() {
+    PortfolioAggregator.Options opts = new PortfolioAggregator.Options();
+    opts.batchSize = 0;
+    Assertions.assertThatThrownBy(() -> new PortfolioAggregator(opts)).isInstanceOf(ValidationException.class);
+  }
+
+  private List<Metrics> createAccounts() {
+    Metrics first = new Metrics();
+    first.balance = 1000;
+    first.trades = 10;
+    first.wonTradesPercent = 50.0;
+    first.dailyGrowth = Arrays.asList(day("2020-01-01", 1000, 0), day("2020-01-02", 1100, 100),
+      day("2020-01-03", 1000, -100));
+    first.currencySummary = Arrays.asList(currency("EURUSD", 100, 10, 5, day("2020-01-02", 100)),
+      currency("GBPUSD", -100, 10, 5, day("2020-01-03", -100)));
+    first.periods = new Periods();
+    first.periods.today = period(10, 1);
+    Metrics second = new Metrics();
+    second.balance = 1050;
+    second.trades = 20;
+    second.wonTradesPercent = 65.0;
+    second.dailyGrowth = Arrays.asList(day("2020-01-02", 1000, 0), day("2020-01-05", 1050, 50));
+    second.currencySummary = Arrays.asList(currency("EURUSD", 50, 10, 6, day("2020-01-05", 50)));
+    second.periods = new Periods();
+    second.periods.today = period(50, 4);
+    return Arrays.asList(first, second);
+  }
+
+  private DailyGrowthMetrics day(String date, double balance, double profit) {
+    DailyGrowthMetrics day = new DailyGrowthMetrics();
+    day.date = date;
+    day.balance = balance;
+    day.profit = profit;
+    return day;
+  }
+
+  private CurrencySummaryHistoryDayMetrics day(String date, double profit) {
+    CurrencySummaryHistoryDayMetrics day = new CurrencySummaryHistoryDayMetrics();
+    day.date = date;
+    day.totalProfit = profit;
+    return day;
+  }
+
+  private CurrencySummaryMetrics currency(String name, double profit, int trades, int wonTrades,
+    CurrencySummaryHistoryDayMetrics day) {
+    CurrencySummaryMetrics currency = new CurrencySummaryMetrics();
+    currency.currency = name;
+    currency.total = new CurrencySummaryTotalMetrics();
+    currency.total.profit = profit;
+    currency.total.trades = trades;
+    currency.total.wonTrades = wonTrades;
+    currency.history = Arrays.asList(day);
+    return currency;
+  }
+
+  private PeriodMetrics period(double profit, double gain) {
+    PeriodMetrics period = new PeriodMetrics();
+    period.profit = profit;
+    period.gain = gain;
+    return period;
+  }
+}